@@ -0,0 +1,12 @@
+package de.otto.synapse.channel.selector;
+
+/**
+ * {@link Selector} used to specify that the desired endpoint is a Kinesis message log that is only consuming the
+ * shards leased by the current instance of the service.
+ * <p>
+ *     The selector is only supported by {@link de.otto.synapse.annotation.EnableMessageLogReceiverEndpoint}. It
+ *     requires a {@link de.otto.synapse.leaderelection.ShardLeases} bean and must not be used for event sources,
+ *     as these need to consume all shards of a channel.
+ * </p>
+ */
+public interface LeasedKinesis extends Kinesis {}
@@ -1,15 +1,18 @@
 package de.otto.synapse.configuration.kinesis;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.configuration.SynapseAutoConfiguration;
 import de.otto.synapse.configuration.aws.AwsProperties;
 import de.otto.synapse.configuration.aws.SynapseAwsAuthConfiguration;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.ExecutorServiceFactory;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpointFactory;
 import de.otto.synapse.endpoint.receiver.kinesis.KinesisMessageLogReceiverEndpointFactory;
+import de.otto.synapse.endpoint.receiver.kinesis.LeasedKinesisMessageLogReceiverEndpointFactory;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpointFactory;
 import de.otto.synapse.endpoint.sender.kinesis.KinesisMessageSenderEndpointFactory;
+import de.otto.synapse.leaderelection.ShardLeases;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -30,10 +33,10 @@ import software.amazon.awssdk.core.retry.conditions.RetryOnExceptionsCondition;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 
-import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.slf4j.LoggerFactory.getLogger;
 import static software.amazon.awssdk.core.interceptor.SdkExecutionAttribute.OPERATION_NAME;
 import static software.amazon.awssdk.core.interceptor.SdkExecutionAttribute.SERVICE_NAME;
@@ -88,12 +91,27 @@ public class KinesisAutoConfiguration {
     @ConditionalOnMissingBean(name = "messageLogReceiverEndpointFactory")
     public MessageLogReceiverEndpointFactory messageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
                                                                                final KinesisAsyncClient kinesisClient,
-                                                                               final ApplicationEventPublisher eventPublisher) {
+                                                                               final ApplicationEventPublisher eventPublisher,
+                                                                               final ExecutorServiceFactory executorServiceFactory) {
         LOG.info("Auto-configuring Kinesis MessageLogReceiverEndpointFactory");
-        final ExecutorService executorService = newCachedThreadPool(
-                new ThreadFactoryBuilder().setNameFormat("kinesis-message-log-%d").build()
-        );
-        return new KinesisMessageLogReceiverEndpointFactory(interceptorRegistry, kinesisClient, executorService, eventPublisher);
+        final ExecutorService executorService = executorServiceFactory.newExecutorService("kinesis-message-log-");
+        return new KinesisMessageLogReceiverEndpointFactory(interceptorRegistry, kinesisClient, executorService, eventPublisher, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Factory used to create the endpoints of message-log receivers that are explicitly using the
+     * {@link de.otto.synapse.channel.selector.LeasedKinesis} selector. Endpoints selected by other selectors,
+     * including all endpoints of event sources, are not using shard leases.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "leasedKinesisMessageLogReceiverEndpointFactory")
+    public MessageLogReceiverEndpointFactory leasedKinesisMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
+                                                                                            final KinesisAsyncClient kinesisClient,
+                                                                                            final ApplicationEventPublisher eventPublisher,
+                                                                                            final ObjectProvider<ShardLeases> shardLeases,
+                                                                                            final ExecutorServiceFactory executorServiceFactory) {
+        final ExecutorService executorService = executorServiceFactory.newExecutorService("kinesis-leased-message-log-");
+        return new LeasedKinesisMessageLogReceiverEndpointFactory(interceptorRegistry, kinesisClient, executorService, eventPublisher, Clock.systemDefaultZone(), null, shardLeases.getIfAvailable());
     }
 
 
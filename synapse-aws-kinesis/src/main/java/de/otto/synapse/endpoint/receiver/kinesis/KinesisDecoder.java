@@ -7,36 +7,32 @@ import de.otto.synapse.translator.AbstractTextDecoder;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.kinesis.model.Record;
 
-import java.util.function.Function;
-
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static software.amazon.awssdk.core.SdkBytes.fromByteArray;
 
+/**
+ * Decodes Kinesis records into {@link TextMessage text messages}.
+ * <p>
+ *     The data of the records is not decoded into Strings: the payload of the messages is kept as UTF-8 encoded
+ *     bytes until it is accessed.
+ * </p>
+ */
 public class KinesisDecoder extends AbstractTextDecoder<RecordWithShard> {
 
-    private static final SdkBytes EMPTY_SDK_BYTES_BUFFER = fromByteArray(new byte[]{});
-
-    private static final Function<SdkBytes, String> SDK_BYTES_STRING = sdkBytes -> {
-        if (sdkBytes == null || sdkBytes.equals(EMPTY_SDK_BYTES_BUFFER)) {
-            return null;
-        } else {
-            return sdkBytes.asString(UTF_8);
-        }
-    };
+    private static final byte[] EMPTY_BYTES = new byte[0];
 
     @Override
     public TextMessage apply(RecordWithShard recordWithShard) {
         final Record record = recordWithShard.getRecord();
         final String shardName = recordWithShard.getShardName();
+        final SdkBytes data = record.data();
+        final byte[] bytes = data != null ? data.asByteArray() : EMPTY_BYTES;
         return decode(
                 Key.of(record.partitionKey()),
                 Header.builder()
                         .withAttribute(MSG_ARRIVAL_TS, record.approximateArrivalTimestamp())
                         .withShardPosition(fromPosition(shardName, record.sequenceNumber())).build(),
-                SDK_BYTES_STRING.apply(record.data()));
+                bytes, 0, bytes.length);
     }
 
-
 }
@@ -5,6 +5,7 @@ import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ChannelResponse;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.channel.ShardResponse;
+import de.otto.synapse.leaderelection.ShardLeases;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
@@ -15,6 +16,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -22,6 +24,7 @@ import java.util.function.Predicate;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ChannelPosition.merge;
 import static de.otto.synapse.channel.ChannelResponse.channelResponse;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.stream.Collectors.toList;
@@ -43,7 +46,8 @@ public class KinesisMessageLogReader {
     private final int waitingTimeOnEmptyRecords;
 
     private final Marker marker;
-
+    private final ShardLeases shardLeases;
+    private final AtomicBoolean stopSignal = new AtomicBoolean(false);
 
     public KinesisMessageLogReader(final String channelName,
                                    final KinesisAsyncClient kinesisClient,
@@ -56,6 +60,26 @@ public class KinesisMessageLogReader {
                                    final KinesisAsyncClient kinesisClient,
                                    final ExecutorService executorService,
                                    final Clock clock, final int waitingTimeOnEmptyRecords, final Marker marker) {
+        this(channelName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker, null);
+    }
+
+    /**
+     * @param channelName the name of the Kinesis stream
+     * @param kinesisClient the client used to access Kinesis
+     * @param executorService the ExecutorService used to read the shards
+     * @param clock the clock
+     * @param waitingTimeOnEmptyRecords number of millis to wait after an empty response
+     * @param marker optional Marker used for logging
+     * @param shardLeases optional ShardLeases used to only consume the share of the shards that is leased by this
+     *                    instance. If {@code null}, all open shards are consumed.
+     */
+    public KinesisMessageLogReader(final String channelName,
+                                   final KinesisAsyncClient kinesisClient,
+                                   final ExecutorService executorService,
+                                   final Clock clock,
+                                   final int waitingTimeOnEmptyRecords,
+                                   final Marker marker,
+                                   final ShardLeases shardLeases) {
         this.channelName = channelName;
         this.kinesisClient = kinesisClient;
         this.executorService = executorService;
@@ -64,12 +88,22 @@ public class KinesisMessageLogReader {
         this.waitingTimeOnEmptyRecords = waitingTimeOnEmptyRecords;
 
         this.marker = marker;
+        this.shardLeases = shardLeases;
     }
 
     public String getChannelName() {
         return channelName;
     }
 
+    /**
+     * Returns true, if this reader is only consuming the shards leased by this instance.
+     *
+     * @return boolean
+     */
+    public boolean isLeasingShards() {
+        return shardLeases != null;
+    }
+
     public List<String> getOpenShards() {
         if (kinesisShardReaders.get() == null) {
             initShards();
@@ -147,6 +181,9 @@ public class KinesisMessageLogReader {
     public CompletableFuture<ChannelPosition> consumeUntil(final ChannelPosition startFrom,
                                                            final Predicate<ShardResponse> stopCondition,
                                                            final Consumer<ShardResponse> consumer) {
+        if (shardLeases != null) {
+            return consumeLeasedShardsUntil(startFrom, stopCondition, consumer);
+        }
         if (kinesisShardReaders.get() == null) {
             initShards();
         }
@@ -174,6 +211,92 @@ public class KinesisMessageLogReader {
         }
     }
 
+    /**
+     * Consumes the shards leased by this instance. Whenever the leases are changing, all shard readers are
+     * stopped and restarted at the last checkpoints using the new set of leased shards.
+     */
+    private CompletableFuture<ChannelPosition> consumeLeasedShardsUntil(final ChannelPosition startFrom,
+                                                                        final Predicate<ShardResponse> stopCondition,
+                                                                        final Consumer<ShardResponse> consumer) {
+        stopSignal.set(false);
+        final Set<String> openShards = retrieveAllOpenShards();
+        return supplyAsync(() -> {
+            try {
+                return consumeLeasedShards(openShards, startFrom, stopCondition, consumer);
+            } finally {
+                shardLeases.release(channelName);
+            }
+        }, executorService);
+    }
+
+    private ChannelPosition consumeLeasedShards(final Set<String> openShards,
+                                                final ChannelPosition startFrom,
+                                                final Predicate<ShardResponse> stopCondition,
+                                                final Consumer<ShardResponse> consumer) {
+        ChannelPosition channelPosition = startFrom;
+        while (!stopSignal.get()) {
+            final Set<String> leasedShards = shardLeases.acquire(channelName, openShards);
+            LOG.info(marker, "Consuming leased shards {} of channel {}", leasedShards, channelName);
+            if (leasedShards.isEmpty()) {
+                // Nothing to do for this instance until the shards are rebalanced or the reader is stopped:
+                waitForRebalance(leasedShards);
+                continue;
+            }
+            final AtomicBoolean rebalanced = new AtomicBoolean(false);
+            final Predicate<ShardResponse> leasesChanged = response -> {
+                if (!shardLeases.leasedShards(channelName).equals(leasedShards)) {
+                    rebalanced.set(true);
+                    return true;
+                }
+                return false;
+            };
+            final List<KinesisShardReader> shardReaders = leasedShards
+                    .stream()
+                    .map(shardName -> new KinesisShardReader(channelName, shardName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker))
+                    .collect(toList());
+            kinesisShardReaders.set(shardReaders);
+            final ChannelPosition currentPosition = channelPosition;
+            final List<CompletableFuture<ShardPosition>> futureShardPositions = shardReaders
+                    .stream()
+                    .map(shard -> shard.consumeUntil(
+                            shardLeases.getCheckpoint(channelName, shard.getShardName()).orElse(currentPosition.shard(shard.getShardName())),
+                            stopCondition.or(leasesChanged),
+                            response -> {
+                                consumer.accept(response);
+                                shardLeases.checkpoint(channelName, response.getShardPosition());
+                            }))
+                    .collect(toList());
+            try {
+                channelPosition = merge(channelPosition, channelPosition(futureShardPositions
+                        .stream()
+                        .map(CompletableFuture::join)
+                        .collect(toList())));
+            } catch (final RuntimeException e) {
+                stop();
+                this.kinesisShardReaders.set(null);
+                throw e;
+            }
+            if (!rebalanced.get() && !stopSignal.get()) {
+                return channelPosition;
+            }
+            if (rebalanced.get()) {
+                LOG.info(marker, "Shard leases of channel {} have changed", channelName);
+            }
+        }
+        return channelPosition;
+    }
+
+    private void waitForRebalance(final Set<String> leasedShards) {
+        try {
+            while (!stopSignal.get() && shardLeases.leasedShards(channelName).equals(leasedShards)) {
+                Thread.sleep(waitingTimeOnEmptyRecords);
+            }
+        } catch (final InterruptedException e) {
+            LOG.warn(marker, "Thread got interrupted");
+            stopSignal.set(true);
+        }
+    }
+
     private void initShards() {
         final Set<String> openShards = retrieveAllOpenShards();
         this.kinesisShardReaders.set(openShards
@@ -195,6 +318,7 @@ public class KinesisMessageLogReader {
 
     public void stop() {
         LOG.info("Channel {} received stop signal.", getChannelName());
+        stopSignal.set(true);
         if (kinesisShardReaders.get() != null) {
             this.kinesisShardReaders.get().forEach(KinesisShardReader::stop);
         }
@@ -6,9 +6,11 @@ import de.otto.synapse.channel.ChannelDurationBehind;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardResponse;
 import de.otto.synapse.consumer.MessageDispatcher;
+import de.otto.synapse.endpoint.CachedInterceptorChain;
 import de.otto.synapse.endpoint.InterceptorChain;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.AbstractMessageLogReceiverEndpoint;
+import de.otto.synapse.leaderelection.ShardLeases;
 import de.otto.synapse.message.TextMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +33,7 @@ import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
 import static de.otto.synapse.info.MessageReceiverNotification.builder;
 import static de.otto.synapse.info.MessageReceiverStatus.*;
 import static de.otto.synapse.logging.LogHelper.info;
+import static java.util.Collections.emptyList;
 
 public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceiverEndpoint {
 
@@ -38,7 +41,7 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
 
     private static class KinesisShardResponseConsumer implements Consumer<ShardResponse> {
         private final AtomicReference<ChannelDurationBehind> channelDurationBehind = new AtomicReference<>();
-        private final MessageInterceptorRegistry interceptorRegistry;
+        private final CachedInterceptorChain interceptorChain;
         private final String channelName;
         private final MessageDispatcher messageDispatcher;
         private final ApplicationEventPublisher eventPublisher;
@@ -50,17 +53,17 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
                                              final ApplicationEventPublisher eventPublisher) {
             this.channelName = channelName;
             this.messageDispatcher = messageDispatcher;
-            this.interceptorRegistry = interceptorRegistry;
+            this.interceptorChain = interceptorRegistry.getCachedInterceptorChain(channelName, RECEIVER);
             this.eventPublisher = eventPublisher;
             channelDurationBehind.set(unknown(shardNames));
         }
 
         @Override
         public void accept(final ShardResponse response) {
-            final InterceptorChain interceptorChain = interceptorRegistry.getInterceptorChain(channelName, RECEIVER);
+            final InterceptorChain interceptorChain = this.interceptorChain.get();
             response.getMessages().forEach(message -> {
                 try {
-                    LOG.debug("Processing message " + message.getKey());
+                    LOG.debug("Processing message {}", message.getKey());
                     final TextMessage interceptedMessage = interceptorChain.intercept(message);
                     if (interceptedMessage != null) {
                         messageDispatcher.accept(interceptedMessage);
@@ -121,9 +124,21 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
                                              final Clock clock,
                                              final int waitingTimeOnEmptyRecords,
                                              final Marker marker) {
+        this(channelName, interceptorRegistry, kinesisClient, executorService, eventPublisher, clock, waitingTimeOnEmptyRecords, marker, null);
+    }
+
+    public KinesisMessageLogReceiverEndpoint(final String channelName,
+                                             final MessageInterceptorRegistry interceptorRegistry,
+                                             final KinesisAsyncClient kinesisClient,
+                                             final ExecutorService executorService,
+                                             final ApplicationEventPublisher eventPublisher,
+                                             final Clock clock,
+                                             final int waitingTimeOnEmptyRecords,
+                                             final Marker marker,
+                                             final ShardLeases shardLeases) {
         super(channelName, interceptorRegistry, eventPublisher);
         this.eventPublisher = eventPublisher;
-        this.kinesisMessageLogReader = new KinesisMessageLogReader(channelName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker);
+        this.kinesisMessageLogReader = new KinesisMessageLogReader(channelName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker, shardLeases);
         this.interceptorRegistry = interceptorRegistry;
     }
 
@@ -132,7 +147,11 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
                                                            final @Nonnull Predicate<ShardResponse> stopCondition) {
             publishEvent(STARTING, "Consuming messages from Kinesis.", null);
             final long t1 = System.currentTimeMillis();
-            final List<String> shards = kinesisMessageLogReader.getOpenShards();
+            // Shards leased by other instances are not reported, so only the shards consumed by this instance
+            // are contributing to the duration behind:
+            final List<String> shards = kinesisMessageLogReader.isLeasingShards()
+                    ? emptyList()
+                    : kinesisMessageLogReader.getOpenShards();
 
             publishEvent(STARTED, "Received shards from Kinesis.", null);
 
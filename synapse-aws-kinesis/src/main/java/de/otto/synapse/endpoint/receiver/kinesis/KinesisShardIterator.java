@@ -2,6 +2,7 @@ package de.otto.synapse.endpoint.receiver.kinesis;
 
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.channel.ShardResponse;
+import de.otto.synapse.metrics.PipelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
@@ -14,6 +15,7 @@ import javax.annotation.Nonnull;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
 import static java.lang.String.format;
 import static software.amazon.awssdk.services.kinesis.model.ShardIteratorType.*;
 
@@ -101,10 +103,17 @@ public class KinesisShardIterator {
 
     public ShardResponse next() {
         if (!stopSignal.get()) {
+            final PipelineMetrics metrics = currentMetrics();
+            final long started = metrics.isEnabled() ? System.nanoTime() : 0L;
             GetRecordsResponse recordsResponse = tryNextWithRetry();
             if (recordsResponse.records() == null || recordsResponse.records().size() == 0) {
                 LOG.debug("GetRecordsResponse contains no records.");
             }
+            if (metrics.isEnabled()) {
+                final int batchSize = recordsResponse.records() != null ? recordsResponse.records().size() : 0;
+                metrics.recordPoll(channelName, shardPosition.shardName(), batchSize, System.nanoTime() - started);
+                metrics.recordReceived(channelName, shardPosition.shardName(), batchSize);
+            }
             return KinesisShardResponse.kinesisShardResponse(shardPosition, recordsResponse);
         } else {
             throw new IllegalStateException(format("Cannot iterate on shard '%s' after stop signal was received", shardPosition.shardName()));
@@ -163,7 +172,7 @@ public class KinesisShardIterator {
             throw new RuntimeException("millisBehindLatest inside a GetRecordsResponse was null. The response was: " + response.toString());
         }
         this.id = response.nextShardIterator();
-        LOG.debug("next() with id " + this.id + " returned " + response.records().size() + " records");
+        LOG.debug("next() with id {} returned {} records", this.id, response.records().size());
         if (!response.records().isEmpty()) {
             this.shardPosition = fromPosition(
                     shardPosition.shardName(),
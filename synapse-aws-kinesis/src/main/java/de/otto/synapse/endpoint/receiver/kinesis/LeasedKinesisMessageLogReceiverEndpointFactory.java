@@ -0,0 +1,91 @@
+package de.otto.synapse.endpoint.receiver.kinesis;
+
+import de.otto.synapse.channel.selector.LeasedKinesis;
+import de.otto.synapse.channel.selector.Selector;
+import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
+import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpointFactory;
+import de.otto.synapse.leaderelection.ShardLeases;
+import org.slf4j.Marker;
+import org.springframework.context.ApplicationEventPublisher;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+
+import static de.otto.synapse.endpoint.receiver.kinesis.KinesisMessageLogReader.DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS;
+import static java.lang.String.format;
+
+/**
+ * Factory used to create {@link KinesisMessageLogReceiverEndpoint}s that are only consuming the shards leased by
+ * the current instance of the service.
+ * <p>
+ *     Leasing is opt-in: the factory is only selected for endpoints that are explicitly using the
+ *     {@link LeasedKinesis} selector. Other selectors like {@link de.otto.synapse.channel.selector.MessageLog} or
+ *     {@link de.otto.synapse.channel.selector.Kinesis} are never matching this factory, so endpoints that are
+ *     backing an {@link de.otto.synapse.eventsource.EventSource} are always consuming all shards of the channel.
+ * </p>
+ */
+public class LeasedKinesisMessageLogReceiverEndpointFactory implements MessageLogReceiverEndpointFactory {
+
+    private final MessageInterceptorRegistry interceptorRegistry;
+    private final KinesisAsyncClient kinesisClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final ExecutorService executorService;
+    private final Marker marker;
+    private final ShardLeases shardLeases;
+
+    /**
+     * @param interceptorRegistry registry used to determine the interceptors of the endpoints
+     * @param kinesisClient the client used to access Kinesis
+     * @param kinesisMessageLogExecutorService the ExecutorService used to read the shards
+     * @param eventPublisher publisher used to publish receiver notifications
+     * @param clock the clock
+     * @param marker optional Marker used for logging
+     * @param shardLeases the ShardLeases used to split the shards of the channels between multiple instances
+     *                    of the service. If {@code null}, creating endpoints will fail.
+     */
+    public LeasedKinesisMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
+                                                          final KinesisAsyncClient kinesisClient,
+                                                          final ExecutorService kinesisMessageLogExecutorService,
+                                                          final ApplicationEventPublisher eventPublisher,
+                                                          final Clock clock,
+                                                          final Marker marker,
+                                                          final ShardLeases shardLeases) {
+        this.interceptorRegistry = interceptorRegistry;
+        this.kinesisClient = kinesisClient;
+        this.executorService = kinesisMessageLogExecutorService;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.marker = marker;
+        this.shardLeases = shardLeases;
+    }
+
+    @Override
+    public MessageLogReceiverEndpoint create(@Nonnull String channelName) {
+        if (shardLeases == null) {
+            throw new IllegalStateException(format("Unable to create leased MessageLogReceiverEndpoint for channelName=%s: no ShardLeases found in the ApplicationContext.", channelName));
+        }
+        return new KinesisMessageLogReceiverEndpoint(channelName, interceptorRegistry, kinesisClient, executorService, eventPublisher, clock, DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS, marker, shardLeases);
+    }
+
+    /**
+     * Only matches the {@link LeasedKinesis} selector, so leasing is never applied to endpoints selected by more
+     * general selectors.
+     *
+     * @param channelSelector the selector of the channel
+     * @return true, if the selector is {@code LeasedKinesis}
+     */
+    @Override
+    public boolean matches(Class<? extends Selector> channelSelector) {
+        return channelSelector.equals(selector());
+    }
+
+    @Override
+    public Class<? extends Selector> selector() {
+        return LeasedKinesis.class;
+    }
+
+}
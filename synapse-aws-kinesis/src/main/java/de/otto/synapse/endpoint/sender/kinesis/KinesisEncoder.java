@@ -1,6 +1,7 @@
 package de.otto.synapse.endpoint.sender.kinesis;
 
 import de.otto.synapse.message.Message;
+import de.otto.synapse.translator.BinaryMessageCodec;
 import de.otto.synapse.translator.Encoder;
 import de.otto.synapse.translator.MessageFormat;
 import de.otto.synapse.translator.TextEncoder;
@@ -9,20 +10,34 @@ import software.amazon.awssdk.services.kinesis.model.PutRecordsRequestEntry;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * Encodes messages into Kinesis records.
+ * <p>
+ *     Messages in {@link MessageFormat#V3} format are written using the binary representation, all other
+ *     formats are written as UTF-8 encoded text.
+ * </p>
+ */
 class KinesisEncoder implements Encoder<PutRecordsRequestEntry> {
 
+    private final MessageFormat messageFormat;
     private final TextEncoder textEncoder;
 
     KinesisEncoder(final MessageFormat messageFormat) {
+        this.messageFormat = messageFormat;
         this.textEncoder = new TextEncoder(messageFormat);
     }
 
     @Override
     public PutRecordsRequestEntry apply(final Message<String> message) {
-        final String encodedMessage = textEncoder.apply(message);
-        final SdkBytes sdkBytes = encodedMessage != null
-                ? SdkBytes.fromString(encodedMessage, UTF_8)
-                : SdkBytes.fromByteArray(new byte[]{});
+        final SdkBytes sdkBytes;
+        if (messageFormat == MessageFormat.V3) {
+            sdkBytes = SdkBytes.fromByteArray(BinaryMessageCodec.encode(message));
+        } else {
+            final String encodedMessage = textEncoder.apply(message);
+            sdkBytes = encodedMessage != null
+                    ? SdkBytes.fromString(encodedMessage, UTF_8)
+                    : SdkBytes.fromByteArray(new byte[]{});
+        }
 
         return PutRecordsRequestEntry.builder()
                 .partitionKey(message.getKey().partitionKey())
@@ -18,6 +18,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
 import static de.otto.synapse.translator.MessageFormat.defaultMessageFormat;
 import static java.util.stream.Collectors.toCollection;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -99,6 +100,7 @@ public class KinesisMessageSender extends AbstractMessageSenderEndpoint {
             while (!blockingSendBatch(batch)) {
                 currentRetry++;
                 LOG.warn("retry to send batch of size '{}' to kinesis for nth time: {}", batch.size(), currentRetry);
+                currentMetrics().recordSendRetry(getChannelName());
                 if (currentRetry >= MAX_RETRIES) {
                     throw new RetryLimitExceededException("Exceeded maximum number of retries.", MAX_RETRIES);
                 }
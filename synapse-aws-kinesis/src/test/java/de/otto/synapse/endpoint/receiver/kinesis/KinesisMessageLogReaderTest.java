@@ -3,8 +3,10 @@ package de.otto.synapse.endpoint.receiver.kinesis;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ChannelResponse;
 import de.otto.synapse.channel.ShardResponse;
+import de.otto.synapse.leaderelection.ShardLeases;
 import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.testsupport.TestClock;
+import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -29,10 +31,12 @@ import software.amazon.awssdk.services.kinesis.model.StreamDescription;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static com.google.common.collect.ImmutableList.of;
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
@@ -282,6 +286,61 @@ public class KinesisMessageLogReaderTest {
         ));
     }
 
+    @Test
+    public void shouldOnlyConsumeLeasedShards() throws ExecutionException, InterruptedException {
+        // given
+        describeStreamResponse(
+                of(
+                        someShard("shard1", true),
+                        someShard("shard2", true)
+                )
+        );
+        describeRecordsForShard("shard1", false);
+        final ShardLeases shardLeases = mock(ShardLeases.class);
+        when(shardLeases.acquire(eq("channelName"), anyCollection())).thenReturn(ImmutableSet.of("shard1"));
+        when(shardLeases.leasedShards("channelName")).thenReturn(ImmutableSet.of("shard1"));
+        when(shardLeases.getCheckpoint("channelName", "shard1")).thenReturn(Optional.empty());
+
+        logReader = new KinesisMessageLogReader("channelName", kinesisClient, executorService, clock, 0, null, shardLeases);
+
+        // when
+        ChannelPosition position = logReader.consumeUntil(fromHorizon(), endOfChannel(), responseConsumer).get();
+
+        // then
+        verify(responseConsumer, times(3)).accept(responseArgumentCaptor.capture());
+        assertThat(responseArgumentCaptor.getAllValues().stream().map(ShardResponse::getShardName).collect(toSet()), contains("shard1"));
+        assertThat(position, is(channelPosition(fromPosition("shard1", "2"))));
+        verify(shardLeases).checkpoint("channelName", fromPosition("shard1", "2"));
+        verify(shardLeases).release("channelName");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldWaitForLeasesWithoutTestingStopConditionIfNoShardIsLeased() throws ExecutionException, InterruptedException, TimeoutException {
+        // given
+        describeStreamResponse(
+                of(
+                        someShard("shard1", true)
+                )
+        );
+        final ShardLeases shardLeases = mock(ShardLeases.class);
+        when(shardLeases.acquire(eq("channelName"), anyCollection())).thenReturn(ImmutableSet.of());
+        when(shardLeases.leasedShards("channelName")).thenReturn(ImmutableSet.of());
+        final Predicate<ShardResponse> stopCondition = mock(Predicate.class);
+
+        logReader = new KinesisMessageLogReader("channelName", kinesisClient, executorService, clock, 10, null, shardLeases);
+
+        // when
+        final CompletableFuture<ChannelPosition> futurePosition = logReader.consumeUntil(fromHorizon(), stopCondition, responseConsumer);
+        Thread.sleep(50);
+        logReader.stop();
+
+        // then
+        assertThat(futurePosition.get(1, TimeUnit.SECONDS), is(fromHorizon()));
+        verifyZeroInteractions(stopCondition, responseConsumer);
+        verify(shardLeases).release("channelName");
+    }
+
     @Test
     public void shouldIterateResponses() throws ExecutionException, InterruptedException {
         // given
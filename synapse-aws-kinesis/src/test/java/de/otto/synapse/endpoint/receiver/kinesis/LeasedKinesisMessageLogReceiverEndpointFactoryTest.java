@@ -0,0 +1,60 @@
+package de.otto.synapse.endpoint.receiver.kinesis;
+
+import de.otto.synapse.channel.selector.Kinesis;
+import de.otto.synapse.channel.selector.LeasedKinesis;
+import de.otto.synapse.channel.selector.MessageLog;
+import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
+import de.otto.synapse.leaderelection.ShardLeases;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
+
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class LeasedKinesisMessageLogReceiverEndpointFactoryTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+    private final KinesisAsyncClient kinesisClient = mock(KinesisAsyncClient.class);
+    private final ExecutorService executorService = mock(ExecutorService.class);
+
+    @Test
+    public void shouldOnlyMatchLeasedKinesisSelector() {
+        // given
+        final LeasedKinesisMessageLogReceiverEndpointFactory factory = new LeasedKinesisMessageLogReceiverEndpointFactory(registry, kinesisClient, executorService, eventPublisher, Clock.systemDefaultZone(), null, mock(ShardLeases.class));
+
+        // then
+        assertThat(factory.matches(LeasedKinesis.class), is(true));
+        assertThat(factory.matches(Kinesis.class), is(false));
+        assertThat(factory.matches(MessageLog.class), is(false));
+    }
+
+    @Test
+    public void shouldBuildLeasingEndpoint() {
+        // given
+        final LeasedKinesisMessageLogReceiverEndpointFactory factory = new LeasedKinesisMessageLogReceiverEndpointFactory(registry, kinesisClient, executorService, eventPublisher, Clock.systemDefaultZone(), null, mock(ShardLeases.class));
+
+        // when
+        final MessageLogReceiverEndpoint endpoint = factory.create("some-channel");
+
+        // then
+        assertThat(endpoint, is(instanceOf(KinesisMessageLogReceiverEndpoint.class)));
+        assertThat(endpoint.getChannelName(), is("some-channel"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailToBuildEndpointWithoutShardLeases() {
+        // given
+        final LeasedKinesisMessageLogReceiverEndpointFactory factory = new LeasedKinesisMessageLogReceiverEndpointFactory(registry, kinesisClient, executorService, eventPublisher, Clock.systemDefaultZone(), null, null);
+
+        // when
+        factory.create("some-channel");
+    }
+}
@@ -4,6 +4,7 @@ import de.otto.synapse.configuration.SynapseAutoConfiguration;
 import de.otto.synapse.configuration.aws.AwsProperties;
 import de.otto.synapse.configuration.aws.SynapseAwsAuthConfiguration;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.ExecutorServiceFactory;
 import de.otto.synapse.endpoint.receiver.MessageQueueReceiverEndpointFactory;
 import de.otto.synapse.endpoint.receiver.sqs.SqsMessageQueueReceiverEndpointFactory;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpointFactory;
@@ -77,9 +78,10 @@ public class SqsAutoConfiguration {
     @ConditionalOnMissingBean(name = "messageQueueReceiverEndpointFactory")
     public MessageQueueReceiverEndpointFactory messageQueueReceiverEndpointFactory(final MessageInterceptorRegistry registry,
                                                                                    final SqsAsyncClient sqsAsyncClient,
-                                                                                   final ApplicationEventPublisher eventPublisher) {
+                                                                                   final ApplicationEventPublisher eventPublisher,
+                                                                                   final ExecutorServiceFactory executorServiceFactory) {
 
-        return new SqsMessageQueueReceiverEndpointFactory(registry, sqsAsyncClient, eventPublisher);
+        return new SqsMessageQueueReceiverEndpointFactory(registry, sqsAsyncClient, eventPublisher, executorServiceFactory);
     }
 
 }
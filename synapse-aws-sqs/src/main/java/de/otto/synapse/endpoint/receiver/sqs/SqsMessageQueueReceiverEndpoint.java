@@ -7,6 +7,8 @@ import de.otto.synapse.endpoint.receiver.MessageQueueReceiverEndpoint;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
+import de.otto.synapse.translator.AbstractTextDecoder;
 import org.slf4j.Logger;
 import org.springframework.context.ApplicationEventPublisher;
 import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
@@ -20,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static de.otto.synapse.message.Key.NO_KEY;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
 import static java.time.Duration.ofMillis;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -56,6 +59,7 @@ public class SqsMessageQueueReceiverEndpoint extends AbstractMessageReceiverEndp
     private final String queueUrl;
     private final AtomicBoolean stopSignal = new AtomicBoolean(false);
     private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    private final SqsDecoder decoder = new SqsDecoder();
 
     public SqsMessageQueueReceiverEndpoint(final @Nonnull String channelName,
                                            final @Nonnull MessageInterceptorRegistry interceptorRegistry,
@@ -97,12 +101,22 @@ public class SqsMessageQueueReceiverEndpoint extends AbstractMessageReceiverEndp
     private void receiveAndProcess() {
         try {
             LOG.debug("Sending receiveMessage request...");
+            final PipelineMetrics metrics = currentMetrics();
+            final long started = metrics.isEnabled() ? System.nanoTime() : 0L;
             sqsAsyncClient.receiveMessage(ReceiveMessageRequest.builder()
                     .queueUrl(queueUrl)
                     .visibilityTimeout(VISIBILITY_TIMEOUT)
                     .messageAttributeNames(".*")
                     .waitTimeSeconds(WAIT_TIME_SECONDS)
                     .build())
+                    .thenApply(response -> {
+                        if (metrics.isEnabled()) {
+                            final int batchSize = response.messages() != null ? response.messages().size() : 0;
+                            metrics.recordPoll(getChannelName(), null, batchSize, System.nanoTime() - started);
+                            metrics.recordReceived(getChannelName(), null, batchSize);
+                        }
+                        return response;
+                    })
                     .thenAccept(this::processResponse)
                     .join();
         } catch (Exception e) {
@@ -122,10 +136,7 @@ public class SqsMessageQueueReceiverEndpoint extends AbstractMessageReceiverEndp
     private void processMessage(software.amazon.awssdk.services.sqs.model.Message sqsMessage) {
         LOG.debug("Processing message from channel={}: messageId={} receiptHandle={}, messageAttributes={}", getChannelName(), sqsMessage.messageId(), sqsMessage.receiptHandle(), sqsMessage.messageAttributes());
         try {
-            final TextMessage message = TextMessage.of(
-                    messageKeyOf(sqsMessage),
-                    Header.of(null, messageAttributesOf(sqsMessage)),
-                    sqsMessage.body());
+            final TextMessage message = decoder.apply(sqsMessage);
 
             final TextMessage interceptedMessage = intercept(message);
             if (interceptedMessage != null) {
@@ -201,4 +212,19 @@ public class SqsMessageQueueReceiverEndpoint extends AbstractMessageReceiverEndp
         }
     }
 
+    /**
+     * Decodes SQS messages, using the message attributes as key and header of the message. Message bodies
+     * containing messages in V2 or V3 format are decoded, so key and header attributes of the encoded message are
+     * taking precedence.
+     */
+    private final class SqsDecoder extends AbstractTextDecoder<software.amazon.awssdk.services.sqs.model.Message> {
+
+        @Override
+        public TextMessage apply(final software.amazon.awssdk.services.sqs.model.Message sqsMessage) {
+            return decode(
+                    messageKeyOf(sqsMessage),
+                    Header.of(null, messageAttributesOf(sqsMessage)),
+                    sqsMessage.body());
+        }
+    }
 }
@@ -1,7 +1,7 @@
 package de.otto.synapse.endpoint.receiver.sqs;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.ExecutorServiceFactory;
 import de.otto.synapse.endpoint.receiver.MessageQueueReceiverEndpoint;
 import de.otto.synapse.endpoint.receiver.MessageQueueReceiverEndpointFactory;
 import org.slf4j.Logger;
@@ -11,7 +11,7 @@ import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import javax.annotation.Nonnull;
 import java.util.concurrent.ExecutorService;
 
-import static java.util.concurrent.Executors.newCachedThreadPool;
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.platformThreads;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class SqsMessageQueueReceiverEndpointFactory implements MessageQueueReceiverEndpointFactory {
@@ -21,21 +21,28 @@ public class SqsMessageQueueReceiverEndpointFactory implements MessageQueueRecei
     private final MessageInterceptorRegistry registry;
     private final SqsAsyncClient sqsAsyncClient;
     private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorServiceFactory executorServiceFactory;
 
     public SqsMessageQueueReceiverEndpointFactory(final MessageInterceptorRegistry registry,
                                                   final SqsAsyncClient sqsAsyncClient,
                                                   final ApplicationEventPublisher eventPublisher) {
+        this(registry, sqsAsyncClient, eventPublisher, platformThreads());
+    }
+
+    public SqsMessageQueueReceiverEndpointFactory(final MessageInterceptorRegistry registry,
+                                                  final SqsAsyncClient sqsAsyncClient,
+                                                  final ApplicationEventPublisher eventPublisher,
+                                                  final ExecutorServiceFactory executorServiceFactory) {
         this.registry = registry;
         this.sqsAsyncClient = sqsAsyncClient;
         this.eventPublisher = eventPublisher;
+        this.executorServiceFactory = executorServiceFactory;
     }
 
     @Override
     public MessageQueueReceiverEndpoint create(@Nonnull String channelName) {
         LOG.info("Auto-configuring SQS MessageQueueReceiverEndpointFactory");
-        final ExecutorService executorService = newCachedThreadPool(
-                new ThreadFactoryBuilder().setNameFormat("sqs-message-queue-%d").build()
-        );
+        final ExecutorService executorService = executorServiceFactory.newExecutorService("sqs-message-queue-");
         return new SqsMessageQueueReceiverEndpoint(channelName, registry, sqsAsyncClient, executorService, eventPublisher);
     }
 }
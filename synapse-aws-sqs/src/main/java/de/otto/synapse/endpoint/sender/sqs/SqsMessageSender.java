@@ -4,6 +4,8 @@ import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.sender.AbstractMessageSenderEndpoint;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.translator.BinaryMessageCodec;
+import de.otto.synapse.translator.MessageFormat;
 import de.otto.synapse.translator.MessageTranslator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,15 +29,43 @@ public class SqsMessageSender extends AbstractMessageSenderEndpoint {
 
     private final String queueUrl;
     private final SqsAsyncClient sqsAsyncClient;
+    private final MessageFormat messageFormat;
 
     public SqsMessageSender(final String channelName,
                             final String queueUrl,
                             final MessageInterceptorRegistry interceptorRegistry,
                             final MessageTranslator<TextMessage> messageTranslator,
                             final SqsAsyncClient sqsAsyncClient) {
+        this(channelName, queueUrl, interceptorRegistry, messageTranslator, sqsAsyncClient, MessageFormat.V1);
+    }
+
+    /**
+     * Creates a SqsMessageSender.
+     *
+     * @param channelName the name of the channel
+     * @param queueUrl the URL of the SQS queue
+     * @param interceptorRegistry registry used to determine the message interceptors of the sender
+     * @param messageTranslator translator used to translate messages into text messages
+     * @param sqsAsyncClient the client used to send messages
+     * @param messageFormat the format of the messages. If {@link MessageFormat#V3} is used, the whole message is
+     *                      sent as message body. In all other formats, the header attributes are sent as SQS
+     *                      message attributes.
+     */
+    public SqsMessageSender(final String channelName,
+                            final String queueUrl,
+                            final MessageInterceptorRegistry interceptorRegistry,
+                            final MessageTranslator<TextMessage> messageTranslator,
+                            final SqsAsyncClient sqsAsyncClient,
+                            final MessageFormat messageFormat) {
         super(channelName, interceptorRegistry, messageTranslator);
         this.queueUrl = queueUrl;
         this.sqsAsyncClient = sqsAsyncClient;
+        this.messageFormat = messageFormat == MessageFormat.V3 ? MessageFormat.V3 : MessageFormat.V1;
+    }
+
+    @Override
+    public MessageFormat getMessageFormat() {
+        return messageFormat;
     }
 
     @Override
@@ -70,7 +100,7 @@ public class SqsMessageSender extends AbstractMessageSenderEndpoint {
                         messageStream.map(message -> SendMessageBatchRequestEntry.builder()
                                 .id(valueOf(id.getAndIncrement()))
                                 .messageAttributes(of(message))
-                                .messageBody(message.getPayload())
+                                .messageBody(bodyOf(message))
                                 .build()).collect(toList())
                 )
                 .build();
@@ -80,19 +110,27 @@ public class SqsMessageSender extends AbstractMessageSenderEndpoint {
         return SendMessageRequest.builder()
                 .queueUrl(queueUrl)
                 .messageAttributes(of(message))
-                .messageBody(message.getPayload())
+                .messageBody(bodyOf(message))
                 .build();
     }
 
+    private String bodyOf(final @Nonnull TextMessage message) {
+        return messageFormat == MessageFormat.V3
+                ? BinaryMessageCodec.encodeToString(message)
+                : message.getPayload();
+    }
+
     private ImmutableMap<String, MessageAttributeValue> of(@Nonnull TextMessage message) {
         final ImmutableMap.Builder<String, MessageAttributeValue> messageAttributes = ImmutableMap.builder();
-        message.getHeader().getAll().entrySet().forEach(entry -> {
-            messageAttributes.put(entry.getKey(), MessageAttributeValue
-                    .builder()
-                    .dataType("String")
-                    .stringValue(entry.getValue())
-                    .build());
-        });
+        if (messageFormat != MessageFormat.V3) {
+            message.getHeader().getAll().entrySet().forEach(entry -> {
+                messageAttributes.put(entry.getKey(), MessageAttributeValue
+                        .builder()
+                        .dataType("String")
+                        .stringValue(entry.getValue())
+                        .build());
+            });
+        }
         messageAttributes.put(MSG_KEY_ATTR, MessageAttributeValue
                 .builder()
                 .dataType("String")
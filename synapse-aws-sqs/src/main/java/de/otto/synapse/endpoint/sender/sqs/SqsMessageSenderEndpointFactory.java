@@ -30,7 +30,7 @@ public class SqsMessageSenderEndpointFactory implements MessageSenderEndpointFac
     @Override
     public MessageSenderEndpoint create(final @Nonnull String channelName, MessageFormat messageFormat) {
         try {
-            return new SqsMessageSender(channelName, urlOf(channelName), registry, messageTranslator, sqsAsyncClient);
+            return new SqsMessageSender(channelName, urlOf(channelName), registry, messageTranslator, sqsAsyncClient, messageFormat);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get queueUrl for channel=" + channelName + ": " + e.getMessage(), e);
         }
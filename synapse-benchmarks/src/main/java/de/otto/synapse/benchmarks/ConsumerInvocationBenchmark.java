@@ -0,0 +1,74 @@
+package de.otto.synapse.benchmarks;
+
+import de.otto.synapse.consumer.MethodInvokingMessageConsumer;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the costs of calling an annotated consumer method using reflection ({@code reflective}), the way
+ * {@link MethodInvokingMessageConsumer} did before, with the bound invokers of the {@link MethodInvokingMessageConsumer}
+ * for public ({@code boundPublicMethod}) and non-public ({@code boundPackagePrivateMethod}) methods. The
+ * {@code direct} call is the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConsumerInvocationBenchmark {
+
+    private final Message<String> message = TextMessage.of("some-key", "{\"id\":\"42\"}");
+    private final SomeConsumer consumer = new SomeConsumer();
+    private Method method;
+    private MethodInvokingMessageConsumer<String> publicMethodConsumer;
+    private MethodInvokingMessageConsumer<String> packagePrivateMethodConsumer;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = SomeConsumer.class.getMethod("consume", Message.class);
+        publicMethodConsumer = new MethodInvokingMessageConsumer<>(".*", String.class, consumer, method);
+        packagePrivateMethodConsumer = new MethodInvokingMessageConsumer<>(".*", String.class, consumer,
+                SomeConsumer.class.getDeclaredMethod("consumePackagePrivate", Message.class));
+    }
+
+    @Benchmark
+    public long direct() {
+        consumer.consume(message);
+        return consumer.count;
+    }
+
+    @Benchmark
+    public long reflective() throws Exception {
+        method.invoke(consumer, message);
+        return consumer.count;
+    }
+
+    @Benchmark
+    public long boundPublicMethod() {
+        publicMethodConsumer.accept(message);
+        return consumer.count;
+    }
+
+    @Benchmark
+    public long boundPackagePrivateMethod() {
+        packagePrivateMethodConsumer.accept(message);
+        return consumer.count;
+    }
+
+    public static class SomeConsumer {
+        private long count;
+
+        public void consume(final Message<String> message) {
+            count += message.getKey().partitionKey().length();
+        }
+
+        void consumePackagePrivate(final Message<String> message) {
+            count += message.getKey().partitionKey().length();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.otto.synapse.benchmarks;
+
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.translator.AbstractTextDecoder;
+import de.otto.synapse.translator.MessageFormat;
+import de.otto.synapse.translator.PayloadCodec;
+import de.otto.synapse.translator.PayloadCodecRegistry;
+import de.otto.synapse.translator.TextDecoder;
+import de.otto.synapse.translator.TextEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the costs of decoding messages in {@link MessageFormat#V1}, {@link MessageFormat#V2} and {@link MessageFormat#V3} format with
+ * payloads of different sizes.
+ * <p>
+ *     {@code decodeString} is decoding messages from Strings, like the SQS and Kafka receivers; {@code decodeBytes}
+ *     and {@code decodeBytesAndReadPayload} are decoding messages from UTF-8 bytes, like the Kinesis receiver.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDecoderBenchmark {
+
+    @Param({"1024", "10240", "102400"})
+    public int payloadSize;
+
+    @Param({"V1", "V2", "V3"})
+    public MessageFormat messageFormat;
+
+    private final TextDecoder stringDecoder = new TextDecoder();
+    private final ByteArrayDecoder bytesDecoder = new ByteArrayDecoder();
+    @SuppressWarnings("rawtypes")
+    private final PayloadCodec<Map> mapCodec = PayloadCodecRegistry.codecFor(Map.class);
+    private String encoded;
+    private byte[] encodedBytes;
+
+    @Setup
+    public void setup() {
+        final TextMessage message = TextMessage.of(
+                Key.of("some-partition-key", "some-compaction-key"),
+                Header.builder()
+                        .withAttribute("_synapse_msg_id", "b4b2a1a2-9c2c-4b5a-9b55-1b2c3d4e5f60")
+                        .withAttribute("_synapse_msg_sender", "some-producer")
+                        .build(),
+                payloadOfSize(payloadSize));
+        encoded = new TextEncoder(messageFormat).apply(message);
+        encodedBytes = encoded.getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public String decodeString() {
+        return stringDecoder.apply(encoded).getPayload();
+    }
+
+    @Benchmark
+    public TextMessage decodeBytes() {
+        return bytesDecoder.apply(encodedBytes);
+    }
+
+    @Benchmark
+    public Map<?, ?> decodeBytesAndReadPayload() throws IOException {
+        return bytesDecoder.apply(encodedBytes).readPayload(mapCodec);
+    }
+
+    static String payloadOfSize(final int size) {
+        final StringBuilder payload = new StringBuilder(size + 64).append("{\"id\":\"42\"");
+        int i = 0;
+        while (payload.length() < size) {
+            payload.append(",\"attribute-").append(i).append("\":\"some value of attribute ").append(i).append('"');
+            ++i;
+        }
+        return payload.append('}').toString();
+    }
+
+    static final class ByteArrayDecoder extends AbstractTextDecoder<byte[]> {
+        @Override
+        public TextMessage apply(final byte[] bytes) {
+            return decode(Key.of(), Header.of(), bytes, 0, bytes.length);
+        }
+    }
+}
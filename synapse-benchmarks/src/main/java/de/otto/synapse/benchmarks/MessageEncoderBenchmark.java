@@ -0,0 +1,51 @@
+package de.otto.synapse.benchmarks;
+
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.translator.MessageFormat;
+import de.otto.synapse.translator.TextEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.synapse.benchmarks.MessageDecoderBenchmark.payloadOfSize;
+
+/**
+ * Measures the costs of encoding messages in {@link MessageFormat#V1}, {@link MessageFormat#V2} and {@link MessageFormat#V3} format with
+ * payloads of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageEncoderBenchmark {
+
+    @Param({"1024", "10240", "102400"})
+    public int payloadSize;
+
+    @Param({"V1", "V2", "V3"})
+    public MessageFormat messageFormat;
+
+    private TextEncoder encoder;
+    private TextMessage message;
+
+    @Setup
+    public void setup() {
+        encoder = new TextEncoder(messageFormat);
+        message = TextMessage.of(
+                Key.of("some-partition-key", "some-compaction-key"),
+                Header.builder()
+                        .withAttribute("_synapse_msg_id", "b4b2a1a2-9c2c-4b5a-9b55-1b2c3d4e5f60")
+                        .withAttribute("_synapse_msg_sender", "some-producer")
+                        .build(),
+                payloadOfSize(payloadSize));
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.apply(message);
+    }
+}
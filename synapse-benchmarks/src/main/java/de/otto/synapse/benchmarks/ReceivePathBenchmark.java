@@ -0,0 +1,88 @@
+package de.otto.synapse.benchmarks;
+
+import de.otto.synapse.configuration.SynapseProperties;
+import de.otto.synapse.consumer.MessageDispatcher;
+import de.otto.synapse.consumer.StatefulMessageConsumer;
+import de.otto.synapse.endpoint.CachedInterceptorChain;
+import de.otto.synapse.endpoint.DefaultReceiverHeadersInterceptor;
+import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.state.ConcurrentMapStateRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.endpoint.MessageInterceptorRegistration.receiverChannelsWith;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the costs per received message of the different steps of the receive path: intercepting the message
+ * using the interceptor chain of the channel, dispatching it to a consumer and updating the state repository.
+ * <p>
+ *     Run with {@code -prof gc} to see the number of bytes allocated per message ({@code gc.alloc.rate.norm}).
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceivePathBenchmark {
+
+    private static final String CHANNEL_NAME = "some-channel";
+
+    private MessageInterceptorRegistry interceptorRegistry;
+    private CachedInterceptorChain interceptorChain;
+    private MessageDispatcher stringDispatcher;
+    private MessageDispatcher payloadDispatcher;
+    private TextMessage message;
+
+    @Setup
+    @SuppressWarnings("rawtypes")
+    public void setup() {
+        interceptorRegistry = new MessageInterceptorRegistry();
+        final DefaultReceiverHeadersInterceptor headersInterceptor = new DefaultReceiverHeadersInterceptor(new SynapseProperties("benchmark"), Clock.systemDefaultZone());
+        interceptorRegistry.register(receiverChannelsWith(headersInterceptor::addDefaultHeaders));
+        interceptorChain = interceptorRegistry.getCachedInterceptorChain(CHANNEL_NAME, RECEIVER);
+        stringDispatcher = new MessageDispatcher();
+        stringDispatcher.add(new StatefulMessageConsumer<String, String>(".*", String.class, new ConcurrentMapStateRepository<>("strings"), Message::getPayload));
+        payloadDispatcher = new MessageDispatcher();
+        payloadDispatcher.add(new StatefulMessageConsumer<Map, Map>(".*", Map.class, new ConcurrentMapStateRepository<>("maps"), Message::getPayload));
+        final byte[] payload = "{\"id\":\"42\",\"name\":\"some product\",\"price\":4200}".getBytes(UTF_8);
+        message = TextMessage.of(
+                Key.of("some-key"),
+                Header.of(fromPosition("shardId-000000000000", "49590338271490256608559692538361571095921575989136588898")),
+                payload, 0, payload.length);
+    }
+
+    /**
+     * The way the interceptor chain was looked up by receiver endpoints for every message.
+     */
+    @Benchmark
+    public TextMessage lookupAndIntercept() {
+        return interceptorRegistry.getInterceptorChain(CHANNEL_NAME, RECEIVER).intercept(message);
+    }
+
+    @Benchmark
+    public TextMessage intercept() {
+        return interceptorChain.intercept(message);
+    }
+
+    @Benchmark
+    public void interceptAndDispatchString() {
+        stringDispatcher.accept(interceptorChain.intercept(message));
+    }
+
+    @Benchmark
+    public void interceptAndDispatchPayload() {
+        payloadDispatcher.accept(interceptorChain.intercept(message));
+    }
+}
@@ -0,0 +1,87 @@
+package de.otto.synapse.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.configuration.SynapseProperties;
+import de.otto.synapse.endpoint.DefaultReceiverHeadersInterceptor;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.TextMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.DefaultHeaderAttr.*;
+
+/**
+ * Measures the costs of adding the default receiver headers to a received message.
+ * <p>
+ *     Run with {@code -prof gc} to compare the number of bytes allocated per message by copying the header
+ *     ({@code copyHeader}) and by using header overlays ({@code overlayHeader}).
+ * </p>
+ * <p>
+ *     {@code parsedTimestampLookup} and {@code typedTimestampLookup} compare reading a timestamp attribute that was
+ *     decoded from a string, and a timestamp attribute that was added as a typed {@code Instant}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceiverHeadersBenchmark {
+
+    private final Clock clock = Clock.systemDefaultZone();
+    private DefaultReceiverHeadersInterceptor interceptor;
+    private TextMessage message;
+    private Header typedHeader;
+
+    @Setup
+    public void setup() {
+        interceptor = new DefaultReceiverHeadersInterceptor(new SynapseProperties("benchmark"), clock);
+        message = TextMessage.of(
+                "some-key",
+                Header.of(fromPosition("shardId-000000000000", "49590338271490256608559692538361571095921575989136588898"), ImmutableMap.of(
+                        MSG_ID.key(), "b4b2a1a2-9c2c-4b5a-9b55-1b2c3d4e5f60",
+                        MSG_SENDER.key(), "some-producer",
+                        MSG_SENDER_TS.key(), "2020-11-20T10:15:30.123Z",
+                        MSG_ARRIVAL_TS.key(), "2020-11-20T10:15:30.456Z",
+                        "some-custom-attribute", "some value")),
+                "{\"id\":\"42\",\"name\":\"some product\"}");
+        typedHeader = Header.of(fromPosition("shardId-000000000000", "49590338271490256608559692538361571095921575989136588898"))
+                .withAttribute(MSG_ARRIVAL_TS, Instant.parse("2020-11-20T10:15:30.456Z"));
+    }
+
+    /**
+     * The way receiver headers were added before header overlays: all attributes are copied into a new header.
+     */
+    @Benchmark
+    public TextMessage copyHeader() {
+        final Header header = Header.copyOf(message.getHeader())
+                .withAttribute(MSG_RECEIVER_TS, clock.instant())
+                .build();
+        return TextMessage.of(message.getKey(), header, message.getPayload());
+    }
+
+    @Benchmark
+    public TextMessage overlayHeader() {
+        return interceptor.addDefaultHeaders(message);
+    }
+
+    @Benchmark
+    public String overlayHeaderLookup() {
+        return interceptor.addDefaultHeaders(message).getHeader().getAsString(MSG_SENDER);
+    }
+
+    @Benchmark
+    public Instant parsedTimestampLookup() {
+        return message.getHeader().getAsInstant(MSG_ARRIVAL_TS);
+    }
+
+    @Benchmark
+    public Instant typedTimestampLookup() {
+        return typedHeader.getAsInstant(MSG_ARRIVAL_TS);
+    }
+}
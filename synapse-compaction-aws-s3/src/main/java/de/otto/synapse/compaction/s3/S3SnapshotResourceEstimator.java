@@ -0,0 +1,65 @@
+package de.otto.synapse.compaction.s3;
+
+import de.otto.synapse.eventsource.ResourceEstimate;
+import de.otto.synapse.eventsource.ResourceEstimator;
+import org.slf4j.Logger;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.Optional;
+
+import static de.otto.synapse.eventsource.ResourceEstimate.resourceEstimate;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Estimates the resources needed to load the latest snapshot of a channel from the size of the compressed snapshot
+ * file in S3, without downloading it.
+ * <p>
+ *     The heap estimate is the size of the snapshot file multiplied by a configurable ratio. Disk space is only needed
+ *     if the snapshot file is not yet available on the local file system.
+ * </p>
+ */
+public class S3SnapshotResourceEstimator implements ResourceEstimator {
+
+    private static final Logger LOG = getLogger(S3SnapshotResourceEstimator.class);
+
+    private final SnapshotReadService snapshotReadService;
+    private final double heapRatio;
+
+    /**
+     * Creates an S3SnapshotResourceEstimator.
+     *
+     * @param snapshotReadService the service used to retrieve the snapshots
+     * @param heapRatio the ratio of the heap memory needed to load a snapshot to the size of the snapshot file
+     */
+    public S3SnapshotResourceEstimator(final SnapshotReadService snapshotReadService,
+                                       final double heapRatio) {
+        if (heapRatio < 0) {
+            throw new IllegalArgumentException("heapRatio must not be negative");
+        }
+        this.snapshotReadService = snapshotReadService;
+        this.heapRatio = heapRatio;
+    }
+
+    @Nonnull
+    @Override
+    public ResourceEstimate estimate(final @Nonnull String channelName) {
+        final Optional<File> forcedSnapshotFile = snapshotReadService.getForcedSnapshotFile();
+        if (forcedSnapshotFile.isPresent()) {
+            return resourceEstimate(heapBytes(forcedSnapshotFile.get().length()), 0L);
+        }
+        final Optional<S3Object> snapshotMetadata = snapshotReadService.fetchSnapshotMetadataFromS3(channelName);
+        if (!snapshotMetadata.isPresent()) {
+            LOG.info("No snapshot found for channel '{}'", channelName);
+            return ResourceEstimate.none();
+        }
+        final long snapshotSize = snapshotMetadata.get().size();
+        return resourceEstimate(heapBytes(snapshotSize), snapshotReadService.isDownloaded(snapshotMetadata.get()) ? 0L : snapshotSize);
+    }
+
+    private long heapBytes(final long snapshotSize) {
+        final double heapBytes = snapshotSize * heapRatio;
+        return heapBytes >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) heapBytes;
+    }
+}
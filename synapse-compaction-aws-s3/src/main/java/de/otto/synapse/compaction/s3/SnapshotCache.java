@@ -0,0 +1,120 @@
+package de.otto.synapse.compaction.s3;
+
+import org.slf4j.Logger;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static de.otto.synapse.compaction.s3.SnapshotFileHelper.existsAndHasSize;
+import static de.otto.synapse.compaction.s3.SnapshotFileHelper.getSnapshotFileNamePrefix;
+import static de.otto.synapse.compaction.s3.SnapshotFileHelper.getTempDir;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Content-addressed cache of downloaded snapshot files on the local file system.
+ * <p>
+ *     Snapshot files are stored in a sub-directory of the cache that is named after the ETag of the S3 object, so a
+ *     cached file is only used if it has the same content as the latest snapshot in S3, even if a snapshot is
+ *     overwritten using the same key. Files derived from a snapshot, like the {@link SnapshotImage}, are stored next
+ *     to the snapshot file and are evicted together with the snapshot.
+ * </p>
+ */
+public class SnapshotCache {
+
+    private static final Logger LOG = getLogger(SnapshotCache.class);
+    private static final String UNKNOWN_ETAG = "unknown-etag";
+
+    private final Path directory;
+
+    /**
+     * Creates a SnapshotCache in the directory {@code synapse-snapshot-cache} of the temp directory.
+     */
+    public SnapshotCache() {
+        this(Paths.get(getTempDir(), "synapse-snapshot-cache"));
+    }
+
+    /**
+     * Creates a SnapshotCache.
+     *
+     * @param directory the directory of the cache
+     */
+    public SnapshotCache(final @Nonnull Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the path of the cached snapshot file of an S3 object, no matter if the snapshot is already downloaded.
+     *
+     * @param s3Object the S3 object of the snapshot
+     * @return path of the cached snapshot file
+     */
+    @Nonnull
+    public Path getSnapshotFile(final @Nonnull S3Object s3Object) {
+        return directory
+                .resolve(contentAddressOf(s3Object))
+                .resolve(Paths.get(s3Object.key()).getFileName().toString());
+    }
+
+    /**
+     * Returns true if the snapshot of an S3 object is already downloaded.
+     *
+     * @param s3Object the S3 object of the snapshot
+     * @return boolean
+     */
+    public boolean contains(final @Nonnull S3Object s3Object) {
+        final Long size = s3Object.size();
+        return size != null && existsAndHasSize(getSnapshotFile(s3Object), size);
+    }
+
+    /**
+     * Removes the cached snapshots of a channel, together with all files derived from the snapshots.
+     *
+     * @param channelName the name of the channel
+     */
+    public void evict(final @Nonnull String channelName) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final String snapshotFileNamePrefix = getSnapshotFileNamePrefix(channelName);
+        try (Stream<Path> files = Files.find(directory, 2, (path, attributes) -> attributes.isRegularFile() && path.getFileName().toString().startsWith(snapshotFileNamePrefix))) {
+            final List<Path> cachedFiles = files.collect(toList());
+            for (final Path cachedFile : cachedFiles) {
+                LOG.info("Evicting {} from snapshot cache", cachedFile);
+                Files.deleteIfExists(cachedFile);
+                deleteIfEmpty(cachedFile.getParent());
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to evict snapshots of channel " + channelName + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void deleteIfEmpty(final Path entryDirectory) throws IOException {
+        if (entryDirectory.equals(directory)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.list(entryDirectory)) {
+            if (!entries.findAny().isPresent()) {
+                Files.deleteIfExists(entryDirectory);
+            }
+        }
+    }
+
+    private static String contentAddressOf(final S3Object s3Object) {
+        final String eTag = s3Object.eTag();
+        return eTag != null && !eTag.isEmpty()
+                ? eTag.replace("\"", "").replaceAll("[^A-Za-z0-9-]", "_")
+                : UNKNOWN_ETAG;
+    }
+}
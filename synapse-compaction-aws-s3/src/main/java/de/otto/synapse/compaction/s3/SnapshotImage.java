@@ -0,0 +1,381 @@
+package de.otto.synapse.compaction.s3;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ShardPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.channel.StartFrom.HORIZON;
+import static de.otto.synapse.channel.StartFrom.POSITION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * A pre-built image of a snapshot, containing the start position and the already decoded messages of the snapshot
+ * in a compact binary format.
+ * <p>
+ *     The image is written the first time a snapshot file is loaded, and stored next to the snapshot file. Later
+ *     starts of a service are memory-mapping the image instead of inflating and parsing the JSON of the snapshot
+ *     file again. Images are written to a temporary file that is atomically renamed after the last message was
+ *     written, so an existing image is always complete.
+ * </p>
+ * <p>
+ *     Format: a header (magic number, version and the shard positions of the snapshot), followed by the messages
+ *     (partition key, compaction key, header attributes and UTF-8 encoded payload, all length-prefixed), followed by
+ *     a trailer containing the number of messages and the magic number.
+ * </p>
+ */
+public final class SnapshotImage {
+
+    private static final Logger LOG = getLogger(SnapshotImage.class);
+
+    public static final String IMAGE_FILE_EXTENSION = ".image";
+
+    private static final int MAGIC = 0x53594E49;
+    private static final int VERSION = 1;
+    private static final byte MESSAGE = 1;
+    private static final byte END = 0;
+    private static final int TRAILER_SIZE = 1 + 8 + 4;
+    private static final int NULL_LENGTH = -1;
+
+    private SnapshotImage() {
+    }
+
+    /**
+     * Returns the file of the image of a snapshot file.
+     *
+     * @param snapshotFile the snapshot file
+     * @return image file
+     */
+    @Nonnull
+    public static File imageFileOf(final @Nonnull File snapshotFile) {
+        return new File(snapshotFile.getPath() + IMAGE_FILE_EXTENSION);
+    }
+
+    /**
+     * Opens an existing image.
+     *
+     * @param imageFile the image file
+     * @return reader of the image, or empty if there is no valid image
+     */
+    @Nonnull
+    public static Optional<Reader> open(final @Nonnull File imageFile) {
+        if (!imageFile.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new Reader(imageFile));
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Ignoring invalid snapshot image {}: {}", imageFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates a Writer of a new image.
+     *
+     * @param imageFile the image file
+     * @param channelPosition the start position of the snapshot
+     * @return Writer
+     * @throws IOException if the image can not be written
+     */
+    @Nonnull
+    public static Writer writer(final @Nonnull File imageFile,
+                                final @Nonnull ChannelPosition channelPosition) throws IOException {
+        return new Writer(imageFile, channelPosition);
+    }
+
+    /**
+     * Writes the messages of a snapshot into a temporary file, that is renamed to the image file on
+     * {@link #commit()}. Closing an uncommitted Writer deletes the temporary file.
+     */
+    @NotThreadSafe
+    public static final class Writer implements Closeable {
+
+        private final File imageFile;
+        private final File tempFile;
+        private final FileOutputStream fileOutputStream;
+        private final DataOutputStream out;
+        private long messageCount = 0;
+        private boolean closed = false;
+
+        private Writer(final File imageFile, final ChannelPosition channelPosition) throws IOException {
+            this.imageFile = imageFile;
+            this.tempFile = new File(imageFile.getPath() + ".tmp");
+            this.fileOutputStream = new FileOutputStream(tempFile);
+            this.out = new DataOutputStream(new BufferedOutputStream(fileOutputStream, 64 * 1024));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(channelPosition.shards().size());
+                for (final String shardName : channelPosition.shards()) {
+                    final ShardPosition shardPosition = channelPosition.shard(shardName);
+                    if (shardPosition.startFrom() != HORIZON && shardPosition.startFrom() != POSITION) {
+                        throw new IOException("Unsupported shard position " + shardPosition);
+                    }
+                    writeString(shardName);
+                    writeString(shardPosition.startFrom() == POSITION ? shardPosition.position() : null);
+                }
+            } catch (final IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Adds a message to the image.
+         *
+         * @param message the message
+         * @throws IOException if the message can not be written
+         */
+        public void write(final @Nonnull TextMessage message) throws IOException {
+            out.writeByte(MESSAGE);
+            writeString(message.getKey().partitionKey());
+            writeString(message.getKey().compactionKey());
+            final Map<String, String> attributes = message.getHeader().getAll();
+            out.writeInt(attributes.size());
+            for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+                writeString(attribute.getKey());
+                writeString(attribute.getValue());
+            }
+            writeString(message.getPayload());
+            ++messageCount;
+        }
+
+        /**
+         * Completes the image and atomically renames the temporary file to the image file.
+         *
+         * @throws IOException if the image can not be completed
+         */
+        public void commit() throws IOException {
+            out.writeByte(END);
+            out.writeLong(messageCount);
+            out.writeInt(MAGIC);
+            out.flush();
+            fileOutputStream.getFD().sync();
+            out.close();
+            closed = true;
+            try {
+                Files.move(tempFile.toPath(), imageFile.toPath(), ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), imageFile.toPath(), REPLACE_EXISTING);
+            }
+            LOG.info("Created snapshot image {} containing {} messages", imageFile, messageCount);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    out.close();
+                } catch (final IOException e) {
+                    LOG.warn("Failed to close snapshot image {}: {}", tempFile, e.getMessage());
+                }
+                if (tempFile.exists() && !tempFile.delete()) {
+                    LOG.warn("Failed to delete incomplete snapshot image {}", tempFile);
+                }
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL_LENGTH);
+            } else {
+                final byte[] bytes = value.getBytes(UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads the messages of an image using memory-mapped windows of the image file.
+     */
+    @NotThreadSafe
+    public static final class Reader implements Iterator<TextMessage>, Closeable {
+
+        private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+        private final File imageFile;
+        private final RandomAccessFile randomAccessFile;
+        private final FileChannel channel;
+        private final long size;
+        private final ChannelPosition channelPosition;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private TextMessage nextMessage;
+        private boolean finished = false;
+
+        private Reader(final File imageFile) throws IOException {
+            this.imageFile = imageFile;
+            this.randomAccessFile = new RandomAccessFile(imageFile, "r");
+            try {
+                this.channel = randomAccessFile.getChannel();
+                this.size = channel.size();
+                validateTrailer();
+                if (readInt() != MAGIC || readInt() != VERSION) {
+                    throw new IOException("Unsupported format");
+                }
+                final int shardCount = readInt();
+                final ImmutableList.Builder<ShardPosition> shardPositions = ImmutableList.builder();
+                for (int i = 0; i < shardCount; ++i) {
+                    final String shardName = readString();
+                    final String position = readString();
+                    shardPositions.add(position != null ? fromPosition(shardName, position) : fromHorizon(shardName));
+                }
+                this.channelPosition = channelPosition(shardPositions.build());
+            } catch (final IOException | RuntimeException e) {
+                randomAccessFile.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the start position of the snapshot.
+         *
+         * @return ChannelPosition
+         */
+        @Nonnull
+        public ChannelPosition getChannelPosition() {
+            return channelPosition;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextMessage == null && !finished) {
+                try {
+                    if (readByte() == MESSAGE) {
+                        nextMessage = readMessage();
+                    } else {
+                        finished = true;
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException("Failed to read snapshot image " + imageFile + ": " + e.getMessage(), e);
+                }
+            }
+            return nextMessage != null;
+        }
+
+        @Override
+        public TextMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more messages available");
+            }
+            final TextMessage message = nextMessage;
+            nextMessage = null;
+            return message;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            randomAccessFile.close();
+        }
+
+        private void validateTrailer() throws IOException {
+            if (size < 12 + TRAILER_SIZE) {
+                throw new EOFException("Snapshot image is truncated");
+            }
+            final MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+            if (trailer.get() != END || trailer.getLong() < 0 || trailer.getInt() != MAGIC) {
+                throw new IOException("Snapshot image is incomplete");
+            }
+        }
+
+        private TextMessage readMessage() throws IOException {
+            final String partitionKey = readString();
+            final String compactionKey = readString();
+            final int attributeCount = readInt();
+            final Header header;
+            if (attributeCount == 0) {
+                header = Header.of();
+            } else {
+                final ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+                for (int i = 0; i < attributeCount; ++i) {
+                    attributes.put(readString(), readString());
+                }
+                header = Header.of(attributes.build());
+            }
+            final Key key = Key.of(partitionKey, compactionKey);
+            final int payloadLength = readInt();
+            if (payloadLength == NULL_LENGTH) {
+                return TextMessage.of(key, header, null);
+            } else if (payloadLength == 0) {
+                return TextMessage.of(key, header, "");
+            } else {
+                return TextMessage.of(key, header, readBytes(payloadLength), 0, payloadLength);
+            }
+        }
+
+        private String readString() throws IOException {
+            final int length = readInt();
+            return length == NULL_LENGTH
+                    ? null
+                    : new String(readBytes(length), UTF_8);
+        }
+
+        private byte readByte() throws IOException {
+            ensureAvailable(1);
+            return window.get();
+        }
+
+        private int readInt() throws IOException {
+            ensureAvailable(4);
+            return window.getInt();
+        }
+
+        private byte[] readBytes(final int length) throws IOException {
+            if (length < 0) {
+                throw new IOException("Invalid length " + length);
+            }
+            ensureAvailable(length);
+            final byte[] bytes = new byte[length];
+            window.get(bytes);
+            return bytes;
+        }
+
+        /**
+         * Maps the next window of the image file, if the current window has less than {@code length} bytes left.
+         */
+        private void ensureAvailable(final int length) throws IOException {
+            if (window == null || window.remaining() < length) {
+                final long position = window == null ? 0 : windowStart + window.position();
+                if (position + length > size) {
+                    throw new EOFException("Unexpected end of snapshot image");
+                }
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Math.max(WINDOW_SIZE, length)));
+            }
+        }
+    }
+}
@@ -8,6 +8,9 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Optional;
@@ -24,6 +27,7 @@ public class SnapshotReadService {
     private final S3Helper s3Helper;
     private final String snapshotBucketName;
     private final Marker marker;
+    private final SnapshotCache snapshotCache;
 
     private File forcedSnapshotFile = null;
 
@@ -35,9 +39,25 @@ public class SnapshotReadService {
     public SnapshotReadService(final SnapshotProperties properties,
                                final S3Client s3Client,
                                final Marker marker) {
+        this(properties, s3Client, marker, new SnapshotCache());
+    }
+
+    /**
+     * Creates a SnapshotReadService that is downloading snapshots into a {@link SnapshotCache}.
+     *
+     * @param properties the snapshot properties
+     * @param s3Client the S3 client used to download snapshots
+     * @param marker the marker used to log, or null
+     * @param snapshotCache the cache of the downloaded snapshots
+     */
+    public SnapshotReadService(final SnapshotProperties properties,
+                               final S3Client s3Client,
+                               final Marker marker,
+                               final SnapshotCache snapshotCache) {
         this.s3Helper = new S3Helper(s3Client);
         this.snapshotBucketName = properties.getBucketName();
         this.marker = marker;
+        this.snapshotCache = snapshotCache;
     }
 
     /**
@@ -72,19 +92,38 @@ public class SnapshotReadService {
         return latestSnapshot;
     }
 
+    Optional<File> getForcedSnapshotFile() {
+        return Optional.ofNullable(forcedSnapshotFile);
+    }
+
+    Optional<S3Object> fetchSnapshotMetadataFromS3(final String channelName) {
+        return fetchSnapshotMetadataFromS3(snapshotBucketName, channelName);
+    }
+
+    boolean isDownloaded(final S3Object s3Object) {
+        return snapshotCache.contains(s3Object);
+    }
+
     Optional<File> getLatestSnapshot(final String channelName) {
         Optional<S3Object> s3Object = fetchSnapshotMetadataFromS3(snapshotBucketName, channelName);
         if (s3Object.isPresent()) {
             String latestSnapshotKey = s3Object.get().key();
-            Path snapshotFile = getTempFile(latestSnapshotKey);
+            Path snapshotFile = snapshotCache.getSnapshotFile(s3Object.get());
 
-            if (existsAndHasSize(snapshotFile, s3Object.get().size())) {
-                LOG.info(marker, "Locally available snapshot file is the same as in S3, skip download and use it: {}", snapshotFile.toAbsolutePath().toString());
+            if (snapshotCache.contains(s3Object.get())) {
+                LOG.info(marker, "Snapshot file with ETag {} is already cached, skip download and use it: {}", s3Object.get().eTag(), snapshotFile.toAbsolutePath().toString());
                 return Optional.of(snapshotFile.toFile());
             }
 
+            snapshotCache.evict(channelName);
+            // snapshot files downloaded by previous versions:
             removeTempFiles(String.format("*-%s-snapshot-*.json.zip", channelName));
-            LOG.info(marker, "Downloading snapshot file to {}", snapshotFile.getFileName().toAbsolutePath().toString());
+            try {
+                Files.createDirectories(snapshotFile.getParent());
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to create snapshot cache directory: " + e.getMessage(), e);
+            }
+            LOG.info(marker, "Downloading snapshot file to {}", snapshotFile.toAbsolutePath().toString());
             if (s3Helper.download(snapshotBucketName, latestSnapshotKey, snapshotFile)) {
                 return Optional.of(snapshotFile.toFile());
             }
@@ -1,7 +1,10 @@
 package de.otto.synapse.configuration.aws;
 
+import de.otto.synapse.compaction.s3.S3SnapshotResourceEstimator;
+import de.otto.synapse.compaction.s3.SnapshotCache;
 import de.otto.synapse.compaction.s3.SnapshotReadService;
 import de.otto.synapse.compaction.s3.SnapshotWriteService;
+import de.otto.synapse.eventsource.ResourceEstimator;
 import de.otto.synapse.messagestore.MessageStoreFactory;
 import de.otto.synapse.messagestore.SnapshotMessageStore;
 import de.otto.synapse.messagestore.aws.S3SnapshotMessageStore;
@@ -13,6 +16,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import software.amazon.awssdk.services.s3.S3Client;
 
+import java.nio.file.Paths;
+
 @Configuration
 @EnableConfigurationProperties(SnapshotProperties.class)
 @Import(S3AutoConfiguration.class)
@@ -22,7 +27,10 @@ public class S3SnapshotAutoConfiguration {
     @ConditionalOnMissingBean
     public SnapshotReadService snapshotReadService(final S3Client s3Client,
                                                    final SnapshotProperties snapshotProperties) {
-        return new SnapshotReadService(snapshotProperties, s3Client);
+        final SnapshotCache snapshotCache = snapshotProperties.getCacheDirectory() != null
+                ? new SnapshotCache(Paths.get(snapshotProperties.getCacheDirectory()))
+                : new SnapshotCache();
+        return new SnapshotReadService(snapshotProperties, s3Client, null, snapshotCache);
     }
     @Bean
     @ConditionalOnMissingBean
@@ -34,8 +42,16 @@ public class S3SnapshotAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     MessageStoreFactory<SnapshotMessageStore> snapshotMessageStoreFactory(final SnapshotReadService snapshotReadService,
-                                                                          final ApplicationEventPublisher eventPublisher) {
-        return (channelName) -> new S3SnapshotMessageStore(channelName, snapshotReadService, eventPublisher);
+                                                                          final ApplicationEventPublisher eventPublisher,
+                                                                          final SnapshotProperties snapshotProperties) {
+        return (channelName) -> new S3SnapshotMessageStore(channelName, snapshotReadService, eventPublisher, snapshotProperties.isUseImages());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ResourceEstimator snapshotResourceEstimator(final SnapshotReadService snapshotReadService,
+                                                       final SnapshotProperties snapshotProperties) {
+        return new S3SnapshotResourceEstimator(snapshotReadService, snapshotProperties.getHeapRatio());
     }
 
 }
@@ -6,6 +6,20 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class SnapshotProperties {
 
     private String bucketName = null;
+    /**
+     * The estimated ratio of the heap memory needed to load a snapshot to the size of the compressed snapshot file.
+     */
+    private double heapRatio = 10.0;
+    /**
+     * The directory used to cache downloaded snapshots. Defaults to {@code synapse-snapshot-cache} in the temp
+     * directory.
+     */
+    private String cacheDirectory = null;
+    /**
+     * Create a memory-mappable image of every loaded snapshot, that is used instead of parsing the snapshot again
+     * as long as the snapshot did not change.
+     */
+    private boolean useImages = true;
 
     public String getBucketName() {
         return bucketName;
@@ -15,4 +29,28 @@ public class SnapshotProperties {
             this.bucketName = bucketName;
         }
 
+    public double getHeapRatio() {
+        return heapRatio;
+    }
+
+    public void setHeapRatio(double heapRatio) {
+        this.heapRatio = heapRatio;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public boolean isUseImages() {
+        return useImages;
+    }
+
+    public void setUseImages(boolean useImages) {
+        this.useImages = useImages;
+    }
+
 }
@@ -9,6 +9,7 @@ import com.google.common.collect.Streams;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.compaction.s3.SnapshotFileHelper;
+import de.otto.synapse.compaction.s3.SnapshotImage;
 import de.otto.synapse.compaction.s3.SnapshotMessage;
 import de.otto.synapse.compaction.s3.SnapshotMessageDecoder;
 import de.otto.synapse.compaction.s3.SnapshotReadService;
@@ -43,13 +44,24 @@ import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.info.SnapshotReaderStatus.*;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * A {@link SnapshotMessageStore} containing the messages of the latest snapshot of a channel, retrieved using the
+ * {@link SnapshotReadService}.
+ * <p>
+ *     If snapshot images are enabled, a {@link SnapshotImage} is created next to the snapshot file the first time the
+ *     snapshot is loaded. As long as the snapshot did not change, subsequent loads are reading the memory-mapped image
+ *     instead of parsing the snapshot file.
+ * </p>
+ */
 @NotThreadSafe
 public class S3SnapshotMessageStore implements SnapshotMessageStore {
 
     private static final Logger LOG = getLogger(S3SnapshotMessageStore.class);
 
-    private MessageIterator messageIterator;
+    private Iterator<TextMessage> messageIterator;
     private ChannelPosition channelPosition;
+    private SnapshotImage.Reader snapshotImageReader;
+    private SnapshotImage.Writer snapshotImageWriter;
 
     private ZipInputStream zipInputStream;
     private BufferedInputStream bufferedInputStream;
@@ -62,6 +74,21 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
     public S3SnapshotMessageStore(final @Nonnull String channelName,
                                   final @Nonnull SnapshotReadService snapshotReadService,
                                   final @Nullable ApplicationEventPublisher eventPublisher) {
+        this(channelName, snapshotReadService, eventPublisher, false);
+    }
+
+    /**
+     * Creates an S3SnapshotMessageStore.
+     *
+     * @param channelName the name of the channel
+     * @param snapshotReadService the service used to retrieve the snapshot
+     * @param eventPublisher the publisher of SnapshotReaderNotifications, or null
+     * @param useSnapshotImages true if a {@link SnapshotImage} of the snapshot should be created and used
+     */
+    public S3SnapshotMessageStore(final @Nonnull String channelName,
+                                  final @Nonnull SnapshotReadService snapshotReadService,
+                                  final @Nullable ApplicationEventPublisher eventPublisher,
+                                  final boolean useSnapshotImages) {
         this.channelName = channelName;
         this.eventPublisher = eventPublisher;
         publishEvent(STARTING, "Retrieve snapshot file from S3.", null);
@@ -71,6 +98,17 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
                 final File snapshotFile = latestSnapshot.get();
                 this.snapshotTimestamp = SnapshotFileHelper.getSnapshotTimestamp(snapshotFile.getName());
                 publishEvent(STARTED, "Retrieve snapshot file from S3.", snapshotTimestamp);
+                final File imageFile = SnapshotImage.imageFileOf(snapshotFile);
+                final Optional<SnapshotImage.Reader> snapshotImage = useSnapshotImages
+                        ? SnapshotImage.open(imageFile)
+                        : Optional.empty();
+                if (snapshotImage.isPresent()) {
+                    LOG.info("Reading snapshot image {} instead of parsing snapshot file", imageFile);
+                    snapshotImageReader = snapshotImage.get();
+                    channelPosition = snapshotImageReader.getChannelPosition();
+                    messageIterator = snapshotImageReader;
+                    return;
+                }
                 fileInputStream = new FileInputStream(snapshotFile);
                 bufferedInputStream = new BufferedInputStream(fileInputStream);
                 zipInputStream = new ZipInputStream(bufferedInputStream);
@@ -93,6 +131,9 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
                         }
                     }
                 }
+                if (useSnapshotImages && messageIterator != null && channelPosition != null) {
+                    messageIterator = imageWritingIterator(messageIterator, imageFile);
+                }
             } else {
                 LOG.info("No Snapshot available. Returning emptyMessageStore MessageStore.");
             }
@@ -127,7 +168,14 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
     public void close() {
         LOG.info("Closing SnapshotMessageStore");
         publishEvent(FINISHED, "Finished to load snapshot from S3.", snapshotTimestamp);
+        if (snapshotImageWriter != null) {
+            // discards incomplete images:
+            snapshotImageWriter.close();
+        }
         try {
+            if (snapshotImageReader != null) {
+                snapshotImageReader.close();
+            }
             if (zipInputStream != null) {
                 zipInputStream.close();
             }
@@ -263,6 +311,49 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
         return true;
     }
 
+    private Iterator<TextMessage> imageWritingIterator(final Iterator<TextMessage> messages, final File imageFile) {
+        try {
+            snapshotImageWriter = SnapshotImage.writer(imageFile, channelPosition);
+        } catch (final IOException e) {
+            LOG.warn("Unable to create snapshot image {}: {}", imageFile, e.getMessage());
+            return messages;
+        }
+        return new Iterator<TextMessage>() {
+            @Override
+            public boolean hasNext() {
+                final boolean hasNext = messages.hasNext();
+                if (!hasNext && snapshotImageWriter != null) {
+                    try {
+                        snapshotImageWriter.commit();
+                    } catch (final IOException e) {
+                        LOG.warn("Unable to complete snapshot image {}: {}", imageFile, e.getMessage());
+                    }
+                    discardSnapshotImage();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public TextMessage next() {
+                final TextMessage message = messages.next();
+                if (snapshotImageWriter != null) {
+                    try {
+                        snapshotImageWriter.write(message);
+                    } catch (final IOException | RuntimeException e) {
+                        LOG.warn("Unable to write snapshot image {}: {}", imageFile, e.getMessage());
+                        discardSnapshotImage();
+                    }
+                }
+                return message;
+            }
+        };
+    }
+
+    private void discardSnapshotImage() {
+        snapshotImageWriter.close();
+        snapshotImageWriter = null;
+    }
+
     private static class MessageIterator implements Iterator<TextMessage> {
 
         private TextMessage nextMessage = null;
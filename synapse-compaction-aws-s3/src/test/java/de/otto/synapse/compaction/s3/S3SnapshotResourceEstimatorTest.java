@@ -0,0 +1,45 @@
+package de.otto.synapse.compaction.s3;
+
+import de.otto.synapse.eventsource.ResourceEstimate;
+import org.junit.Test;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.Optional;
+
+import static de.otto.synapse.eventsource.ResourceEstimate.resourceEstimate;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class S3SnapshotResourceEstimatorTest {
+
+    @Test
+    public void shouldEstimateResourcesFromSnapshotSize() {
+        // given
+        final SnapshotReadService snapshotReadService = mock(SnapshotReadService.class);
+        final S3Object s3Object = S3Object.builder().key("compaction-test-snapshot-does-not-exist.json.zip").size(1000L).build();
+        when(snapshotReadService.getForcedSnapshotFile()).thenReturn(Optional.empty());
+        when(snapshotReadService.fetchSnapshotMetadataFromS3("test")).thenReturn(Optional.of(s3Object));
+
+        // when
+        final ResourceEstimate estimate = new S3SnapshotResourceEstimator(snapshotReadService, 8.0).estimate("test");
+
+        // then
+        assertThat(estimate, is(resourceEstimate(8000L, 1000L)));
+    }
+
+    @Test
+    public void shouldEstimateNoResourcesWithoutSnapshot() {
+        // given
+        final SnapshotReadService snapshotReadService = mock(SnapshotReadService.class);
+        when(snapshotReadService.getForcedSnapshotFile()).thenReturn(Optional.empty());
+        when(snapshotReadService.fetchSnapshotMetadataFromS3("test")).thenReturn(Optional.empty());
+
+        // when
+        final ResourceEstimate estimate = new S3SnapshotResourceEstimator(snapshotReadService, 8.0).estimate("test");
+
+        // then
+        assertThat(estimate, is(ResourceEstimate.none()));
+    }
+}
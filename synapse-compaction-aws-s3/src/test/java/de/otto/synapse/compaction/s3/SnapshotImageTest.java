@@ -0,0 +1,87 @@
+package de.otto.synapse.compaction.s3;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ShardPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SnapshotImageTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadWrittenImage() throws Exception {
+        // given
+        final File imageFile = SnapshotImage.imageFileOf(new File(temporaryFolder.getRoot(), "compaction-test-snapshot.json.zip"));
+        final ChannelPosition channelPosition = channelPosition(fromPosition("first", "42"), fromHorizon("second"));
+        final List<TextMessage> messages = ImmutableList.of(
+                TextMessage.of(Key.of("simple"), Header.of(), "{\"foo\":\"bar\"}"),
+                TextMessage.of(Key.of("partition", "compaction"), Header.of(ImmutableMap.of("attr", "value")), null),
+                TextMessage.of(Key.of("empty"), Header.of(), "")
+        );
+
+        // when
+        try (final SnapshotImage.Writer writer = SnapshotImage.writer(imageFile, channelPosition)) {
+            for (final TextMessage message : messages) {
+                writer.write(message);
+            }
+            writer.commit();
+        }
+
+        // then
+        final List<TextMessage> readMessages = new ArrayList<>();
+        try (final SnapshotImage.Reader reader = SnapshotImage.open(imageFile).get()) {
+            assertThat(reader.getChannelPosition(), is(channelPosition));
+            reader.forEachRemaining(readMessages::add);
+        }
+        assertThat(readMessages, is(messages));
+    }
+
+    @Test
+    public void shouldNotCreateImageIfWriterIsNotCommitted() throws Exception {
+        // given
+        final File imageFile = new File(temporaryFolder.getRoot(), "test.image");
+
+        // when
+        try (final SnapshotImage.Writer writer = SnapshotImage.writer(imageFile, channelPosition(fromHorizon("shard")))) {
+            writer.write(TextMessage.of(Key.of("key"), Header.of(), "payload"));
+        }
+
+        // then
+        assertThat(imageFile.exists(), is(false));
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void shouldIgnoreTruncatedImage() throws Exception {
+        // given
+        final File imageFile = new File(temporaryFolder.getRoot(), "test.image");
+        try (final SnapshotImage.Writer writer = SnapshotImage.writer(imageFile, channelPosition(fromHorizon("shard")))) {
+            writer.write(TextMessage.of(Key.of("key"), Header.of(), "payload"));
+            writer.commit();
+        }
+        final byte[] bytes = Files.readAllBytes(imageFile.toPath());
+        Files.write(imageFile.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+        // when / then
+        assertThat(SnapshotImage.open(imageFile).isPresent(), is(false));
+    }
+}
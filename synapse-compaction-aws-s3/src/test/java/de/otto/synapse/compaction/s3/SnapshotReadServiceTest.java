@@ -2,7 +2,9 @@ package de.otto.synapse.compaction.s3;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
@@ -19,18 +21,25 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SnapshotReadServiceTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private SnapshotReadService testee;
+    private SnapshotCache snapshotCache;
     private S3Client s3Client;
 
     @Before
-    public void setUp() {
+    public void setUp() throws IOException {
         s3Client = mock(S3Client.class);
+        snapshotCache = new SnapshotCache(temporaryFolder.newFolder("snapshot-cache").toPath());
 
-        testee = new SnapshotReadService(snapshotProperties(), s3Client);
+        testee = new SnapshotReadService(snapshotProperties(), s3Client, null, snapshotCache);
     }
 
 
@@ -112,23 +121,44 @@ public class SnapshotReadServiceTest {
         // given
         S3Object obj = S3Object.builder()
                 .key("compaction-testStream-snapshot-1.json.zip")
+                .eTag("\"some-etag\"")
+                .size(0L)
+                .build();
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder().keyCount(1).contents(obj).build());
+
+        final Path cachedFile = snapshotCache.getSnapshotFile(obj);
+        Files.createDirectories(cachedFile.getParent());
+        Files.createFile(cachedFile);
+
+        // when
+        Optional<File> fileOptional = testee.retrieveLatestSnapshot("testStream");
+
+        // then
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class), any(Path.class));
+        assertThat(fileOptional.get().toPath(), is(cachedFile));
+    }
+
+    @Test
+    public void shouldDownloadSnapshotIfETagIsDifferent() throws IOException {
+        // given
+        S3Object obj = S3Object.builder()
+                .key("compaction-testStream-snapshot-1.json.zip")
+                .eTag("\"other-etag\"")
                 .size(0L)
                 .build();
         when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(ListObjectsV2Response.builder().keyCount(1).contents(obj).build());
+        when(s3Client.getObject(any(GetObjectRequest.class), any(Path.class))).thenReturn(GetObjectResponse.builder().build());
 
-        final Path tempFile = SnapshotFileHelper.getTempFile("/compaction-testStream-snapshot-1.json.zip");
-        Files.deleteIfExists(tempFile);
-        Files.createFile(tempFile);
+        final Path cachedFile = snapshotCache.getSnapshotFile(obj.toBuilder().eTag("\"some-etag\"").build());
+        Files.createDirectories(cachedFile.getParent());
+        Files.createFile(cachedFile);
 
-        try {
-            // when
-            Optional<File> fileOptional = testee.retrieveLatestSnapshot("testStream");
+        // when
+        Optional<File> fileOptional = testee.retrieveLatestSnapshot("testStream");
 
-            // then
-//            verify(s3Helper, never()).download(any(), any(), any());
-            assertThat(fileOptional.get().toPath(), is(tempFile));
-        } finally {
-            Files.delete(SnapshotFileHelper.getTempFile("/compaction-testStream-snapshot-1.json.zip"));
-        }
+        // then
+        verify(s3Client).getObject(any(GetObjectRequest.class), any(Path.class));
+        assertThat(fileOptional.get().toPath(), is(snapshotCache.getSnapshotFile(obj)));
+        assertThat(Files.exists(cachedFile), is(false));
     }
 }
@@ -2,10 +2,15 @@ package de.otto.synapse.configuration;
 
 import de.otto.synapse.annotation.EventSourceConsumerBeanPostProcessor;
 import de.otto.synapse.channel.selector.MessageLog;
+import de.otto.synapse.eventsource.ChannelPositionCheckpoint;
 import de.otto.synapse.eventsource.DefaultEventSourceBuilder;
 import de.otto.synapse.eventsource.EventSource;
 import de.otto.synapse.eventsource.EventSourceBuilder;
 import de.otto.synapse.eventsource.EventSourceConsumerProcess;
+import de.otto.synapse.eventsource.EventSourceScheduler;
+import de.otto.synapse.eventsource.EventSourceStartupCoordinator;
+import de.otto.synapse.eventsource.ResourceEstimate;
+import de.otto.synapse.eventsource.ResourceEstimator;
 import de.otto.synapse.messagestore.MessageStoreFactory;
 import de.otto.synapse.messagestore.SnapshotMessageStore;
 import org.slf4j.Logger;
@@ -29,18 +34,70 @@ public class EventSourcingAutoConfiguration {
 
     private static final Logger LOG = getLogger(EventSourcingAutoConfiguration.class);
 
+    /**
+     * The scheduler shared by all event sources to dispatch the messages of their snapshots, configured using
+     * the {@code synapse.consumer-process.*} properties. The threads of the scheduler are started when the first
+     * message store is consumed.
+     *
+     * @param synapseProperties properties used to configure the scheduler
+     * @return EventSourceScheduler
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public EventSourceScheduler eventSourceScheduler(final SynapseProperties synapseProperties) {
+        final SynapseProperties.ConsumerProcess consumerProcess = synapseProperties.getConsumerProcess();
+        return new EventSourceScheduler(
+                consumerProcess.getThreads(),
+                consumerProcess.getWeights(),
+                consumerProcess.getPriorityChannels());
+    }
+
+    /**
+     * The coordinator used to load the snapshots of the event sources under a memory and disk budget, configured
+     * using the {@code synapse.consumer-process.startup.*} properties.
+     * <p>
+     *     If no {@link ResourceEstimator} is available, the snapshots are loaded one after another. The threads of the
+     *     coordinator are stopped when the application context is closed.
+     * </p>
+     *
+     * @param synapseProperties properties used to configure the coordinator
+     * @param resourceEstimator the estimator of the resources needed to load the snapshots
+     * @return EventSourceStartupCoordinator
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+            prefix = "synapse",
+            name = "consumer-process.startup.enabled",
+            havingValue = "true")
+    public EventSourceStartupCoordinator eventSourceStartupCoordinator(final SynapseProperties synapseProperties,
+                                                                       @Autowired(required = false) ResourceEstimator resourceEstimator) {
+        final SynapseProperties.ConsumerProcess consumerProcess = synapseProperties.getConsumerProcess();
+        return new EventSourceStartupCoordinator(
+                consumerProcess.getStartup().getHeapBudget().toBytes(),
+                consumerProcess.getStartup().getDiskBudget().toBytes(),
+                resourceEstimator != null ? resourceEstimator : channelName -> ResourceEstimate.unknown(),
+                consumerProcess.getStartup().getEstimateTimeout(),
+                consumerProcess.getStartup().getOrdering(),
+                consumerProcess.getPriorityChannels());
+    }
+
     @Bean
     @ConditionalOnMissingBean(name = "defaultEventSourceBuilder")
     @ConditionalOnBean(name = "snapshotMessageStoreFactory")
-    public EventSourceBuilder defaultEventSourceBuilder(final MessageStoreFactory<SnapshotMessageStore> snapshotMessageStoreFactory) {
-        return new DefaultEventSourceBuilder(snapshotMessageStoreFactory, MessageLog.class);
+    public EventSourceBuilder defaultEventSourceBuilder(final MessageStoreFactory<SnapshotMessageStore> snapshotMessageStoreFactory,
+                                                        @Autowired(required = false) List<ChannelPositionCheckpoint> checkpoints,
+                                                        final EventSourceScheduler eventSourceScheduler,
+                                                        @Autowired(required = false) EventSourceStartupCoordinator startupCoordinator) {
+        return new DefaultEventSourceBuilder(snapshotMessageStoreFactory, MessageLog.class, checkpoints, eventSourceScheduler, startupCoordinator);
     }
 
     @Bean
     @ConditionalOnMissingBean(name = {"defaultEventSourceBuilder", "snapshotMessageStoreFactory"})
-    public EventSourceBuilder fallbackEventSourceBuilder() {
+    public EventSourceBuilder fallbackEventSourceBuilder(@Autowired(required = false) List<ChannelPositionCheckpoint> checkpoints,
+                                                         final EventSourceScheduler eventSourceScheduler) {
         LOG.info("No MessageStoreFactory is configured. Falling back to EventStoreBuilder w/o Snapshot MessageStore");
-        return new DefaultEventSourceBuilder((_x) -> emptyMessageStore(), MessageLog.class);
+        return new DefaultEventSourceBuilder((_x) -> emptyMessageStore(), MessageLog.class, checkpoints, eventSourceScheduler);
     }
 
     @Bean
@@ -49,8 +106,10 @@ public class EventSourcingAutoConfiguration {
             name = "consumer-process.enabled",
             havingValue = "true",
             matchIfMissing = true)
-    public EventSourceConsumerProcess eventSourceConsumerProcess(@Autowired(required = false) List<EventSource> eventSources) {
-        return new EventSourceConsumerProcess(eventSources);
+    public EventSourceConsumerProcess eventSourceConsumerProcess(@Autowired(required = false) List<EventSource> eventSources,
+                                                                 final SynapseProperties synapseProperties,
+                                                                 @Autowired(required = false) EventSourceStartupCoordinator startupCoordinator) {
+        return new EventSourceConsumerProcess(eventSources, synapseProperties.getConsumerProcess().getPriorityChannels(), startupCoordinator);
     }
 
     @Bean
@@ -5,6 +5,7 @@ import de.otto.synapse.annotation.MessageInterceptorBeanPostProcessor;
 import de.otto.synapse.endpoint.DefaultReceiverHeadersInterceptor;
 import de.otto.synapse.endpoint.DefaultSenderHeadersInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.ExecutorServiceFactory;
 import de.otto.synapse.journal.Journal;
 import de.otto.synapse.journal.JournalRegistry;
 import org.slf4j.Logger;
@@ -14,12 +15,16 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Role;
 import org.springframework.core.annotation.Order;
 
 import java.util.List;
 import java.util.Map;
 
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.isVirtualThreadSupported;
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.platformThreads;
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.virtualThreads;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.springframework.beans.factory.config.BeanDefinition.ROLE_INFRASTRUCTURE;
@@ -27,6 +32,7 @@ import static org.springframework.core.Ordered.LOWEST_PRECEDENCE;
 
 @Configuration
 @EnableConfigurationProperties(SynapseProperties.class)
+@Import(SynapseMetricsAutoConfiguration.class)
 public class SynapseAutoConfiguration {
 
     private static final Logger LOG = getLogger(SynapseAutoConfiguration.class);
@@ -56,8 +62,9 @@ public class SynapseAutoConfiguration {
 
     @Bean
     public JournalRegistry journals(final List<Journal> journals,
-                                    final MessageInterceptorRegistry registry) {
-        return new JournalRegistry(journals, registry);
+                                    final MessageInterceptorRegistry registry,
+                                    final SynapseProperties synapseProperties) {
+        return new JournalRegistry(journals, registry, synapseProperties.getJournal());
     }
 
     /**
@@ -98,6 +105,28 @@ public class SynapseAutoConfiguration {
         return new DefaultReceiverHeadersInterceptor(synapseProperties);
     }
 
+    /**
+     * Configures the {@link ExecutorServiceFactory} used by the receiver endpoints to create their threads.
+     * <p>
+     *     Platform threads are used by default. Virtual threads are used, if they are enabled using
+     *     {@code synapse.receiver.virtual-threads.enabled=true} and supported by the Java runtime.
+     * </p>
+     *
+     * @param synapseProperties properties used to configure the factory
+     * @return ExecutorServiceFactory
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ExecutorServiceFactory receiverExecutorServiceFactory(final SynapseProperties synapseProperties) {
+        if (synapseProperties.getReceiver().getVirtualThreads().isEnabled() && isVirtualThreadSupported()) {
+            LOG.info("Using virtual threads for message receivers");
+            return virtualThreads();
+        } else {
+            LOG.info("Using platform threads for message receivers");
+            return platformThreads();
+        }
+    }
+
     /**
      * Activate the MessageInterceptorBeanPostProcessor used to post-process beans having methods annotated as a
      * {@link de.otto.synapse.annotation.MessageInterceptor}.
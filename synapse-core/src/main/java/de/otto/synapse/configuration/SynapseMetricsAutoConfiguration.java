@@ -0,0 +1,81 @@
+package de.otto.synapse.configuration;
+
+import de.otto.synapse.eventsource.EventSourceScheduler;
+import de.otto.synapse.journal.AsyncJournalWriter;
+import de.otto.synapse.journal.JournalRegistry;
+import de.otto.synapse.metrics.MicrometerPipelineMetrics;
+import de.otto.synapse.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static de.otto.synapse.metrics.SynapseMetrics.overrideMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.resetMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Configures the {@link MicrometerPipelineMetrics} used to instrument the message pipeline, if Micrometer is
+ * available and {@code synapse.metrics.enabled=true}.
+ * <p>
+ *     The metrics are {@link de.otto.synapse.metrics.SynapseMetrics#overrideMetrics(PipelineMetrics) installed}
+ *     when the bean is created, and reset when the application context is closed. Without this configuration,
+ *     the message pipeline is not instrumented at all.
+ * </p>
+ * <p>
+ *     After all singletons are instantiated, the writers of asynchronously written journals and the
+ *     {@link EventSourceScheduler} are {@link MicrometerPipelineMetrics#bindJournalWriter(AsyncJournalWriter) bound}
+ *     to the metrics.
+ * </p>
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(
+        prefix = "synapse.metrics",
+        name = "enabled",
+        havingValue = "true")
+public class SynapseMetricsAutoConfiguration implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger LOG = getLogger(SynapseMetricsAutoConfiguration.class);
+
+    private final ObjectProvider<JournalRegistry> journalRegistry;
+    private final ObjectProvider<EventSourceScheduler> eventSourceScheduler;
+    private volatile MicrometerPipelineMetrics pipelineMetrics;
+
+    public SynapseMetricsAutoConfiguration(final ObjectProvider<JournalRegistry> journalRegistry,
+                                           final ObjectProvider<EventSourceScheduler> eventSourceScheduler) {
+        this.journalRegistry = journalRegistry;
+        this.eventSourceScheduler = eventSourceScheduler;
+    }
+
+    @Bean
+    public PipelineMetrics pipelineMetrics(final MeterRegistry meterRegistry,
+                                           final SynapseProperties synapseProperties) {
+        LOG.info("Publishing metrics of the message pipeline to {}", meterRegistry.getClass().getSimpleName());
+        pipelineMetrics = new MicrometerPipelineMetrics(meterRegistry, synapseProperties.getMetrics());
+        overrideMetrics(pipelineMetrics);
+        return pipelineMetrics;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (pipelineMetrics != null) {
+            journalRegistry.ifUnique(registry -> registry
+                    .getJournalWriters()
+                    .forEach(pipelineMetrics::bindJournalWriter));
+            eventSourceScheduler.ifUnique(pipelineMetrics::bindEventSourceScheduler);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (pipelineMetrics != null) {
+            resetMetrics(pipelineMetrics);
+        }
+    }
+}
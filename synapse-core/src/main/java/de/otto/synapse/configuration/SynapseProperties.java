@@ -1,13 +1,25 @@
 package de.otto.synapse.configuration;
 
 import org.springframework.beans.factory.annotation.Value;
+import de.otto.synapse.eventsource.EventSourceStartupCoordinator;
+import de.otto.synapse.journal.AsyncJournalWriter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 @ConfigurationProperties(prefix = "synapse")
 public class SynapseProperties {
     private final ConsumerProcess consumerProcess = new ConsumerProcess();
     private final Sender sender;
     private final Receiver receiver;
+    private final Journal journal = new Journal();
+    private final Subscription subscription = new Subscription();
+    private final Metrics metrics = new Metrics();
 
     public SynapseProperties(@Value("${spring.application.name:Synapse}") String defaultName) {
         this.sender = new Sender(defaultName);
@@ -26,6 +38,18 @@ public class SynapseProperties {
         return receiver;
     }
 
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     public static class Sender {
 
         /**
@@ -72,11 +96,16 @@ public class SynapseProperties {
     public static class Receiver {
 
         private final DefaultHeaders defaultHeaders = new DefaultHeaders();
+        private final VirtualThreads virtualThreads = new VirtualThreads();
 
         public DefaultHeaders getDefaultHeaders() {
             return defaultHeaders;
         }
 
+        public VirtualThreads getVirtualThreads() {
+            return virtualThreads;
+        }
+
         public class DefaultHeaders {
             private boolean enabled = true;
 
@@ -88,10 +117,40 @@ public class SynapseProperties {
                 this.enabled = enabled;
             }
         }
+
+        public class VirtualThreads {
+            /**
+             * Use virtual threads for message receivers, if they are supported by the Java runtime (Java 21+).
+             * Disabled by default, so receivers are using platform threads as before.
+             */
+            private boolean enabled = false;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+        }
     }
 
     public static class ConsumerProcess {
         private boolean enabled = true;
+        /**
+         * The number of threads shared by all event sources to dispatch the messages of their snapshots.
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+        /**
+         * The weights of the channels used to share the threads between the event sources. Defaults to 1.
+         */
+        private Map<String, Integer> weights = new HashMap<>();
+        /**
+         * The channels that are consumed before all other channels, for example because they are blocking the
+         * readiness of the service.
+         */
+        private Set<String> priorityChannels = new HashSet<>();
+        private final Startup startup = new Startup();
 
         public boolean isEnabled() {
             return enabled;
@@ -100,5 +159,346 @@ public class SynapseProperties {
         public void setEnabled(boolean enabled) {
             this.enabled = enabled;
         }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public Map<String, Integer> getWeights() {
+            return weights;
+        }
+
+        public void setWeights(Map<String, Integer> weights) {
+            this.weights = weights;
+        }
+
+        public Set<String> getPriorityChannels() {
+            return priorityChannels;
+        }
+
+        public void setPriorityChannels(Set<String> priorityChannels) {
+            this.priorityChannels = priorityChannels;
+        }
+
+        public Startup getStartup() {
+            return startup;
+        }
+
+        public static class Startup {
+            /**
+             * Load the snapshots of the event sources under a memory and disk budget, using an
+             * EventSourceStartupCoordinator.
+             */
+            private boolean enabled = false;
+            /**
+             * The heap memory that may be used to load snapshots in parallel. Defaults to half of the max heap size.
+             */
+            private DataSize heapBudget = DataSize.ofBytes(Runtime.getRuntime().maxMemory() / 2);
+            /**
+             * The disk space that may be used to download snapshots in parallel. Unlimited by default.
+             */
+            private DataSize diskBudget = DataSize.ofBytes(Long.MAX_VALUE);
+            /**
+             * The max duration of estimating the resources of an event source. If exceeded, the estimate is unknown
+             * and the snapshot is only loaded if no other event source is loading its snapshot.
+             */
+            private Duration estimateTimeout = EventSourceStartupCoordinator.DEFAULT_ESTIMATE_TIMEOUT;
+            /**
+             * The order used to admit event sources to load their snapshots.
+             */
+            private EventSourceStartupCoordinator.Ordering ordering = EventSourceStartupCoordinator.Ordering.BIGGEST_FIRST;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public DataSize getHeapBudget() {
+                return heapBudget;
+            }
+
+            public void setHeapBudget(DataSize heapBudget) {
+                this.heapBudget = heapBudget;
+            }
+
+            public DataSize getDiskBudget() {
+                return diskBudget;
+            }
+
+            public void setDiskBudget(DataSize diskBudget) {
+                this.diskBudget = diskBudget;
+            }
+
+            public Duration getEstimateTimeout() {
+                return estimateTimeout;
+            }
+
+            public void setEstimateTimeout(Duration estimateTimeout) {
+                this.estimateTimeout = estimateTimeout;
+            }
+
+            public EventSourceStartupCoordinator.Ordering getOrdering() {
+                return ordering;
+            }
+
+            public void setOrdering(EventSourceStartupCoordinator.Ordering ordering) {
+                this.ordering = ordering;
+            }
+        }
+    }
+
+    public static class Journal {
+
+        private final Async async = new Async();
+
+        public Async getAsync() {
+            return async;
+        }
+
+        public static class Async {
+            /**
+             * Write journal entries asynchronously, in batches, using an AsyncJournalWriter per journal. Receivers are
+             * no longer blocked by the journal's MessageStore, but journals are eventually consistent with the
+             * consumed messages.
+             */
+            private boolean enabled = false;
+            /**
+             * The maximum number of entries queued per journal.
+             */
+            private int capacity = 10000;
+            /**
+             * The maximum number of entries written to the journal's MessageStore at once.
+             */
+            private int batchSize = 100;
+            /**
+             * The behaviour if the queue of a journal is full.
+             */
+            private AsyncJournalWriter.OverflowPolicy overflowPolicy = AsyncJournalWriter.OverflowPolicy.BLOCK;
+            /**
+             * If the overflow policy is SAMPLE, every n-th entry that does not fit into the queue is journaled.
+             */
+            private int sampleRate = 10;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public AsyncJournalWriter.OverflowPolicy getOverflowPolicy() {
+                return overflowPolicy;
+            }
+
+            public void setOverflowPolicy(AsyncJournalWriter.OverflowPolicy overflowPolicy) {
+                this.overflowPolicy = overflowPolicy;
+            }
+
+            public int getSampleRate() {
+                return sampleRate;
+            }
+
+            public void setSampleRate(int sampleRate) {
+                this.sampleRate = sampleRate;
+            }
+        }
+    }
+
+    public static class Subscription {
+
+        private final Target target = new Target();
+        private final Snapshot snapshot = new Snapshot();
+
+        public Target getTarget() {
+            return target;
+        }
+
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public static class Target {
+            /**
+             * The maximum number of messages queued per target channel. If the queue is full, senders of the
+             * subscribed channel are blocked.
+             */
+            private int capacity = 10000;
+            /**
+             * The maximum number of messages per batch sent to the target channel.
+             */
+            private int batchSize = 500;
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+        }
+
+        public static class Snapshot {
+            /**
+             * The maximum number of entities looked up at once in the StateRepository of the subscribed channel.
+             */
+            private int lookupSize = 1000;
+            /**
+             * The maximum number of snapshot messages per batch sent to the target channel.
+             */
+            private int batchSize = 500;
+            /**
+             * The maximum number of batches per snapshot that are sent concurrently to the target channel.
+             */
+            private int maxBatchesInFlight = 4;
+            /**
+             * The maximum number of snapshot messages per second sent to the target channel, or 0 if the snapshot
+             * messages should be sent as fast as possible.
+             */
+            private double maxMessagesPerSecond = 0;
+
+            public int getLookupSize() {
+                return lookupSize;
+            }
+
+            public void setLookupSize(int lookupSize) {
+                this.lookupSize = lookupSize;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public int getMaxBatchesInFlight() {
+                return maxBatchesInFlight;
+            }
+
+            public void setMaxBatchesInFlight(int maxBatchesInFlight) {
+                this.maxBatchesInFlight = maxBatchesInFlight;
+            }
+
+            public double getMaxMessagesPerSecond() {
+                return maxMessagesPerSecond;
+            }
+
+            public void setMaxMessagesPerSecond(double maxMessagesPerSecond) {
+                this.maxMessagesPerSecond = maxMessagesPerSecond;
+            }
+        }
+    }
+
+    public static class Metrics {
+        /**
+         * Enables the Micrometer instrumentation of the message pipeline. Requires a MeterRegistry bean.
+         */
+        private boolean enabled = false;
+        /**
+         * The maximum number of distinct values per tag, for example the number of channels, shards or consumers.
+         * Additional values are reported as 'other'.
+         */
+        private int maxTagValues = 100;
+        /**
+         * The maximum number of meters registered by the message pipeline. Measurements of additional combinations
+         * of tag values are dropped.
+         */
+        private int maxMeters = 1000;
+        /**
+         * The channels that are tagged with their names. If empty, all channels are tagged with their names,
+         * otherwise the metrics of all other channels are reported as channel 'other'.
+         */
+        private Set<String> channels = new HashSet<>();
+        /**
+         * Tag the metrics of message-log receivers with the name of the shard. If disabled, all shards of a
+         * channel are reported as shard 'all'.
+         */
+        private boolean shardTagsEnabled = true;
+        /**
+         * Publish percentile histograms for the timers and distribution summaries of the message pipeline. Every
+         * histogram adds about 70 bucket series per meter, so this is disabled by default.
+         */
+        private boolean percentileHistograms = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTagValues() {
+            return maxTagValues;
+        }
+
+        public void setMaxTagValues(int maxTagValues) {
+            this.maxTagValues = maxTagValues;
+        }
+
+        public int getMaxMeters() {
+            return maxMeters;
+        }
+
+        public void setMaxMeters(int maxMeters) {
+            this.maxMeters = maxMeters;
+        }
+
+        public Set<String> getChannels() {
+            return channels;
+        }
+
+        public void setChannels(Set<String> channels) {
+            this.channels = channels;
+        }
+
+        public boolean isShardTagsEnabled() {
+            return shardTagsEnabled;
+        }
+
+        public void setShardTagsEnabled(boolean shardTagsEnabled) {
+            this.shardTagsEnabled = shardTagsEnabled;
+        }
+
+        public boolean isPercentileHistograms() {
+            return percentileHistograms;
+        }
+
+        public void setPercentileHistograms(boolean percentileHistograms) {
+            this.percentileHistograms = percentileHistograms;
+        }
     }
 }
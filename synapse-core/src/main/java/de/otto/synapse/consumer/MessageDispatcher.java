@@ -2,17 +2,20 @@ package de.otto.synapse.consumer;
 
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
 import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import static de.otto.synapse.message.Message.message;
-import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
-import static java.util.Collections.synchronizedList;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.meterNameOf;
+import static de.otto.synapse.translator.PayloadCodecRegistry.codecFor;
 import static java.util.Collections.unmodifiableList;
 import static java.util.regex.Pattern.compile;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -29,6 +32,10 @@ import static org.slf4j.LoggerFactory.getLogger;
  * <p>
  *     Messages are translated by the dispatcher using to the format expected by the registered consumers.
  * </p>
+ * <p>
+ *     Dispatchers that are created for a channel are recording the time spent to decode the payloads and the
+ *     time spent in every consumer, if {@link de.otto.synapse.metrics.SynapseMetrics metrics} are enabled.
+ * </p>
  * @see  <a href="http://www.enterpriseintegrationpatterns.com/patterns/messaging/MessageDispatcher.html">EIP: Message Dispatcher</a>
  * @see <a href="https://en.wikipedia.org/wiki/Composite_pattern">Composite Pattern</a>
  */
@@ -36,15 +43,28 @@ public class MessageDispatcher implements Consumer<TextMessage> {
 
     private static final Logger LOG = getLogger(MessageDispatcher.class);
     private static final Pattern ACCEPT_ALL = compile(".*");
+    private static final String ACCEPT_ALL_REGEX = ACCEPT_ALL.pattern();
 
+    private final String channelName;
     private final List<MessageConsumer<?>> messageConsumers;
 
     public MessageDispatcher() {
-        this.messageConsumers = synchronizedList(new ArrayList<>());
+        this((String) null);
+    }
+
+    /**
+     * Creates a MessageDispatcher for the given channel, that is used to record the time spent in the consumers.
+     *
+     * @param channelName the name of the channel, or null if the consumers should not be measured
+     */
+    public MessageDispatcher(final @Nullable String channelName) {
+        this.channelName = channelName;
+        this.messageConsumers = new CopyOnWriteArrayList<>();
     }
 
     public MessageDispatcher(final List<MessageConsumer<?>> messageConsumers) {
-        this.messageConsumers = synchronizedList(new ArrayList<>(messageConsumers));
+        this.channelName = null;
+        this.messageConsumers = new CopyOnWriteArrayList<>(messageConsumers);
     }
 
     public void add(final MessageConsumer<?> messageConsumer) {
@@ -80,39 +100,60 @@ public class MessageDispatcher implements Consumer<TextMessage> {
      * {@link MessageConsumer consumers} if their {@link MessageConsumer#keyPattern()} matches, and
      * translates the JSON payload into the expected {@link MessageConsumer#payloadType()} of the receiving
      * MessageConsumer.
+     * <p>
+     *     Payloads of messages created from UTF-8 encoded bytes are parsed directly from the bytes.
+     * </p>
      *
      * @param message the input argument
      */
     @Override
-    @SuppressWarnings({"unchecked", "raw"})
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public void accept(final TextMessage message) {
         LOG.debug("Accepting message={}", message);
-        messageConsumers
-                .stream()
-                .filter(consumer -> matchesKeyPattern(message, consumer.keyPattern()))
-                .forEach((MessageConsumer consumer) -> {
-                    try {
-                        final Class<?> payloadType = consumer.payloadType();
-                        if (payloadType.equals(String.class)) {
-                            consumer.accept(message);
-                        } else {
-                            Object payload = null;
-                            if (message.getPayload() != null) {
-                                payload = currentObjectMapper().readValue(message.getPayload(), payloadType);
-                            }
-                            final Message<?> tMessage = message(message.getKey(), message.getHeader(), payload);
-                            consumer.accept(tMessage);
+        final PipelineMetrics metrics = currentMetrics();
+        final boolean measured = channelName != null && metrics.isEnabled();
+        for (final MessageConsumer consumer : messageConsumers) {
+            if (matchesKeyPattern(message, consumer.keyPattern())) {
+                try {
+                    final Class<?> payloadType = consumer.payloadType();
+                    final Message<?> consumedMessage;
+                    if (payloadType.equals(String.class)) {
+                        consumedMessage = message;
+                    } else {
+                        final long decodingStarted = measured ? System.nanoTime() : 0L;
+                        final Object payload = message.readPayload(codecFor(payloadType));
+                        if (measured) {
+                            metrics.recordDecode(channelName, System.nanoTime() - decodingStarted);
                         }
-                    } catch (final Exception e) {
-                        LOG.error(e.getMessage(), e);
-                        throw new IllegalStateException(e.getMessage(), e);
+                        consumedMessage = message(message.getKey(), message.getHeader(), payload);
+                    }
+                    final long consumingStarted = measured ? System.nanoTime() : 0L;
+                    consumer.accept(consumedMessage);
+                    if (measured) {
+                        metrics.recordConsumer(channelName, consumerName(consumer), System.nanoTime() - consumingStarted);
                     }
-                });
+                } catch (final Exception e) {
+                    LOG.error(e.getMessage(), e);
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static String consumerName(final MessageConsumer<?> consumer) {
+        return consumer instanceof MethodInvokingMessageConsumer
+                ? ((MethodInvokingMessageConsumer<?>) consumer).getName()
+                : meterNameOf(consumer);
     }
 
+    /**
+     * Returns true, if the compaction key of the message matches the key pattern. Patterns accepting all keys are
+     * not evaluated, so no {@code Matcher} is created in this case.
+     */
     private boolean matchesKeyPattern(final TextMessage message,
                                       final Pattern keyPattern) {
-        return keyPattern.matcher(message.getKey().compactionKey()).matches();
+        return ACCEPT_ALL_REGEX.equals(keyPattern.pattern())
+                || keyPattern.matcher(message.getKey().compactionKey()).matches();
     }
 
 }
@@ -2,26 +2,48 @@ package de.otto.synapse.consumer;
 
 import de.otto.synapse.message.Message;
 
+import org.slf4j.Logger;
+
 import javax.annotation.Nonnull;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
 /**
  * A {@link MessageConsumer} that is calling a method of a class instance for every accepted {@link Message}
  * <p>
  *     <img src="http://www.enterpriseintegrationpatterns.com/img/MessageEndpointSolution.gif" alt="MesageConsumer">
  * </p>
+ * <p>
+ *     The method is bound once, when the consumer is created: public methods of public classes are called using
+ *     a class generated by the {@link LambdaMetafactory}, so the JIT is able to inline the call just like a call
+ *     of a lambda expression. All other methods are called using a {@link MethodHandle}. In both cases,
+ *     no reflection is involved when messages are consumed.
+ * </p>
+ * <p>
+ *     Runtime exceptions thrown by the method are propagated to the caller as-is, checked exceptions are wrapped
+ *     into an {@link IllegalStateException}.
+ * </p>
 
  * @param <T> The expected type of the message's payload
  */
 public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T> {
 
+    private static final Logger LOG = getLogger(MethodInvokingMessageConsumer.class);
+
     private final Pattern keyPattern;
     private final Class<T> payloadType;
     private final Object instance;
-    private final Method method;
+    private final String name;
+    private final Invoker invoker;
 
     public MethodInvokingMessageConsumer(final String keyPattern,
                                          final Class<T> payloadType,
@@ -42,8 +64,19 @@ public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T> {
 
         this.keyPattern = Pattern.compile(keyPattern);
         this.payloadType = payloadType;
-        this.method = method;
         this.instance = instance;
+        this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        this.invoker = invokerFor(method);
+    }
+
+    /**
+     * Returns the name of the consumer, consisting of the simple name of the class and the name of the method.
+     *
+     * @return name of the consumer
+     */
+    @Nonnull
+    public String getName() {
+        return name;
     }
 
     /**
@@ -71,10 +104,73 @@ public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T> {
     @Override
     public void accept(final Message<T> message) {
         try {
-            method.invoke(instance, message);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalStateException(e);
+            invoker.invoke(instance, message);
+        } catch (final RuntimeException | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static Invoker invokerFor(final Method method) {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (isBindable(method)) {
+            try {
+                final CallSite callSite = LambdaMetafactory.metafactory(
+                        lookup,
+                        "invoke",
+                        MethodType.methodType(Invoker.class),
+                        MethodType.methodType(void.class, Object.class, Message.class),
+                        lookup.unreflect(method),
+                        MethodType.methodType(void.class, method.getDeclaringClass(), Message.class));
+                return (Invoker) callSite.getTarget().invoke();
+            } catch (final Throwable t) {
+                LOG.warn("Unable to bind method {}, falling back to MethodHandle: {}", method, t.getMessage());
+            }
+        }
+        try {
+            method.setAccessible(true);
+            final MethodHandle unreflected = lookup.unreflect(method);
+            final MethodHandle methodHandle = (Modifier.isStatic(method.getModifiers())
+                    ? MethodHandles.dropArguments(unreflected, 0, Object.class)
+                    : unreflected)
+                    .asType(MethodType.methodType(void.class, Object.class, Message.class));
+            return (instance, message) -> {
+                methodHandle.invokeExact(instance, message);
+            };
+        } catch (final IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Unable to build MethodInvokingMessageConsumer: method " + method + " is not accessible", e);
+        }
+    }
+
+    /**
+     * Returns true, if the generated invoker is able to access the method: the method must be a public instance
+     * method of a public class that is visible from the class loader of this class.
+     */
+    private static boolean isBindable(final Method method) {
+        final int modifiers = method.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers)) {
+            return false;
         }
+        final Class<?> declaringClass = method.getDeclaringClass();
+        for (Class<?> c = declaringClass; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(declaringClass.getName(), false, MethodInvokingMessageConsumer.class.getClassLoader()) == declaringClass;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Calls the consumer method for the given instance and message.
+     */
+    @FunctionalInterface
+    private interface Invoker {
+        void invoke(Object instance, Message<?> message) throws Throwable;
     }
 
 }
@@ -12,6 +12,11 @@ import java.util.regex.Pattern;
 
 /**
  * A {@code MessageConsumer} that is updating a {@link StateRepository}.
+ * <p>
+ *     If the state is derived from the message only, the state is {@link StateRepository#put(String, Object) put}
+ *     into the repository. The previous state is only {@link StateRepository#compute(String, BiFunction) computed},
+ *     if the consumer was created using a mapper function that requires the previous state.
+ * </p>
  *
  * @param <P> the type of the {@link Message} payload
  * @param <S> the type of the {@link StateRepository} entries
@@ -22,6 +27,7 @@ public class StatefulMessageConsumer<P, S> implements MessageConsumer<P> {
     private final StateRepository<S> stateRepository;
     private final Class<P> payloadType;
     private final Function<? super Message<P>, String> keyMapper;
+    private final Function<? super Message<P>, S> messageToStateMapper;
     private final BiFunction<Optional<S>, ? super Message<P>, S> payloadToStateMapper;
 
     /**
@@ -79,7 +85,8 @@ public class StatefulMessageConsumer<P, S> implements MessageConsumer<P> {
         this.keyPattern = Pattern.compile(keyPattern);
         this.payloadType = payloadType;
         this.stateRepository = stateRepository;
-        this.payloadToStateMapper = (_previousValue, message) -> payloadToStateMapper.apply(message);
+        this.messageToStateMapper = payloadToStateMapper;
+        this.payloadToStateMapper = null;
         this.keyMapper = keyMapper;
     }
 
@@ -100,6 +107,7 @@ public class StatefulMessageConsumer<P, S> implements MessageConsumer<P> {
         this.keyPattern = Pattern.compile(keyPattern);
         this.payloadType = payloadType;
         this.stateRepository = stateRepository;
+        this.messageToStateMapper = null;
         this.payloadToStateMapper = payloadToStateMapper;
         this.keyMapper = keyMapper;
     }
@@ -128,11 +136,19 @@ public class StatefulMessageConsumer<P, S> implements MessageConsumer<P> {
 
     @Override
     public void accept(final Message<P> message) {
+        final String key = keyMapper.apply(message);
         if (message.getPayload() == null) {
-            stateRepository.remove(keyMapper.apply(message));
+            stateRepository.remove(key);
+        } else if (messageToStateMapper != null) {
+            final S state = messageToStateMapper.apply(message);
+            if (state != null) {
+                stateRepository.put(key, state);
+            } else {
+                stateRepository.remove(key);
+            }
         } else {
             stateRepository.compute(
-                    keyMapper.apply(message),
+                    key,
                     (_key, previousValue) -> payloadToStateMapper.apply(previousValue, message));
         }
     }
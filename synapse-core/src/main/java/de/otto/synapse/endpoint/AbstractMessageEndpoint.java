@@ -41,6 +41,8 @@ public abstract class AbstractMessageEndpoint implements MessageEndpoint {
     private final String channelName;
     @Nonnull
     private final MessageInterceptorRegistry interceptorRegistry;
+    @Nullable
+    private volatile CachedInterceptorChain interceptorChain;
 
     /**
      * Constructor used to create a new AbstractMessageEndpoint.
@@ -71,13 +73,21 @@ public abstract class AbstractMessageEndpoint implements MessageEndpoint {
 
     /**
      * Returns the {@link InterceptorChain} of the {@code MessageEndpoint}.
+     * <p>
+     *     The chain is resolved once and only resolved again, if the {@link MessageInterceptorRegistry} has changed.
+     * </p>
      *
      * @return InterceptorChain
      */
     @Nonnull
     @Override
     public final InterceptorChain getInterceptorChain() {
-        return interceptorRegistry.getInterceptorChain(channelName, getEndpointType());
+        CachedInterceptorChain chain = interceptorChain;
+        if (chain == null) {
+            chain = interceptorRegistry.getCachedInterceptorChain(channelName, getEndpointType());
+            interceptorChain = chain;
+        }
+        return chain.get();
     }
 
     /**
@@ -0,0 +1,80 @@
+package de.otto.synapse.endpoint;
+
+import de.otto.synapse.message.TextMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link InterceptorChain} of a single channel and {@link EndpointType}, resolved once using the
+ * {@link MessageInterceptorRegistry}.
+ * <p>
+ *     The chain is only resolved again, if the {@link MessageInterceptorRegistry#getVersion() version} of the registry
+ *     has changed because of new registrations. Looking up the chain for every message is therefore reduced to
+ *     reading and comparing the version of the registry.
+ * </p>
+ */
+@ThreadSafe
+public final class CachedInterceptorChain {
+
+    private final MessageInterceptorRegistry interceptorRegistry;
+    private final String channelName;
+    private final EndpointType endpointType;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a CachedInterceptorChain.
+     *
+     * @param interceptorRegistry the registry used to resolve the InterceptorChain
+     * @param channelName the name of the channel
+     * @param endpointType the type of the endpoint
+     */
+    public CachedInterceptorChain(final @Nonnull MessageInterceptorRegistry interceptorRegistry,
+                                  final @Nonnull String channelName,
+                                  final @Nonnull EndpointType endpointType) {
+        this.interceptorRegistry = requireNonNull(interceptorRegistry);
+        this.channelName = requireNonNull(channelName);
+        this.endpointType = requireNonNull(endpointType);
+    }
+
+    /**
+     * Returns the current InterceptorChain of the channel and endpoint type.
+     *
+     * @return InterceptorChain
+     */
+    @Nonnull
+    public InterceptorChain get() {
+        final long version = interceptorRegistry.getVersion();
+        Snapshot current = snapshot;
+        if (current == null || current.version != version) {
+            current = new Snapshot(version, interceptorRegistry.getInterceptorChain(channelName, endpointType));
+            snapshot = current;
+        }
+        return current.interceptorChain;
+    }
+
+    /**
+     * Intercepts a message using the current InterceptorChain.
+     *
+     * @param message the message to intercept
+     * @return the (possibly modified) message, or null if the message should be dropped.
+     * @see InterceptorChain#intercept(TextMessage)
+     */
+    @Nullable
+    public TextMessage intercept(final @Nonnull TextMessage message) {
+        return get().intercept(message);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final InterceptorChain interceptorChain;
+
+        private Snapshot(final long version, final InterceptorChain interceptorChain) {
+            this.version = version;
+            this.interceptorChain = interceptorChain;
+        }
+    }
+}
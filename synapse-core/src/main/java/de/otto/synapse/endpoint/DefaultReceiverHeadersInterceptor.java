@@ -9,8 +9,6 @@ import javax.annotation.Nullable;
 import java.time.Clock;
 
 import static de.otto.synapse.message.DefaultHeaderAttr.MSG_RECEIVER_TS;
-import static de.otto.synapse.message.Header.copyOf;
-import static de.otto.synapse.message.Message.message;
 
 /**
  * A {@link MessageInterceptor message interceptor} that is able to add some commonly required header attributes in
@@ -51,12 +49,10 @@ public class DefaultReceiverHeadersInterceptor {
     @Nullable
     @de.otto.synapse.annotation.MessageInterceptor(endpointType = EndpointType.RECEIVER)
     public TextMessage addDefaultHeaders(@Nonnull TextMessage message) {
-
-        final Header.Builder headers = copyOf(message.getHeader());
-
-        if (enabled) {
-            headers.withAttribute(MSG_RECEIVER_TS, clock.instant());
+        if (!enabled) {
+            return message;
         }
-        return TextMessage.of(message.getKey(), headers.build(), message.getPayload());
+        final Header headers = message.getHeader().withAttribute(MSG_RECEIVER_TS, clock.instant());
+        return message.withHeader(headers);
     }
 }
@@ -3,12 +3,16 @@ package de.otto.synapse.endpoint;
 import com.google.common.collect.ImmutableList;
 import de.otto.synapse.endpoint.sender.AbstractMessageSenderEndpoint;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
 import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.meterNameOf;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -27,6 +31,10 @@ import static org.slf4j.LoggerFactory.getLogger;
  * <p>
  *     If an interceptor returns null, the chain will return null without further processing of the message.
  * </p>
+ * <p>
+ *     Chains that are created for a channel and endpoint type are recording the time spent in every interceptor,
+ *     if {@link de.otto.synapse.metrics.SynapseMetrics metrics} are enabled.
+ * </p>
  *
  * @see <a href="https://en.wikipedia.org/wiki/Composite_pattern">Composite Pattern</a>
  */
@@ -36,16 +44,39 @@ public final class InterceptorChain implements MessageInterceptor {
     private static final Logger LOG = getLogger(InterceptorChain.class);
 
     private final ImmutableList<MessageInterceptor> interceptors;
+    private final String channelName;
+    private final EndpointType endpointType;
+    private final ImmutableList<String> interceptorNames;
 
     /**
      * Creates an empty InterceptorChain.
      */
     public InterceptorChain() {
-        this.interceptors = ImmutableList.of();
+        this(ImmutableList.of());
     }
 
     public InterceptorChain(final ImmutableList<MessageInterceptor> messageInterceptors) {
+        this(null, null, messageInterceptors);
+    }
+
+    /**
+     * Creates an InterceptorChain for the given channel and endpoint type, that is used to record the time spent
+     * in the interceptors.
+     *
+     * @param channelName the name of the channel, or null if interceptors should not be measured
+     * @param endpointType the type of the endpoint, or null if interceptors should not be measured
+     * @param messageInterceptors the interceptors of the chain
+     */
+    public InterceptorChain(final @Nullable String channelName,
+                            final @Nullable EndpointType endpointType,
+                            final ImmutableList<MessageInterceptor> messageInterceptors) {
         this.interceptors = messageInterceptors;
+        this.channelName = channelName;
+        this.endpointType = endpointType;
+        this.interceptorNames = messageInterceptors
+                .stream()
+                .map(InterceptorChain::interceptorName)
+                .collect(toImmutableList());
     }
 
     /**
@@ -77,12 +108,18 @@ public final class InterceptorChain implements MessageInterceptor {
      */
     @Nullable
     public TextMessage intercept(final @Nonnull TextMessage message) {
+        final PipelineMetrics metrics = currentMetrics();
         TextMessage interceptedMessage = message;
-        for (final MessageInterceptor interceptor : interceptors) {
-            if (interceptedMessage == null) {
-                break;
+        if (metrics.isEnabled() && channelName != null && endpointType != null) {
+            for (int i = 0, n = interceptors.size(); i < n && interceptedMessage != null; ++i) {
+                final long started = System.nanoTime();
+                interceptedMessage = interceptors.get(i).intercept(interceptedMessage);
+                metrics.recordInterceptor(channelName, endpointType, interceptorNames.get(i), System.nanoTime() - started);
+            }
+        } else {
+            for (int i = 0, n = interceptors.size(); i < n && interceptedMessage != null; ++i) {
+                interceptedMessage = interceptors.get(i).intercept(interceptedMessage);
             }
-            interceptedMessage = interceptor.intercept(interceptedMessage);
         }
         if (interceptedMessage != null) {
             LOG.debug("Intercepted message '{}' converted to {}", message, interceptedMessage);
@@ -92,4 +129,10 @@ public final class InterceptorChain implements MessageInterceptor {
         return interceptedMessage;
     }
 
+    private static String interceptorName(final MessageInterceptor interceptor) {
+        return interceptor instanceof MethodInvokingMessageInterceptor
+                ? ((MethodInvokingMessageInterceptor) interceptor).getName()
+                : meterNameOf(interceptor);
+    }
+
 }
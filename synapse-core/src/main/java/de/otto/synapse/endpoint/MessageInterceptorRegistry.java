@@ -6,30 +6,60 @@ import org.springframework.core.OrderComparator;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Collections.synchronizedList;
-import static java.util.Comparator.comparing;
 
+/**
+ * Registry of {@link MessageInterceptorRegistration registered} {@link MessageInterceptor message interceptors}.
+ * <p>
+ *     The {@link InterceptorChain InterceptorChains} of channels and endpoint types are cached until the next
+ *     registration. Every registration is incrementing the {@link #getVersion() version} of the registry, so
+ *     {@link CachedInterceptorChain CachedInterceptorChains} are able to detect changes without looking up the
+ *     chain for every message.
+ * </p>
+ */
 public class MessageInterceptorRegistry {
 
     private final static Comparator<Object> REGISTRATION_ORDER_COMPARATOR = new OrderComparator().reversed();
     private final List<MessageInterceptorRegistration> registry = synchronizedList(new ArrayList<>());
-    private final ConcurrentMap<String, InterceptorChain> interceptorChainCache = new ConcurrentHashMap<>();
+    private final Map<EndpointType, ConcurrentMap<String, InterceptorChain>> interceptorChainCache = new EnumMap<>(EndpointType.class);
+    private final AtomicLong version = new AtomicLong();
+
+    public MessageInterceptorRegistry() {
+        for (final EndpointType endpointType : EndpointType.values()) {
+            interceptorChainCache.put(endpointType, new ConcurrentHashMap<>());
+        }
+    }
 
     public void register(final @Nonnull MessageInterceptorRegistration registration) {
         registry.add(registration);
         registry.sort(REGISTRATION_ORDER_COMPARATOR);
-        interceptorChainCache.clear();
+        interceptorChainCache.values().forEach(Map::clear);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the version of the registry. The version is changing with every new registration.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     @Nonnull
     public InterceptorChain getInterceptorChain(final String channelName,
                                                 final EndpointType endpointType) {
-        return interceptorChainCache.computeIfAbsent(channelName + "#" + endpointType.name(), (key) -> new InterceptorChain(
+        return interceptorChainCache.get(endpointType).computeIfAbsent(channelName, (key) -> new InterceptorChain(
+                channelName,
+                endpointType,
                 getRegistrations(channelName, endpointType)
                         .stream()
                         .map(MessageInterceptorRegistration::getInterceptor)
@@ -37,6 +67,20 @@ public class MessageInterceptorRegistry {
         ));
     }
 
+    /**
+     * Returns a {@link CachedInterceptorChain} for the channel and endpoint type, that is only resolved again if
+     * the registry has changed.
+     *
+     * @param channelName the name of the channel
+     * @param endpointType the type of the endpoint
+     * @return CachedInterceptorChain
+     */
+    @Nonnull
+    public CachedInterceptorChain getCachedInterceptorChain(final String channelName,
+                                                            final EndpointType endpointType) {
+        return new CachedInterceptorChain(this, channelName, endpointType);
+    }
+
     @Nonnull
     public ImmutableList<MessageInterceptorRegistration> getRegistrations(final String channelName,
                                                                           final EndpointType endpointType) {
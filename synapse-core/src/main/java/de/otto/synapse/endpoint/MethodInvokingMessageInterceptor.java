@@ -71,6 +71,16 @@ public class MethodInvokingMessageInterceptor implements MessageInterceptor {
         }
     }
 
+    /**
+     * Returns the name of the interceptor, consisting of the simple name of the class and the name of the method.
+     *
+     * @return name of the interceptor
+     */
+    @Nonnull
+    public String getName() {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
     @Nullable
     @Override
     @SuppressWarnings("unchecked")
@@ -31,7 +31,7 @@ public class AbstractMessageReceiverEndpoint extends AbstractMessageEndpoint imp
                                            final @Nonnull MessageInterceptorRegistry interceptorRegistry,
                                            final @Nullable ApplicationEventPublisher eventPublisher) {
         super(channelName, interceptorRegistry);
-        messageDispatcher = new MessageDispatcher();
+        messageDispatcher = new MessageDispatcher(channelName);
         this.eventPublisher = eventPublisher;
     }
 
@@ -0,0 +1,80 @@
+package de.otto.synapse.endpoint.receiver;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+/**
+ * Strategy used to create the {@link ExecutorService ExecutorServices} of message receivers, like the threads
+ * reading the shards of a message log or polling a message queue.
+ * <p>
+ *     Receivers are mostly waiting for I/O or sleeping between polls, so they are well suited for virtual threads.
+ *     {@link #virtualThreadsIfAvailable()} is using virtual threads if the Java runtime supports them (Java 21+),
+ *     and falls back to {@link #platformThreads() platform threads} otherwise.
+ * </p>
+ */
+@FunctionalInterface
+public interface ExecutorServiceFactory {
+
+    /**
+     * Creates a new ExecutorService that is starting a new thread for every task, if no idle thread is available.
+     *
+     * @param threadNamePrefix the prefix of the names of the created threads, for example "kinesis-message-log-"
+     * @return ExecutorService
+     */
+    @Nonnull
+    ExecutorService newExecutorService(@Nonnull String threadNamePrefix);
+
+    /**
+     * Returns true if the Java runtime supports virtual threads.
+     *
+     * @return boolean
+     */
+    static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * Returns an ExecutorServiceFactory creating cached thread pools of platform threads.
+     *
+     * @return ExecutorServiceFactory
+     */
+    @Nonnull
+    static ExecutorServiceFactory platformThreads() {
+        return threadNamePrefix -> newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat(threadNamePrefix + "%d").build()
+        );
+    }
+
+    /**
+     * Returns an ExecutorServiceFactory creating ExecutorServices that are starting a new virtual thread for every
+     * task.
+     *
+     * @return ExecutorServiceFactory
+     * @throws UnsupportedOperationException if virtual threads are not supported by the Java runtime
+     */
+    @Nonnull
+    static ExecutorServiceFactory virtualThreads() {
+        if (!isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by Java " + System.getProperty("java.version"));
+        }
+        return VirtualThreads::newThreadPerTaskExecutor;
+    }
+
+    /**
+     * Returns an ExecutorServiceFactory using {@link #virtualThreads() virtual threads}, if they are supported by the
+     * Java runtime, or {@link #platformThreads() platform threads} otherwise.
+     *
+     * @return ExecutorServiceFactory
+     */
+    @Nonnull
+    static ExecutorServiceFactory virtualThreadsIfAvailable() {
+        return isVirtualThreadSupported()
+                ? virtualThreads()
+                : platformThreads();
+    }
+
+}
@@ -0,0 +1,89 @@
+package de.otto.synapse.endpoint.receiver;
+
+import org.slf4j.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Access to the virtual threads of Java 21+ while still compiling against Java 8.
+ * <p>
+ *     The methods of the {@code Thread.Builder} API are looked up once. If they are not available, or if virtual
+ *     threads are a disabled preview feature of the runtime, virtual threads are not {@link #isSupported() supported}.
+ * </p>
+ */
+final class VirtualThreads {
+
+    private static final Logger LOG = getLogger(VirtualThreads.class);
+
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", methodType(ofVirtualClass));
+            name = lookup.findVirtual(builderClass, "name", methodType(builderClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory", methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor", methodType(ExecutorService.class, ThreadFactory.class));
+            // fails if virtual threads are a disabled preview feature:
+            ofVirtual.invoke();
+            LOG.info("Virtual threads are supported by Java {}", System.getProperty("java.version"));
+        } catch (final Throwable e) {
+            LOG.info("Virtual threads are not supported by Java {}: {}", System.getProperty("java.version"), e.toString());
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns true if the Java runtime supports virtual threads.
+     *
+     * @return boolean
+     */
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an ExecutorService starting a new virtual thread for every task.
+     *
+     * @param threadNamePrefix the prefix of the names of the virtual threads
+     * @return ExecutorService
+     * @throws UnsupportedOperationException if virtual threads are not supported
+     */
+    static ExecutorService newThreadPerTaskExecutor(final String threadNamePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported");
+        }
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(), threadNamePrefix, 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (final RuntimeException | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new IllegalStateException("Unable to create virtual thread executor: " + e.getMessage(), e);
+        }
+    }
+}
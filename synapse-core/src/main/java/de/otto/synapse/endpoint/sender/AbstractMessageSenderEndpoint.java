@@ -6,15 +6,18 @@ import de.otto.synapse.endpoint.MessageInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
 import de.otto.synapse.translator.MessageFormat;
 import de.otto.synapse.translator.MessageTranslator;
 
 import javax.annotation.Nonnull;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static de.otto.synapse.endpoint.EndpointType.SENDER;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
 import static java.util.concurrent.CompletableFuture.allOf;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
@@ -26,6 +29,12 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
  *     <img src="http://www.enterpriseintegrationpatterns.com/img/MessageEndpointSolution.gif" alt="Message Endpoint">
  * </p>
  *
+ * <p>
+ *     If {@link de.otto.synapse.metrics.SynapseMetrics metrics} are enabled, the number of sent messages and the
+ *     time spent to translate the messages are recorded. Messages are counted as sent when the returned future
+ *     completed successfully, so failed sends are not counted.
+ * </p>
+ *
  * @see <a href="http://www.enterpriseintegrationpatterns.com/patterns/messaging/MessageEndpoint.html">EIP: Message Endpoint</a>
  * @see <a href="http://www.enterpriseintegrationpatterns.com/patterns/messaging/MessageChannel.html">EIP: Message Channel</a>
  */
@@ -57,10 +66,15 @@ public abstract class AbstractMessageSenderEndpoint extends AbstractMessageEndpo
      */
     @Override
     public final CompletableFuture<Void> send(@Nonnull final Message<?> message) {
-        final TextMessage translatedMessage = messageTranslator.apply(message);
+        final PipelineMetrics metrics = currentMetrics();
+        final TextMessage translatedMessage = translate(message, metrics);
         final TextMessage interceptedMessage = intercept(translatedMessage);
         if (interceptedMessage != null) {
-            return doSend(interceptedMessage);
+            final CompletableFuture<Void> sent = doSend(interceptedMessage);
+            if (metrics.isEnabled()) {
+                sent.thenRun(() -> metrics.recordSent(getChannelName(), 1));
+            }
+            return sent;
         } else {
             return completedFuture(null);
         }
@@ -74,10 +88,18 @@ public abstract class AbstractMessageSenderEndpoint extends AbstractMessageEndpo
      */
     @Override
     public final CompletableFuture<Void> sendBatch(@Nonnull final Stream<? extends Message<?>> batch) {
-        return doSendBatch(batch
-                .map(messageTranslator::apply)
+        final PipelineMetrics metrics = currentMetrics();
+        final Stream<TextMessage> interceptedBatch = batch
+                .map(message -> translate(message, metrics))
                 .map(this::intercept)
-                .filter(Objects::nonNull));
+                .filter(Objects::nonNull);
+        if (!metrics.isEnabled()) {
+            return doSendBatch(interceptedBatch);
+        }
+        final AtomicInteger count = new AtomicInteger();
+        final CompletableFuture<Void> sent = doSendBatch(interceptedBatch.peek(message -> count.incrementAndGet()));
+        sent.thenRun(() -> metrics.recordSent(getChannelName(), count.get()));
+        return sent;
     }
 
     @Nonnull
@@ -86,6 +108,17 @@ public abstract class AbstractMessageSenderEndpoint extends AbstractMessageEndpo
         return SENDER;
     }
 
+    private TextMessage translate(final Message<?> message,
+                                  final PipelineMetrics metrics) {
+        if (!metrics.isEnabled()) {
+            return messageTranslator.apply(message);
+        }
+        final long started = System.nanoTime();
+        final TextMessage translatedMessage = messageTranslator.apply(message);
+        metrics.recordEncode(getChannelName(), System.nanoTime() - started);
+        return translatedMessage;
+    }
+
     protected CompletableFuture<Void> doSendBatch(final @Nonnull Stream<TextMessage> batch) {
         return allOf(batch.map(this::doSend).toArray(CompletableFuture[]::new));
     }
@@ -0,0 +1,70 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.state.StateRepository;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A checkpoint of the {@link ChannelPosition} of an {@link EventSource}, stored together with the persisted
+ * {@link StateRepository state repositories} that are updated by the consumers of the event source.
+ * <p>
+ *     If an event source is configured with a checkpoint, it periodically saves the position of the messages that
+ *     are already consumed. After a restart of the service, a valid checkpoint is used to skip the snapshot of the
+ *     event source and resume consumption of the message log at the checkpointed position (warm restart).
+ * </p>
+ * <p>
+ *     Checkpoints are only saved after the messages up to the checkpointed position have been dispatched to the
+ *     consumers and the state repositories have been forced to durable storage, so the state repositories are never
+ *     behind the checkpoint. Messages that were consumed after
+ *     saving the last checkpoint are consumed again after a warm restart.
+ * </p>
+ * <p>
+ *     Warm restarts are only possible, if <em>all</em> the state of the consumers of the event source is
+ *     stored in persisted state repositories.
+ * </p>
+ */
+public interface ChannelPositionCheckpoint {
+
+    /**
+     * Returns the name of the channel of the checkpointed {@link EventSource}.
+     *
+     * @return channel name
+     */
+    @Nonnull
+    String getChannelName();
+
+    /**
+     * Returns the interval used to save checkpoints while consuming messages.
+     *
+     * @return checkpoint interval
+     */
+    @Nonnull
+    Duration getCheckpointInterval();
+
+    /**
+     * Loads and validates the latest checkpoint.
+     *
+     * @return the checkpointed position, or empty if there is no valid checkpoint
+     */
+    @Nonnull
+    Optional<ChannelPosition> load();
+
+    /**
+     * Saves a new checkpoint, replacing the previous checkpoint.
+     * <p>
+     *     All messages up to the given position must already be applied to the state repositories.
+     * </p>
+     *
+     * @param channelPosition the position of the messages that are already consumed
+     */
+    void save(@Nonnull ChannelPosition channelPosition);
+
+    /**
+     * Removes the checkpoint and clears the state repositories, before the state of the event source is rebuilt
+     * from the snapshot and the message log.
+     */
+    void invalidate();
+}
@@ -0,0 +1,89 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.ShardResponse;
+import org.slf4j.Logger;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Stop condition of a checkpointed {@link EventSource}, tracking the positions of the {@link ShardResponse shard
+ * responses} and periodically saving them to a {@link ChannelPositionCheckpoint}.
+ * <p>
+ *     The stop condition is tested by the receiver endpoints after the messages of a response have been dispatched
+ *     to the consumers, so the tracked position only covers messages that are already applied to the state.
+ * </p>
+ */
+@ThreadSafe
+class CheckpointingStopCondition implements Predicate<ShardResponse> {
+
+    private static final Logger LOG = getLogger(CheckpointingStopCondition.class);
+
+    private final ChannelPositionCheckpoint checkpoint;
+    private final Predicate<ShardResponse> stopCondition;
+    private final ConcurrentMap<String, ShardPosition> shardPositions = new ConcurrentHashMap<>();
+    private final LongSupplier nanoTime;
+    private final long intervalNanos;
+    private final AtomicLong nextCheckpointNanos;
+
+    CheckpointingStopCondition(final ChannelPositionCheckpoint checkpoint,
+                               final ChannelPosition startFrom,
+                               final Predicate<ShardResponse> stopCondition) {
+        this(checkpoint, startFrom, stopCondition, System::nanoTime);
+    }
+
+    CheckpointingStopCondition(final ChannelPositionCheckpoint checkpoint,
+                               final ChannelPosition startFrom,
+                               final Predicate<ShardResponse> stopCondition,
+                               final LongSupplier nanoTime) {
+        this.checkpoint = checkpoint;
+        this.stopCondition = stopCondition;
+        this.nanoTime = nanoTime;
+        this.intervalNanos = checkpoint.getCheckpointInterval().toNanos();
+        this.nextCheckpointNanos = new AtomicLong(nanoTime.getAsLong() + intervalNanos);
+        startFrom.shards().forEach(shardName -> shardPositions.put(shardName, startFrom.shard(shardName)));
+    }
+
+    @Override
+    public boolean test(final ShardResponse shardResponse) {
+        shardPositions.put(shardResponse.getShardName(), shardResponse.getShardPosition());
+        final long now = nanoTime.getAsLong();
+        final long next = nextCheckpointNanos.get();
+        if (now - next >= 0 && nextCheckpointNanos.compareAndSet(next, now + intervalNanos)) {
+            saveCheckpoint(getChannelPosition());
+        }
+        return stopCondition.test(shardResponse);
+    }
+
+    /**
+     * Returns the position of the messages that are already dispatched.
+     *
+     * @return ChannelPosition
+     */
+    ChannelPosition getChannelPosition() {
+        return channelPosition(shardPositions.values());
+    }
+
+    /**
+     * Saves a checkpoint, logging instead of propagating failures, because the consumption of messages must not
+     * be interrupted by a failed checkpoint.
+     *
+     * @param channelPosition the checkpointed position
+     */
+    void saveCheckpoint(final ChannelPosition channelPosition) {
+        try {
+            checkpoint.save(channelPosition);
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to save checkpoint of channel '{}': {}", checkpoint.getChannelName(), e.getMessage(), e);
+        }
+    }
+}
@@ -12,30 +12,49 @@ import org.slf4j.Marker;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * An {@link EventSource} that is first consuming the messages of a {@link MessageStore}, typically containing a
+ * snapshot of the channel, and then continues consuming the messages of the {@link MessageLogReceiverEndpoint}.
+ * <p>
+ *     If the event source is configured using a {@link ChannelPositionCheckpoint}, the position of the consumed
+ *     messages is checkpointed periodically. After a restart, a valid checkpoint is used to skip the message store
+ *     and resume consumption of the message log at the checkpointed position.
+ * </p>
+ * <p>
+ *     If the event source is configured using an {@link EventSourceStartupCoordinator}, the message store is only
+ *     created and consumed after the coordinator admitted loading the snapshot of the channel.
+ * </p>
+ */
 public class DefaultEventSource extends AbstractEventSource {
 
     private static final Logger LOG = getLogger(DefaultEventSource.class);
     private static final int LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE = 100_000;
 
-    private final MessageStore messageStore;
+    private final Supplier<? extends MessageStore> messageStoreSupplier;
+    private final ChannelPositionCheckpoint checkpoint;
+    private final EventSourceScheduler scheduler;
+    private final EventSourceStartupCoordinator startupCoordinator;
     private final Marker marker;
+    private volatile MessageStore messageStore;
 
     public DefaultEventSource(final @Nonnull MessageStore messageStore,
                               final @Nonnull MessageLogReceiverEndpoint messageLog) {
-        super(messageLog);
-        this.messageStore = messageStore;
-        this.marker = null;
+        this(messageStore, messageLog, (Marker) null);
     }
 
     public DefaultEventSource(final @Nonnull MessageStore messageStore,
@@ -43,38 +62,175 @@ public class DefaultEventSource extends AbstractEventSource {
                               final @Nonnull Marker marker) {
         super(messageLog);
         this.messageStore = messageStore;
+        this.messageStoreSupplier = () -> messageStore;
+        this.checkpoint = null;
+        this.scheduler = null;
+        this.startupCoordinator = null;
+        this.marker = marker;
+    }
+
+    /**
+     * Creates a checkpointed DefaultEventSource.
+     * <p>
+     *     The message store is only created if there is no valid checkpoint, so snapshots are not retrieved in case
+     *     of a warm restart.
+     * </p>
+     *
+     * @param messageStoreSupplier supplier of the MessageStore that is consumed if there is no valid checkpoint
+     * @param messageLog the MessageLogReceiverEndpoint
+     * @param checkpoint the checkpoint of the event source
+     */
+    public DefaultEventSource(final @Nonnull Supplier<? extends MessageStore> messageStoreSupplier,
+                              final @Nonnull MessageLogReceiverEndpoint messageLog,
+                              final @Nonnull ChannelPositionCheckpoint checkpoint) {
+        this(messageStoreSupplier, messageLog, checkpoint, null);
+    }
+
+    /**
+     * Creates a DefaultEventSource, optionally using a {@link ChannelPositionCheckpoint} and an
+     * {@link EventSourceScheduler}.
+     *
+     * @param messageStoreSupplier supplier of the MessageStore that is consumed if there is no valid checkpoint
+     * @param messageLog the MessageLogReceiverEndpoint
+     * @param checkpoint the checkpoint of the event source, or null if the event source is not checkpointed
+     * @param scheduler the scheduler used to dispatch the messages of the message store, or null if a dedicated
+     *                  thread pool should be used.
+     */
+    public DefaultEventSource(final @Nonnull Supplier<? extends MessageStore> messageStoreSupplier,
+                              final @Nonnull MessageLogReceiverEndpoint messageLog,
+                              final @Nullable ChannelPositionCheckpoint checkpoint,
+                              final @Nullable EventSourceScheduler scheduler) {
+        this(messageStoreSupplier, messageLog, checkpoint, scheduler, null);
+    }
+
+    /**
+     * Creates a DefaultEventSource, optionally using a {@link ChannelPositionCheckpoint}, an
+     * {@link EventSourceScheduler} and an {@link EventSourceStartupCoordinator}.
+     *
+     * @param messageStoreSupplier supplier of the MessageStore that is consumed if there is no valid checkpoint
+     * @param messageLog the MessageLogReceiverEndpoint
+     * @param checkpoint the checkpoint of the event source, or null if the event source is not checkpointed
+     * @param scheduler the scheduler used to dispatch the messages of the message store, or null if a dedicated
+     *                  thread pool should be used.
+     * @param startupCoordinator the coordinator admitting the creation and consumption of the message store, or null
+     *                           if the message store should be consumed immediately.
+     */
+    public DefaultEventSource(final @Nonnull Supplier<? extends MessageStore> messageStoreSupplier,
+                              final @Nonnull MessageLogReceiverEndpoint messageLog,
+                              final @Nullable ChannelPositionCheckpoint checkpoint,
+                              final @Nullable EventSourceScheduler scheduler,
+                              final @Nullable EventSourceStartupCoordinator startupCoordinator) {
+        this(messageStoreSupplier, messageLog, checkpoint, scheduler, startupCoordinator, null);
+    }
+
+    /**
+     * Creates a DefaultEventSource, optionally using a {@link ChannelPositionCheckpoint}, an
+     * {@link EventSourceScheduler}, an {@link EventSourceStartupCoordinator} and a {@link Marker} used for logging.
+     *
+     * @param messageStoreSupplier supplier of the MessageStore that is consumed if there is no valid checkpoint
+     * @param messageLog the MessageLogReceiverEndpoint
+     * @param checkpoint the checkpoint of the event source, or null if the event source is not checkpointed
+     * @param scheduler the scheduler used to dispatch the messages of the message store, or null if a dedicated
+     *                  thread pool should be used.
+     * @param startupCoordinator the coordinator admitting the creation and consumption of the message store, or null
+     *                           if the message store should be consumed immediately.
+     * @param marker the marker used for logging, or null
+     */
+    public DefaultEventSource(final @Nonnull Supplier<? extends MessageStore> messageStoreSupplier,
+                              final @Nonnull MessageLogReceiverEndpoint messageLog,
+                              final @Nullable ChannelPositionCheckpoint checkpoint,
+                              final @Nullable EventSourceScheduler scheduler,
+                              final @Nullable EventSourceStartupCoordinator startupCoordinator,
+                              final @Nullable Marker marker) {
+        super(messageLog);
+        this.messageStoreSupplier = messageStoreSupplier;
+        this.checkpoint = checkpoint;
+        this.scheduler = scheduler;
+        this.startupCoordinator = startupCoordinator;
         this.marker = marker;
     }
 
     @Nonnull
     @Override
     public CompletableFuture<ChannelPosition> consumeUntil(final @Nonnull Predicate<ShardResponse> stopCondition) {
-        return consumeMessageStore()
-                .thenCompose(channelPosition -> getMessageLogReceiverEndpoint().consumeUntil(channelPosition, stopCondition))
-                .handle((channelPosition, throwable) -> {
-                    if (throwable != null) {
-                        LOG.error(marker, "Failed to start consuming from EventSource {}: {}. Closing MessageStore.", getChannelName(), throwable.getMessage(), throwable);
+        if (checkpoint == null) {
+            return consumeMessageStore()
+                    .thenCompose(channelPosition -> getMessageLogReceiverEndpoint().consumeUntil(channelPosition, stopCondition))
+                    .handle(this::closeMessageStore);
+        }
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint.load();
+        final CompletableFuture<ChannelPosition> startPosition;
+        if (checkpointedPosition.isPresent()) {
+            LOG.info(marker, "Warm restart of EventSource {}: skipping message store and resuming at checkpointed position {}", getChannelName(), checkpointedPosition.get());
+            startPosition = completedFuture(checkpointedPosition.get());
+        } else {
+            checkpoint.invalidate();
+            startPosition = consumeMessageStore();
+        }
+        return startPosition
+                .thenCompose(channelPosition -> {
+                    final CheckpointingStopCondition checkpointingStopCondition = new CheckpointingStopCondition(checkpoint, channelPosition, stopCondition);
+                    if (!checkpointedPosition.isPresent()) {
+                        // the state is now containing the snapshot:
+                        checkpointingStopCondition.saveCheckpoint(channelPosition);
                     }
+                    return getMessageLogReceiverEndpoint()
+                            .consumeUntil(channelPosition, checkpointingStopCondition)
+                            .whenComplete((finalPosition, throwable) -> checkpointingStopCondition.saveCheckpoint(
+                                    throwable == null ? finalPosition : checkpointingStopCondition.getChannelPosition()));
+                })
+                .handle(this::closeMessageStore);
+    }
+
+    private ChannelPosition closeMessageStore(final ChannelPosition channelPosition, final Throwable throwable) {
+        if (throwable != null) {
+            LOG.error(marker, "Failed to start consuming from EventSource {}: {}. Closing MessageStore.", getChannelName(), throwable.getMessage(), throwable);
+        }
+        final MessageStore messageStore = this.messageStore;
+        if (messageStore != null) {
+            try {
+                messageStore.close();
+            } catch (final Exception e) {
+                LOG.error(marker, "Unable to close() MessageStore: " + e.getMessage(), e);
+            }
+        }
+        return channelPosition;
+    }
+
+    private CompletableFuture<ChannelPosition> consumeMessageStore() {
+        if (startupCoordinator == null) {
+            return readMessageStore();
+        }
+        return startupCoordinator
+                .admit(getChannelName())
+                .thenCompose(admission -> {
                     try {
-                        messageStore.close();
-                    } catch (final Exception e) {
-                        LOG.error(marker, "Unable to close() MessageStore: " + e.getMessage(), e);
+                        return readMessageStore().whenComplete((channelPosition, throwable) -> admission.close());
+                    } catch (final RuntimeException e) {
+                        admission.close();
+                        throw e;
                     }
-                    return channelPosition;
                 });
     }
 
-
-    private CompletableFuture<ChannelPosition> consumeMessageStore() {
+    private CompletableFuture<ChannelPosition> readMessageStore() {
+        final MessageStore messageStore = messageStoreSupplier.get();
+        this.messageStore = messageStore;
 
         int numberOfDispatcherThreads = 1;
         if (messageStore.isCompacting()) {
             numberOfDispatcherThreads = Runtime.getRuntime().availableProcessors();
         }
 
-        final ExecutorService executorService = Executors.newCachedThreadPool(new CustomizableThreadFactory("synapse-messagestore-dispatcher-"));
-        final Semaphore lock = new Semaphore(numberOfDispatcherThreads);
         final String channelName = getChannelName();
+        final ExecutorService dispatcherExecutorService = scheduler == null
+                ? Executors.newCachedThreadPool(new CustomizableThreadFactory("synapse-messagestore-dispatcher-"))
+                : null;
+        final Executor dispatcherExecutor = scheduler == null
+                ? dispatcherExecutorService
+                : scheduler.executorFor(channelName);
+        final int maxDispatchedMessages = numberOfDispatcherThreads;
+        final Semaphore lock = new Semaphore(maxDispatchedMessages);
 
         LOG.info(marker, "Starting to read message store for channel '{}'.", channelName);
         Instant startTime = Instant.now();
@@ -85,7 +241,10 @@ public class DefaultEventSource extends AbstractEventSource {
 
         final Map<String, String> copyOfContextMap = MDC.getCopyOfContextMap();
 
-        return CompletableFuture.supplyAsync(() -> {
+        // The reader is blocking until dispatched messages are consumed, so it must not be run by the scheduler:
+        final ExecutorService messageStoreReaderExecutor = newSingleThreadExecutor(
+                new CustomizableThreadFactory("synapse-eventsource-"));
+        final CompletableFuture<ChannelPosition> channelPosition = CompletableFuture.supplyAsync(() -> {
             if (copyOfContextMap != null) {
                 MDC.setContextMap(copyOfContextMap);
             }
@@ -101,7 +260,7 @@ public class DefaultEventSource extends AbstractEventSource {
                         } catch (InterruptedException e) {
                             LOG.error(marker, e.getMessage(), e);
                         }
-                        executorService.execute(() -> {
+                        dispatcherExecutor.execute(() -> {
                             if (copyOfContextMap != null) {
                                 MDC.setContextMap(copyOfContextMap);
                             }
@@ -117,20 +276,28 @@ public class DefaultEventSource extends AbstractEventSource {
                             }
                         });
                     });
-            executorService.shutdown();
             try {
-                executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
+                // wait until all dispatched messages are consumed:
+                lock.acquire(maxDispatchedMessages);
+                lock.release(maxDispatchedMessages);
                 LOG.info(marker, "Consumed a total of {} messages from message store for channel '{}', totalMessagesPerSecond={}", messageCounter.get(), channelName, String.format( "%.2f", LogHelper.calculateMessagesPerSecond(firstMessageLogTime, messageCounter.get())));
             } catch (InterruptedException e) {
                 LOG.error(marker, e.getMessage(), e);
+            } finally {
+                if (dispatcherExecutorService != null) {
+                    dispatcherExecutorService.shutdown();
+                }
+            }
+            if (scheduler != null) {
+                LOG.info(marker, "Scheduling statistics of channel '{}': {}", channelName, scheduler.getStatistics().get(channelName));
             }
 
             LOG.info(marker, "Finished reading message store for channel '{}'. Duration was {}.", channelName, Duration.between(startTime, Instant.now()));
 
             return messageStore.getLatestChannelPosition(channelName);
-        }, newSingleThreadExecutor(
-                new CustomizableThreadFactory("synapse-eventsource-")
-        ));
+        }, messageStoreReaderExecutor);
+        messageStoreReaderExecutor.shutdown();
+        return channelPosition;
     }
 
 }
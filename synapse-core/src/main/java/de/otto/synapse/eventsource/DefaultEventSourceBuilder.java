@@ -6,22 +6,92 @@ import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreFactory;
 
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Collections.emptyList;
+
 public class DefaultEventSourceBuilder implements EventSourceBuilder {
 
     private final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory;
     private final Class<? extends MessageLog> selector;
+    private final List<ChannelPositionCheckpoint> checkpoints;
+    private final EventSourceScheduler scheduler;
+    private final EventSourceStartupCoordinator startupCoordinator;
 
     public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
                                      final Class<? extends MessageLog> selector) {
+        this(snapshotMessageStoreFactory, selector, emptyList());
+    }
+
+    /**
+     * Creates a DefaultEventSourceBuilder that is building checkpointed event sources for all channels having a
+     * {@link ChannelPositionCheckpoint}.
+     *
+     * @param snapshotMessageStoreFactory the factory used to create the snapshot message stores
+     * @param selector the selector of the MessageLogReceiverEndpoints
+     * @param checkpoints the checkpoints of the event sources supporting warm restarts
+     */
+    public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
+                                     final Class<? extends MessageLog> selector,
+                                     final List<ChannelPositionCheckpoint> checkpoints) {
+        this(snapshotMessageStoreFactory, selector, checkpoints, null);
+    }
+
+    /**
+     * Creates a DefaultEventSourceBuilder that is building event sources sharing a single
+     * {@link EventSourceScheduler}.
+     *
+     * @param snapshotMessageStoreFactory the factory used to create the snapshot message stores
+     * @param selector the selector of the MessageLogReceiverEndpoints
+     * @param checkpoints the checkpoints of the event sources supporting warm restarts
+     * @param scheduler the scheduler used to dispatch the messages of the snapshot message stores. If null, every
+     *                  event source is using a dedicated thread pool.
+     */
+    public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
+                                     final Class<? extends MessageLog> selector,
+                                     final List<ChannelPositionCheckpoint> checkpoints,
+                                     final EventSourceScheduler scheduler) {
+        this(snapshotMessageStoreFactory, selector, checkpoints, scheduler, null);
+    }
+
+    /**
+     * Creates a DefaultEventSourceBuilder that is building event sources whose snapshots are loaded after being
+     * admitted by an {@link EventSourceStartupCoordinator}. The snapshot message stores of such event sources are
+     * created on admission instead of creating them when the event source is built.
+     *
+     * @param snapshotMessageStoreFactory the factory used to create the snapshot message stores
+     * @param selector the selector of the MessageLogReceiverEndpoints
+     * @param checkpoints the checkpoints of the event sources supporting warm restarts
+     * @param scheduler the scheduler used to dispatch the messages of the snapshot message stores. If null, every
+     *                  event source is using a dedicated thread pool.
+     * @param startupCoordinator the coordinator admitting the event sources to load their snapshots. If null, the
+     *                           snapshots are loaded immediately.
+     */
+    public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
+                                     final Class<? extends MessageLog> selector,
+                                     final List<ChannelPositionCheckpoint> checkpoints,
+                                     final EventSourceScheduler scheduler,
+                                     final EventSourceStartupCoordinator startupCoordinator) {
         this.snapshotMessageStoreFactory = snapshotMessageStoreFactory;
         this.selector = selector;
+        this.checkpoints = checkpoints != null ? checkpoints : emptyList();
+        this.scheduler = scheduler;
+        this.startupCoordinator = startupCoordinator;
     }
 
     @Override
     public EventSource buildEventSource(MessageLogReceiverEndpoint messageLogReceiverEndpoint) {
         final String channelName = messageLogReceiverEndpoint.getChannelName();
+        final Optional<ChannelPositionCheckpoint> checkpoint = checkpoints
+                .stream()
+                .filter(c -> c.getChannelName().equals(channelName))
+                .findAny();
+        if (checkpoint.isPresent() || startupCoordinator != null) {
+            return new DefaultEventSource(() -> snapshotMessageStoreFactory.createMessageStoreFor(channelName), messageLogReceiverEndpoint, checkpoint.orElse(null), scheduler, startupCoordinator);
+        }
         final MessageStore messageStore = snapshotMessageStoreFactory.createMessageStoreFor(channelName);
-        return new DefaultEventSource(messageStore, messageLogReceiverEndpoint);
+        return new DefaultEventSource(() -> messageStore, messageLogReceiverEndpoint, null, scheduler);
     }
 
     @Override
@@ -5,7 +5,11 @@ import org.slf4j.Logger;
 import org.springframework.context.SmartLifecycle;
 
 import java.util.List;
+import java.util.Set;
 
+import static java.util.Collections.emptySet;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class EventSourceConsumerProcess implements SmartLifecycle {
@@ -13,11 +17,45 @@ public class EventSourceConsumerProcess implements SmartLifecycle {
     private static final Logger LOG = getLogger(EventSourceConsumerProcess.class);
 
     private final List<EventSource> eventSources;
+    private final EventSourceStartupCoordinator startupCoordinator;
 
     private volatile boolean running = false;
 
     public EventSourceConsumerProcess(final List<EventSource> eventSources) {
-        this.eventSources = eventSources;
+        this(eventSources, emptySet());
+    }
+
+    /**
+     * Creates an EventSourceConsumerProcess that is starting the event sources of the priority channels first.
+     *
+     * @param eventSources the event sources
+     * @param priorityChannels the names of the channels that are started before all other channels
+     */
+    public EventSourceConsumerProcess(final List<EventSource> eventSources,
+                                      final Set<String> priorityChannels) {
+        this(eventSources, priorityChannels, null);
+    }
+
+    /**
+     * Creates an EventSourceConsumerProcess that is starting the event sources of the priority channels first.
+     * <p>
+     *     The admissions of the {@link EventSourceStartupCoordinator} are suspended until all event sources are
+     *     started, so the snapshots of the channels are loaded in the order of the coordinator.
+     * </p>
+     *
+     * @param eventSources the event sources
+     * @param priorityChannels the names of the channels that are started before all other channels
+     * @param startupCoordinator the coordinator used by the event sources, or null
+     */
+    public EventSourceConsumerProcess(final List<EventSource> eventSources,
+                                      final Set<String> priorityChannels,
+                                      final EventSourceStartupCoordinator startupCoordinator) {
+        this.startupCoordinator = startupCoordinator;
+        this.eventSources = eventSources != null
+                ? eventSources.stream()
+                        .sorted(comparing(eventSource -> !priorityChannels.contains(eventSource.getChannelName())))
+                        .collect(toList())
+                : null;
     }
 
     @Override
@@ -42,15 +80,24 @@ public class EventSourceConsumerProcess implements SmartLifecycle {
         if (eventSourceCount > 0) {
             LOG.info("Initializing EventSourceConsumerProcess with {} EventSources", eventSourceCount);
             running = true;
-            eventSources.forEach(eventSource -> {
-                try {
-                    LOG.info("Starting {}...", eventSource.getChannelName());
-                    eventSource.consume();
-                } catch (Exception e) {
-                    LOG.error("Starting failed: " + e.getMessage(), e);
-                    stop();
+            if (startupCoordinator != null) {
+                startupCoordinator.suspendAdmissions();
+            }
+            try {
+                eventSources.forEach(eventSource -> {
+                    try {
+                        LOG.info("Starting {}...", eventSource.getChannelName());
+                        eventSource.consume();
+                    } catch (Exception e) {
+                        LOG.error("Starting failed: " + e.getMessage(), e);
+                        stop();
+                    }
+                });
+            } finally {
+                if (startupCoordinator != null) {
+                    startupCoordinator.resumeAdmissions();
                 }
-            });
+            }
         } else {
             LOG.warn("Did not find any EventSource instances to execute");
             running = false;
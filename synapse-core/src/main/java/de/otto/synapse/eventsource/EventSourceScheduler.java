@@ -0,0 +1,369 @@
+package de.otto.synapse.eventsource;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * A scheduler with a fixed budget of threads, shared by all {@link EventSource event sources} of a service to
+ * dispatch the messages of their {@link de.otto.synapse.messagestore.MessageStore message stores}.
+ * <p>
+ *     Every channel gets its own {@link #executorFor(String) lane}. The threads of the scheduler are serving the lanes
+ *     in a weighted round-robin: a lane having weight {@code n} may run up to {@code n} tasks in a row before the next
+ *     lane is served. Lanes of priority channels, for example channels blocking the readiness of the service, are
+ *     always served before all other lanes.
+ * </p>
+ * <p>
+ *     Tasks must not block waiting for other tasks of the scheduler, otherwise the thread budget might be exhausted.
+ * </p>
+ * <p>
+ *     The threads of the scheduler are started when the first task is submitted, so services that are not
+ *     consuming any message store do not start any threads. Exceptions and errors thrown by tasks are logged and
+ *     do not terminate the threads.
+ * </p>
+ */
+@ThreadSafe
+public class EventSourceScheduler implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(EventSourceScheduler.class);
+
+    private final int threads;
+    private final Map<String, Integer> weights;
+    private final Set<String> priorityChannels;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final List<Lane> priorityLanes = new ArrayList<>();
+    private final List<Lane> regularLanes = new ArrayList<>();
+    private final Semaphore queuedTasks = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    private final List<Consumer<String>> channelListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean shutdown = false;
+
+    private int nextPriorityLane = 0;
+    private int nextRegularLane = 0;
+    private int remainingTurns = 0;
+
+    /**
+     * Creates an EventSourceScheduler using the given number of threads, serving all channels with the same weight.
+     *
+     * @param threads the thread budget of the scheduler
+     */
+    public EventSourceScheduler(final int threads) {
+        this(threads, ImmutableMap.of(), ImmutableSet.of());
+    }
+
+    /**
+     * Creates an EventSourceScheduler.
+     *
+     * @param threads the thread budget of the scheduler
+     * @param weights the weights of the channels. Channels without weight have weight 1.
+     * @param priorityChannels the names of the channels that are served before all other channels
+     */
+    public EventSourceScheduler(final int threads,
+                                final @Nonnull Map<String, Integer> weights,
+                                final @Nonnull Set<String> priorityChannels) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be greater than zero");
+        }
+        this.threads = threads;
+        this.weights = ImmutableMap.copyOf(weights);
+        this.priorityChannels = ImmutableSet.copyOf(priorityChannels);
+    }
+
+    /**
+     * Returns the number of threads of the scheduler.
+     *
+     * @return thread budget
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the Executor used to run the tasks of a channel.
+     *
+     * @param channelName the name of the channel
+     * @return Executor
+     */
+    @Nonnull
+    public Executor executorFor(final @Nonnull String channelName) {
+        return lanes.computeIfAbsent(channelName, this::createLane);
+    }
+
+    /**
+     * Returns the scheduling statistics of all channels, keyed by channel name.
+     *
+     * @return statistics per channel
+     */
+    @Nonnull
+    public ImmutableMap<String, ChannelStatistics> getStatistics() {
+        final ImmutableMap.Builder<String, ChannelStatistics> statistics = ImmutableMap.builder();
+        lanes.forEach((channelName, lane) -> statistics.put(channelName, lane.statistics()));
+        return statistics.build();
+    }
+
+    /**
+     * Returns the scheduling statistics of a single channel.
+     *
+     * @param channelName the name of the channel
+     * @return statistics of the channel, or empty statistics if no task of the channel was submitted yet
+     */
+    @Nonnull
+    public ChannelStatistics getStatistics(final @Nonnull String channelName) {
+        final Lane lane = lanes.get(channelName);
+        return lane != null ? lane.statistics() : new ChannelStatistics(0, 0, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Registers a listener that is called with the names of all channels of the scheduler: immediately for the
+     * channels that are already known, and afterwards for every channel that is added to the scheduler.
+     *
+     * @param channelListener consumer of channel names
+     */
+    public synchronized void addChannelListener(final @Nonnull Consumer<String> channelListener) {
+        channelListeners.add(channelListener);
+        priorityLanes.forEach(lane -> channelListener.accept(lane.channelName));
+        regularLanes.forEach(lane -> channelListener.accept(lane.channelName));
+    }
+
+    /**
+     * Returns true, if the threads of the scheduler have been started.
+     *
+     * @return started
+     */
+    boolean isStarted() {
+        return started.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private synchronized Lane createLane(final String channelName) {
+        final boolean priority = priorityChannels.contains(channelName);
+        final Lane lane = new Lane(channelName, Math.max(1, weights.getOrDefault(channelName, 1)), priority);
+        if (priority) {
+            priorityLanes.add(lane);
+        } else {
+            regularLanes.add(lane);
+        }
+        channelListeners.forEach(listener -> listener.accept(channelName));
+        return lane;
+    }
+
+    private void startWorkers() {
+        if (started.compareAndSet(false, true)) {
+            synchronized (this) {
+                if (shutdown) {
+                    return;
+                }
+                for (int i = 0; i < threads; ++i) {
+                    final Thread worker = new Thread(this::work, "synapse-eventsource-scheduler-" + i);
+                    worker.setDaemon(true);
+                    workers.add(worker);
+                    worker.start();
+                }
+            }
+            LOG.info("Started EventSourceScheduler with {} threads, weights={}, priorityChannels={}", threads, weights, priorityChannels);
+        }
+    }
+
+    private void work() {
+        while (!shutdown) {
+            try {
+                queuedTasks.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final Task task = nextTask();
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Selects the next task. A permit of {@link #queuedTasks} has been acquired before, so there is at least one
+     * queued task that is not taken by some other worker.
+     */
+    private synchronized Task nextTask() {
+        final int priorityLaneCount = priorityLanes.size();
+        for (int i = 0; i < priorityLaneCount; ++i) {
+            final Lane lane = priorityLanes.get((nextPriorityLane + i) % priorityLaneCount);
+            final Task task = lane.tasks.poll();
+            if (task != null) {
+                nextPriorityLane = (nextPriorityLane + i + 1) % priorityLaneCount;
+                return task;
+            }
+        }
+        final int regularLaneCount = regularLanes.size();
+        for (int i = 0; i <= regularLaneCount; ++i) {
+            if (remainingTurns <= 0) {
+                nextRegularLane = (nextRegularLane + 1) % regularLaneCount;
+                remainingTurns = regularLanes.get(nextRegularLane).weight;
+            }
+            final Task task = regularLanes.get(nextRegularLane).tasks.poll();
+            if (task != null) {
+                --remainingTurns;
+                return task;
+            }
+            remainingTurns = 0;
+        }
+        return null;
+    }
+
+    /**
+     * Scheduling statistics of a single channel.
+     */
+    public static final class ChannelStatistics {
+        private final long submittedTasks;
+        private final long completedTasks;
+        private final Duration waitingTime;
+        private final Duration runningTime;
+
+        private ChannelStatistics(final long submittedTasks,
+                                  final long completedTasks,
+                                  final Duration waitingTime,
+                                  final Duration runningTime) {
+            this.submittedTasks = submittedTasks;
+            this.completedTasks = completedTasks;
+            this.waitingTime = waitingTime;
+            this.runningTime = runningTime;
+        }
+
+        public long getSubmittedTasks() {
+            return submittedTasks;
+        }
+
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        /**
+         * Returns the number of tasks that are submitted, but not yet completed.
+         *
+         * @return number of pending tasks
+         */
+        public long getPendingTasks() {
+            return submittedTasks - completedTasks;
+        }
+
+        /**
+         * Returns the total time, tasks of the channel were queued before they have been started.
+         *
+         * @return accumulated waiting time
+         */
+        public Duration getWaitingTime() {
+            return waitingTime;
+        }
+
+        /**
+         * Returns the total time, the threads of the scheduler were running tasks of the channel.
+         *
+         * @return accumulated running time
+         */
+        public Duration getRunningTime() {
+            return runningTime;
+        }
+
+        @Override
+        public String toString() {
+            return "ChannelStatistics{" +
+                    "submittedTasks=" + submittedTasks +
+                    ", completedTasks=" + completedTasks +
+                    ", waitingTime=" + waitingTime +
+                    ", runningTime=" + runningTime +
+                    '}';
+        }
+    }
+
+    private final class Lane implements Executor {
+        private final String channelName;
+        private final int weight;
+        private final boolean priority;
+        private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicLong submittedTasks = new AtomicLong();
+        private final AtomicLong completedTasks = new AtomicLong();
+        private final AtomicLong waitingNanos = new AtomicLong();
+        private final AtomicLong runningNanos = new AtomicLong();
+
+        private Lane(final String channelName, final int weight, final boolean priority) {
+            this.channelName = channelName;
+            this.weight = weight;
+            this.priority = priority;
+        }
+
+        @Override
+        public void execute(final @Nonnull Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("EventSourceScheduler is shut down");
+            }
+            startWorkers();
+            submittedTasks.incrementAndGet();
+            tasks.add(new Task(this, requireNonNull(command)));
+            queuedTasks.release();
+        }
+
+        private ChannelStatistics statistics() {
+            return new ChannelStatistics(
+                    submittedTasks.get(),
+                    completedTasks.get(),
+                    Duration.ofNanos(waitingNanos.get()),
+                    Duration.ofNanos(runningNanos.get()));
+        }
+
+        @Override
+        public String toString() {
+            return "Lane{channelName='" + channelName + "', weight=" + weight + ", priority=" + priority + '}';
+        }
+    }
+
+    private static final class Task {
+        private final Lane lane;
+        private final Runnable command;
+        private final long queuedAt = System.nanoTime();
+
+        private Task(final Lane lane, final Runnable command) {
+            this.lane = lane;
+            this.command = command;
+        }
+
+        private void run() {
+            final long startedAt = System.nanoTime();
+            lane.waitingNanos.addAndGet(startedAt - queuedAt);
+            try {
+                command.run();
+            } catch (final Throwable t) {
+                LOG.error("Uncaught exception in task of channel '{}': {}", lane.channelName, t.getMessage(), t);
+            } finally {
+                lane.runningNanos.addAndGet(System.nanoTime() - startedAt);
+                lane.completedTasks.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package de.otto.synapse.eventsource;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.Thread.currentThread;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Coordinates the startup of the {@link EventSource event sources} of a service, so the snapshots of the channels are
+ * loaded in parallel without exceeding the memory and disk budgets of the service.
+ * <p>
+ *     Before an event source is loading its snapshot, it is asking for an {@link Admission}. The resources needed to
+ *     load the snapshot are estimated by a {@link ResourceEstimator} and admissions are granted as long as the
+ *     estimates of all admitted event sources fit into the budgets. When the snapshot is loaded, the admission is
+ *     {@link Admission#close() closed} and the reserved resources are available for the next event source.
+ * </p>
+ * <p>
+ *     Pending requests are admitted in the configured {@link Ordering}. Priority channels are always admitted first.
+ *     Requests that are bigger than the budget, or having an {@link ResourceEstimate#unknown() unknown} estimate, are
+ *     only admitted if no other event source is currently loading its snapshot.
+ * </p>
+ * <p>
+ *     Estimates are calculated asynchronously. If the {@code ResourceEstimator} does not return an estimate within
+ *     the configured timeout, the estimate of the channel is {@link ResourceEstimate#unknown() unknown}. Pending
+ *     requests are not admitted while estimates are calculated, so the requests are admitted in the configured order.
+ * </p>
+ * <p>
+ *     The threads of the coordinator are stopped when it is {@link #close() closed}.
+ * </p>
+ */
+@ThreadSafe
+public class EventSourceStartupCoordinator implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(EventSourceStartupCoordinator.class);
+
+    /**
+     * The order of admissions of pending requests.
+     */
+    public enum Ordering {
+        /**
+         * Priority channels first, then the channels having the biggest heap estimates, so the longest-running
+         * startups are started as early as possible.
+         */
+        BIGGEST_FIRST,
+        /**
+         * Priority channels first, then the channels in the order of their requests.
+         */
+        PRIORITY
+    }
+
+    public static final Duration DEFAULT_ESTIMATE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final long heapBudget;
+    private final long diskBudget;
+    private final ResourceEstimator resourceEstimator;
+    private final Duration estimateTimeout;
+    private final Set<String> priorityChannels;
+    private final Comparator<Request> requestOrder;
+    private final ExecutorService admissionExecutor = newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("synapse-eventsource-startup-%d").setDaemon(true).build());
+
+    private final List<Request> pendingRequests = new ArrayList<>();
+    private long reservedHeapBytes = 0;
+    private long reservedDiskBytes = 0;
+    private int admittedRequests = 0;
+    private int pendingEstimates = 0;
+    private int suspensions = 0;
+    private long nextSequenceNumber = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates an EventSourceStartupCoordinator using the {@link #DEFAULT_ESTIMATE_TIMEOUT}.
+     *
+     * @param heapBudget the number of bytes of heap memory that may be used to load snapshots in parallel
+     * @param diskBudget the number of bytes on the local file system that may be used to download snapshots in parallel
+     * @param resourceEstimator the estimator of the resources needed to load the snapshot of a channel
+     * @param ordering the order of admissions
+     * @param priorityChannels the names of the channels that are admitted before all other channels
+     */
+    public EventSourceStartupCoordinator(final long heapBudget,
+                                         final long diskBudget,
+                                         final @Nonnull ResourceEstimator resourceEstimator,
+                                         final @Nonnull Ordering ordering,
+                                         final @Nonnull Set<String> priorityChannels) {
+        this(heapBudget, diskBudget, resourceEstimator, DEFAULT_ESTIMATE_TIMEOUT, ordering, priorityChannels);
+    }
+
+    /**
+     * Creates an EventSourceStartupCoordinator.
+     *
+     * @param heapBudget the number of bytes of heap memory that may be used to load snapshots in parallel
+     * @param diskBudget the number of bytes on the local file system that may be used to download snapshots in parallel
+     * @param resourceEstimator the estimator of the resources needed to load the snapshot of a channel
+     * @param estimateTimeout the max duration of an estimate; the estimate is unknown if the timeout is exceeded
+     * @param ordering the order of admissions
+     * @param priorityChannels the names of the channels that are admitted before all other channels
+     */
+    public EventSourceStartupCoordinator(final long heapBudget,
+                                         final long diskBudget,
+                                         final @Nonnull ResourceEstimator resourceEstimator,
+                                         final @Nonnull Duration estimateTimeout,
+                                         final @Nonnull Ordering ordering,
+                                         final @Nonnull Set<String> priorityChannels) {
+        if (heapBudget <= 0 || diskBudget <= 0) {
+            throw new IllegalArgumentException("Budgets must be greater than zero");
+        }
+        if (estimateTimeout.isNegative() || estimateTimeout.isZero()) {
+            throw new IllegalArgumentException("Estimate timeout must be greater than zero");
+        }
+        this.heapBudget = heapBudget;
+        this.diskBudget = diskBudget;
+        this.resourceEstimator = resourceEstimator;
+        this.estimateTimeout = estimateTimeout;
+        this.priorityChannels = ImmutableSet.copyOf(priorityChannels);
+        final Comparator<Request> priorityFirst = comparing(request -> !this.priorityChannels.contains(request.channelName));
+        this.requestOrder = ordering == Ordering.BIGGEST_FIRST
+                ? priorityFirst
+                        .thenComparing(comparingLong((Request request) -> request.estimate.getHeapBytes()).reversed())
+                        .thenComparingLong(request -> request.sequenceNumber)
+                : priorityFirst
+                        .thenComparingLong(request -> request.sequenceNumber);
+        LOG.info("Created EventSourceStartupCoordinator with heapBudget={}, diskBudget={}, estimateTimeout={}, ordering={}, priorityChannels={}", heapBudget, diskBudget, estimateTimeout, ordering, this.priorityChannels);
+    }
+
+    /**
+     * Requests the admission to load the snapshot of a channel.
+     * <p>
+     *     The returned future is completed asynchronously as soon as the estimated resources are available. The
+     *     admission must be {@link Admission#close() closed} after the snapshot is loaded, or if loading the snapshot
+     *     failed.
+     * </p>
+     * <p>
+     *     If the coordinator is closed before the request is admitted, the future is completed exceptionally.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     * @return future of the admission
+     */
+    @Nonnull
+    public CompletableFuture<Admission> admit(final @Nonnull String channelName) {
+        final Request request;
+        synchronized (this) {
+            request = new Request(channelName, nextSequenceNumber++);
+            if (closed) {
+                request.admission.completeExceptionally(closedException());
+                return request.admission;
+            }
+            ++pendingEstimates;
+        }
+        try {
+            admissionExecutor.execute(() -> estimated(request, estimate(channelName)));
+        } catch (final RejectedExecutionException e) {
+            estimated(request, ResourceEstimate.unknown());
+        }
+        return request.admission;
+    }
+
+    /**
+     * Stops the threads of the coordinator. Pending requests are completed exceptionally, new requests are rejected.
+     */
+    @Override
+    public void close() {
+        final List<Request> rejectedRequests;
+        synchronized (this) {
+            closed = true;
+            rejectedRequests = new ArrayList<>(pendingRequests);
+            pendingRequests.clear();
+        }
+        admissionExecutor.shutdownNow();
+        rejectedRequests.forEach(request -> request.admission.completeExceptionally(closedException()));
+        LOG.info("Closed EventSourceStartupCoordinator");
+    }
+
+    /**
+     * Suspends admissions until {@link #resumeAdmissions()} is called, for example while the event sources of the
+     * service are started, so the pending requests of all event sources are admitted in the configured order.
+     */
+    public synchronized void suspendAdmissions() {
+        ++suspensions;
+    }
+
+    /**
+     * Resumes admissions that have been suspended by {@link #suspendAdmissions()}.
+     */
+    public void resumeAdmissions() {
+        synchronized (this) {
+            if (suspensions > 0) {
+                --suspensions;
+            }
+        }
+        admitPendingRequests();
+    }
+
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    public long getDiskBudget() {
+        return diskBudget;
+    }
+
+    public synchronized long getReservedHeapBytes() {
+        return reservedHeapBytes;
+    }
+
+    public synchronized long getReservedDiskBytes() {
+        return reservedDiskBytes;
+    }
+
+    /**
+     * Returns the number of requests that are not yet admitted, including the requests whose resources are
+     * currently estimated.
+     *
+     * @return number of pending requests
+     */
+    public synchronized int getPendingRequests() {
+        return pendingRequests.size() + pendingEstimates;
+    }
+
+    private ResourceEstimate estimate(final String channelName) {
+        try {
+            final Future<ResourceEstimate> estimate = admissionExecutor.submit(() -> resourceEstimator.estimate(channelName));
+            try {
+                return estimate.get(estimateTimeout.toMillis(), MILLISECONDS);
+            } catch (final TimeoutException e) {
+                estimate.cancel(true);
+                LOG.warn("Failed to estimate resources of channel '{}' within {}", channelName, estimateTimeout);
+                return ResourceEstimate.unknown();
+            }
+        } catch (final ExecutionException e) {
+            LOG.warn("Failed to estimate resources of channel '{}': {}", channelName, e.getCause().getMessage(), e.getCause());
+            return ResourceEstimate.unknown();
+        } catch (final InterruptedException e) {
+            currentThread().interrupt();
+            return ResourceEstimate.unknown();
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to estimate resources of channel '{}': {}", channelName, e.getMessage(), e);
+            return ResourceEstimate.unknown();
+        }
+    }
+
+    private void estimated(final Request request, final ResourceEstimate estimate) {
+        final boolean rejected;
+        synchronized (this) {
+            --pendingEstimates;
+            request.estimate = estimate;
+            rejected = closed;
+            if (!rejected) {
+                pendingRequests.add(request);
+            }
+        }
+        if (rejected) {
+            request.admission.completeExceptionally(closedException());
+        } else {
+            LOG.info("Requested admission to load snapshot of channel '{}' with {}", request.channelName, estimate);
+            admitPendingRequests();
+        }
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("EventSourceStartupCoordinator is closed");
+    }
+
+    private void admitPendingRequests() {
+        final List<Admission> admissions = new ArrayList<>();
+        synchronized (this) {
+            if (suspensions == 0 && pendingEstimates == 0 && !closed) {
+                pendingRequests.sort(requestOrder);
+                final Iterator<Request> iterator = pendingRequests.iterator();
+                while (iterator.hasNext()) {
+                    final Request request = iterator.next();
+                    if (admittedRequests == 0 || fitsIntoBudget(request.estimate)) {
+                        iterator.remove();
+                        reservedHeapBytes = saturatedAdd(reservedHeapBytes, request.estimate.getHeapBytes());
+                        reservedDiskBytes = saturatedAdd(reservedDiskBytes, request.estimate.getDiskBytes());
+                        ++admittedRequests;
+                        admissions.add(new Admission(request));
+                    }
+                }
+            }
+        }
+        admissions.forEach(admission -> {
+            LOG.info("Admitted loading snapshot of channel '{}' with {} after waiting {}", admission.getChannelName(), admission.getEstimate(), admission.getWaitingTime());
+            // completed asynchronously, so snapshots are not loaded by the threads of other event sources:
+            try {
+                admissionExecutor.execute(() -> admission.request.admission.complete(admission));
+            } catch (final RejectedExecutionException e) {
+                admission.request.admission.completeExceptionally(closedException());
+            }
+        });
+    }
+
+    private void release(final ResourceEstimate estimate) {
+        synchronized (this) {
+            reservedHeapBytes = Math.max(0, reservedHeapBytes - estimate.getHeapBytes());
+            reservedDiskBytes = Math.max(0, reservedDiskBytes - estimate.getDiskBytes());
+            --admittedRequests;
+        }
+        admitPendingRequests();
+    }
+
+    private boolean fitsIntoBudget(final ResourceEstimate estimate) {
+        return estimate.getHeapBytes() <= heapBudget - reservedHeapBytes
+                && estimate.getDiskBytes() <= diskBudget - reservedDiskBytes;
+    }
+
+    private static long saturatedAdd(final long a, final long b) {
+        final long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * The admission to load the snapshot of a channel, reserving the estimated resources until it is closed.
+     */
+    public final class Admission implements AutoCloseable {
+
+        private final Request request;
+        private final Duration waitingTime;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Admission(final Request request) {
+            this.request = request;
+            this.waitingTime = Duration.ofNanos(System.nanoTime() - request.requestedAt);
+        }
+
+        public String getChannelName() {
+            return request.channelName;
+        }
+
+        public ResourceEstimate getEstimate() {
+            return request.estimate;
+        }
+
+        /**
+         * Returns the time between the request and the admission.
+         *
+         * @return waiting time
+         */
+        public Duration getWaitingTime() {
+            return waitingTime;
+        }
+
+        /**
+         * Releases the reserved resources. Closing an admission more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                LOG.info("Finished loading snapshot of channel '{}'", request.channelName);
+                release(request.estimate);
+            }
+        }
+    }
+
+    private static final class Request {
+        private final String channelName;
+        private final long sequenceNumber;
+        private final long requestedAt = System.nanoTime();
+        private final CompletableFuture<Admission> admission = new CompletableFuture<>();
+        /** The estimate of the request, guarded by the coordinator. */
+        private ResourceEstimate estimate = ResourceEstimate.unknown();
+
+        private Request(final String channelName, final long sequenceNumber) {
+            this.channelName = channelName;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package de.otto.synapse.eventsource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.StartFrom;
+import de.otto.synapse.state.StateRepository;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * A {@link ChannelPositionCheckpoint} that is stored as a JSON file on the local file system, typically next to the
+ * files of persisted {@link de.otto.synapse.state.ChronicleMapStateRepository ChronicleMapStateRepositories}.
+ * <p>
+ *     New checkpoints are written to a temporary file that is atomically moved to the checkpoint file, so a crash of
+ *     the service never leaves a partially written checkpoint.
+ * </p>
+ * <p>
+ *     Every checkpoint has a generation that is increased with every saved checkpoint. Before a checkpoint is
+ *     written, the state repositories are forced to durable storage and record the generation of the checkpoint
+ *     using {@link StateRepository#persistGeneration(long)}. So the state is never behind a saved checkpoint, even if
+ *     the service or the operating system crashes.
+ * </p>
+ * <p>
+ *     A checkpoint is only {@link #load() loaded}, if
+ * </p>
+ * <ul>
+ *     <li>it was saved for the same channel and the same state repositories,</li>
+ *     <li>it is not older than the {@link Builder#withMaxAge(Duration) max age}, which must be shorter than the
+ *     retention period of the message log, and</li>
+ *     <li>the {@link StateRepository#getPersistedGeneration() persisted generation} of every state repository is
+ *     matching the generation of the checkpoint. State repositories that are not persisted never match.</li>
+ * </ul>
+ */
+@ThreadSafe
+public class FileChannelPositionCheckpoint implements ChannelPositionCheckpoint {
+
+    private static final Logger LOG = getLogger(FileChannelPositionCheckpoint.class);
+
+    private static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(20);
+
+    private final String channelName;
+    private final Path checkpointFile;
+    private final List<StateRepository<?>> stateRepositories;
+    private final Duration checkpointInterval;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final ObjectMapper objectMapper;
+    private long generation = 0;
+
+    private FileChannelPositionCheckpoint(final Builder builder) {
+        this.channelName = builder.channelName;
+        this.checkpointFile = builder.checkpointFile.toPath();
+        this.stateRepositories = builder.stateRepositories.build();
+        this.checkpointInterval = builder.checkpointInterval;
+        this.maxAge = builder.maxAge;
+        this.clock = builder.clock;
+        this.objectMapper = currentObjectMapper();
+    }
+
+    /**
+     * Creates a Builder for a FileChannelPositionCheckpoint.
+     *
+     * @param channelName the name of the channel of the event source
+     * @param checkpointFile the file used to store the checkpoint
+     * @return Builder
+     */
+    public static Builder builder(final @Nonnull String channelName,
+                                  final @Nonnull File checkpointFile) {
+        return new Builder(channelName, checkpointFile);
+    }
+
+    @Nonnull
+    @Override
+    public String getChannelName() {
+        return channelName;
+    }
+
+    @Nonnull
+    @Override
+    public Duration getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Optional<ChannelPosition> load() {
+        if (!Files.exists(checkpointFile)) {
+            LOG.info("No checkpoint found for channel '{}' in {}", channelName, checkpointFile);
+            return Optional.empty();
+        }
+        try {
+            final JsonNode checkpoint = objectMapper.readTree(checkpointFile.toFile());
+            if (!channelName.equals(checkpoint.path("channelName").asText())) {
+                LOG.warn("Ignoring checkpoint {}: expected channel '{}' but found '{}'", checkpointFile, channelName, checkpoint.path("channelName").asText());
+                return Optional.empty();
+            }
+            final long checkpointGeneration = checkpoint.path("generation").asLong(0);
+            generation = Math.max(generation, checkpointGeneration);
+            final Instant createdAt = Instant.parse(checkpoint.path("createdAt").asText());
+            if (createdAt.plus(maxAge).isBefore(clock.instant())) {
+                LOG.warn("Ignoring checkpoint {} of channel '{}': created at {} is older than {}", checkpointFile, channelName, createdAt, maxAge);
+                return Optional.empty();
+            }
+            if (!hasValidStateRepositories(checkpoint.path("stateRepositories"), checkpointGeneration)) {
+                return Optional.empty();
+            }
+            final ChannelPosition channelPosition = channelPositionOf(checkpoint.path("shards"));
+            LOG.info("Loaded checkpoint of channel '{}' with generation {} created at {}: {}", channelName, checkpointGeneration, createdAt, channelPosition);
+            return Optional.of(channelPosition);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Ignoring unreadable checkpoint {} of channel '{}': {}", checkpointFile, channelName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     The state repositories are forced to durable storage and record the generation of the new checkpoint,
+     *     before the checkpoint is written.
+     * </p>
+     */
+    @Override
+    public synchronized void save(final @Nonnull ChannelPosition channelPosition) {
+        final long nextGeneration = generation + 1;
+        stateRepositories.forEach(repository -> repository.persistGeneration(nextGeneration));
+        final ObjectNode checkpoint = objectMapper.createObjectNode();
+        checkpoint.put("channelName", channelName);
+        checkpoint.put("generation", nextGeneration);
+        checkpoint.put("createdAt", clock.instant().toString());
+        final ArrayNode repositories = checkpoint.putArray("stateRepositories");
+        stateRepositories.forEach(repository -> repositories.add(repository.getName()));
+        final ArrayNode shards = checkpoint.putArray("shards");
+        for (final String shardName : channelPosition.shards()) {
+            final ShardPosition shardPosition = channelPosition.shard(shardName);
+            final ObjectNode shard = shards.addObject();
+            shard.put("shardName", shardName);
+            shard.put("startFrom", shardPosition.startFrom().name());
+            shard.put("position", shardPosition.position());
+            if (shardPosition.timestamp() != null) {
+                shard.put("timestamp", shardPosition.timestamp().toString());
+            }
+        }
+        try {
+            final Path directory = checkpointFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path tempFile = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+            try {
+                try (final OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                    objectMapper.writeValue(outputStream, checkpoint);
+                }
+                try (final FileChannel fileChannel = FileChannel.open(tempFile, READ)) {
+                    fileChannel.force(true);
+                }
+                Files.move(tempFile, checkpointFile, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            generation = nextGeneration;
+            LOG.debug("Saved checkpoint of channel '{}' with generation {}: {}", channelName, nextGeneration, channelPosition);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to save checkpoint " + checkpointFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate() {
+        try {
+            if (Files.deleteIfExists(checkpointFile)) {
+                LOG.info("Removed checkpoint {} of channel '{}'", checkpointFile, channelName);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to remove checkpoint " + checkpointFile + ": " + e.getMessage(), e);
+        }
+        stateRepositories.forEach(repository -> {
+            LOG.info("Clearing StateRepository '{}' of channel '{}'", repository.getName(), channelName);
+            repository.clear();
+        });
+    }
+
+    private boolean hasValidStateRepositories(final JsonNode checkpointedRepositories,
+                                              final long checkpointGeneration) {
+        final Set<String> checkpointedNames = new HashSet<>();
+        checkpointedRepositories.forEach(name -> checkpointedNames.add(name.asText()));
+        if (checkpointedNames.size() != stateRepositories.size()) {
+            LOG.warn("Ignoring checkpoint {} of channel '{}': expected {} state repositories but found {}", checkpointFile, channelName, stateRepositories.size(), checkpointedNames.size());
+            return false;
+        }
+        for (final StateRepository<?> repository : stateRepositories) {
+            if (!checkpointedNames.contains(repository.getName())) {
+                LOG.warn("Ignoring checkpoint {} of channel '{}': state repository '{}' is not checkpointed", checkpointFile, channelName, repository.getName());
+                return false;
+            }
+            final OptionalLong persistedGeneration = repository.getPersistedGeneration();
+            if (!persistedGeneration.isPresent() || persistedGeneration.getAsLong() != checkpointGeneration) {
+                LOG.warn("Ignoring checkpoint {} of channel '{}': state repository '{}' has generation {} instead of {}", checkpointFile, channelName, repository.getName(), persistedGeneration.isPresent() ? persistedGeneration.getAsLong() : "none", checkpointGeneration);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ChannelPosition channelPositionOf(final JsonNode shards) {
+        final ImmutableList.Builder<ShardPosition> shardPositions = ImmutableList.builder();
+        final Iterator<JsonNode> iterator = shards.elements();
+        while (iterator.hasNext()) {
+            shardPositions.add(shardPositionOf(iterator.next()));
+        }
+        return channelPosition(shardPositions.build());
+    }
+
+    private static ShardPosition shardPositionOf(final JsonNode shard) {
+        final String shardName = requireNonNull(shard.path("shardName").textValue(), "shardName");
+        final String position = shard.path("position").asText();
+        final Instant timestamp = shard.hasNonNull("timestamp")
+                ? Instant.parse(shard.get("timestamp").asText())
+                : null;
+        switch (StartFrom.valueOf(shard.path("startFrom").asText())) {
+            case HORIZON:
+                return ShardPosition.fromHorizon(shardName);
+            case POSITION:
+                return timestamp != null
+                        ? ShardPosition.fromPositionAndTimestamp(shardName, position, timestamp)
+                        : ShardPosition.fromPosition(shardName, position);
+            case AT_POSITION:
+                return ShardPosition.atPosition(shardName, position);
+            case TIMESTAMP:
+                return ShardPosition.fromTimestamp(shardName, requireNonNull(timestamp, "timestamp"));
+            default:
+                throw new IllegalArgumentException("Unsupported startFrom in shard " + shardName);
+        }
+    }
+
+    public static final class Builder {
+        private final String channelName;
+        private final File checkpointFile;
+        private final ImmutableList.Builder<StateRepository<?>> stateRepositories = ImmutableList.builder();
+        private Duration checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+        private Duration maxAge = DEFAULT_MAX_AGE;
+        private Clock clock = Clock.systemDefaultZone();
+
+        private Builder(final String channelName, final File checkpointFile) {
+            this.channelName = requireNonNull(channelName, "Parameter 'channelName' must not be null");
+            this.checkpointFile = requireNonNull(checkpointFile, "Parameter 'checkpointFile' must not be null");
+        }
+
+        /**
+         * Adds a persisted state repository that is updated by the consumers of the event source. The repository is
+         * cleared if the checkpoint is invalid and the state has to be rebuilt from the snapshot.
+         *
+         * @param val the state repository
+         * @return this
+         */
+        public Builder withStateRepository(final StateRepository<?> val) {
+            stateRepositories.add(requireNonNull(val));
+            return this;
+        }
+
+        public Builder withCheckpointInterval(final Duration val) {
+            checkpointInterval = requireNonNull(val);
+            return this;
+        }
+
+        /**
+         * The max age of checkpoints. Must be shorter than the retention period of the message log, otherwise
+         * consumption of the message log could not be resumed at the checkpointed position. Defaults to 20 hours.
+         *
+         * @param val max age
+         * @return this
+         */
+        public Builder withMaxAge(final Duration val) {
+            maxAge = requireNonNull(val);
+            return this;
+        }
+
+        public Builder withClock(final Clock val) {
+            clock = requireNonNull(val);
+            return this;
+        }
+
+        public FileChannelPositionCheckpoint build() {
+            return new FileChannelPositionCheckpoint(this);
+        }
+    }
+
+}
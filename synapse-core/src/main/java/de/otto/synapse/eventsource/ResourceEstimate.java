@@ -0,0 +1,96 @@
+package de.otto.synapse.eventsource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.Objects;
+
+/**
+ * The estimated resources that are needed by an {@link EventSource} while it is loading the snapshot of its channel.
+ * <p>
+ *     The estimate is used by the {@link EventSourceStartupCoordinator} to start as many event sources in parallel as
+ *     possible, without exceeding the memory and disk budgets of the service.
+ * </p>
+ */
+@Immutable
+public final class ResourceEstimate {
+
+    private static final ResourceEstimate NONE = new ResourceEstimate(0L, 0L);
+    private static final ResourceEstimate UNKNOWN = new ResourceEstimate(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long heapBytes;
+    private final long diskBytes;
+
+    private ResourceEstimate(final long heapBytes, final long diskBytes) {
+        this.heapBytes = heapBytes;
+        this.diskBytes = diskBytes;
+    }
+
+    /**
+     * Creates a ResourceEstimate.
+     *
+     * @param heapBytes the number of bytes of heap memory needed while the snapshot is loaded
+     * @param diskBytes the number of bytes on the local file system needed to download the snapshot
+     * @return ResourceEstimate
+     */
+    @Nonnull
+    public static ResourceEstimate resourceEstimate(final long heapBytes, final long diskBytes) {
+        if (heapBytes < 0 || diskBytes < 0) {
+            throw new IllegalArgumentException("Estimated resources must not be negative");
+        }
+        return new ResourceEstimate(heapBytes, diskBytes);
+    }
+
+    /**
+     * Returns the estimate of an event source that is not loading a snapshot.
+     *
+     * @return ResourceEstimate
+     */
+    @Nonnull
+    public static ResourceEstimate none() {
+        return NONE;
+    }
+
+    /**
+     * Returns the estimate of an event source whose resources can not be estimated. Event sources having an unknown
+     * estimate are only started if no other event source is currently loading its snapshot.
+     *
+     * @return ResourceEstimate
+     */
+    @Nonnull
+    public static ResourceEstimate unknown() {
+        return UNKNOWN;
+    }
+
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public boolean isUnknown() {
+        return this.equals(UNKNOWN);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ResourceEstimate that = (ResourceEstimate) o;
+        return heapBytes == that.heapBytes &&
+                diskBytes == that.diskBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(heapBytes, diskBytes);
+    }
+
+    @Override
+    public String toString() {
+        return isUnknown()
+                ? "ResourceEstimate{unknown}"
+                : "ResourceEstimate{heapBytes=" + heapBytes + ", diskBytes=" + diskBytes + '}';
+    }
+}
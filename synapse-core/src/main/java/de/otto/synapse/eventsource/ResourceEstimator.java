@@ -0,0 +1,22 @@
+package de.otto.synapse.eventsource;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Estimates the resources needed by the {@link EventSource} of a channel while it is loading its snapshot, for
+ * example from the size and metadata of the latest snapshot file.
+ */
+@FunctionalInterface
+public interface ResourceEstimator {
+
+    /**
+     * Estimates the resources needed to load the snapshot of a channel. Implementations should be cheap compared to
+     * loading the snapshot, and must not download the snapshot.
+     *
+     * @param channelName the name of the channel
+     * @return ResourceEstimate, or {@link ResourceEstimate#unknown()} if no estimate is possible
+     */
+    @Nonnull
+    ResourceEstimate estimate(@Nonnull String channelName);
+
+}
@@ -0,0 +1,387 @@
+package de.otto.synapse.journal;
+
+import de.otto.synapse.messagestore.MessageStore;
+import de.otto.synapse.metrics.PipelineMetrics;
+import de.otto.synapse.messagestore.MessageStoreEntry;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Writes the entries of a {@link Journal} asynchronously, so the receiver threads of the journaled channels are not
+ * blocked by the latency of the journal's {@link MessageStore}.
+ * <p>
+ *     Entries are added to a bounded queue and written to the MessageStore in batches by a background thread, using
+ *     {@link MessageStore#addAll(List)}. If the queue is full, the {@link OverflowPolicy} decides whether the
+ *     receiver is blocked, or entries are dropped. Entries that are dropped, or that could not be written, are
+ *     missing in the journal.
+ * </p>
+ * <p>
+ *     Closing the writer flushes the remaining entries of the queue. Entries that are written after the writer was
+ *     closed are added synchronously to the MessageStore.
+ * </p>
+ * <p>
+ *     If metrics are {@link PipelineMetrics#isEnabled() enabled}, the latency of every flush is recorded using
+ *     {@link PipelineMetrics#recordJournalFlush(String, long)}.
+ * </p>
+ */
+@ThreadSafe
+public class AsyncJournalWriter implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(AsyncJournalWriter.class);
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    /**
+     * The behaviour of the writer, if the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Blocks the receiver until the queue has free capacity. No entries are dropped.
+         */
+        BLOCK,
+        /**
+         * Drops the oldest entries of the queue to make room for new entries. The receiver is never blocked.
+         */
+        DROP_OLDEST,
+        /**
+         * Only journals every n-th entry that does not fit into the queue, blocking the receiver until the queue has
+         * free capacity. All other overflowing entries are dropped.
+         */
+        SAMPLE
+    }
+
+    private final String name;
+    private final MessageStore messageStore;
+    private final BlockingQueue<MessageStoreEntry> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final Thread writerThread;
+
+    private final AtomicLong overflows = new AtomicLong();
+    private final LongAdder droppedEntries = new LongAdder();
+    private final LongAdder failedEntries = new LongAdder();
+    private final LongAdder writtenEntries = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private volatile long maxFlushNanos = 0;
+    private volatile long lastFlushNanos = 0;
+    private volatile boolean closed = false;
+    private final AtomicBoolean writtenAfterClose = new AtomicBoolean(false);
+
+    /**
+     * Creates an AsyncJournalWriter that is blocking receivers if the queue is full.
+     *
+     * @param name the name of the journal, used to name the writer thread
+     * @param messageStore the MessageStore of the journal
+     * @param capacity the capacity of the queue
+     * @param batchSize the maximum number of entries written to the MessageStore at once
+     */
+    public AsyncJournalWriter(final @Nonnull String name,
+                              final @Nonnull MessageStore messageStore,
+                              final int capacity,
+                              final int batchSize) {
+        this(name, messageStore, capacity, batchSize, OverflowPolicy.BLOCK, 1);
+    }
+
+    /**
+     * Creates an AsyncJournalWriter.
+     *
+     * @param name the name of the journal, used to name the writer thread
+     * @param messageStore the MessageStore of the journal
+     * @param capacity the capacity of the queue
+     * @param batchSize the maximum number of entries written to the MessageStore at once
+     * @param overflowPolicy the behaviour if the queue is full
+     * @param sampleRate if the overflow policy is {@link OverflowPolicy#SAMPLE}, every {@code sampleRate}-th
+     *                   overflowing entry is journaled
+     */
+    public AsyncJournalWriter(final @Nonnull String name,
+                              final @Nonnull MessageStore messageStore,
+                              final int capacity,
+                              final int batchSize,
+                              final @Nonnull OverflowPolicy overflowPolicy,
+                              final int sampleRate) {
+        if (capacity < 1 || batchSize < 1 || sampleRate < 1) {
+            throw new IllegalArgumentException("capacity, batchSize and sampleRate must be greater than 0");
+        }
+        this.name = name;
+        this.messageStore = messageStore;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.writerThread = new Thread(this::writeBatches, "synapse-journal-" + name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        LOG.info("Started AsyncJournalWriter for journal '{}' with capacity={}, batchSize={}, overflowPolicy={}", name, capacity, batchSize, overflowPolicy);
+    }
+
+    /**
+     * Returns the name of the journal.
+     *
+     * @return journal name
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Adds an entry to the queue of the writer, applying the overflow policy if the queue is full.
+     * <p>
+     *     If the writer is already closed, the entry is added synchronously to the MessageStore.
+     * </p>
+     *
+     * @param entry the journaled entry
+     */
+    public void write(final @Nonnull MessageStoreEntry entry) {
+        if (closed) {
+            writeSynchronously(entry);
+            return;
+        }
+        if (queue.offer(entry)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!queue.offer(entry)) {
+                    if (queue.poll() != null) {
+                        droppedEntries.increment();
+                    }
+                }
+                break;
+            case SAMPLE:
+                if (overflows.incrementAndGet() % sampleRate == 0) {
+                    put(entry);
+                } else {
+                    droppedEntries.increment();
+                }
+                break;
+            default:
+                put(entry);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the writer.
+     *
+     * @return Statistics
+     */
+    @Nonnull
+    public Statistics getStatistics() {
+        final long flushCount = flushes.sum();
+        return new Statistics(
+                queue.size(),
+                queue.size() + queue.remainingCapacity(),
+                writtenEntries.sum(),
+                droppedEntries.sum(),
+                failedEntries.sum(),
+                flushCount,
+                Duration.ofNanos(lastFlushNanos),
+                Duration.ofNanos(maxFlushNanos),
+                Duration.ofNanos(flushCount > 0 ? flushNanos.sum() / flushCount : 0));
+    }
+
+    /**
+     * Stops accepting entries, writes the remaining entries of the queue and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writerThread.isAlive()) {
+                LOG.warn("AsyncJournalWriter of journal '{}' did not terminate, {} entries are not journaled", name, queue.size());
+                writerThread.interrupt();
+            }
+        }
+    }
+
+    private void writeSynchronously(final MessageStoreEntry entry) {
+        if (writtenAfterClose.compareAndSet(false, true)) {
+            LOG.warn("AsyncJournalWriter of journal '{}' is already closed, entries are written synchronously", name);
+        }
+        try {
+            messageStore.add(entry);
+            writtenEntries.increment();
+        } catch (final RuntimeException e) {
+            failedEntries.increment();
+            LOG.error("Failed to write entry to journal '{}': {}", name, e.getMessage(), e);
+        }
+    }
+
+    private void put(final MessageStoreEntry entry) {
+        try {
+            queue.put(entry);
+        } catch (final InterruptedException e) {
+            droppedEntries.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatches() {
+        final List<MessageStoreEntry> batch = new ArrayList<>(batchSize);
+        while (true) {
+            final MessageStoreEntry first;
+            try {
+                first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    LOG.info("Stopped AsyncJournalWriter for journal '{}': {}", name, getStatistics());
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(final List<MessageStoreEntry> batch) {
+        final long started = System.nanoTime();
+        try {
+            messageStore.addAll(batch);
+            writtenEntries.add(batch.size());
+        } catch (final RuntimeException e) {
+            failedEntries.add(batch.size());
+            LOG.error("Failed to write {} entries to journal '{}': {}", batch.size(), name, e.getMessage(), e);
+        } finally {
+            final long elapsed = System.nanoTime() - started;
+            flushes.increment();
+            flushNanos.add(elapsed);
+            lastFlushNanos = elapsed;
+            if (elapsed > maxFlushNanos) {
+                maxFlushNanos = elapsed;
+            }
+            final PipelineMetrics metrics = currentMetrics();
+            if (metrics.isEnabled()) {
+                metrics.recordJournalFlush(name, elapsed);
+            }
+        }
+    }
+
+    /**
+     * Statistics of an AsyncJournalWriter.
+     */
+    public static final class Statistics {
+        private final int queueDepth;
+        private final int capacity;
+        private final long writtenEntries;
+        private final long droppedEntries;
+        private final long failedEntries;
+        private final long flushes;
+        private final Duration lastFlushLatency;
+        private final Duration maxFlushLatency;
+        private final Duration meanFlushLatency;
+
+        private Statistics(final int queueDepth,
+                           final int capacity,
+                           final long writtenEntries,
+                           final long droppedEntries,
+                           final long failedEntries,
+                           final long flushes,
+                           final Duration lastFlushLatency,
+                           final Duration maxFlushLatency,
+                           final Duration meanFlushLatency) {
+            this.queueDepth = queueDepth;
+            this.capacity = capacity;
+            this.writtenEntries = writtenEntries;
+            this.droppedEntries = droppedEntries;
+            this.failedEntries = failedEntries;
+            this.flushes = flushes;
+            this.lastFlushLatency = lastFlushLatency;
+            this.maxFlushLatency = maxFlushLatency;
+            this.meanFlushLatency = meanFlushLatency;
+        }
+
+        /**
+         * Returns the number of entries that are queued, but not yet written.
+         *
+         * @return queue depth
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getWrittenEntries() {
+            return writtenEntries;
+        }
+
+        /**
+         * Returns the number of entries that have been dropped because of the overflow policy.
+         *
+         * @return number of dropped entries
+         */
+        public long getDroppedEntries() {
+            return droppedEntries;
+        }
+
+        /**
+         * Returns the number of entries that could not be written to the MessageStore.
+         *
+         * @return number of failed entries
+         */
+        public long getFailedEntries() {
+            return failedEntries;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public Duration getLastFlushLatency() {
+            return lastFlushLatency;
+        }
+
+        public Duration getMaxFlushLatency() {
+            return maxFlushLatency;
+        }
+
+        public Duration getMeanFlushLatency() {
+            return meanFlushLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "queueDepth=" + queueDepth +
+                    ", capacity=" + capacity +
+                    ", writtenEntries=" + writtenEntries +
+                    ", droppedEntries=" + droppedEntries +
+                    ", failedEntries=" + failedEntries +
+                    ", flushes=" + flushes +
+                    ", lastFlushLatency=" + lastFlushLatency +
+                    ", maxFlushLatency=" + maxFlushLatency +
+                    ", meanFlushLatency=" + meanFlushLatency +
+                    '}';
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package de.otto.synapse.journal;
 
+import de.otto.synapse.configuration.SynapseProperties;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import org.slf4j.Logger;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -11,19 +13,40 @@ import java.util.concurrent.ConcurrentMap;
 
 import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingReceiverChannelsWith;
 import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.unmodifiableCollection;
 import static java.util.Optional.ofNullable;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.springframework.core.Ordered.LOWEST_PRECEDENCE;
 
-public class JournalRegistry {
+public class JournalRegistry implements AutoCloseable {
     private static final Logger LOG = getLogger(JournalRegistry.class);
     private final ConcurrentMap<String,Journal> journals;
     private final Set<String> registeredInterceptors = newSetFromMap(new ConcurrentHashMap<>());
+    private final ConcurrentMap<String,AsyncJournalWriter> journalWriters = new ConcurrentHashMap<>();
     private final MessageInterceptorRegistry registry;
+    private final SynapseProperties.Journal.Async asyncProperties;
 
     public JournalRegistry(final List<Journal> journals,
                            final MessageInterceptorRegistry registry) {
+        this(journals, registry, new SynapseProperties.Journal());
+    }
+
+    /**
+     * Creates a JournalRegistry and registers {@link JournalingInterceptor JournalingInterceptors} for the
+     * journaled channels of the given journals.
+     * <p>
+     *     If {@code synapse.journal.async.enabled} is true, an {@link AsyncJournalWriter} is created for every journal.
+     * </p>
+     *
+     * @param journals the journals
+     * @param registry the registry used to register the interceptors
+     * @param journalProperties the journal properties
+     */
+    public JournalRegistry(final List<Journal> journals,
+                           final MessageInterceptorRegistry registry,
+                           final SynapseProperties.Journal journalProperties) {
         this.registry = registry;
+        this.asyncProperties = journalProperties.getAsync();
         this.journals = new ConcurrentHashMap<>();
         journals.forEach(this::add);
     }
@@ -34,6 +57,27 @@ public class JournalRegistry {
         );
     }
 
+    /**
+     * Returns the AsyncJournalWriter of a journal, if journals are written asynchronously.
+     *
+     * @param name the name of the journal
+     * @return AsyncJournalWriter or empty Optional
+     */
+    public Optional<AsyncJournalWriter> getJournalWriter(final String name) {
+        return ofNullable(
+                journalWriters.get(name)
+        );
+    }
+
+    /**
+     * Returns the AsyncJournalWriters of all journals, if journals are written asynchronously.
+     *
+     * @return collection of AsyncJournalWriters
+     */
+    public Collection<AsyncJournalWriter> getJournalWriters() {
+        return unmodifiableCollection(journalWriters.values());
+    }
+
     private void add(final Journal journal) {
         final Journal existing = journals.putIfAbsent(journal.getName(), journal);
         if (existing != null) {
@@ -41,7 +85,7 @@ public class JournalRegistry {
         } else {
             journal.getJournaledChannels().forEach(channelName -> {
                 if (!registeredInterceptors.contains(channelName + journal.getName())) {
-                    final JournalingInterceptor journalingInterceptor = new JournalingInterceptor(channelName, journal);
+                    final JournalingInterceptor journalingInterceptor = new JournalingInterceptor(channelName, journal, journalWriterFor(journal));
                     registry.register(matchingReceiverChannelsWith(channelName, journalingInterceptor, LOWEST_PRECEDENCE));
                     registeredInterceptors.add(channelName + journal.getName());
                 }
@@ -53,4 +97,25 @@ public class JournalRegistry {
     public boolean hasJournal(final String journalName) {
         return journals.containsKey(journalName);
     }
+
+    /**
+     * Closes the AsyncJournalWriters, flushing the queued journal entries.
+     */
+    @Override
+    public void close() {
+        journalWriters.values().forEach(AsyncJournalWriter::close);
+    }
+
+    private AsyncJournalWriter journalWriterFor(final Journal journal) {
+        if (!asyncProperties.isEnabled()) {
+            return null;
+        }
+        return journalWriters.computeIfAbsent(journal.getName(), name -> new AsyncJournalWriter(
+                name,
+                journal.getMessageStore(),
+                asyncProperties.getCapacity(),
+                asyncProperties.getBatchSize(),
+                asyncProperties.getOverflowPolicy(),
+                asyncProperties.getSampleRate()));
+    }
 }
@@ -7,6 +7,7 @@ import de.otto.synapse.messagestore.MessageStoreEntry;
 import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkState;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -21,6 +22,7 @@ public class JournalingInterceptor implements MessageInterceptor {
 
     private final String channelName;
     private final Journal journal;
+    private final AsyncJournalWriter journalWriter;
 
     /**
      * Creates a {@code JournalingInterceptor} for a channel, using the given {@code Journal}.
@@ -30,18 +32,41 @@ public class JournalingInterceptor implements MessageInterceptor {
      */
     public JournalingInterceptor(final @Nonnull String channelName,
                                  final @Nonnull Journal journal) {
+        this(channelName, journal, null);
+    }
+
+    /**
+     * Creates a {@code JournalingInterceptor} for a channel, using the given {@code Journal}.
+     * <p>
+     *     If an {@link AsyncJournalWriter} is provided, messages are written asynchronously to the journal's
+     *     {@link de.otto.synapse.messagestore.MessageStore}.
+     * </p>
+     * @param channelName the name of the journaled channel
+     * @param journal the Journal used to record messages for the channel
+     * @param journalWriter the optional AsyncJournalWriter of the journal
+     * @throws IllegalStateException if the Journal's MessageStore does not provide an {@link Index#JOURNAL_KEY}
+     */
+    public JournalingInterceptor(final @Nonnull String channelName,
+                                 final @Nonnull Journal journal,
+                                 final @Nullable AsyncJournalWriter journalWriter) {
         checkState(
                 journal.getMessageStore().getIndexes().contains(Index.JOURNAL_KEY),
                 "The provided MessageStore must be indexed for Index.JOURNAL_KEY.");
         this.channelName = channelName;
         this.journal = journal;
+        this.journalWriter = journalWriter;
     }
 
     @Nonnull
     @Override
     public TextMessage intercept(final @Nonnull TextMessage message) {
         LOG.debug("Added message {} to Journal using messageStore {}", message, journal.getName());
-        journal.getMessageStore().add(MessageStoreEntry.of(channelName, message));
+        final MessageStoreEntry entry = MessageStoreEntry.of(channelName, message);
+        if (journalWriter != null) {
+            journalWriter.write(entry);
+        } else {
+            journal.getMessageStore().add(entry);
+        }
         return message;
     }
 
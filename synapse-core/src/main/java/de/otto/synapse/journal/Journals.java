@@ -41,9 +41,25 @@ public class Journals {
 
     public static Journal singleChannelJournal(final String name,
                                                final String channelName) {
-        return new Journal() {
-            final MessageStore messageStore = new OffHeapIndexingMessageStore(nameFrom(channelName, "MessageStore"), journalKeyIndexer());
+        return singleChannelJournal(name, channelName, new OffHeapIndexingMessageStore(nameFrom(channelName, "MessageStore"), journalKeyIndexer()));
+    }
 
+    /**
+     * Creates a Journal for a single channel, using the given MessageStore to store the journaled messages.
+     *
+     * <p>The store must be indexed using the {@link de.otto.synapse.messagestore.Indexers#journalKeyIndexer()
+     * journal-key indexer}. Long-lived journals should use a store that is not keeping all messages on the heap,
+     * like a {@link de.otto.synapse.messagestore.SegmentedLogMessageStore} with a retention policy.</p>
+     *
+     * @param name the name of the journal
+     * @param channelName the name of the journaled channel
+     * @param messageStore the store of the journaled messages
+     * @return Journal
+     */
+    public static Journal singleChannelJournal(final String name,
+                                               final String channelName,
+                                               final MessageStore messageStore) {
+        return new Journal() {
             @Override
             public String getName() {
                 return name;
@@ -70,9 +86,26 @@ public class Journals {
     public static Journal multiChannelJournal(final String name,
                                               final String channelName,
                                               final String... moreChannelNames) {
-        return new Journal() {
-            final MessageStore messageStore = new OffHeapIndexingMessageStore(nameFrom(channelName, "MessageStore"), journalKeyIndexer());
+        return multiChannelJournal(name, new OffHeapIndexingMessageStore(nameFrom(channelName, "MessageStore"), journalKeyIndexer()), channelName, moreChannelNames);
+    }
 
+    /**
+     * Creates a Journal for multiple channels, using the given MessageStore to store the journaled messages.
+     *
+     * <p>The store must be indexed using the {@link de.otto.synapse.messagestore.Indexers#journalKeyIndexer()
+     * journal-key indexer}.</p>
+     *
+     * @param name the name of the journal
+     * @param messageStore the store of the journaled messages
+     * @param channelName the name of the first journaled channel
+     * @param moreChannelNames the names of more journaled channels
+     * @return Journal
+     */
+    public static Journal multiChannelJournal(final String name,
+                                              final MessageStore messageStore,
+                                              final String channelName,
+                                              final String... moreChannelNames) {
+        return new Journal() {
             @Override
             public String getName() {
                 return name;
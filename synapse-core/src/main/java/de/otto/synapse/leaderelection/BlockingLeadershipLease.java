@@ -0,0 +1,100 @@
+package de.otto.synapse.leaderelection;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * {@link LeadershipLease} that is used by the default implementation of
+ * {@link LeaderElection#acquireLeadership(String, LeadershipListener)}.
+ * <p>
+ *     A dedicated daemon thread repeatedly calls {@link LeaderElection#runIfLeader(String, Runnable)}. If the
+ *     thread becomes the leader, it keeps holding the lock until the lease is closed, so leadership is bound to the
+ *     lock of the {@code LeaderElection}. Listeners are informed by this thread.
+ * </p>
+ */
+final class BlockingLeadershipLease implements LeadershipLease {
+
+    private static final Logger LOG = getLogger(BlockingLeadershipLease.class);
+
+    static final Duration RETRY_INTERVAL = Duration.ofSeconds(1);
+
+    private final LeaderElection leaderElection;
+    private final String lockName;
+    private final LeadershipListener listener;
+    private final AtomicBoolean leader = new AtomicBoolean(false);
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private BlockingLeadershipLease(final LeaderElection leaderElection,
+                                    final String lockName,
+                                    final LeadershipListener listener) {
+        this.leaderElection = leaderElection;
+        this.lockName = lockName;
+        this.listener = listener;
+    }
+
+    static LeadershipLease acquire(final LeaderElection leaderElection,
+                                   final String lockName,
+                                   final LeadershipListener listener) {
+        final BlockingLeadershipLease lease = new BlockingLeadershipLease(leaderElection, lockName, listener);
+        final Thread thread = new Thread(lease::run, "synapse-leadership-" + lockName);
+        thread.setDaemon(true);
+        thread.start();
+        return lease;
+    }
+
+    @Override
+    public String getLockName() {
+        return lockName;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return leader.get();
+    }
+
+    @Override
+    public void close() {
+        closed.countDown();
+    }
+
+    private void run() {
+        while (closed.getCount() > 0) {
+            try {
+                leaderElection.runIfLeader(lockName, this::lead);
+            } catch (final RuntimeException e) {
+                LOG.warn("Failed to acquire leadership lease {}: {}", lockName, e.getMessage());
+            }
+            try {
+                closed.await(RETRY_INTERVAL.toMillis(), MILLISECONDS);
+            } catch (final InterruptedException e) {
+                currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void lead() {
+        if (closed.getCount() == 0) {
+            return;
+        }
+        leader.set(true);
+        LOG.info("Acquired leadership lease {}", lockName);
+        try {
+            listener.onLeadershipAcquired(lockName);
+            closed.await();
+        } catch (final InterruptedException e) {
+            currentThread().interrupt();
+        } finally {
+            leader.set(false);
+            LOG.info("Lost leadership lease {}", lockName);
+            listener.onLeadershipRevoked(lockName);
+        }
+    }
+}
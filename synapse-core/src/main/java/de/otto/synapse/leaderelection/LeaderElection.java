@@ -89,4 +89,30 @@ public interface LeaderElection {
     <T> CompletableFuture<T> supplyAsyncIfLeader(String lockName,
                                                  Supplier<T> supplier,
                                                  Executor executor);
+
+    /**
+     * Asynchronously tries to become the leader for the specified lock, without blocking the calling thread.
+     * <p>
+     *     Other than the {@code *IfLeader} methods, leadership is not bound to the execution of a single task:
+     *     the returned lease is periodically renewed in the background and retried while some other instance is
+     *     leader, until the lease is {@link LeadershipLease#close() closed}. The {@link LeadershipListener} is
+     *     informed whenever leadership is acquired or lost, so continuous tasks can be started and stopped
+     *     accordingly.
+     * </p>
+     *
+     * <p>
+     *     The default implementation is using a dedicated thread that repeatedly tries to become leader using
+     *     {@link #runIfLeader(String, Runnable)}. After becoming leader, the thread keeps holding the lock until the
+     *     lease is closed. Implementations should override this method, if the lock can be held without blocking a
+     *     thread.
+     * </p>
+     *
+     * @param lockName the name of the distributed lock used for leader election
+     * @param listener the listener that is informed about changes of the leadership
+     * @return LeadershipLease used to check or give up leadership
+     */
+    default LeadershipLease acquireLeadership(String lockName,
+                                              LeadershipListener listener) {
+        return BlockingLeadershipLease.acquire(this, lockName, listener);
+    }
 }
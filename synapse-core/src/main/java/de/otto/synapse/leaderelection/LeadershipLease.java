@@ -0,0 +1,30 @@
+package de.otto.synapse.leaderelection;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A renewable lease on the leadership for some distributed lock.
+ *
+ * @see LeaderElection#acquireLeadership(String, LeadershipListener)
+ */
+@Beta
+public interface LeadershipLease extends AutoCloseable {
+
+    /**
+     * @return the name of the distributed lock used for leader election
+     */
+    String getLockName();
+
+    /**
+     * Returns true, if the current instance is holding the lease.
+     *
+     * @return boolean
+     */
+    boolean isLeader();
+
+    /**
+     * Stops trying to acquire or renew the lease and releases the leadership, if the current instance is leader.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,29 @@
+package de.otto.synapse.leaderelection;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Listener that is informed about changes of the leadership acquired by
+ * {@link LeaderElection#acquireLeadership(String, LeadershipListener)}.
+ * <p>
+ *     Callbacks are executed asynchronously, so implementations may start or stop long-running tasks.
+ * </p>
+ */
+@Beta
+public interface LeadershipListener {
+
+    /**
+     * Called after the current instance has become the leader.
+     *
+     * @param lockName the name of the distributed lock used for leader election
+     */
+    void onLeadershipAcquired(String lockName);
+
+    /**
+     * Called after the current instance has lost the leadership, either because the lease could not be renewed
+     * in time, or because the lease was closed.
+     *
+     * @param lockName the name of the distributed lock used for leader election
+     */
+    void onLeadershipRevoked(String lockName);
+}
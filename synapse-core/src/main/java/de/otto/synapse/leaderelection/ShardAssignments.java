@@ -0,0 +1,68 @@
+package de.otto.synapse.leaderelection;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.*;
+
+/**
+ * Helper used to calculate balanced assignments of shards to the instances of a service.
+ */
+@Beta
+public final class ShardAssignments {
+
+    private ShardAssignments() {
+    }
+
+    /**
+     * Assigns the shards to the instances, so that every instance is owning either {@code floor(shards/instances)}
+     * or {@code ceil(shards/instances)} shards.
+     * <p>
+     *     Current assignments are kept as long as the owner is still alive and is not owning too many shards.
+     *     This way, joining or leaving instances only move the minimum number of shards.
+     * </p>
+     *
+     * @param instanceIds the identifiers of the live instances
+     * @param shardNames the names of the shards
+     * @param currentAssignments the current mapping of shard names to instance identifiers
+     * @return mapping of shard names to instance identifiers, ordered by shard name
+     */
+    public static ImmutableMap<String, String> assign(final Collection<String> instanceIds,
+                                                      final Collection<String> shardNames,
+                                                      final Map<String, String> currentAssignments) {
+        if (instanceIds.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        final SortedSet<String> instances = new TreeSet<>(instanceIds);
+        final SortedSet<String> shards = new TreeSet<>(shardNames);
+        final int minShardsPerInstance = shards.size() / instances.size();
+        int remainingExtraShards = shards.size() % instances.size();
+
+        final Map<String, Integer> load = new LinkedHashMap<>();
+        instances.forEach(instance -> load.put(instance, 0));
+
+        final Map<String, String> assignments = new TreeMap<>();
+        for (final String shard : shards) {
+            final String owner = currentAssignments.get(shard);
+            if (owner != null && load.containsKey(owner)) {
+                final int ownerLoad = load.get(owner);
+                if (ownerLoad < minShardsPerInstance) {
+                    assignments.put(shard, owner);
+                    load.put(owner, ownerLoad + 1);
+                } else if (ownerLoad == minShardsPerInstance && remainingExtraShards > 0) {
+                    --remainingExtraShards;
+                    assignments.put(shard, owner);
+                    load.put(owner, ownerLoad + 1);
+                }
+            }
+        }
+        for (final String shard : shards) {
+            if (!assignments.containsKey(shard)) {
+                final String instance = Collections.min(load.entrySet(), Map.Entry.comparingByValue()).getKey();
+                assignments.put(shard, instance);
+                load.put(instance, load.get(instance) + 1);
+            }
+        }
+        return ImmutableMap.copyOf(assignments);
+    }
+}
@@ -0,0 +1,88 @@
+package de.otto.synapse.leaderelection;
+
+import com.google.common.annotations.Beta;
+import de.otto.synapse.channel.ShardPosition;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Coordinates the assignment of the shards of a message channel to the instances of a service, so that
+ * every instance is only consuming its share of the shards.
+ * <p>
+ *     Instances join the group of consumers of a channel by calling {@link #acquire(String, Collection)}. The
+ *     shards are rebalanced whenever an instance is joining or leaving the group. Shards are handed over to
+ *     another instance using the last {@link #checkpoint(String, ShardPosition) checkpoint} of the previous
+ *     owner.
+ * </p>
+ * <p>
+ *     Shard leases are intended to be used by message-log receivers that process every message once per group
+ *     of instances. They can not be used for event sources that need to build the complete state of a channel
+ *     in every instance. Because handovers are not synchronized with message processing, a few messages may be
+ *     processed by both the previous and the new owner of a shard.
+ * </p>
+ */
+@Beta
+public interface ShardLeases {
+
+    /**
+     * Joins the group of consumers of the given channel and returns the shards that are currently leased by this
+     * instance.
+     * <p>
+     *     The method is called by the threads consuming the shards, so implementations should rebalance the shards
+     *     in the background. Until the shards are rebalanced, the returned set may be empty; callers are waiting
+     *     for {@link #leasedShards(String)} to change in this case.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     * @param shardNames the names of all open shards of the channel
+     * @return set of shard names leased by this instance; possibly empty, if there are more instances than shards
+     */
+    Set<String> acquire(String channelName, Collection<String> shardNames);
+
+    /**
+     * Returns the shards that are currently leased by this instance.
+     * <p>
+     *     The method is called for every response of the leased shards, so implementations must not block:
+     *     memberships should be renewed and assignments refreshed in the background, and this method should
+     *     only return the most recently refreshed assignments.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     * @return set of shard names leased by this instance
+     */
+    Set<String> leasedShards(String channelName);
+
+    /**
+     * Records the position of a shard, so the shard can be handed over to another instance.
+     * <p>
+     *     The method is called for every response of the leased shards, so implementations must not block:
+     *     checkpoints should be buffered and written in the background. Checkpoints of shards that are already
+     *     leased by another instance must not overwrite the checkpoints of the new owner.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     * @param shardPosition the position of the last message processed from the shard
+     */
+    void checkpoint(String channelName, ShardPosition shardPosition);
+
+    /**
+     * Returns the last checkpoint of a shard, if any.
+     *
+     * @param channelName the name of the channel
+     * @param shardName the name of the shard
+     * @return optional shard position
+     */
+    Optional<ShardPosition> getCheckpoint(String channelName, String shardName);
+
+    /**
+     * Leaves the group of consumers of the channel, so the leased shards can be taken over by other instances.
+     * <p>
+     *     Implementations should not block the calling thread while the shards are rebalanced.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     */
+    void release(String channelName);
+}
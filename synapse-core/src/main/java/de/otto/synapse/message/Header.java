@@ -3,6 +3,8 @@ package de.otto.synapse.message;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.endpoint.receiver.MessageQueueReceiverEndpoint;
@@ -13,6 +15,7 @@ import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -28,6 +31,17 @@ import java.util.Optional;
  * <p>
  *     <img src="http://www.enterpriseintegrationpatterns.com/img/MessageSolution.gif" alt="Message">
  * </p>
+ * <p>
+ *     Attributes can be added to an existing header using {@link #withAttribute(String, String)} or
+ *     {@link #withAttributes(Map)}. The returned header is an overlay that is only referencing the original header,
+ *     instead of copying all attributes. The attributes of overlays are only merged, if {@link #getAll()} is called.
+ * </p>
+ * <p>
+ *     Attributes added as {@link Instant} are additionally stored as typed values, so {@link #getAsInstant(String)}
+ *     and {@link #getAsEpochMilli(String, long)} are returning them without parsing the string representation of
+ *     the attribute. The string representation is still used by {@link #getAll()}, {@link #equals(Object)} and the
+ *     message encoders, so typed attributes are compatible to attributes having an ISO-8601 string value.
+ * </p>
  * @see <a href="http://www.enterpriseintegrationpatterns.com/patterns/messaging/Message.html">EIP: Message</a>
  */
 public class Header implements Serializable {
@@ -35,21 +49,34 @@ public class Header implements Serializable {
 
     private static final long serialVersionUID = -6285737687861009394L;
 
+    /**
+     * Maximum number of overlays, before the attributes are merged into a single header. This limits the costs
+     * of attribute lookups in headers that are extended by many interceptors.
+     */
+    private static final int MAX_OVERLAY_DEPTH = 4;
+
+    private static final Interner<String> ATTRIBUTE_NAMES = Interners.newWeakInterner();
+    static {
+        for (final DefaultHeaderAttr attr : DefaultHeaderAttr.values()) {
+            ATTRIBUTE_NAMES.intern(attr.key());
+        }
+    }
+
     public static Header of() {
-        return new Header(null, ImmutableMap.of());
+        return new Header(null, ImmutableMap.of(), ImmutableMap.of(), null);
     }
 
     public static Header of(final ImmutableMap<String, String> attributes) {
-        return new Header(null, attributes);
+        return new Header(null, attributes, ImmutableMap.of(), null);
     }
 
     public static Header of(final ShardPosition shardPosition,
                             final ImmutableMap<String, String> attributes) {
-        return new Header(shardPosition, attributes);
+        return new Header(shardPosition, attributes, ImmutableMap.of(), null);
     }
 
     public static Header of(final ShardPosition shardPosition) {
-        return new Header(shardPosition, ImmutableMap.of());
+        return new Header(shardPosition, ImmutableMap.of(), ImmutableMap.of(), null);
     }
 
     public static Builder builder() {
@@ -59,16 +86,118 @@ public class Header implements Serializable {
     public static Builder copyOf(final Header header) {
         return new Builder()
                 .withShardPosition(header.shardPosition)
-                .withAttributes(header.getAll());
+                .withAttributes(header.getAll())
+                .withInstants(header.getAllInstants());
     }
 
     private final ShardPosition shardPosition;
     private final ImmutableMap<String, String> attributes;
+    private final ImmutableMap<String, Instant> instants;
+    private final Header parent;
+    private final int depth;
+    private transient volatile ImmutableMap<String, String> mergedAttributes;
 
     private Header(final ShardPosition shardPosition,
-                   final ImmutableMap<String, String> attributes) {
+                   final ImmutableMap<String, String> attributes,
+                   final ImmutableMap<String, Instant> instants,
+                   final Header parent) {
         this.shardPosition = shardPosition;
         this.attributes = attributes;
+        this.instants = instants;
+        this.parent = parent;
+        this.depth = parent != null ? parent.depth + 1 : 0;
+    }
+
+    /**
+     * Returns a Header containing all attributes of this header, plus the given attribute. If this header already
+     * contains an attribute with the same key, the attribute is replaced in the returned header.
+     * <p>
+     *     The attributes of this header are not copied.
+     * </p>
+     *
+     * @param key the key of the attribute
+     * @param value the value of the attribute
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttribute(final @Nonnull String key, final @Nonnull String value) {
+        return withAttributes(ImmutableMap.of(key, value));
+    }
+
+    /**
+     * Returns a Header containing all attributes of this header, plus the given attribute. If this header already
+     * contains an attribute with the same key, the attribute is replaced in the returned header.
+     *
+     * @param attr the key of the attribute
+     * @param value the value of the attribute
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttribute(final @Nonnull HeaderAttr attr, final @Nonnull String value) {
+        return withAttributes(ImmutableMap.of(attr.key(), value));
+    }
+
+    /**
+     * Returns a Header containing all attributes of this header, plus the given attribute. If this header already
+     * contains an attribute with the same key, the attribute is replaced in the returned header.
+     *
+     * @param attr the key of the attribute
+     * @param value the value of the attribute
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttribute(final @Nonnull HeaderAttr attr, final @Nonnull Instant value) {
+        return withAttribute(attr.key(), value);
+    }
+
+    /**
+     * Returns a Header containing all attributes of this header, plus the given typed attribute. If this header
+     * already contains an attribute with the same key, the attribute is replaced in the returned header.
+     *
+     * @param key the key of the attribute
+     * @param value the value of the attribute
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttribute(final @Nonnull String key, final @Nonnull Instant value) {
+        final String internedKey = internAttributeName(key);
+        return withOverlay(ImmutableMap.of(internedKey, value.toString()), ImmutableMap.of(internedKey, value));
+    }
+
+    /**
+     * Returns a Header containing all attributes of this header, plus the given attributes. Attributes with
+     * equal keys are replaced in the returned header.
+     * <p>
+     *     The attributes of this header are not copied.
+     * </p>
+     *
+     * @param attributes the additional attributes
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttributes(final @Nonnull Map<String, String> attributes) {
+        if (attributes.isEmpty()) {
+            return this;
+        }
+        final ImmutableMap.Builder<String, String> builder = ImmutableMap.builderWithExpectedSize(attributes.size());
+        attributes.forEach((key, value) -> builder.put(internAttributeName(key), value));
+        return withOverlay(builder.build(), ImmutableMap.of());
+    }
+
+    private Header withOverlay(final ImmutableMap<String, String> overlay,
+                               final ImmutableMap<String, Instant> instantOverlay) {
+        if (this.attributes.isEmpty() && parent == null) {
+            return new Header(shardPosition, overlay, instantOverlay, null);
+        }
+        if (depth >= MAX_OVERLAY_DEPTH) {
+            final Map<String, String> merged = new LinkedHashMap<>(getAll());
+            merged.putAll(overlay);
+            final Map<String, Instant> mergedInstants = getAllInstants();
+            overlay.keySet().forEach(mergedInstants::remove);
+            mergedInstants.putAll(instantOverlay);
+            return new Header(shardPosition, ImmutableMap.copyOf(merged), ImmutableMap.copyOf(mergedInstants), null);
+        }
+        return new Header(shardPosition, overlay, instantOverlay, this);
     }
 
     @Nonnull
@@ -79,11 +208,21 @@ public class Header implements Serializable {
     @Nonnull
     @JsonAnyGetter
     public ImmutableMap<String, String> getAll() {
-        return attributes;
+        if (parent == null) {
+            return attributes;
+        }
+        ImmutableMap<String, String> merged = mergedAttributes;
+        if (merged == null) {
+            final Map<String, String> map = new LinkedHashMap<>(parent.getAll());
+            map.putAll(attributes);
+            merged = ImmutableMap.copyOf(map);
+            mergedAttributes = merged;
+        }
+        return merged;
     }
 
     public boolean containsKey(final String key) {
-        return attributes.containsKey(key);
+        return attributes.containsKey(key) || (parent != null && parent.containsKey(key));
     }
 
     public boolean containsKey(final HeaderAttr attr) {
@@ -93,7 +232,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Object get(final String key) {
-        return attributes.get(key);
+        return lookup(key);
     }
 
     @Nullable
@@ -105,7 +244,8 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Object get(final String key, final String defaultValue) {
-        return attributes.getOrDefault(key, defaultValue);
+        final String value = lookup(key);
+        return value != null ? value : defaultValue;
     }
 
     @Nullable
@@ -117,7 +257,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public String getAsString(final String key) {
-        return Objects.toString(attributes.get(key), null);
+        return lookup(key);
     }
 
     @Nullable
@@ -129,7 +269,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public String getAsString(final String key, final String defaultValue) {
-        return Objects.toString(attributes.get(key), defaultValue);
+        return Objects.toString(lookup(key), defaultValue);
     }
 
     @Nullable
@@ -141,9 +281,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Instant getAsInstant(final String key) {
-        return containsKey(key)
-                ? Instant.parse(attributes.get(key))
-                : null;
+        return lookupInstant(key);
     }
 
     @Nullable
@@ -155,8 +293,9 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Instant getAsInstant(final String key, final Instant defaultValue) {
-        return containsKey(key)
-                ? Instant.parse(attributes.get(key))
+        final Instant value = lookupInstant(key);
+        return value != null
+                ? value
                 : defaultValue;
     }
 
@@ -166,31 +305,107 @@ public class Header implements Serializable {
         return getAsInstant(attr.key(), defaultValue);
     }
 
+    /**
+     * Returns the value of a timestamp attribute as milliseconds since the epoch.
+     *
+     * @param key the key of the attribute
+     * @param defaultValue the value returned if the header does not contain the attribute
+     * @return epoch millis
+     */
+    @JsonIgnore
+    public long getAsEpochMilli(final String key, final long defaultValue) {
+        final Instant value = lookupInstant(key);
+        return value != null
+                ? value.toEpochMilli()
+                : defaultValue;
+    }
+
+    @JsonIgnore
+    public long getAsEpochMilli(final HeaderAttr attr, final long defaultValue) {
+        return getAsEpochMilli(attr.key(), defaultValue);
+    }
+
+    private String lookup(final String key) {
+        Header header = this;
+        do {
+            final String value = header.attributes.get(key);
+            if (value != null) {
+                return value;
+            }
+            header = header.parent;
+        } while (header != null);
+        return null;
+    }
+
+    /**
+     * Looks up the typed value of an attribute, or parses the string value if the attribute was not added as a typed
+     * attribute. Typed values of an overlay's parents are ignored if the overlay replaced the attribute by a string.
+     */
+    private Instant lookupInstant(final String key) {
+        Header header = this;
+        do {
+            final String value = header.attributes.get(key);
+            if (value != null) {
+                final Instant instant = header.instants.get(key);
+                return instant != null
+                        ? instant
+                        : Instant.parse(value);
+            }
+            header = header.parent;
+        } while (header != null);
+        return null;
+    }
+
+    private Map<String, Instant> getAllInstants() {
+        final Map<String, Instant> allInstants = parent != null
+                ? parent.getAllInstants()
+                : new HashMap<>();
+        if (parent != null) {
+            attributes.keySet().forEach(allInstants::remove);
+        }
+        allInstants.putAll(instants);
+        return allInstants;
+    }
+
+    /**
+     * Headers serialized by previous versions are not containing typed attributes.
+     */
+    private Object readResolve() {
+        return instants != null
+                ? this
+                : new Header(shardPosition, attributes, ImmutableMap.of(), parent);
+    }
+
+    static String internAttributeName(final String key) {
+        return ATTRIBUTE_NAMES.intern(key);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Header header = (Header) o;
         return Objects.equals(shardPosition, header.shardPosition) &&
-                Objects.equals(attributes, header.attributes);
+                Objects.equals(getAll(), header.getAll());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(shardPosition, attributes);
+        return Objects.hash(shardPosition, getAll());
     }
 
     @Override
     public String toString() {
         return "Header{" +
                 "shardPosition=" + shardPosition +
-                ", attributes=" + attributes +
+                ", attributes=" + getAll() +
                 '}';
     }
 
     public static class Builder {
         private ShardPosition shardPosition;
         private final Map<String, String> attributes = new HashMap<>();
+        private final Map<String, Instant> instants = new HashMap<>();
 
         public Builder withShardPosition(final @Nonnull ShardPosition shardPosition) {
             this.shardPosition = shardPosition;
@@ -198,7 +413,9 @@ public class Header implements Serializable {
         }
 
         public Builder withAttribute(final @Nonnull String key, final @Nonnull String value) {
-            this.attributes.put(key, value);
+            final String internedKey = internAttributeName(key);
+            this.attributes.put(internedKey, value);
+            this.instants.remove(internedKey);
             return this;
         }
 
@@ -207,7 +424,9 @@ public class Header implements Serializable {
         }
 
         public Builder withAttribute(final @Nonnull String key, final @Nonnull Instant value) {
-            this.attributes.put(key, value.toString());
+            final String internedKey = internAttributeName(key);
+            this.attributes.put(internedKey, value.toString());
+            this.instants.put(internedKey, value);
             return this;
         }
 
@@ -216,12 +435,17 @@ public class Header implements Serializable {
         }
 
         public Builder withAttributes(final @Nonnull Map<String, String> attributes) {
-            this.attributes.putAll(attributes);
+            attributes.forEach(this::withAttribute);
+            return this;
+        }
+
+        private Builder withInstants(final Map<String, Instant> instants) {
+            instants.forEach(this::withAttribute);
             return this;
         }
 
         public Header build() {
-            return new Header(shardPosition, ImmutableMap.copyOf(attributes));
+            return new Header(shardPosition, ImmutableMap.copyOf(attributes), ImmutableMap.copyOf(instants), null);
         }
     }
 }
@@ -87,19 +87,19 @@ public class Message<P> implements Serializable {
         Message<?> message = (Message<?>) o;
         return key.equals(message.key) &&
                 header.equals(message.header) &&
-                Objects.equals(payload, message.payload);
+                Objects.equals(getPayload(), message.getPayload());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(key, header, payload);
+        return Objects.hash(key, header, getPayload());
     }
 
     @Override
     public String toString() {
         return "Message{" +
                 "of='" + key + '\'' +
-                ", payload=" + payload +
+                ", payload=" + getPayload() +
                 ", header=" + header +
                 '}';
     }
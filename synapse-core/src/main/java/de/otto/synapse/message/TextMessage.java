@@ -1,11 +1,19 @@
 package de.otto.synapse.message;
 
+import de.otto.synapse.translator.PayloadCodec;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 
 /**
  * A {@code Message} that is used by Synapse for messages with String payloads.
- *
+ * <p>
+ *     TextMessages that are created from UTF-8 encoded bytes using {@link #of(Key, Header, byte[], int, int)}
+ *     are keeping the payload as bytes until {@link #getPayload()} is called for the first time. Payloads
+ *     that are only {@link #readPayload(PayloadCodec) read} into some object, or messages that are dropped
+ *     before the payload is accessed, are never decoded into a String.
+ * </p>
  */
 public class TextMessage extends Message<String> {
 
@@ -26,6 +34,9 @@ public class TextMessage extends Message<String> {
      */
     @Nonnull
     public static TextMessage of(final @Nonnull Message<String> message) {
+        if (message instanceof TextMessage) {
+            return (TextMessage) message;
+        }
         return new TextMessage(message.getKey(), message.getHeader(), message.getPayload());
     }
 
@@ -84,4 +95,58 @@ public class TextMessage extends Message<String> {
         return new TextMessage(Key.of(key), Header.of(), payload);
     }
 
+    /**
+     * Factory method used to create a {@code TextMessage} from key, header and a UTF-8 encoded payload.
+     * <p>
+     *     The bytes are not copied, so the caller must not modify the array after the message was created.
+     *     An empty slice results in a message with {@code null} payload.
+     * </p>
+     *
+     * @param key Key of the created message
+     * @param header Header of the created message
+     * @param utf8Payload array containing the UTF-8 encoded payload of the created message
+     * @param offset the offset of the payload in {@code utf8Payload}
+     * @param length the number of bytes of the payload
+     * @return TextMessage
+     */
+    @Nonnull
+    public static TextMessage of(final @Nonnull Key key,
+                                 final @Nonnull Header header,
+                                 final @Nonnull byte[] utf8Payload,
+                                 final int offset,
+                                 final int length) {
+        return length > 0
+                ? new Utf8TextMessage(key, header, utf8Payload, offset, length)
+                : new TextMessage(key, header, null);
+    }
+
+    /**
+     * Returns a copy of this message with a different header. The payload is shared with this message.
+     *
+     * @param header the header of the new message
+     * @return TextMessage
+     */
+    @Nonnull
+    public TextMessage withHeader(final @Nonnull Header header) {
+        return new TextMessage(getKey(), header, getPayload());
+    }
+
+    /**
+     * Reads the payload of the message using the given {@code PayloadCodec}.
+     * <p>
+     *     If the message was created from UTF-8 encoded bytes, the payload is parsed directly from
+     *     the bytes, without decoding it into a String first.
+     * </p>
+     *
+     * @param codec the PayloadCodec used to read the payload
+     * @param <T> the type of the returned object
+     * @return the payload read using the PayloadCodec, or null, if the message has no payload
+     * @throws IOException if the payload can not be read
+     */
+    @Nullable
+    public <T> T readPayload(final @Nonnull PayloadCodec<T> codec) throws IOException {
+        final String payload = getPayload();
+        return payload != null ? codec.read(payload) : null;
+    }
+
 }
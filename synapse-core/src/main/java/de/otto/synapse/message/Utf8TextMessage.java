@@ -0,0 +1,59 @@
+package de.otto.synapse.message;
+
+import de.otto.synapse.translator.PayloadCodec;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link TextMessage} with a UTF-8 encoded payload that is only decoded into a String on demand.
+ */
+final class Utf8TextMessage extends TextMessage {
+
+    private static final long serialVersionUID = -4129856431571394208L;
+
+    private final byte[] utf8Payload;
+    private final int offset;
+    private final int length;
+    private transient volatile String decodedPayload;
+
+    Utf8TextMessage(final @Nonnull Key key,
+                    final @Nonnull Header header,
+                    final @Nonnull byte[] utf8Payload,
+                    final int offset,
+                    final int length) {
+        super(key, header, null);
+        if (offset < 0 || length < 0 || offset + length > utf8Payload.length) {
+            throw new IndexOutOfBoundsException("Illegal payload slice: offset=" + offset + ", length=" + length);
+        }
+        this.utf8Payload = utf8Payload;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Nullable
+    @Override
+    public String getPayload() {
+        String payload = decodedPayload;
+        if (payload == null) {
+            payload = new String(utf8Payload, offset, length, UTF_8);
+            decodedPayload = payload;
+        }
+        return payload;
+    }
+
+    @Nonnull
+    @Override
+    public TextMessage withHeader(final @Nonnull Header header) {
+        return new Utf8TextMessage(getKey(), header, utf8Payload, offset, length);
+    }
+
+    @Nullable
+    @Override
+    public <T> T readPayload(final @Nonnull PayloadCodec<T> codec) throws IOException {
+        return codec.read(utf8Payload, offset, length);
+    }
+}
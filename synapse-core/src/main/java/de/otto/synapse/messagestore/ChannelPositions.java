@@ -1,33 +1,42 @@
 package de.otto.synapse.messagestore;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardPosition;
 import net.jcip.annotations.ThreadSafe;
 
-import java.util.Optional;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import static de.otto.synapse.channel.ChannelPosition.*;
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
 
+/**
+ * Keeps track of the latest positions of the channels and shards of the entries added to a {@link MessageStore}.
+ * <p>
+ *     The positions are tracked in mutable, lock-free maps of shard names to shard positions, so updating the
+ *     position of a known shard does not allocate any objects. Immutable {@link ChannelPosition} snapshots are only
+ *     created when the position of a channel is {@link #getLatestChannelPosition(String) requested}.
+ * </p>
+ */
 @ThreadSafe
 class ChannelPositions {
 
-    private final ConcurrentMap<String, ChannelPosition> channelPositions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ShardPositions> channelPositions = new ConcurrentHashMap<>();
 
     void updateFrom(final MessageStoreEntry entry) {
-        channelPositions.compute(entry.getChannelName(), (key, existing) -> {
-            final Optional<ShardPosition> shardPosition = entry
-                    .getTextMessage()
-                    .getHeader()
-                    .getShardPosition();
-            if (existing != null) {
-                return shardPosition.map(s -> merge(existing, channelPosition(s))).orElse(existing);
-            } else {
-                return shardPosition.map(ChannelPosition::channelPosition).orElseGet(ChannelPosition::fromHorizon);
-            }
-        });
+        final String channelName = entry.getChannelName();
+        ShardPositions shardPositions = channelPositions.get(channelName);
+        if (shardPositions == null) {
+            shardPositions = channelPositions.computeIfAbsent(channelName, (key) -> new ShardPositions());
+        }
+        final ShardPosition shardPosition = entry.getTextMessage().getHeader().getShardPosition().orElse(null);
+        if (shardPosition != null) {
+            shardPositions.update(shardPosition);
+        }
     }
 
     public ImmutableSet<String> getChannelNames() {
@@ -35,6 +44,32 @@ class ChannelPositions {
     }
 
     public ChannelPosition getLatestChannelPosition(final String channelName) {
-        return channelPositions.getOrDefault(channelName, fromHorizon());
+        final ShardPositions shardPositions = channelPositions.get(channelName);
+        return shardPositions != null
+                ? shardPositions.snapshot()
+                : fromHorizon();
+    }
+
+    /**
+     * The latest positions of the shards of a single channel.
+     */
+    private static final class ShardPositions {
+        private final ConcurrentMap<String, ShardPosition> positions = new ConcurrentHashMap<>();
+        /** The names of the shards in the order of their first appearance. */
+        private final List<String> shardNames = new CopyOnWriteArrayList<>();
+
+        void update(final ShardPosition shardPosition) {
+            if (positions.put(shardPosition.shardName(), shardPosition) == null) {
+                shardNames.add(shardPosition.shardName());
+            }
+        }
+
+        ChannelPosition snapshot() {
+            final ImmutableList.Builder<ShardPosition> builder = ImmutableList.builder();
+            for (final String shardName : shardNames) {
+                builder.add(positions.get(shardName));
+            }
+            return channelPosition(builder.build());
+        }
     }
 }
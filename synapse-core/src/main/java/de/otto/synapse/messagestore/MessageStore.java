@@ -6,6 +6,7 @@ import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.message.Header;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -114,6 +115,21 @@ public interface MessageStore extends AutoCloseable {
      */
     void add(@Nonnull MessageStoreEntry entry);
 
+    /**
+     * Appends the given entries to the MessageStore, in the order of the list.
+     *
+     * <p>The default implementation is {@link #add(MessageStoreEntry) adding} the entries one by one.
+     * Implementations may override this method to write the entries atomically, or if adding multiple entries
+     * at once is cheaper than adding single entries, for example because of network round trips.</p>
+     *
+     * @param entries the entries that are appended to the MessageStore
+     */
+    default void addAll(@Nonnull List<MessageStoreEntry> entries) {
+        for (final MessageStoreEntry entry : entries) {
+            add(entry);
+        }
+    }
+
     /**
      * Returns the number of messages contained in the MessageStore.
      * <p>
@@ -3,14 +3,21 @@ package de.otto.synapse.messagestore;
 import com.google.common.collect.ImmutableSet;
 import de.otto.synapse.channel.ChannelPosition;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.Deque;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static de.otto.synapse.messagestore.Indexers.noOpIndexer;
@@ -18,58 +25,125 @@ import static de.otto.synapse.messagestore.Indexers.noOpIndexer;
 /**
  * Thread-safe in-memory (on heap) implementation of a MessageStore that is able to index entries.
  *
+ * <p>
+ *     Every entry gets a sequence number. The entries are kept in insertion order, and the postings of an index value
+ *     are compact arrays of sequence numbers instead of references to the entries. Adding entries does not require a
+ *     global lock: only the postings of the same index value are updated under a lock.
+ * </p>
+ * <p>
+ *     If a capacity or a maximum age is configured, the oldest entries are removed from the store and from the
+ *     postings of the index values when entries are added.
+ * </p>
+ *
  * <p><em>Features:</em></p>
  * <ul>
  *     <li>Thread-Safe</li>
- *     <li>No support for maximum capacity, will grow without bounds.</li>
+ *     <li>Support for maximum capacity and maximum age. Grows without bounds, if neither is configured.</li>
  *     <li>No support for compaction.</li>
- *     <li>Supports ndexing of messages.</li>
+ *     <li>Supports indexing of messages.</li>
  * </ul>
  */
 @ThreadSafe
 public class OnHeapIndexingMessageStore implements MessageStore {
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Deque<MessageStoreEntry> entries = new ConcurrentLinkedDeque<>();
-    private final ConcurrentMap<String, Deque<MessageStoreEntry>> indexes = new ConcurrentHashMap<>();
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** The sequence number of the next entry. */
+    private final AtomicLong sequence = new AtomicLong();
+    /** The sequence number of the oldest entry that is not yet evicted. */
+    private final AtomicLong firstSequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ConcurrentMap<Long, Chunk> chunks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Index, ConcurrentMap<String, Postings>> indexes = new ConcurrentHashMap<>();
     private final ChannelPositions channelPositions = new ChannelPositions();
     private final Indexer indexer;
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final Clock clock;
 
+    /**
+     * Creates an unbounded OnHeapIndexingMessageStore without indexes.
+     */
     public OnHeapIndexingMessageStore() {
-        this.indexer = noOpIndexer();
+        this(noOpIndexer());
     }
 
+    /**
+     * Creates an unbounded OnHeapIndexingMessageStore.
+     *
+     * @param indexer the Indexer used to index the entries
+     */
     public OnHeapIndexingMessageStore(final Indexer indexer) {
+        this(indexer, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates an OnHeapIndexingMessageStore with a maximum capacity.
+     *
+     * @param indexer the Indexer used to index the entries
+     * @param capacity the maximum number of entries
+     */
+    public OnHeapIndexingMessageStore(final Indexer indexer,
+                                      final int capacity) {
+        this(indexer, capacity, null);
+    }
+
+    /**
+     * Creates an OnHeapIndexingMessageStore with a maximum capacity and a maximum age of the entries.
+     *
+     * @param indexer the Indexer used to index the entries
+     * @param capacity the maximum number of entries
+     * @param maxAge the maximum age of the entries, or null if entries do not expire
+     */
+    public OnHeapIndexingMessageStore(final Indexer indexer,
+                                      final int capacity,
+                                      final @Nullable Duration maxAge) {
+        this(indexer, capacity, maxAge, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates an OnHeapIndexingMessageStore with a maximum capacity and a maximum age of the entries.
+     *
+     * @param indexer the Indexer used to index the entries
+     * @param capacity the maximum number of entries
+     * @param maxAge the maximum age of the entries, or null if entries do not expire
+     * @param clock the clock used to determine the age of the entries
+     */
+    public OnHeapIndexingMessageStore(final Indexer indexer,
+                                      final int capacity,
+                                      final @Nullable Duration maxAge,
+                                      final Clock clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
         this.indexer = indexer;
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAge != null ? maxAge.toMillis() : Long.MAX_VALUE;
+        this.clock = clock;
     }
 
     @Override
-    public void add(final MessageStoreEntry entry) {
-        lock.writeLock().lock();
-        try {
-            final MessageStoreEntry indexedEntry = indexer.index(entry);
-            entries.add(indexedEntry);
-            indexedEntry.getFilterValues().forEach((key, value) -> {
-                final String indexKey = indexKeyOf(key, value);
-                if (!indexes.containsKey(indexKey)) {
-                    indexes.put(indexKey, new ConcurrentLinkedDeque<>());
-                }
-                indexes.get(indexKey).addLast(indexedEntry);
-            });
-            channelPositions.updateFrom(indexedEntry);
-        } finally {
-            lock.writeLock().unlock();
+    public void add(final @Nonnull MessageStoreEntry entry) {
+        final MessageStoreEntry indexedEntry = indexer.index(entry);
+        final long now = clock.millis();
+        final long seq = sequence.getAndIncrement();
+        final StoredEntry stored = new StoredEntry(seq, now, indexedEntry);
+        chunks.computeIfAbsent(seq >>> CHUNK_BITS, chunk -> new Chunk()).slots.set((int) (seq & CHUNK_MASK), stored);
+        size.incrementAndGet();
+        indexedEntry.getFilterValues().forEach((index, value) -> addPosting(index, value, seq));
+        if (lookup(seq) != stored) {
+            // evicted by a concurrent add before the postings were added:
+            removePostings(stored);
         }
+        channelPositions.updateFrom(indexedEntry);
+        evict(now);
     }
 
     @Override
     public Set<String> getChannelNames() {
-        lock.readLock().lock();
-        try {
-            return channelPositions.getChannelNames();
-        } finally {
-          lock.readLock().unlock();
-        }
+        return channelPositions.getChannelNames();
     }
 
     @Override
@@ -79,40 +153,176 @@ public class OnHeapIndexingMessageStore implements MessageStore {
 
     @Override
     public ChannelPosition getLatestChannelPosition(final String channelName) {
-        lock.readLock().lock();
-        try {
-            return channelPositions.getLatestChannelPosition(channelName);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return channelPositions.getLatestChannelPosition(channelName);
     }
 
     @Override
     public Stream<MessageStoreEntry> stream() {
-        lock.readLock().lock();
-        try {
-            return entries.stream();
-        } finally {
-            lock.readLock().unlock();
-        }
+        evict(clock.millis());
+        return LongStream.range(firstSequence.get(), sequence.get())
+                .mapToObj(this::lookup)
+                .filter(Objects::nonNull)
+                .map(stored -> stored.entry);
     }
 
     @Override
-    public Stream<MessageStoreEntry> stream(Index index, String value) {
-        String indexKey = indexKeyOf(index, value);
-        if (indexes.containsKey(indexKey)) {
-            return indexes.get(indexKey).stream();
-        } else {
+    public Stream<MessageStoreEntry> stream(final Index index, final String value) {
+        evict(clock.millis());
+        final Map<String, Postings> postingsOfIndex = indexes.get(index);
+        final Postings postings = postingsOfIndex != null ? postingsOfIndex.get(value) : null;
+        if (postings == null) {
             return Stream.empty();
         }
+        return Arrays.stream(postings.snapshot())
+                .mapToObj(this::lookup)
+                .filter(Objects::nonNull)
+                .map(stored -> stored.entry);
     }
 
     @Override
     public long size() {
-        return entries.size();
+        return size.get();
+    }
+
+    private void addPosting(final Index index, final String value, final long seq) {
+        final ConcurrentMap<String, Postings> postingsOfIndex = indexes.computeIfAbsent(index, i -> new ConcurrentHashMap<>());
+        while (!postingsOfIndex.computeIfAbsent(value, v -> new Postings()).add(seq)) {
+            // the postings have been removed concurrently, because all of their entries were evicted
+            Thread.yield();
+        }
+    }
+
+    private void evict(final long now) {
+        while (true) {
+            final int currentSize = size.get();
+            if (currentSize > capacity) {
+                if (size.compareAndSet(currentSize, currentSize - 1)) {
+                    evictEntry(firstSequence.getAndIncrement());
+                }
+            } else {
+                final long first = firstSequence.get();
+                final StoredEntry oldest = first < sequence.get() ? lookup(first) : null;
+                if (oldest == null || now - oldest.timestamp <= maxAgeMillis) {
+                    return;
+                }
+                if (firstSequence.compareAndSet(first, first + 1)) {
+                    size.decrementAndGet();
+                    evictEntry(first);
+                }
+            }
+        }
     }
 
-    private String indexKeyOf(Index index, String value) {
-        return index.getName() + "#" + value;
+    private void evictEntry(final long seq) {
+        final Chunk chunk = chunks.computeIfAbsent(seq >>> CHUNK_BITS, c -> new Chunk());
+        final int slot = (int) (seq & CHUNK_MASK);
+        StoredEntry evicted;
+        // the entry may still be added by a concurrent add:
+        while ((evicted = chunk.slots.getAndSet(slot, null)) == null) {
+            Thread.yield();
+        }
+        removePostings(evicted);
+        if (chunk.evicted.incrementAndGet() == CHUNK_SIZE) {
+            chunks.remove(seq >>> CHUNK_BITS);
+        }
+    }
+
+    private StoredEntry lookup(final long seq) {
+        final Chunk chunk = chunks.get(seq >>> CHUNK_BITS);
+        return chunk != null ? chunk.slots.get((int) (seq & CHUNK_MASK)) : null;
+    }
+
+    private void removePostings(final StoredEntry stored) {
+        stored.entry.getFilterValues().forEach((index, value) -> {
+            final ConcurrentMap<String, Postings> postingsOfIndex = indexes.get(index);
+            final Postings postings = postingsOfIndex != null ? postingsOfIndex.get(value) : null;
+            if (postings != null && postings.remove(stored.seq)) {
+                postingsOfIndex.remove(value, postings);
+            }
+        });
+    }
+
+    private static final class Chunk {
+        private final AtomicReferenceArray<StoredEntry> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+        private final AtomicInteger evicted = new AtomicInteger();
+    }
+
+    private static final class StoredEntry {
+        private final long seq;
+        private final long timestamp;
+        private final MessageStoreEntry entry;
+
+        private StoredEntry(final long seq, final long timestamp, final MessageStoreEntry entry) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * The sequence numbers of the entries of an index value, in ascending order.
+     */
+    private static final class Postings {
+        private long[] seqs = new long[4];
+        private int head = 0;
+        private int tail = 0;
+        private boolean removed = false;
+
+        /**
+         * Adds a sequence number.
+         *
+         * @param seq the sequence number of the entry
+         * @return false, if the postings have been removed from the index and the sequence number was not added
+         */
+        synchronized boolean add(final long seq) {
+            if (removed) {
+                return false;
+            }
+            if (tail == seqs.length) {
+                final int count = tail - head;
+                final long[] target = count * 2 > seqs.length ? new long[seqs.length * 2] : seqs;
+                System.arraycopy(seqs, head, target, 0, count);
+                seqs = target;
+                head = 0;
+                tail = count;
+            }
+            // Concurrently added entries may arrive out of order:
+            int pos = tail;
+            while (pos > head && seqs[pos - 1] > seq) {
+                --pos;
+            }
+            System.arraycopy(seqs, pos, seqs, pos + 1, tail - pos);
+            seqs[pos] = seq;
+            ++tail;
+            return true;
+        }
+
+        /**
+         * Removes a sequence number. Evicted entries are usually the oldest entries of the postings.
+         *
+         * @param seq the sequence number of the evicted entry
+         * @return true, if the postings are empty and have been marked as removed
+         */
+        synchronized boolean remove(final long seq) {
+            if (head < tail && seqs[head] == seq) {
+                ++head;
+            } else {
+                for (int pos = head; pos < tail; ++pos) {
+                    if (seqs[pos] == seq) {
+                        System.arraycopy(seqs, pos + 1, seqs, pos, tail - pos - 1);
+                        --tail;
+                        break;
+                    }
+                }
+            }
+            if (head == tail) {
+                removed = true;
+            }
+            return removed;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOfRange(seqs, head, tail);
+        }
     }
 }
@@ -0,0 +1,839 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.StartFrom;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static de.otto.synapse.messagestore.Indexers.noOpIndexer;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Thread-safe implementation of an indexing MessageStore that is appending messages to a segmented, memory-mapped
+ * log on the local file system.
+ *
+ * <p><em>Features:</em></p>
+ * <ul>
+ *     <li>Thread-Safe: messages are appended by a single writer at a time, reads are lock-free.</li>
+ *     <li>Messages are stored outside of the heap. The heap only contains a compact index of the log offsets of the
+ *     messages per index value, like for example per {@link Index#JOURNAL_KEY journal key}.</li>
+ *     <li>Segments are removed if they are older than the configured retention time, or if the size of all
+ *     segments exceeds the configured retention size. The retention policy is applied when messages are added and
+ *     when the store is recovered. Messages of segments exceeding the retention time are no longer returned by
+ *     readers, even if no messages are added to the store.</li>
+ *     <li>Messages are read directly from the memory-mapped segments. Payloads are kept as UTF-8 encoded bytes until
+ *     they are accessed.</li>
+ *     <li>Existing segments in the directory of the store are recovered when the store is created.</li>
+ *     <li>No support for compaction.</li>
+ * </ul>
+ * <p>
+ *     Every entry is stored as a length-prefixed record, protected by a CRC32 checksum. Incomplete or corrupt
+ *     records at the end of a segment are ignored when the segments are recovered. Records are written to the page
+ *     cache of the operating system and are not explicitly flushed to disk before the store is closed.
+ * </p>
+ * <p>
+ *     This store is primarily intended to be used as the MessageStore of long-lived {@code Journals}, that would
+ *     otherwise exhaust the heap.
+ * </p>
+ */
+@ThreadSafe
+public class SegmentedLogMessageStore implements MessageStore {
+
+    private static final Logger LOG = getLogger(SegmentedLogMessageStore.class);
+
+    /** Suffix of the segment files in the directory of the store. */
+    public static final String SEGMENT_FILE_EXTENSION = ".segment";
+    /** Default size of a segment: 64 MB. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration retentionTime;
+    private final long retentionSize;
+    private final Indexer indexer;
+    private final Clock clock;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Index, ConcurrentMap<String, Offsets>> indexes = new ConcurrentHashMap<>();
+    private final ChannelPositions channelPositions = new ChannelPositions();
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private long segmentBytes = 0;
+    private volatile boolean closed = false;
+
+    private SegmentedLogMessageStore(final Builder builder) {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.retentionTime = builder.retentionTime;
+        this.retentionSize = builder.retentionSize;
+        this.indexer = builder.indexer;
+        this.clock = builder.clock;
+        try {
+            Files.createDirectories(directory);
+            recoverSegments();
+            applyRetention();
+        } catch (final IOException e) {
+            closeSegments();
+            throw new UncheckedIOException("Failed to open SegmentedLogMessageStore in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a Builder of a SegmentedLogMessageStore.
+     *
+     * @param directory the directory containing the segments of the store
+     * @return Builder
+     */
+    public static Builder builder(final @Nonnull Path directory) {
+        return new Builder(directory);
+    }
+
+    @Override
+    public void add(final @Nonnull MessageStoreEntry entry) {
+        final MessageStoreEntry indexedEntry = indexer.index(entry);
+        writeLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("SegmentedLogMessageStore is already closed");
+            }
+            final int recordSize = encode(indexedEntry);
+            final Segment segment = segmentFor(recordSize);
+            final int position = segment.append(recordBuffer.buffer(), recordSize, crc, clock.millis());
+            final long address = addressOf(segment.id, position);
+            indexedEntry.getFilterValues().forEach((index, value) -> addToIndex(index, value, address));
+            channelPositions.updateFrom(indexedEntry);
+            applyRetention();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to append message to SegmentedLogMessageStore in " + directory + ": " + e.getMessage(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the entries while holding the lock of the writer only once, so the entries are written atomically
+     * with respect to other writers.
+     *
+     * @param entries the entries that are appended to the MessageStore
+     */
+    @Override
+    public void addAll(final @Nonnull List<MessageStoreEntry> entries) {
+        writeLock.lock();
+        try {
+            for (final MessageStoreEntry entry : entries) {
+                add(entry);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getChannelNames() {
+        return channelPositions.getChannelNames();
+    }
+
+    @Override
+    public ImmutableSet<Index> getIndexes() {
+        return indexer.getIndexes();
+    }
+
+    @Override
+    public ChannelPosition getLatestChannelPosition(final String channelName) {
+        return channelPositions.getLatestChannelPosition(channelName);
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream() {
+        final long now = expireSegments();
+        final List<Segment> currentSegments = segments.values().stream()
+                .filter(segment -> !isExpired(segment, now))
+                .collect(toList());
+        return currentSegments.stream().flatMap(segment -> Streams.stream(segment.iterator()));
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream(final Index index, final String value) {
+        final long now = expireSegments();
+        final Map<String, Offsets> offsetsOfIndex = indexes.get(index);
+        final Offsets offsets = offsetsOfIndex != null ? offsetsOfIndex.get(value) : null;
+        if (offsets == null) {
+            return Stream.empty();
+        }
+        return Arrays.stream(offsets.addresses, 0, offsets.size)
+                .mapToObj(address -> read(address, now))
+                .filter(entry -> entry != null);
+    }
+
+    @Override
+    public long size() {
+        final long now = expireSegments();
+        long size = 0;
+        for (final Segment segment : segments.values()) {
+            if (!isExpired(segment, now)) {
+                size += segment.messageCount;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of segments currently stored in the directory of the store.
+     *
+     * @return number of segments
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flushes the segments to disk and closes the store.
+     */
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                closeSegments();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void recoverSegments() throws IOException {
+        final List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_FILE_EXTENSION))
+                    .sorted()
+                    .collect(toList());
+        }
+        for (final Path segmentFile : segmentFiles) {
+            final Segment segment = Segment.open(segmentFile, segmentIdOf(segmentFile));
+            segments.put(segment.id, segment);
+            segmentBytes += segment.capacity;
+            final Iterator<Record> records = segment.records();
+            while (records.hasNext()) {
+                final Record record = records.next();
+                final long address = addressOf(segment.id, record.position);
+                record.entry.getFilterValues().forEach((index, value) -> addToIndex(index, value, address));
+                channelPositions.updateFrom(record.entry);
+            }
+        }
+        if (!segmentFiles.isEmpty()) {
+            LOG.info("Recovered {} messages from {} segments in {}", size(), segments.size(), directory);
+        }
+    }
+
+    private Segment segmentFor(final int recordSize) throws IOException {
+        final Map.Entry<Integer, Segment> last = segments.lastEntry();
+        if (last != null && last.getValue().remaining() >= RECORD_HEADER_SIZE + recordSize) {
+            return last.getValue();
+        }
+        if (last != null) {
+            last.getValue().force();
+        }
+        final int id = last != null ? last.getKey() + 1 : 0;
+        final Segment segment = Segment.create(
+                directory.resolve(segmentFileNameOf(id)),
+                id,
+                Math.max(segmentSize, RECORD_HEADER_SIZE + recordSize),
+                clock.millis());
+        segments.put(id, segment);
+        segmentBytes += segment.capacity;
+        return segment;
+    }
+
+    /**
+     * Applies the retention time before segments are read: if the oldest segment is expired, and no other thread is
+     * currently appending messages, the retention policy is applied.
+     * <p>
+     *     Expired segments that are not removed, like the segment that is currently appended, must be skipped by the
+     *     caller.
+     * </p>
+     *
+     * @return the current time in millis, used to identify expired segments
+     */
+    private long expireSegments() {
+        final long now = clock.millis();
+        if (retentionTime != null) {
+            final Map.Entry<Integer, Segment> oldest = segments.firstEntry();
+            if (oldest != null && isExpired(oldest.getValue(), now) && writeLock.tryLock()) {
+                try {
+                    if (!closed) {
+                        applyRetention();
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        }
+        return now;
+    }
+
+    private boolean isExpired(final Segment segment, final long now) {
+        return retentionTime != null
+                && segment.lastAppendedAt < now - retentionTime.toMillis();
+    }
+
+    /**
+     * Removes the oldest segments, until the remaining segments are matching the retention policy. The segment that
+     * is currently appended is never removed.
+     */
+    private void applyRetention() {
+        boolean removedSegments = false;
+        while (segments.size() > 1) {
+            final Segment oldest = segments.firstEntry().getValue();
+            final boolean expired = isExpired(oldest, clock.millis());
+            final boolean exceedsSize = retentionSize > 0
+                    && segmentBytes > retentionSize;
+            if (!expired && !exceedsSize) {
+                break;
+            }
+            segments.remove(oldest.id);
+            segmentBytes -= oldest.capacity;
+            oldest.delete();
+            removedSegments = true;
+        }
+        if (removedSegments) {
+            pruneIndexes(segments.firstKey());
+        }
+    }
+
+    /**
+     * Removes all offsets of removed segments from the indexes.
+     */
+    private void pruneIndexes(final int firstSegmentId) {
+        final long firstAddress = addressOf(firstSegmentId, 0);
+        indexes.values().forEach(offsetsOfIndex -> {
+            offsetsOfIndex.replaceAll((value, offsets) -> offsets.removeBefore(firstAddress));
+            offsetsOfIndex.values().removeIf(offsets -> offsets.size == 0);
+        });
+    }
+
+    private void addToIndex(final Index index, final String value, final long address) {
+        ConcurrentMap<String, Offsets> offsetsOfIndex = indexes.get(index);
+        if (offsetsOfIndex == null) {
+            offsetsOfIndex = new ConcurrentHashMap<>();
+            indexes.put(index, offsetsOfIndex);
+        }
+        final Offsets offsets = offsetsOfIndex.get(value);
+        offsetsOfIndex.put(value, offsets != null ? offsets.append(address) : Offsets.of(address));
+    }
+
+    private MessageStoreEntry read(final long address, final long now) {
+        final Segment segment = segments.get(segmentIdOf(address));
+        return segment != null && !isExpired(segment, now)
+                ? segment.read(positionOf(address)).entry
+                : null;
+    }
+
+    private void closeSegments() {
+        for (final Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private int encode(final MessageStoreEntry entry) throws IOException {
+        recordBuffer.reset();
+        writeString(entry.getChannelName());
+        final ImmutableMap<Index, String> filterValues = entry.getFilterValues();
+        recordOut.writeInt(filterValues.size());
+        for (final Map.Entry<Index, String> filterValue : filterValues.entrySet()) {
+            writeString(filterValue.getKey().getName());
+            writeString(filterValue.getValue());
+        }
+        final TextMessage message = entry.getTextMessage();
+        writeString(message.getKey().partitionKey());
+        writeString(message.getKey().compactionKey());
+        final ShardPosition shardPosition = message.getHeader().getShardPosition().orElse(null);
+        if (shardPosition == null) {
+            recordOut.writeBoolean(false);
+        } else {
+            recordOut.writeBoolean(true);
+            writeString(shardPosition.shardName());
+            recordOut.writeByte(shardPosition.startFrom().ordinal());
+            writeString(shardPosition.position());
+            final Instant timestamp = shardPosition.timestamp();
+            recordOut.writeBoolean(timestamp != null);
+            if (timestamp != null) {
+                recordOut.writeLong(timestamp.getEpochSecond());
+                recordOut.writeInt(timestamp.getNano());
+            }
+        }
+        final Map<String, String> attributes = message.getHeader().getAll();
+        recordOut.writeInt(attributes.size());
+        for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+            writeString(attribute.getKey());
+            writeString(attribute.getValue());
+        }
+        writeString(message.getPayload());
+        return recordBuffer.size();
+    }
+
+    private void writeString(final String value) throws IOException {
+        if (value == null) {
+            recordOut.writeInt(NULL_LENGTH);
+        } else {
+            final byte[] bytes = value.getBytes(UTF_8);
+            recordOut.writeInt(bytes.length);
+            recordOut.write(bytes);
+        }
+    }
+
+    private static MessageStoreEntry decode(final ByteBuffer record) {
+        final String channelName = readString(record);
+        final int filterValueCount = record.getInt();
+        final ImmutableMap<Index, String> filterValues;
+        if (filterValueCount == 0) {
+            filterValues = ImmutableMap.of();
+        } else {
+            final ImmutableMap.Builder<Index, String> builder = ImmutableMap.builder();
+            for (int i = 0; i < filterValueCount; ++i) {
+                builder.put(Index.valueOf(readString(record)), readString(record));
+            }
+            filterValues = builder.build();
+        }
+        final String partitionKey = readString(record);
+        final String compactionKey = readString(record);
+        final ShardPosition shardPosition = record.get() != 0
+                ? readShardPosition(record)
+                : null;
+        final int attributeCount = record.getInt();
+        final ImmutableMap.Builder<String, String> attributes = ImmutableMap.builderWithExpectedSize(attributeCount);
+        for (int i = 0; i < attributeCount; ++i) {
+            attributes.put(readString(record), readString(record));
+        }
+        final Header header = shardPosition != null
+                ? Header.of(shardPosition, attributes.build())
+                : Header.of(attributes.build());
+        final Key key = Key.of(partitionKey, compactionKey);
+        final int payloadLength = record.getInt();
+        final TextMessage message;
+        if (payloadLength == NULL_LENGTH) {
+            message = TextMessage.of(key, header, null);
+        } else if (payloadLength == 0) {
+            message = TextMessage.of(key, header, "");
+        } else {
+            final byte[] payload = new byte[payloadLength];
+            record.get(payload);
+            message = TextMessage.of(key, header, payload, 0, payloadLength);
+        }
+        return MessageStoreEntry.of(channelName, filterValues, message);
+    }
+
+    private static ShardPosition readShardPosition(final ByteBuffer record) {
+        final String shardName = readString(record);
+        final StartFrom startFrom = StartFrom.values()[record.get()];
+        final String position = readString(record);
+        final Instant timestamp = record.get() != 0
+                ? Instant.ofEpochSecond(record.getLong(), record.getInt())
+                : null;
+        switch (startFrom) {
+            case HORIZON:
+                return ShardPosition.fromHorizon(shardName);
+            case AT_POSITION:
+                return ShardPosition.atPosition(shardName, position);
+            case TIMESTAMP:
+                return ShardPosition.fromTimestamp(shardName, timestamp);
+            default:
+                return timestamp != null
+                        ? ShardPosition.fromPositionAndTimestamp(shardName, position, timestamp)
+                        : ShardPosition.fromPosition(shardName, position);
+        }
+    }
+
+    private static String readString(final ByteBuffer record) {
+        final int length = record.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static long addressOf(final int segmentId, final int position) {
+        return ((long) segmentId << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static int segmentIdOf(final long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int positionOf(final long address) {
+        return (int) address;
+    }
+
+    private static String segmentFileNameOf(final int segmentId) {
+        return String.format("%010d%s", segmentId, SEGMENT_FILE_EXTENSION);
+    }
+
+    private static int segmentIdOf(final Path segmentFile) {
+        final String fileName = segmentFile.getFileName().toString();
+        return Integer.parseInt(fileName.substring(0, fileName.length() - SEGMENT_FILE_EXTENSION.length()));
+    }
+
+    /**
+     * Immutable snapshot of the log addresses of the entries having the same index value, ordered by address.
+     * Appending an address is sharing the array with previous snapshots, as long as the array has enough capacity:
+     * snapshots are only reading the first {@code size} addresses of the array.
+     */
+    private static final class Offsets {
+        private final long[] addresses;
+        private final int size;
+
+        private Offsets(final long[] addresses, final int size) {
+            this.addresses = addresses;
+            this.size = size;
+        }
+
+        static Offsets of(final long address) {
+            final long[] addresses = new long[4];
+            addresses[0] = address;
+            return new Offsets(addresses, 1);
+        }
+
+        Offsets append(final long address) {
+            final long[] target = size < addresses.length
+                    ? addresses
+                    : Arrays.copyOf(addresses, addresses.length * 2);
+            target[size] = address;
+            return new Offsets(target, size + 1);
+        }
+
+        Offsets removeBefore(final long firstAddress) {
+            int first = Arrays.binarySearch(addresses, 0, size, firstAddress);
+            if (first < 0) {
+                first = -first - 1;
+            }
+            return first == 0
+                    ? this
+                    : new Offsets(Arrays.copyOfRange(addresses, first, size + 4), size - first);
+        }
+    }
+
+    private static final class Record {
+        private final int position;
+        private final MessageStoreEntry entry;
+
+        private Record(final int position, final MessageStoreEntry entry) {
+            this.position = position;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * A memory-mapped segment file containing a sequence of records: {@code [int length][int crc32][record]}.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private volatile int writePosition;
+        private volatile int messageCount;
+        private volatile long lastAppendedAt;
+
+        private Segment(final int id,
+                        final Path file,
+                        final FileChannel channel,
+                        final MappedByteBuffer buffer,
+                        final long lastAppendedAt) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+            this.lastAppendedAt = lastAppendedAt;
+        }
+
+        static Segment create(final Path file, final int id, final int capacity, final long now) throws IOException {
+            LOG.info("Creating segment {} with {} bytes", file, capacity);
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+                randomAccessFile.setLength(capacity);
+            }
+            return map(file, id, now);
+        }
+
+        static Segment open(final Path file, final int id) throws IOException {
+            final Segment segment = map(file, id, Files.getLastModifiedTime(file).toMillis());
+            final Iterator<Record> records = segment.scan(true);
+            while (records.hasNext()) {
+                records.next();
+            }
+            return segment;
+        }
+
+        private static Segment map(final Path file, final int id, final long lastAppendedAt) throws IOException {
+            final FileChannel channel = FileChannel.open(file, READ, WRITE);
+            try {
+                return new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), lastAppendedAt);
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        int remaining() {
+            return capacity - writePosition;
+        }
+
+        /**
+         * Appends a record. Only called by the single writer of the store.
+         */
+        int append(final byte[] record, final int length, final CRC32 crc, final long now) {
+            final int position = writePosition;
+            crc.reset();
+            crc.update(record, 0, length);
+            final ByteBuffer target = buffer.duplicate();
+            target.position(position + 4);
+            target.putInt((int) crc.getValue());
+            target.put(record, 0, length);
+            // the length is written last, so incomplete records are never recovered:
+            buffer.putInt(position, length);
+            lastAppendedAt = now;
+            messageCount = messageCount + 1;
+            writePosition = position + RECORD_HEADER_SIZE + length;
+            return position;
+        }
+
+        Record read(final int position) {
+            final ByteBuffer record = buffer.duplicate();
+            final int length = record.getInt(position);
+            record.position(position + RECORD_HEADER_SIZE);
+            record.limit(position + RECORD_HEADER_SIZE + length);
+            return new Record(position, decode(record));
+        }
+
+        Iterator<Record> records() {
+            return scan(false);
+        }
+
+        Iterator<MessageStoreEntry> iterator() {
+            final Iterator<Record> records = records();
+            return new Iterator<MessageStoreEntry>() {
+                @Override
+                public boolean hasNext() {
+                    return records.hasNext();
+                }
+
+                @Override
+                public MessageStoreEntry next() {
+                    return records.next().entry;
+                }
+            };
+        }
+
+        /**
+         * Iterates over the records of the segment. If {@code recover} is true, the records are validated and the
+         * write position and message count of the segment are restored.
+         */
+        private Iterator<Record> scan(final boolean recover) {
+            final int end = recover ? capacity : writePosition;
+            return new Iterator<Record>() {
+                private int position = 0;
+                private Record next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null && position + RECORD_HEADER_SIZE <= end) {
+                        final int length = buffer.getInt(position);
+                        if (length > 0 && (!recover || isValid(position, length))) {
+                            next = read(position);
+                            position += RECORD_HEADER_SIZE + length;
+                            if (recover) {
+                                writePosition = position;
+                                messageCount = messageCount + 1;
+                            }
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Record next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final Record record = next;
+                    next = null;
+                    return record;
+                }
+            };
+        }
+
+        private boolean isValid(final int position, final int length) {
+            if (length > capacity - position - RECORD_HEADER_SIZE) {
+                LOG.warn("Ignoring truncated record at position {} of segment {}", position, file);
+                return false;
+            }
+            final byte[] record = new byte[length];
+            final ByteBuffer source = buffer.duplicate();
+            source.position(position + RECORD_HEADER_SIZE);
+            source.get(record);
+            final CRC32 crc = new CRC32();
+            crc.update(record, 0, length);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                LOG.warn("Ignoring corrupt record at position {} of segment {}", position, file);
+                return false;
+            }
+            return true;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void delete() {
+            LOG.info("Removing segment {} containing {} messages", file, messageCount);
+            close();
+            try {
+                Files.deleteIfExists(file);
+            } catch (final IOException e) {
+                LOG.warn("Failed to delete segment {}: {}", file, e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (final IOException | RuntimeException e) {
+                LOG.warn("Failed to close segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reusable buffer used to encode records, exposing the internal array to avoid copying the encoded records.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(4096);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    public static final class Builder {
+        private final Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private Duration retentionTime;
+        private long retentionSize = 0;
+        private Indexer indexer = noOpIndexer();
+        private Clock clock = Clock.systemDefaultZone();
+
+        private Builder(final Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Configures the size of the segments. Messages that are larger than the segment size are stored in a
+         * segment of their own.
+         *
+         * @param segmentSize the size of a segment in bytes
+         * @return this
+         */
+        public Builder withSegmentSize(final int segmentSize) {
+            if (segmentSize <= RECORD_HEADER_SIZE) {
+                throw new IllegalArgumentException("segmentSize must be greater than " + RECORD_HEADER_SIZE);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Configures the time after that a segment is removed, measured from the last message appended to the
+         * segment. The messages of expired segments are not returned by readers, even if the segment is not yet
+         * removed. By default, segments are not removed because of their age.
+         *
+         * @param retentionTime the retention time
+         * @return this
+         */
+        public Builder withRetentionTime(final @Nonnull Duration retentionTime) {
+            this.retentionTime = retentionTime;
+            return this;
+        }
+
+        /**
+         * Configures the maximum size of all segments. If the size is exceeded, the oldest segments are removed.
+         * By default, segments are not removed because of their size.
+         *
+         * @param retentionSize the maximum number of bytes of all segments
+         * @return this
+         */
+        public Builder withRetentionSize(final long retentionSize) {
+            this.retentionSize = retentionSize;
+            return this;
+        }
+
+        public Builder withIndexer(final @Nonnull Indexer indexer) {
+            this.indexer = indexer;
+            return this;
+        }
+
+        public Builder withClock(final @Nonnull Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public SegmentedLogMessageStore build() {
+            return new SegmentedLogMessageStore(this);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package de.otto.synapse.metrics;
+
+import de.otto.synapse.configuration.SynapseProperties;
+import de.otto.synapse.endpoint.EndpointType;
+import de.otto.synapse.eventsource.EventSourceScheduler;
+import de.otto.synapse.journal.AsyncJournalWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static java.util.Collections.emptySet;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * {@link PipelineMetrics} publishing the metrics of the message pipeline using a Micrometer {@link MeterRegistry}.
+ *
+ * <p>The following meters are registered:</p>
+ * <ul>
+ *     <li>{@code synapse.messages.received}: counter of received messages per channel and shard</li>
+ *     <li>{@code synapse.messages.sent}: counter of successfully sent messages per channel</li>
+ *     <li>{@code synapse.send.retries}: counter of retries to send messages per channel</li>
+ *     <li>{@code synapse.poll.batch.size}: distribution of the number of messages per polled batch, per channel and shard</li>
+ *     <li>{@code synapse.poll.latency}: timer of the requests used to poll batches, per channel and shard</li>
+ *     <li>{@code synapse.interceptor.latency}: timer per channel, endpoint type and interceptor</li>
+ *     <li>{@code synapse.consumer.latency}: timer per channel and consumer</li>
+ *     <li>{@code synapse.decode.latency} and {@code synapse.encode.latency}: timers of the payload codecs per channel</li>
+ *     <li>{@code synapse.state.repository.latency}: timer per state repository and operation</li>
+ *     <li>{@code synapse.journal.flush.latency}: timer of the flushes of asynchronously written journals, per journal</li>
+ *     <li>{@code synapse.journal.queue.depth}: gauge of the entries queued by an asynchronously written journal, per
+ *     journal. Only registered for journal writers {@link #bindJournalWriter(AsyncJournalWriter) bound} to the
+ *     metrics.</li>
+ *     <li>{@code synapse.eventsource.scheduler.pending.tasks}: gauge of the tasks of a channel submitted to the
+ *     {@link EventSourceScheduler}, that are not yet completed</li>
+ *     <li>{@code synapse.eventsource.scheduler.waiting.time} and {@code synapse.eventsource.scheduler.running.time}:
+ *     function timers of the time the completed tasks of a channel were queued and running in the
+ *     {@code EventSourceScheduler}. Only registered for schedulers {@link #bindEventSourceScheduler(EventSourceScheduler)
+ *     bound} to the metrics.</li>
+ * </ul>
+ * <p>
+ *     The number of distinct values per tag is limited using {@link SynapseProperties.Metrics#getMaxTagValues()},
+ *     the tagged channels may be restricted using {@link SynapseProperties.Metrics#getChannels()}, and shard tags may
+ *     be disabled using {@link SynapseProperties.Metrics#isShardTagsEnabled()}. Meters are registered once per
+ *     combination of tag values and cached afterwards, so the registry is not queried for every message.
+ * </p>
+ * <p>
+ *     Because the limits of the tag values multiply, the total number of registered meters is additionally limited
+ *     using {@link SynapseProperties.Metrics#getMaxMeters()}. If the limit is reached, measurements requiring
+ *     additional meters are dropped.
+ * </p>
+ */
+@ThreadSafe
+public class MicrometerPipelineMetrics implements PipelineMetrics {
+
+    private static final Logger LOG = getLogger(MicrometerPipelineMetrics.class);
+
+    static final String MESSAGES_RECEIVED = "synapse.messages.received";
+    static final String MESSAGES_SENT = "synapse.messages.sent";
+    static final String SEND_RETRIES = "synapse.send.retries";
+    static final String POLL_BATCH_SIZE = "synapse.poll.batch.size";
+    static final String POLL_LATENCY = "synapse.poll.latency";
+    static final String INTERCEPTOR_LATENCY = "synapse.interceptor.latency";
+    static final String CONSUMER_LATENCY = "synapse.consumer.latency";
+    static final String DECODE_LATENCY = "synapse.decode.latency";
+    static final String ENCODE_LATENCY = "synapse.encode.latency";
+    static final String STATE_REPOSITORY_LATENCY = "synapse.state.repository.latency";
+    static final String JOURNAL_FLUSH_LATENCY = "synapse.journal.flush.latency";
+    static final String JOURNAL_QUEUE_DEPTH = "synapse.journal.queue.depth";
+    static final String SCHEDULER_PENDING_TASKS = "synapse.eventsource.scheduler.pending.tasks";
+    static final String SCHEDULER_WAITING_TIME = "synapse.eventsource.scheduler.waiting.time";
+    static final String SCHEDULER_RUNNING_TIME = "synapse.eventsource.scheduler.running.time";
+
+    static final String ALL_SHARDS = "all";
+    static final String NO_SHARD = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean shardTagsEnabled;
+    private final boolean percentileHistograms;
+    private final int maxMeters;
+    private final TagValueLimiter channels;
+    private final TagValueLimiter shards;
+    private final TagValueLimiter interceptors;
+    private final TagValueLimiter consumers;
+    private final TagValueLimiter repositories;
+    private final TagValueLimiter journals;
+    private final ConcurrentMap<MeterKey, Meter> meters = new ConcurrentHashMap<>();
+    private final AtomicBoolean maxMetersReached = new AtomicBoolean(false);
+
+    public MicrometerPipelineMetrics(final @Nonnull MeterRegistry meterRegistry,
+                                     final @Nonnull SynapseProperties.Metrics properties) {
+        this.meterRegistry = meterRegistry;
+        this.shardTagsEnabled = properties.isShardTagsEnabled();
+        this.percentileHistograms = properties.isPercentileHistograms();
+        this.maxMeters = properties.getMaxMeters();
+        this.channels = new TagValueLimiter(properties.getChannels(), properties.getMaxTagValues());
+        this.shards = new TagValueLimiter(emptySet(), properties.getMaxTagValues());
+        this.interceptors = new TagValueLimiter(emptySet(), properties.getMaxTagValues());
+        this.consumers = new TagValueLimiter(emptySet(), properties.getMaxTagValues());
+        this.repositories = new TagValueLimiter(emptySet(), properties.getMaxTagValues());
+        this.journals = new TagValueLimiter(emptySet(), properties.getMaxTagValues());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordPoll(final @Nonnull String channelName,
+                           final @Nullable String shardName,
+                           final int batchSize,
+                           final long durationNanos) {
+        final String channel = channels.limit(channelName);
+        final String shard = shardTag(shardName);
+        final DistributionSummary batchSizes = meter(new MeterKey(POLL_BATCH_SIZE, channel, shard), key -> DistributionSummary
+                .builder(POLL_BATCH_SIZE)
+                .description("Number of messages per batch polled from the channel")
+                .baseUnit("messages")
+                .tag("channel", channel)
+                .tag("shard", shard)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(meterRegistry));
+        if (batchSizes != null) {
+            batchSizes.record(batchSize);
+        }
+        record(timer(new MeterKey(POLL_LATENCY, channel, shard), key -> Timer
+                .builder(POLL_LATENCY)
+                .description("Time spent to poll a batch of messages from the channel")
+                .tag("channel", channel)
+                .tag("shard", shard)), durationNanos);
+    }
+
+    @Override
+    public void recordReceived(final @Nonnull String channelName,
+                               final @Nullable String shardName,
+                               final int count) {
+        final String channel = channels.limit(channelName);
+        final String shard = shardTag(shardName);
+        final Counter received = meter(new MeterKey(MESSAGES_RECEIVED, channel, shard), key -> Counter
+                .builder(MESSAGES_RECEIVED)
+                .description("Number of messages received from the channel")
+                .baseUnit("messages")
+                .tag("channel", channel)
+                .tag("shard", shard)
+                .register(meterRegistry));
+        if (received != null) {
+            received.increment(count);
+        }
+    }
+
+    @Override
+    public void recordSent(final @Nonnull String channelName,
+                           final int count) {
+        final String channel = channels.limit(channelName);
+        final Counter sent = meter(new MeterKey(MESSAGES_SENT, channel), key -> Counter
+                .builder(MESSAGES_SENT)
+                .description("Number of messages successfully sent to the channel")
+                .baseUnit("messages")
+                .tag("channel", channel)
+                .register(meterRegistry));
+        if (sent != null) {
+            sent.increment(count);
+        }
+    }
+
+    @Override
+    public void recordSendRetry(final @Nonnull String channelName) {
+        final String channel = channels.limit(channelName);
+        final Counter retries = meter(new MeterKey(SEND_RETRIES, channel), key -> Counter
+                .builder(SEND_RETRIES)
+                .description("Number of retries to send messages to the channel")
+                .tag("channel", channel)
+                .register(meterRegistry));
+        if (retries != null) {
+            retries.increment();
+        }
+    }
+
+    @Override
+    public void recordInterceptor(final @Nonnull String channelName,
+                                  final @Nonnull EndpointType endpointType,
+                                  final @Nonnull String interceptorName,
+                                  final long durationNanos) {
+        final String channel = channels.limit(channelName);
+        final String endpoint = endpointType.name().toLowerCase();
+        final String interceptor = interceptors.limit(interceptorName);
+        record(timer(new MeterKey(INTERCEPTOR_LATENCY, channel, endpoint, interceptor), key -> Timer
+                .builder(INTERCEPTOR_LATENCY)
+                .description("Time spent by a message interceptor to intercept a message")
+                .tag("channel", channel)
+                .tag("endpoint", endpoint)
+                .tag("interceptor", interceptor)), durationNanos);
+    }
+
+    @Override
+    public void recordConsumer(final @Nonnull String channelName,
+                               final @Nonnull String consumerName,
+                               final long durationNanos) {
+        final String channel = channels.limit(channelName);
+        final String consumer = consumers.limit(consumerName);
+        record(timer(new MeterKey(CONSUMER_LATENCY, channel, consumer), key -> Timer
+                .builder(CONSUMER_LATENCY)
+                .description("Time spent by a message consumer to consume a message")
+                .tag("channel", channel)
+                .tag("consumer", consumer)), durationNanos);
+    }
+
+    @Override
+    public void recordDecode(final @Nonnull String channelName,
+                             final long durationNanos) {
+        final String channel = channels.limit(channelName);
+        record(timer(new MeterKey(DECODE_LATENCY, channel), key -> Timer
+                .builder(DECODE_LATENCY)
+                .description("Time spent to decode the payload of a received message")
+                .tag("channel", channel)), durationNanos);
+    }
+
+    @Override
+    public void recordEncode(final @Nonnull String channelName,
+                             final long durationNanos) {
+        final String channel = channels.limit(channelName);
+        record(timer(new MeterKey(ENCODE_LATENCY, channel), key -> Timer
+                .builder(ENCODE_LATENCY)
+                .description("Time spent to encode the payload of a message that is sent")
+                .tag("channel", channel)), durationNanos);
+    }
+
+    @Override
+    public void recordStateRepository(final @Nonnull String repositoryName,
+                                      final @Nonnull String operation,
+                                      final long durationNanos) {
+        final String repository = repositories.limit(repositoryName);
+        record(timer(new MeterKey(STATE_REPOSITORY_LATENCY, repository, operation), key -> Timer
+                .builder(STATE_REPOSITORY_LATENCY)
+                .description("Time spent in an operation of a state repository")
+                .tag("state_repository", repository)
+                .tag("operation", operation)), durationNanos);
+    }
+
+    @Override
+    public void recordJournalFlush(final @Nonnull String journalName,
+                                   final long durationNanos) {
+        final String journal = journals.limit(journalName);
+        record(timer(new MeterKey(JOURNAL_FLUSH_LATENCY, journal), key -> Timer
+                .builder(JOURNAL_FLUSH_LATENCY)
+                .description("Time spent to write a batch of entries to the message store of a journal")
+                .tag("journal", journal)), durationNanos);
+    }
+
+    /**
+     * Registers a gauge of the entries queued by the given AsyncJournalWriter.
+     *
+     * @param journalWriter the AsyncJournalWriter of a journal
+     */
+    public void bindJournalWriter(final @Nonnull AsyncJournalWriter journalWriter) {
+        final String journal = journals.limit(journalWriter.getName());
+        meter(new MeterKey(JOURNAL_QUEUE_DEPTH, journal), key -> Gauge
+                .builder(JOURNAL_QUEUE_DEPTH, journalWriter, writer -> writer.getStatistics().getQueueDepth())
+                .description("Number of entries queued by the writer of a journal")
+                .baseUnit("entries")
+                .tag("journal", journal)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Registers the meters of the scheduling statistics of all channels of the given EventSourceScheduler, including
+     * channels that are added to the scheduler later.
+     *
+     * @param scheduler the EventSourceScheduler
+     */
+    public void bindEventSourceScheduler(final @Nonnull EventSourceScheduler scheduler) {
+        scheduler.addChannelListener(channelName -> {
+            final String channel = channels.limit(channelName);
+            meter(new MeterKey(SCHEDULER_PENDING_TASKS, channel), key -> Gauge
+                    .builder(SCHEDULER_PENDING_TASKS, scheduler, eventSourceScheduler -> eventSourceScheduler.getStatistics(channelName).getPendingTasks())
+                    .description("Number of tasks of the channel submitted to the scheduler, that are not yet completed")
+                    .baseUnit("tasks")
+                    .tag("channel", channel)
+                    .register(meterRegistry));
+            meter(new MeterKey(SCHEDULER_WAITING_TIME, channel), key -> FunctionTimer
+                    .builder(SCHEDULER_WAITING_TIME, scheduler,
+                            eventSourceScheduler -> eventSourceScheduler.getStatistics(channelName).getCompletedTasks(),
+                            eventSourceScheduler -> eventSourceScheduler.getStatistics(channelName).getWaitingTime().toNanos(),
+                            NANOSECONDS)
+                    .description("Time the tasks of the channel were queued in the scheduler")
+                    .tag("channel", channel)
+                    .register(meterRegistry));
+            meter(new MeterKey(SCHEDULER_RUNNING_TIME, channel), key -> FunctionTimer
+                    .builder(SCHEDULER_RUNNING_TIME, scheduler,
+                            eventSourceScheduler -> eventSourceScheduler.getStatistics(channelName).getCompletedTasks(),
+                            eventSourceScheduler -> eventSourceScheduler.getStatistics(channelName).getRunningTime().toNanos(),
+                            NANOSECONDS)
+                    .description("Time the threads of the scheduler were running tasks of the channel")
+                    .tag("channel", channel)
+                    .register(meterRegistry));
+        });
+    }
+
+    private String shardTag(final @Nullable String shardName) {
+        if (shardName == null) {
+            return NO_SHARD;
+        }
+        return shardTagsEnabled ? shards.limit(shardName) : ALL_SHARDS;
+    }
+
+    private static void record(final @Nullable Timer timer,
+                               final long durationNanos) {
+        if (timer != null) {
+            timer.record(durationNanos, NANOSECONDS);
+        }
+    }
+
+    @Nullable
+    private Timer timer(final MeterKey meterKey,
+                        final Function<MeterKey, Timer.Builder> timerBuilder) {
+        return meter(meterKey, key -> timerBuilder
+                .apply(key)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Returns the cached meter identified by the given key, or registers a new meter if the maximum number of
+     * meters is not yet reached.
+     *
+     * @param meterKey the key of the meter
+     * @param meterFactory function used to register a new meter
+     * @param <M> the type of the meter
+     * @return meter, or null if the meter is not registered and the maximum number of meters is reached
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private <M extends Meter> M meter(final MeterKey meterKey,
+                                      final Function<MeterKey, M> meterFactory) {
+        final Meter meter = meters.get(meterKey);
+        if (meter != null) {
+            return (M) meter;
+        }
+        if (meters.size() >= maxMeters) {
+            if (maxMetersReached.compareAndSet(false, true)) {
+                LOG.warn("Reached the maximum number of {} meters, measurements requiring additional meters are dropped", maxMeters);
+            }
+            return null;
+        }
+        return (M) meters.computeIfAbsent(meterKey, meterFactory);
+    }
+
+    /**
+     * Identifies a cached meter by its name and the (limited) values of its tags.
+     */
+    private static final class MeterKey {
+        private final String name;
+        private final String tag1;
+        private final String tag2;
+        private final String tag3;
+        private final int hashCode;
+
+        private MeterKey(final String name, final String tag1) {
+            this(name, tag1, null, null);
+        }
+
+        private MeterKey(final String name, final String tag1, final String tag2) {
+            this(name, tag1, tag2, null);
+        }
+
+        private MeterKey(final String name, final String tag1, final String tag2, final String tag3) {
+            this.name = name;
+            this.tag1 = tag1;
+            this.tag2 = tag2;
+            this.tag3 = tag3;
+            this.hashCode = Objects.hash(name, tag1, tag2, tag3);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final MeterKey that = (MeterKey) o;
+            return name.equals(that.name) &&
+                    Objects.equals(tag1, that.tag1) &&
+                    Objects.equals(tag2, that.tag2) &&
+                    Objects.equals(tag3, that.tag3);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package de.otto.synapse.metrics;
+
+import de.otto.synapse.endpoint.EndpointType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link PipelineMetrics} ignoring all recorded values.
+ */
+final class NoOpPipelineMetrics implements PipelineMetrics {
+
+    static final NoOpPipelineMetrics INSTANCE = new NoOpPipelineMetrics();
+
+    private NoOpPipelineMetrics() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordPoll(@Nonnull String channelName, @Nullable String shardName, int batchSize, long durationNanos) {
+    }
+
+    @Override
+    public void recordReceived(@Nonnull String channelName, @Nullable String shardName, int count) {
+    }
+
+    @Override
+    public void recordSent(@Nonnull String channelName, int count) {
+    }
+
+    @Override
+    public void recordSendRetry(@Nonnull String channelName) {
+    }
+
+    @Override
+    public void recordInterceptor(@Nonnull String channelName, @Nonnull EndpointType endpointType, @Nonnull String interceptorName, long durationNanos) {
+    }
+
+    @Override
+    public void recordConsumer(@Nonnull String channelName, @Nonnull String consumerName, long durationNanos) {
+    }
+
+    @Override
+    public void recordDecode(@Nonnull String channelName, long durationNanos) {
+    }
+
+    @Override
+    public void recordEncode(@Nonnull String channelName, long durationNanos) {
+    }
+
+    @Override
+    public void recordStateRepository(@Nonnull String repositoryName, @Nonnull String operation, long durationNanos) {
+    }
+
+    @Override
+    public void recordJournalFlush(@Nonnull String journalName, long durationNanos) {
+    }
+
+}
@@ -0,0 +1,127 @@
+package de.otto.synapse.metrics;
+
+import de.otto.synapse.endpoint.EndpointType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Records metrics of the message pipeline: the messages received from and sent to channels, the batches polled
+ * from the channel infrastructure, and the time spent in interceptors, consumers, codecs and state repositories.
+ * <p>
+ *     The current PipelineMetrics are available using {@link SynapseMetrics#currentMetrics()}. By default, a
+ *     {@link #noOp() no-op} implementation is used. Callers must check {@link #isEnabled()} before measuring
+ *     durations, so the pipeline is not even calling {@link System#nanoTime()}, if metrics are disabled.
+ * </p>
+ * <p>
+ *     Implementations must be thread-safe and should not block the caller.
+ * </p>
+ */
+public interface PipelineMetrics {
+
+    /**
+     * Returns the PipelineMetrics that are ignoring all recorded values.
+     *
+     * @return no-op PipelineMetrics
+     */
+    static PipelineMetrics noOp() {
+        return NoOpPipelineMetrics.INSTANCE;
+    }
+
+    /**
+     * Returns true, if the recorded values are published, false if they are ignored.
+     *
+     * @return enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Records a batch of messages that was polled from a channel, for example using a Kinesis {@code GetRecords}
+     * request, a Kafka {@code poll()} or a SQS {@code ReceiveMessage} request.
+     *
+     * @param channelName the name of the channel
+     * @param shardName the name of the shard, or null if the channel is not sharded, or if the batch contains
+     *                  messages of multiple shards.
+     * @param batchSize the number of messages in the batch
+     * @param durationNanos the time it took to poll the batch
+     */
+    void recordPoll(@Nonnull String channelName, @Nullable String shardName, int batchSize, long durationNanos);
+
+    /**
+     * Records messages that were received from a channel.
+     *
+     * @param channelName the name of the channel
+     * @param shardName the name of the shard, or null if the channel is not sharded
+     * @param count the number of received messages
+     */
+    void recordReceived(@Nonnull String channelName, @Nullable String shardName, int count);
+
+    /**
+     * Records messages that were successfully sent to a channel.
+     *
+     * @param channelName the name of the channel
+     * @param count the number of sent messages
+     */
+    void recordSent(@Nonnull String channelName, int count);
+
+    /**
+     * Records a retry of a failed attempt to send messages to a channel.
+     *
+     * @param channelName the name of the channel
+     */
+    void recordSendRetry(@Nonnull String channelName);
+
+    /**
+     * Records the time spent in a {@link de.otto.synapse.endpoint.MessageInterceptor} to intercept a message.
+     *
+     * @param channelName the name of the channel
+     * @param endpointType the type of the intercepted endpoint
+     * @param interceptorName the name of the interceptor
+     * @param durationNanos the duration of the interception
+     */
+    void recordInterceptor(@Nonnull String channelName, @Nonnull EndpointType endpointType, @Nonnull String interceptorName, long durationNanos);
+
+    /**
+     * Records the time spent in a {@link de.otto.synapse.consumer.MessageConsumer} to consume a message.
+     *
+     * @param channelName the name of the channel
+     * @param consumerName the name of the consumer
+     * @param durationNanos the duration of the consumption
+     */
+    void recordConsumer(@Nonnull String channelName, @Nonnull String consumerName, long durationNanos);
+
+    /**
+     * Records the time spent to decode the payload of a received message.
+     *
+     * @param channelName the name of the channel
+     * @param durationNanos the duration of the decoding
+     */
+    void recordDecode(@Nonnull String channelName, long durationNanos);
+
+    /**
+     * Records the time spent to encode the payload of a message that is sent.
+     *
+     * @param channelName the name of the channel
+     * @param durationNanos the duration of the encoding
+     */
+    void recordEncode(@Nonnull String channelName, long durationNanos);
+
+    /**
+     * Records the time spent in an operation of a {@link de.otto.synapse.state.StateRepository}.
+     *
+     * @param repositoryName the name of the repository
+     * @param operation the name of the operation, like 'get' or 'put'
+     * @param durationNanos the duration of the operation
+     */
+    void recordStateRepository(@Nonnull String repositoryName, @Nonnull String operation, long durationNanos);
+
+    /**
+     * Records the time spent by a {@link de.otto.synapse.journal.AsyncJournalWriter} to write a batch of entries to
+     * the message store of a journal.
+     *
+     * @param journalName the name of the journal
+     * @param durationNanos the duration of the flush
+     */
+    void recordJournalFlush(@Nonnull String journalName, long durationNanos);
+
+}
@@ -0,0 +1,68 @@
+package de.otto.synapse.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Manages the {@link PipelineMetrics} used by Synapse to instrument the message pipeline.
+ *
+ * <p>By default, metrics are {@link PipelineMetrics#noOp() disabled}. If {@code synapse.metrics.enabled=true} and
+ * a Micrometer {@code MeterRegistry} is available, the {@link de.otto.synapse.configuration.SynapseAutoConfiguration}
+ * is overriding the metrics using {@link MicrometerPipelineMetrics}.</p>
+ */
+@ThreadSafe
+public final class SynapseMetrics {
+
+    private static final AtomicReference<PipelineMetrics> PIPELINE_METRICS = new AtomicReference<>(PipelineMetrics.noOp());
+
+    /**
+     * Returns the {@code PipelineMetrics} currently used by Synapse.
+     *
+     * @return current PipelineMetrics
+     */
+    @Nonnull
+    public static PipelineMetrics currentMetrics() {
+        return PIPELINE_METRICS.get();
+    }
+
+    /**
+     * Overrides the {@code PipelineMetrics} used by Synapse.
+     *
+     * @param pipelineMetrics the PipelineMetrics used to instrument the message pipeline
+     */
+    public static void overrideMetrics(final @Nonnull PipelineMetrics pipelineMetrics) {
+        PIPELINE_METRICS.set(requireNonNull(pipelineMetrics));
+    }
+
+    /**
+     * Disables the metrics of the message pipeline, if they are still recorded by the given PipelineMetrics.
+     *
+     * @param pipelineMetrics the PipelineMetrics that should not be used anymore
+     */
+    public static void resetMetrics(final @Nonnull PipelineMetrics pipelineMetrics) {
+        PIPELINE_METRICS.compareAndSet(pipelineMetrics, PipelineMetrics.noOp());
+    }
+
+    /**
+     * Returns the name used to tag the metrics of an object like a message interceptor or consumer: the simple
+     * name of the object's class, or the fully qualified name of anonymous classes. The generated suffix of
+     * lambda classes is removed, so the name does not change with every start of the application.
+     *
+     * @param object the measured object
+     * @return name of the object
+     */
+    @Nonnull
+    public static String meterNameOf(final @Nonnull Object object) {
+        final Class<?> type = object.getClass();
+        final String simpleName = type.getSimpleName();
+        final String name = simpleName.isEmpty() ? type.getName() : simpleName;
+        final int generatedSuffix = name.indexOf('/');
+        return generatedSuffix > 0 ? name.substring(0, generatedSuffix) : name;
+    }
+
+    private SynapseMetrics() {
+    }
+}
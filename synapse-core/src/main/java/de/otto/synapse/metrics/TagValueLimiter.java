@@ -0,0 +1,55 @@
+package de.otto.synapse.metrics;
+
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the number of distinct values of a tag, so the number of time series is not exploding if, for example,
+ * the number of shards of a channel is increased.
+ *
+ * <p>Values that are not in the (optional) allow-list, and all values that are seen after the maximum number of
+ * values is reached, are replaced by {@link #OTHER}. Concurrent callers may exceed the maximum by at most the
+ * number of threads.</p>
+ */
+@ThreadSafe
+final class TagValueLimiter {
+
+    static final String OTHER = "other";
+
+    private final ImmutableSet<String> allowedValues;
+    private final int maxValues;
+    private final Set<String> values = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param allowedValues the values that are accepted, or an empty set to accept all values
+     * @param maxValues the maximum number of distinct values
+     */
+    TagValueLimiter(final @Nonnull Set<String> allowedValues,
+                    final int maxValues) {
+        if (maxValues < 1) {
+            throw new IllegalArgumentException("maxValues must be greater than 0");
+        }
+        this.allowedValues = ImmutableSet.copyOf(allowedValues);
+        this.maxValues = maxValues;
+    }
+
+    @Nonnull
+    String limit(final @Nullable String value) {
+        if (value == null || (!allowedValues.isEmpty() && !allowedValues.contains(value))) {
+            return OTHER;
+        }
+        if (values.contains(value)) {
+            return value;
+        }
+        if (values.size() >= maxValues) {
+            return OTHER;
+        }
+        values.add(value);
+        return value;
+    }
+}
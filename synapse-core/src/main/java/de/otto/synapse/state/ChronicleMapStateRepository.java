@@ -7,9 +7,23 @@ import net.openhft.chronicle.map.ChronicleMapBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.OptionalLong;
 
+import static de.otto.synapse.state.ScanResult.scanResult;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.emptyMap;
 
 /**
  * A {@code StateRepository} that is using a {@code ChronicleMap} to store the event-sourced entities off the heap.
@@ -20,6 +34,16 @@ import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
  * <p>In order to be able to access the {@link #keySet()} of the stored entities, this implementation is storing
  * a copy of the keys in a separate {@link java.util.concurrent.ConcurrentSkipListSet}</p>
  *
+ * <p>Using {@link Builder#withPersistedFile(File)}, the entities are persisted to a memory-mapped file, so the
+ * state of the repository survives restarts of the service. Together with a
+ * {@link de.otto.synapse.eventsource.ChannelPositionCheckpoint}, this is used to warm-restart event sources without
+ * reading snapshots.</p>
+ *
+ * <p>{@link #persistGeneration(long)} forces the memory-mapped file to the storage device before the generation of
+ * the checkpoint is written to a separate file next to the persisted file, named {@code <persisted file>.generation}.
+ * The file is forced using {@link FileChannel#force(boolean)}, which is also writing the pages modified through the
+ * memory mapping on Linux.</p>
+ *
  * @param <V> The type of the event-sourced entities stored in the {@code StateRepository}
  */
 public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository<V> {
@@ -30,9 +54,17 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
     private static final double DEFAULT_VALUE_SIZE_BYTES = 512;
     private static final long DEFAULT_ENTRY_COUNT = 100_000;
 
+    private final ChronicleMap<String, V> chronicleMap;
+    private final Path persistedFile;
+    private final Path generationFile;
+
     private ChronicleMapStateRepository(final String name,
-                                        final ChronicleMap<String, V> chronicleMap) {
+                                        final ChronicleMap<String, V> chronicleMap,
+                                        final @Nullable File persistedFile) {
         super(name, chronicleMap);
+        this.chronicleMap = chronicleMap;
+        this.persistedFile = persistedFile != null ? persistedFile.toPath() : null;
+        this.generationFile = persistedFile != null ? new File(persistedFile.getPath() + ".generation").toPath() : null;
     }
 
     @Override
@@ -55,6 +87,24 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the keys of the entries are read while visiting the map. The entities are deserialized for the
+     * entries of the requested page only.</p>
+     */
+    @Override
+    public ScanResult<V> scan(final @Nullable String cursor, final int limit) {
+        final ScanSelector<V> selector = new ScanSelector<>(cursor, limit);
+        try {
+            chronicleMap.forEachEntry(entry -> selector.accept(entry.key().get(), null));
+            return selector.result(entry -> chronicleMap.get(entry.getKey()));
+        } catch (final ChronicleHashClosedException e) {
+            LOG.warn("could not scan closed state repository", e);
+            return scanResult(emptyMap(), null);
+        }
+    }
+
     @Override
     public long size() {
         try {
@@ -64,6 +114,68 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
             return 0;
         }
     }
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The generation of a persisted repository is removed before the entities are removed.</p>
+     */
+    @Override
+    public void clear() {
+        if (generationFile != null) {
+            try {
+                Files.deleteIfExists(generationFile);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to remove generation " + generationFile + ": " + e.getMessage(), e);
+            }
+        }
+        super.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Nothing is done, if the repository is not persisted.</p>
+     */
+    @Override
+    public synchronized void persistGeneration(final long generation) {
+        if (persistedFile == null) {
+            return;
+        }
+        try {
+            force(persistedFile);
+            final Path tempFile = Files.createTempFile(generationFile.toAbsolutePath().getParent(), generationFile.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, String.valueOf(generation).getBytes(StandardCharsets.UTF_8));
+                force(tempFile);
+                Files.move(tempFile, generationFile, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to persist generation of ChronicleMap persisted to " + persistedFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized OptionalLong getPersistedGeneration() {
+        if (generationFile == null || !Files.exists(generationFile)) {
+            return OptionalLong.empty();
+        }
+        try {
+            final String generation = new String(Files.readAllBytes(generationFile), StandardCharsets.UTF_8).trim();
+            return OptionalLong.of(Long.parseLong(generation));
+        } catch (final IOException | NumberFormatException e) {
+            LOG.warn("Ignoring unreadable generation {}: {}", generationFile, e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    private static void force(final Path file) throws IOException {
+        try (final FileChannel fileChannel = FileChannel.open(file, READ)) {
+            fileChannel.force(true);
+        }
+    }
+
     public static <V> Builder<V> builder(Class<V> clazz) {
         return new Builder<>(clazz);
     }
@@ -76,6 +188,7 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
         private String name;
         private ChronicleMapBuilder<String, V> chronicleMapBuilder;
         private boolean customValueMarshaller = false;
+        private File persistedFile;
 
 
         private Builder(Class<V> clazz) {
@@ -103,6 +216,22 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
             return this;
         }
 
+        /**
+         * Persists the entities of the repository to the given file. If the file already exists, the entities
+         * contained in the file are available after building the repository.
+         * <p>
+         *     If the file was not closed properly, for example because the service was killed, the map is recovered
+         *     from the file.
+         * </p>
+         *
+         * @param val the file used to persist the entities
+         * @return this
+         */
+        public Builder<V> withPersistedFile(final File val) {
+            persistedFile = val;
+            return this;
+        }
+
         public ChronicleMapStateRepository<V> build() {
 
             if (chronicleMapBuilder == null) {
@@ -117,7 +246,16 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
                 chronicleMapBuilder.valueMarshaller(new ChronicleMapBytesMarshaller<>(objectMapper, clazz));
             }
 
-            return new ChronicleMapStateRepository<>(name, chronicleMapBuilder.create());
+            if (persistedFile != null) {
+                try {
+                    final ChronicleMap<String, V> chronicleMap = chronicleMapBuilder.createOrRecoverPersistedTo(persistedFile);
+                    LOG.info("Opened ChronicleMap '{}' persisted to {} containing {} entries", name, persistedFile, chronicleMap.size());
+                    return new ChronicleMapStateRepository<>(name, chronicleMap, persistedFile);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException("Unable to open ChronicleMap persisted to " + persistedFile + ": " + e.getMessage(), e);
+                }
+            }
+            return new ChronicleMapStateRepository<>(name, chronicleMapBuilder.create(), null);
         }
     }
 }
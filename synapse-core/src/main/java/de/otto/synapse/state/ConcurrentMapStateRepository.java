@@ -2,13 +2,19 @@ package de.otto.synapse.state;
 
 import org.slf4j.Logger;
 
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 
+import static de.otto.synapse.state.ScanResult.scanResult;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
@@ -87,6 +93,37 @@ public class ConcurrentMapStateRepository<V> implements StateRepository<V> {
         return ofNullable(concurrentMap.get(key));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the repository is using a {@code ConcurrentNavigableMap}, the page is read starting at the cursor.
+     * Otherwise, the entries of the map are visited without copying the keys or entities of the map.</p>
+     */
+    @Override
+    public ScanResult<V> scan(final @Nullable String cursor, final int limit) {
+        if (concurrentMap instanceof ConcurrentNavigableMap) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be greater than 0");
+            }
+            final ConcurrentNavigableMap<String, V> navigableMap = (ConcurrentNavigableMap<String, V>) concurrentMap;
+            final Iterator<Map.Entry<String, V>> iterator = (cursor != null ? navigableMap.tailMap(cursor, false) : navigableMap)
+                    .entrySet()
+                    .iterator();
+            final Map<String, V> entries = new LinkedHashMap<>();
+            String lastKey = null;
+            while (iterator.hasNext() && entries.size() < limit) {
+                final Map.Entry<String, V> entry = iterator.next();
+                entries.put(entry.getKey(), entry.getValue());
+                lastKey = entry.getKey();
+            }
+            return scanResult(entries, iterator.hasNext() ? lastKey : null);
+        } else {
+            final ScanSelector<V> selector = new ScanSelector<>(cursor, limit);
+            concurrentMap.forEach(selector::accept);
+            return selector.result();
+        }
+    }
+
     @Override
     public Set<String> keySet() {
         return unmodifiableSet(concurrentMap.keySet());
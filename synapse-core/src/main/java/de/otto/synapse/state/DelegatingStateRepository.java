@@ -1,6 +1,10 @@
 package de.otto.synapse.state;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -48,6 +52,16 @@ public class DelegatingStateRepository<V> implements StateRepository<V> {
         return delegate.get(key);
     }
 
+    @Override
+    public Map<String, V> getAll(Collection<String> keys) {
+        return delegate.getAll(keys);
+    }
+
+    @Override
+    public ScanResult<V> scan(@Nullable String cursor, int limit) {
+        return delegate.scan(cursor, limit);
+    }
+
     @Override
     public Set<String> keySet() {
         return delegate.keySet();
@@ -58,6 +72,16 @@ public class DelegatingStateRepository<V> implements StateRepository<V> {
         return delegate.size();
     }
 
+    @Override
+    public void persistGeneration(long generation) {
+        delegate.persistGeneration(generation);
+    }
+
+    @Override
+    public OptionalLong getPersistedGeneration() {
+        return delegate.getPersistedGeneration();
+    }
+
     @Override
     public void close() throws Exception {
         delegate.close();
@@ -0,0 +1,158 @@
+package de.otto.synapse.state;
+
+import de.otto.synapse.metrics.PipelineMetrics;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
+
+/**
+ * A {@link StateRepository} that is recording the latencies of the operations of the delegate repository using the
+ * {@link de.otto.synapse.metrics.SynapseMetrics#currentMetrics() current PipelineMetrics}.
+ * <p>
+ *     If metrics are disabled, the operations are delegated without measuring their durations.
+ * </p>
+ *
+ * @param <V> The type of the event-sourced entities stored in the {@code StateRepository}
+ */
+public class MeteredStateRepository<V> extends DelegatingStateRepository<V> {
+
+    public MeteredStateRepository(final StateRepository<V> delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public Optional<V> compute(final String key,
+                               final BiFunction<? super String, ? super Optional<V>, ? extends V> remappingFunction) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.compute(key, remappingFunction);
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.compute(key, remappingFunction);
+        } finally {
+            metrics.recordStateRepository(getName(), "compute", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public void consumeAll(final BiConsumer<? super String, ? super V> consumer) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            super.consumeAll(consumer);
+            return;
+        }
+        final long started = System.nanoTime();
+        try {
+            super.consumeAll(consumer);
+        } finally {
+            metrics.recordStateRepository(getName(), "consumeAll", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public Optional<V> put(final String key, final V value) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.put(key, value);
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.put(key, value);
+        } finally {
+            metrics.recordStateRepository(getName(), "put", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public Optional<V> remove(final String key) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.remove(key);
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.remove(key);
+        } finally {
+            metrics.recordStateRepository(getName(), "remove", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public void clear() {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            super.clear();
+            return;
+        }
+        final long started = System.nanoTime();
+        try {
+            super.clear();
+        } finally {
+            metrics.recordStateRepository(getName(), "clear", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public Optional<V> get(final String key) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.get(key);
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.get(key);
+        } finally {
+            metrics.recordStateRepository(getName(), "get", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public Map<String, V> getAll(final Collection<String> keys) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.getAll(keys);
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.getAll(keys);
+        } finally {
+            metrics.recordStateRepository(getName(), "getAll", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public ScanResult<V> scan(final @Nullable String cursor, final int limit) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.scan(cursor, limit);
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.scan(cursor, limit);
+        } finally {
+            metrics.recordStateRepository(getName(), "scan", System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        final PipelineMetrics metrics = currentMetrics();
+        if (!metrics.isEnabled()) {
+            return super.keySet();
+        }
+        final long started = System.nanoTime();
+        try {
+            return super.keySet();
+        } finally {
+            metrics.recordStateRepository(getName(), "keySet", System.nanoTime() - started);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package de.otto.synapse.state;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.dizitart.no2.*;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -16,6 +19,7 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static com.google.common.collect.Sets.newHashSet;
+import static de.otto.synapse.state.ScanResult.scanResult;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
@@ -23,11 +27,14 @@ import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.StreamSupport.stream;
 import static org.dizitart.no2.Document.createDocument;
+import static org.dizitart.no2.FindOptions.sort;
 import static org.dizitart.no2.IndexOptions.indexOptions;
 import static org.dizitart.no2.IndexType.NonUnique;
 import static org.dizitart.no2.IndexType.Unique;
 import static org.dizitart.no2.filters.Filters.ALL;
 import static org.dizitart.no2.filters.Filters.eq;
+import static org.dizitart.no2.filters.Filters.gt;
+import static org.dizitart.no2.filters.Filters.in;
 
 /**
  * A StateRepository with extra functionality for secondary indexes, queries, sorting and paging of
@@ -131,6 +138,66 @@ public class NitriteStateRepository<V> implements StateRepository<V>, Closeable
 
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entities are looked up using a single query on the unique index of the keys.</p>
+     */
+    @Override
+    public Map<String, V> getAll(final Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        final Map<String, V> found = new HashMap<>(keys.size());
+        try {
+            lock.readLock().lock();
+            collection.find(in(IDX_ID, keys.toArray())).forEach(document -> found.put(
+                    document.get(IDX_ID).toString(),
+                    currentObjectMapper().convertValue(document, valueType)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        final Map<String, V> result = new LinkedHashMap<>(found.size());
+        keys.forEach(key -> {
+            final V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The page is queried using the unique index of the keys, so only the entities of the page are
+     * deserialized.</p>
+     */
+    @Override
+    public ScanResult<V> scan(final @Nullable String cursor, final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be greater than 0");
+        }
+        try {
+            lock.readLock().lock();
+            final Cursor documents = collection.find(
+                    cursor != null ? gt(IDX_ID, cursor) : ALL,
+                    sort(IDX_ID, SortOrder.Ascending).thenLimit(0, limit + 1));
+            final Map<String, V> entries = new LinkedHashMap<>();
+            String lastKey = null;
+            for (final Document document : documents) {
+                if (entries.size() == limit) {
+                    return scanResult(entries, lastKey);
+                }
+                lastKey = document.get(IDX_ID).toString();
+                entries.put(lastKey, currentObjectMapper().convertValue(document, valueType));
+            }
+            return scanResult(entries, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void consumeAll(final BiConsumer<? super String, ? super V> consumer) {
         try {
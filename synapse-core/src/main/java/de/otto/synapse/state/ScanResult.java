@@ -0,0 +1,83 @@
+package de.otto.synapse.state;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A page of entities returned by {@link StateRepository#scan(String, int)}.
+ *
+ * <p>The entries are ordered by their keys. If the repository contains more entities, the result contains a cursor
+ * that is used to continue the scan with the next page.</p>
+ *
+ * @param <V> The type of the event-sourced entities stored in the {@code StateRepository}
+ */
+public final class ScanResult<V> {
+
+    private final Map<String, V> entries;
+    private final String nextCursor;
+
+    private ScanResult(final Map<String, V> entries,
+                       final @Nullable String nextCursor) {
+        this.entries = Collections.unmodifiableMap(new LinkedHashMap<>(entries));
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a ScanResult.
+     *
+     * @param entries the entries of the page, ordered by their keys
+     * @param nextCursor the cursor used to scan the next page, or null if there are no more entries
+     * @param <V> The type of the entities
+     * @return ScanResult
+     */
+    public static <V> ScanResult<V> scanResult(final @Nonnull Map<String, V> entries,
+                                               final @Nullable String nextCursor) {
+        return new ScanResult<>(entries, nextCursor);
+    }
+
+    /**
+     * Returns the keys and entities of the page, ordered by their keys.
+     *
+     * @return immutable map of keys and entities
+     */
+    public Map<String, V> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the cursor used to continue the scan with the next page, or {@code Optional.empty()} if there are no
+     * more entities.
+     *
+     * @return optional cursor
+     */
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScanResult<?> that = (ScanResult<?>) o;
+        return Objects.equals(entries, that.entries) &&
+                Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entries, nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "ScanResult{" +
+                "entries=" + entries +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
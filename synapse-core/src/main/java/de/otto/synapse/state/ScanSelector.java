@@ -0,0 +1,87 @@
+package de.otto.synapse.state;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import static de.otto.synapse.state.ScanResult.scanResult;
+import static java.util.Collections.reverseOrder;
+
+/**
+ * Selects the page of a scan from the entries of a repository that are visited in arbitrary order.
+ *
+ * <p>Only the smallest {@code limit + 1} keys greater than the cursor are kept, so the memory used to scan a
+ * repository does not depend on the number of entities.</p>
+ *
+ * @param <V> The type of the entities
+ */
+final class ScanSelector<V> {
+
+    private final String cursor;
+    private final int limit;
+    private final PriorityQueue<Map.Entry<String, V>> selected;
+
+    ScanSelector(final @Nullable String cursor, final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be greater than 0");
+        }
+        this.cursor = cursor;
+        this.limit = limit;
+        this.selected = new PriorityQueue<>(reverseOrder(Map.Entry.comparingByKey()));
+    }
+
+    /**
+     * Visits an entry of the repository.
+     *
+     * @param key the key of the entry
+     * @param value the entity, or null if the entity is looked up after the selection
+     */
+    void accept(final String key, final @Nullable V value) {
+        if (cursor != null && key.compareTo(cursor) <= 0) {
+            return;
+        }
+        if (selected.size() <= limit) {
+            selected.add(new SimpleImmutableEntry<>(key, value));
+        } else if (key.compareTo(selected.peek().getKey()) < 0) {
+            selected.poll();
+            selected.add(new SimpleImmutableEntry<>(key, value));
+        }
+    }
+
+    /**
+     * Returns the page of selected entries.
+     *
+     * @return ScanResult
+     */
+    ScanResult<V> result() {
+        return result(Map.Entry::getValue);
+    }
+
+    /**
+     * Returns the page of selected entries, looking up the entities of the selected keys.
+     *
+     * <p>Entities that have been removed in the meantime are not contained in the result.</p>
+     *
+     * @param lookup the function used to look up the entity of a key, returning null for unknown keys
+     * @return ScanResult
+     */
+    ScanResult<V> result(final Function<Map.Entry<String, V>, V> lookup) {
+        final List<Map.Entry<String, V>> sorted = new ArrayList<>(selected);
+        sorted.sort(Map.Entry.comparingByKey());
+        final boolean hasMore = sorted.size() > limit;
+        final List<Map.Entry<String, V>> page = hasMore ? sorted.subList(0, limit) : sorted;
+        final Map<String, V> entries = new LinkedHashMap<>(page.size());
+        page.forEach(entry -> {
+            final V value = lookup.apply(entry);
+            if (value != null) {
+                entries.put(entry.getKey(), value);
+            }
+        });
+        return scanResult(entries, hasMore ? page.get(page.size() - 1).getKey() : null);
+    }
+}
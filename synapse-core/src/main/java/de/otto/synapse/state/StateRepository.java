@@ -1,6 +1,11 @@
 package de.otto.synapse.state;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -27,6 +32,30 @@ public interface StateRepository<V> extends AutoCloseable {
      */
     Set<String> keySet();
 
+    /**
+     * Returns a page of at most {@code limit} entities, ordered by their keys, starting after the given cursor.
+     *
+     * <p>Scanning is started using a {@code null} cursor. If the repository contains more entities, the returned
+     * {@link ScanResult} contains the cursor that is used to get the next page. Other than {@link #keySet()}, scanning
+     * a repository page by page does not require to copy all keys of the repository.</p>
+     *
+     * <p>Entities added or removed during a scan may or may not be contained in the following pages. The cursor is
+     * an opaque token, it should not be interpreted by the caller.</p>
+     *
+     * <p>The default implementation is visiting all entities using {@link #consumeAll(BiConsumer)}, keeping only
+     * the entities of the requested page in memory.</p>
+     *
+     * @param cursor the cursor returned by the previous scan, or null to get the first page
+     * @param limit the maximum number of entities of the page
+     * @return ScanResult containing the entities of the page and the optional cursor of the next page
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    default ScanResult<V> scan(final @Nullable String cursor, final int limit) {
+        final ScanSelector<V> selector = new ScanSelector<>(cursor, limit);
+        consumeAll(selector::accept);
+        return selector.result();
+    }
+
     /**
      * Returns the optional value to which the specified key is mapped,
      * or {@code Optional.empty()} if this repository contains no mapping for the key.
@@ -43,6 +72,26 @@ public interface StateRepository<V> extends AutoCloseable {
      */
     Optional<V> get(String key);
 
+    /**
+     * Returns the values of all given keys that are contained in this repository.
+     *
+     * <p>The returned map is iterating over the entries in the order of the given keys. Keys that are not
+     * contained in the repository are not contained in the returned map.</p>
+     *
+     * <p>The default implementation is calling {@link #get(String)} for every key. Implementations should
+     * override this method, if they are able to look up multiple entities more efficiently, for example using
+     * a single query.</p>
+     *
+     * @param keys the keys whose associated values are to be returned
+     * @return map containing the keys and values of the entities found in the repository
+     * @throws NullPointerException if one of the specified keys is null
+     */
+    default Map<String, V> getAll(final Collection<String> keys) {
+        final Map<String, V> result = new LinkedHashMap<>();
+        keys.forEach(key -> get(key).ifPresent(value -> result.put(key, value)));
+        return result;
+    }
+
     /**
      * Computes each entry within the repository.
      *
@@ -152,6 +201,36 @@ public interface StateRepository<V> extends AutoCloseable {
      */
     long size();
 
+    /**
+     * Forces the entities of a persisted repository to durable storage and afterwards records the given generation
+     * together with the entities.
+     * <p>
+     *     Used by {@link de.otto.synapse.eventsource.ChannelPositionCheckpoint checkpoints} to make sure that the
+     *     state is stored durably before the checkpoint is saved: after a restart, the checkpoint is only used if the
+     *     {@link #getPersistedGeneration() persisted generation} of the repository is matching the generation of the
+     *     checkpoint.
+     * </p>
+     * <p>
+     *     The default implementation does nothing, because the state of repositories that are not persisted does
+     *     not survive restarts.
+     * </p>
+     *
+     * @param generation the generation of the checkpoint that is about to be saved
+     */
+    default void persistGeneration(final long generation) {
+    }
+
+    /**
+     * Returns the generation that was recorded by the last call of {@link #persistGeneration(long)}, if the
+     * repository is persisted.
+     *
+     * @return generation of the persisted entities, or empty if the repository is not persisted or no generation
+     *         has been recorded since the repository was created or {@link #clear() cleared}.
+     */
+    default OptionalLong getPersistedGeneration() {
+        return OptionalLong.empty();
+    }
+
     /**
      * Closes the {@code StateRepository}.
      *
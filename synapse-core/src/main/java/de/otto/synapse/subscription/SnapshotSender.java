@@ -0,0 +1,235 @@
+package de.otto.synapse.subscription;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.RateLimiter;
+import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
+import de.otto.synapse.message.Message;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Sends the snapshot messages of subscribed entities to the target channel of a {@link Subscription}.
+ * <p>
+ *     The entities are looked up in chunks using {@link SnapshotProvider#snapshot(Collection)}. The snapshot
+ *     messages of the entities are packed into full-size batches, and up to {@code maxBatchesInFlight} batches
+ *     are sent concurrently using {@link MessageSenderEndpoint#sendBatch(Stream)}. If the messages of a single
+ *     entity do not fit into one batch, the next batch is not sent before all previous batches are completed, so
+ *     the order of the messages of an entity is kept.
+ * </p>
+ * <p>
+ *     The number of messages per second sent to the target channel can be limited in order to respect the rate
+ *     limits of the target channel. The limit is shared by all snapshots sent by the same SnapshotSender.
+ * </p>
+ */
+@ThreadSafe
+public class SnapshotSender {
+
+    private static final Logger LOG = getLogger(SnapshotSender.class);
+
+    private static final long PROGRESS_INTERVAL_NANOS = SECONDS.toNanos(10);
+
+    private final MessageSenderEndpoint senderEndpoint;
+    private final int lookupSize;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Creates a SnapshotSender.
+     *
+     * @param senderEndpoint the MessageSenderEndpoint of the target channel
+     * @param lookupSize the maximum number of entities looked up at once
+     * @param batchSize the maximum number of messages per batch
+     * @param maxBatchesInFlight the maximum number of batches per snapshot that are sent concurrently
+     * @param maxMessagesPerSecond the maximum number of messages per second, or 0 if the number is not limited
+     */
+    public SnapshotSender(final @Nonnull MessageSenderEndpoint senderEndpoint,
+                          final int lookupSize,
+                          final int batchSize,
+                          final int maxBatchesInFlight,
+                          final double maxMessagesPerSecond) {
+        if (lookupSize < 1 || batchSize < 1 || maxBatchesInFlight < 1) {
+            throw new IllegalArgumentException("lookupSize, batchSize and maxBatchesInFlight must be greater than 0");
+        }
+        this.senderEndpoint = senderEndpoint;
+        this.lookupSize = lookupSize;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+        this.rateLimiter = maxMessagesPerSecond > 0 ? RateLimiter.create(maxMessagesPerSecond) : null;
+    }
+
+    /**
+     * Sends the snapshot messages of the given entities and waits until all messages are sent.
+     *
+     * @param entityIds the identifiers of the entities
+     * @param snapshotProvider the SnapshotProvider used to get the snapshot messages of the entities
+     * @return the progress of the completed snapshot
+     * @throws CompletionException if sending a batch of messages failed
+     */
+    public Progress send(final @Nonnull Collection<String> entityIds,
+                         final @Nonnull SnapshotProvider snapshotProvider) {
+        final String channelName = senderEndpoint.getChannelName();
+        LOG.info("Sending snapshot of {} entities from channel {} to channel {}", entityIds.size(), snapshotProvider.channelName(), channelName);
+        final SnapshotRun run = new SnapshotRun(entityIds.size());
+        try {
+            List<Message<?>> batch = new ArrayList<>(batchSize);
+            String lastPartitionKey = null;
+            long lastProgressNanos = run.startNanos;
+            for (final List<String> chunk : Iterables.partition(entityIds, lookupSize)) {
+                try (final Stream<? extends Message<?>> snapshot = snapshotProvider.snapshot(chunk)) {
+                    final Iterator<? extends Message<?>> messages = snapshot.iterator();
+                    while (messages.hasNext()) {
+                        final Message<?> message = messages.next();
+                        final String partitionKey = message.getKey().partitionKey();
+                        if (batch.size() == batchSize) {
+                            run.sendBatch(batch);
+                            batch = new ArrayList<>(batchSize);
+                            if (partitionKey.equals(lastPartitionKey)) {
+                                // the messages of the entity are split into two batches:
+                                run.awaitBatchesInFlight();
+                            }
+                        }
+                        batch.add(message);
+                        lastPartitionKey = partitionKey;
+                    }
+                }
+                run.progress.processedEntities.add(chunk.size());
+                final long now = System.nanoTime();
+                if (now - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgressNanos = now;
+                    LOG.info("Sending snapshot to channel {}: {}", channelName, run.progress);
+                }
+            }
+            if (!batch.isEmpty()) {
+                run.sendBatch(batch);
+            }
+        } finally {
+            if (!Thread.currentThread().isInterrupted()) {
+                run.awaitBatchesInFlight();
+            }
+        }
+        run.throwIfFailed();
+        LOG.info("Sent snapshot to channel {} in {}ms: {}", channelName, NANOSECONDS.toMillis(System.nanoTime() - run.startNanos), run.progress);
+        return run.progress;
+    }
+
+    /**
+     * The state of a single snapshot.
+     */
+    private final class SnapshotRun {
+        private final long startNanos = System.nanoTime();
+        private final Semaphore batchesInFlight = new Semaphore(maxBatchesInFlight);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final Progress progress;
+
+        private SnapshotRun(final int totalEntities) {
+            this.progress = new Progress(totalEntities);
+        }
+
+        private void sendBatch(final List<Message<?>> batch) {
+            throwIfFailed();
+            if (rateLimiter != null) {
+                rateLimiter.acquire(batch.size());
+            }
+            acquire(1);
+            try {
+                senderEndpoint.sendBatch(batch.stream()).whenComplete((ignored, throwable) -> {
+                    if (throwable == null) {
+                        progress.sentMessages.add(batch.size());
+                    } else {
+                        progress.failedMessages.add(batch.size());
+                        failure.compareAndSet(null, throwable);
+                    }
+                    progress.batches.increment();
+                    batchesInFlight.release();
+                });
+            } catch (final RuntimeException e) {
+                progress.failedMessages.add(batch.size());
+                batchesInFlight.release();
+                throw e;
+            }
+        }
+
+        private void awaitBatchesInFlight() {
+            acquire(maxBatchesInFlight);
+            batchesInFlight.release(maxBatchesInFlight);
+        }
+
+        private void acquire(final int permits) {
+            try {
+                batchesInFlight.acquire(permits);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending snapshot to channel " + senderEndpoint.getChannelName(), e);
+            }
+        }
+
+        private void throwIfFailed() {
+            final Throwable throwable = failure.get();
+            if (throwable != null) {
+                throw throwable instanceof CompletionException
+                        ? (CompletionException) throwable
+                        : new CompletionException(throwable);
+            }
+        }
+    }
+
+    /**
+     * The progress of a snapshot.
+     */
+    public static final class Progress {
+        private final long totalEntities;
+        private final LongAdder processedEntities = new LongAdder();
+        private final LongAdder sentMessages = new LongAdder();
+        private final LongAdder failedMessages = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+
+        private Progress(final long totalEntities) {
+            this.totalEntities = totalEntities;
+        }
+
+        public long getTotalEntities() {
+            return totalEntities;
+        }
+
+        public long getProcessedEntities() {
+            return processedEntities.sum();
+        }
+
+        public long getSentMessages() {
+            return sentMessages.sum();
+        }
+
+        public long getFailedMessages() {
+            return failedMessages.sum();
+        }
+
+        public long getBatches() {
+            return batches.sum();
+        }
+
+        @Override
+        public String toString() {
+            final long processed = getProcessedEntities();
+            return processed + "/" + totalEntities + " entities ("
+                    + (totalEntities > 0 ? processed * 100 / totalEntities : 100) + "%), "
+                    + getSentMessages() + " messages sent in " + getBatches() + " batches, "
+                    + getFailedMessages() + " messages failed";
+        }
+    }
+}
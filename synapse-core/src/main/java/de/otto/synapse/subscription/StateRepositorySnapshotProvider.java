@@ -3,6 +3,7 @@ package de.otto.synapse.subscription;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.state.StateRepository;
 
+import java.util.Collection;
 import java.util.stream.Stream;
 
 import static java.util.Collections.singletonList;
@@ -46,4 +47,18 @@ public class StateRepositorySnapshotProvider<E> implements SnapshotProvider {
                 .map((E t) -> entityToMessagesTransformer.apply(entityId, t).stream())
                 .orElse(Stream.empty());
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     The entities are looked up at once using {@link StateRepository#getAll(Collection)}.
+     * </p>
+     */
+    @Override
+    public Stream<? extends Message<?>> snapshot(final Collection<String> entityIds) {
+        return stateRepository.getAll(entityIds)
+                .entrySet()
+                .stream()
+                .flatMap(entry -> entityToMessagesTransformer.apply(entry.getKey(), entry.getValue()).stream());
+    }
 }
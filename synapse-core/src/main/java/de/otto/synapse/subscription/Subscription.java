@@ -10,6 +10,7 @@ public class Subscription {
     private final String channelName;
     private final String targetChannelName;
     private final Set<String> subscribedEntities;
+    private volatile Subscriptions subscriptions;
 
     public Subscription(final String id,
                         final String channelName,
@@ -38,10 +39,27 @@ public class Subscription {
 
     public void subscribe(final Set<String> subscribedEntities) {
         this.subscribedEntities.addAll(subscribedEntities);
+        final Subscriptions subscriptions = this.subscriptions;
+        if (subscriptions != null) {
+            subscriptions.index(this, subscribedEntities);
+        }
     }
 
     public void unsubscribe(final Set<String> unsubscribedEntities) {
         this.subscribedEntities.removeAll(unsubscribedEntities);
+        final Subscriptions subscriptions = this.subscriptions;
+        if (subscriptions != null) {
+            subscriptions.unindex(this, unsubscribedEntities);
+        }
+    }
+
+    /**
+     * Attaches the subscription to the {@link Subscriptions} that is indexing the subscribed entities.
+     *
+     * @param subscriptions the Subscriptions, or null if the subscription was removed
+     */
+    void attachTo(final Subscriptions subscriptions) {
+        this.subscriptions = subscriptions;
     }
 
     @Override
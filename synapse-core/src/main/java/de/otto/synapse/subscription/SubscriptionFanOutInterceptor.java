@@ -0,0 +1,73 @@
+package de.otto.synapse.subscription;
+
+import de.otto.synapse.endpoint.MessageInterceptor;
+import de.otto.synapse.message.TextMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Interceptor used to send the messages of subscribed entities to the target channels of the subscriptions.
+ * <p>
+ *     A single SubscriptionFanOutInterceptor is registered per subscribed channel. The subscriptions of a message
+ *     are looked up using the inverted index of the {@link Subscriptions}, so the costs per message do not depend on
+ *     the number of subscriptions. Messages are sent at most once per target channel, using the
+ *     {@link TargetChannelSender} of the target channel.
+ * </p>
+ */
+public class SubscriptionFanOutInterceptor implements MessageInterceptor {
+
+    private final String channelName;
+    private final Subscriptions subscriptions;
+    private final Function<String, TargetChannelSender> targetChannelSenders;
+
+    /**
+     * Creates a SubscriptionFanOutInterceptor.
+     *
+     * @param channelName the name of the subscribed channel
+     * @param subscriptions the subscriptions
+     * @param targetChannelSenders function used to get the TargetChannelSender of a target channel
+     */
+    public SubscriptionFanOutInterceptor(final String channelName,
+                                         final Subscriptions subscriptions,
+                                         final Function<String, TargetChannelSender> targetChannelSenders) {
+        this.channelName = channelName;
+        this.subscriptions = subscriptions;
+        this.targetChannelSenders = targetChannelSenders;
+    }
+
+    public String getChannelName() {
+        return channelName;
+    }
+
+    @Nullable
+    @Override
+    public TextMessage intercept(final @Nonnull TextMessage message) {
+        final Collection<Subscription> subscriptionsOfEntity = subscriptions.subscriptionsFor(channelName, message.getKey().partitionKey());
+        if (subscriptionsOfEntity.isEmpty()) {
+            return message;
+        }
+        if (subscriptionsOfEntity.size() == 1) {
+            send(subscriptionsOfEntity.iterator().next().getTargetChannelName(), message);
+        } else {
+            final Set<String> targetChannels = new HashSet<>();
+            for (final Subscription subscription : subscriptionsOfEntity) {
+                if (targetChannels.add(subscription.getTargetChannelName())) {
+                    send(subscription.getTargetChannelName(), message);
+                }
+            }
+        }
+        return message;
+    }
+
+    private void send(final String targetChannelName, final TextMessage message) {
+        final TargetChannelSender targetChannelSender = targetChannelSenders.apply(targetChannelName);
+        if (targetChannelSender != null) {
+            targetChannelSender.send(message);
+        }
+    }
+}
@@ -6,15 +6,44 @@ import de.otto.synapse.message.TextMessage;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Executor;
 
+/**
+ * Interceptor used to send the messages of the entities of a single subscription to the target channel.
+ * <p>
+ *     The interceptor is an adapter over a {@link SubscriptionFanOutInterceptor} that only knows a single
+ *     subscription. Messages are sent asynchronously without retries: they are queued and sent in
+ *     batches by a thread pool that is shared by all SubscriptionInterceptors. If the queue of the target channel is
+ *     full, the sender of the subscribed channel is blocked.
+ * </p>
+ *
+ * @deprecated The {@link SubscriptionService} is registering a single {@link SubscriptionFanOutInterceptor} per
+ * subscribed channel instead of one SubscriptionInterceptor per subscription. This class will be removed in the
+ * next release.
+ */
+@Deprecated
 public class SubscriptionInterceptor implements MessageInterceptor {
     private final Subscription subscription;
-    private final MessageSenderEndpoint targetSenderEndpoint;
+    private final SubscriptionFanOutInterceptor delegate;
 
     public SubscriptionInterceptor(final Subscription subscription,
                                    final MessageSenderEndpoint targetSenderEndpoint) {
         this.subscription = subscription;
-        this.targetSenderEndpoint = targetSenderEndpoint;
+        final TargetChannelSender targetChannelSender = new TargetChannelSender(
+                targetSenderEndpoint,
+                TargetChannelSender.DEFAULT_CAPACITY,
+                TargetChannelSender.DEFAULT_BATCH_SIZE,
+                SharedExecutor.INSTANCE,
+                0,
+                Duration.ZERO,
+                TargetChannelSender::logFailure);
+        this.delegate = new SubscriptionFanOutInterceptor(
+                subscription.getChannelName(),
+                new SingleSubscription(subscription),
+                targetChannelName -> targetChannelSender);
     }
 
     Subscription getSubscription() {
@@ -24,9 +53,31 @@ public class SubscriptionInterceptor implements MessageInterceptor {
     @Nullable
     @Override
     public TextMessage intercept(@Nonnull TextMessage message) {
-        if (subscription.getSubscribedEntities().contains(message.getKey().partitionKey())) {
-            targetSenderEndpoint.send(message);
+        return delegate.intercept(message);
+    }
+
+    /**
+     * Holder of the executor shared by all SubscriptionInterceptors, created when the first interceptor is created.
+     */
+    private static class SharedExecutor {
+        private static final Executor INSTANCE = SubscriptionService.newTargetSenderExecutor();
+    }
+
+    /**
+     * Subscriptions that are only containing a single subscription, without indexing the subscribed entities.
+     */
+    private static class SingleSubscription extends Subscriptions {
+        private final Subscription subscription;
+
+        private SingleSubscription(final Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public Collection<Subscription> subscriptionsFor(final String channelName, final String entityId) {
+            return subscription.getSubscribedEntities().contains(entityId)
+                    ? Collections.singletonList(subscription)
+                    : Collections.emptyList();
         }
-        return message;
     }
 }
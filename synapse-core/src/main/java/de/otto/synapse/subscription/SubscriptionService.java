@@ -1,27 +1,32 @@
 package de.otto.synapse.subscription;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.channel.selector.Selector;
+import de.otto.synapse.configuration.SynapseProperties;
 import de.otto.synapse.endpoint.BestMatchingSelectableComparator;
-import de.otto.synapse.endpoint.MessageInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpointFactory;
-import de.otto.synapse.message.Message;
 import de.otto.synapse.subscription.events.SubscriptionCreated;
 import de.otto.synapse.subscription.events.SubscriptionUpdated;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Stream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingSenderChannelsWith;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -30,22 +35,88 @@ import static org.slf4j.LoggerFactory.getLogger;
         MessageSenderEndpoint.class,
         SnapshotProvider.class
 })
-public class SubscriptionService {
+public class SubscriptionService implements DisposableBean {
     private static final Logger LOG = getLogger(SubscriptionService.class);
 
+    /**
+     * The maximum time to wait for the queued messages of a target channel, when the service is destroyed.
+     */
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
     private final MessageInterceptorRegistry registry;
     private final List<MessageSenderEndpointFactory> senderEndpointFactories;
     private final Map<String, SnapshotProvider> snapshotProviders;
-    private final ConcurrentMap<String, MessageSenderEndpoint> targetSenders = new ConcurrentHashMap<>();
+    private final Executor targetSenderExecutor;
+    private final ExecutorService ownedTargetSenderExecutor;
+    private final SynapseProperties.Subscription.Target targetProperties;
+    private final SynapseProperties.Subscription.Snapshot snapshotProperties;
+    private final ConcurrentMap<String, TargetChannelSender> targetSenders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SnapshotSender> snapshotSenders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SubscriptionFanOutInterceptor> fanOutInterceptors = new ConcurrentHashMap<>();
     private final Subscriptions subscriptions = new Subscriptions();
 
+    @Autowired
+    public SubscriptionService(final MessageInterceptorRegistry registry,
+                               final List<MessageSenderEndpointFactory> senderEndpointFactories,
+                               final List<SnapshotProvider> snapshotProviders,
+                               final SynapseProperties synapseProperties) {
+        this(registry, senderEndpointFactories, snapshotProviders, synapseProperties.getSubscription(), newTargetSenderExecutor(), true);
+    }
+
     public SubscriptionService(final MessageInterceptorRegistry registry,
                                final List<MessageSenderEndpointFactory> senderEndpointFactories,
                                final List<SnapshotProvider> snapshotProviders) {
+        this(registry, senderEndpointFactories, snapshotProviders, new SynapseProperties.Subscription(), newTargetSenderExecutor(), true);
+    }
+
+    /**
+     * Creates a SubscriptionService.
+     *
+     * @param registry the registry used to register the {@link SubscriptionFanOutInterceptor} of subscribed channels
+     * @param senderEndpointFactories the factories used to create the sender endpoints of target channels
+     * @param snapshotProviders the providers of snapshots for subscribed entities
+     * @param targetSenderExecutor the executor used to send the batches of messages to the target channels
+     */
+    public SubscriptionService(final MessageInterceptorRegistry registry,
+                               final List<MessageSenderEndpointFactory> senderEndpointFactories,
+                               final List<SnapshotProvider> snapshotProviders,
+                               final Executor targetSenderExecutor) {
+        this(registry, senderEndpointFactories, snapshotProviders, new SynapseProperties.Subscription(), targetSenderExecutor);
+    }
+
+    /**
+     * Creates a SubscriptionService.
+     *
+     * @param registry the registry used to register the {@link SubscriptionFanOutInterceptor} of subscribed channels
+     * @param senderEndpointFactories the factories used to create the sender endpoints of target channels
+     * @param snapshotProviders the providers of snapshots for subscribed entities
+     * @param subscriptionProperties the properties used to configure the {@link TargetChannelSender} and
+     *                               {@link SnapshotSender} of target channels
+     * @param targetSenderExecutor the executor used to send the batches of messages to the target channels. The
+     *                             executor is owned by the caller and is not shut down by {@link #destroy()}.
+     */
+    public SubscriptionService(final MessageInterceptorRegistry registry,
+                               final List<MessageSenderEndpointFactory> senderEndpointFactories,
+                               final List<SnapshotProvider> snapshotProviders,
+                               final SynapseProperties.Subscription subscriptionProperties,
+                               final Executor targetSenderExecutor) {
+        this(registry, senderEndpointFactories, snapshotProviders, subscriptionProperties, targetSenderExecutor, false);
+    }
+
+    private SubscriptionService(final MessageInterceptorRegistry registry,
+                                final List<MessageSenderEndpointFactory> senderEndpointFactories,
+                                final List<SnapshotProvider> snapshotProviders,
+                                final SynapseProperties.Subscription subscriptionProperties,
+                                final Executor targetSenderExecutor,
+                                final boolean ownsTargetSenderExecutor) {
         LOG.info("Initializing SubscriptionService for " + snapshotProviders.stream().map(SnapshotProvider::channelName).collect(toList()));
         this.registry = registry;
         this.senderEndpointFactories = senderEndpointFactories;
         this.snapshotProviders = Maps.uniqueIndex(snapshotProviders, SnapshotProvider::channelName);
+        this.targetSenderExecutor = targetSenderExecutor;
+        this.ownedTargetSenderExecutor = ownsTargetSenderExecutor ? (ExecutorService) targetSenderExecutor : null;
+        this.targetProperties = subscriptionProperties.getTarget();
+        this.snapshotProperties = subscriptionProperties.getSnapshot();
     }
 
     public void onSubscriptionCreated(final SubscriptionCreated subscriptionCreated,
@@ -69,12 +140,24 @@ public class SubscriptionService {
                         .filter(candiate -> candiate.matches(targetChannelSelector))
                         .min(new BestMatchingSelectableComparator(targetChannelSelector))
                         .orElseThrow(() -> new IllegalArgumentException("Unable to subscribe to " + subscriptionCreated.getSubscribedChannel() + " because no matching sender factory was found."));
-                return senderEndpointFactory.create(subscriptionCreated.getResponseChannel());
+                return new TargetChannelSender(
+                        senderEndpointFactory.create(subscriptionCreated.getResponseChannel()),
+                        targetProperties.getCapacity(),
+                        targetProperties.getBatchSize(),
+                        targetSenderExecutor);
+            });
+            snapshotSenders.computeIfAbsent(subscriptionCreated.getResponseChannel(), (channelName) -> new SnapshotSender(
+                    targetSenders.get(channelName).getSenderEndpoint(),
+                    snapshotProperties.getLookupSize(),
+                    snapshotProperties.getBatchSize(),
+                    snapshotProperties.getMaxBatchesInFlight(),
+                    snapshotProperties.getMaxMessagesPerSecond()));
+
+            fanOutInterceptors.computeIfAbsent(subscription.getChannelName(), (channelName) -> {
+                final SubscriptionFanOutInterceptor fanOutInterceptor = new SubscriptionFanOutInterceptor(channelName, subscriptions, targetSenders::get);
+                this.registry.register(matchingSenderChannelsWith(channelName, fanOutInterceptor));
+                return fanOutInterceptor;
             });
-
-            final MessageSenderEndpoint targetSender = targetSenders.get(subscriptionCreated.getResponseChannel());
-            final MessageInterceptor subscriptionInterceptor = new SubscriptionInterceptor(subscription, targetSender);
-            this.registry.register(matchingSenderChannelsWith(subscription.getChannelName(), subscriptionInterceptor));
 
         } catch (final IllegalArgumentException e) {
             LOG.error("unable to add a subscription to channel " + subscriptionCreated.getSubscribedChannel() + ": " + e.getMessage());
@@ -90,7 +173,9 @@ public class SubscriptionService {
         subscription.subscribe(event.getSubscribedEntities());
         subscription.unsubscribe(event.getUnsubscribedEntities());
         final SnapshotProvider snapshotProvider = snapshotProviders.get(subscription.getChannelName());
-        sendSnapshot(subscription.getSubscribedEntities(), subscription.getTargetChannelName(), snapshotProvider);
+        snapshotSenders
+                .get(subscription.getTargetChannelName())
+                .send(new ArrayList<>(subscription.getSubscribedEntities()), snapshotProvider);
     }
 
     public void onSubscriptionDeleted(final String subscriptionId) {
@@ -101,14 +186,21 @@ public class SubscriptionService {
         return subscriptions;
     }
 
-    private void sendSnapshot(final Set<String> entityIds,
-                              final String targetChannel,
-                              final SnapshotProvider snapshotProvider) {
-        final MessageSenderEndpoint messageSenderEndpoint = targetSenders.get(targetChannel);
-        entityIds.forEach(id -> {
-            Stream<? extends Message<?>> snapshot = snapshotProvider.snapshot(id);
-            messageSenderEndpoint.sendBatch(snapshot).join();
-        });
+    /**
+     * Sends the messages that are still queued for the target channels and shuts down the executor used to send
+     * them, if the executor was created by the service.
+     */
+    @Override
+    public void destroy() {
+        targetSenders.values().forEach(targetSender -> targetSender.drain(DEFAULT_DRAIN_TIMEOUT));
+        if (ownedTargetSenderExecutor != null) {
+            ownedTargetSenderExecutor.shutdown();
+        }
+    }
+
+    static ExecutorService newTargetSenderExecutor() {
+        return newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("synapse-subscription-%d").setDaemon(true).build());
     }
 
 }
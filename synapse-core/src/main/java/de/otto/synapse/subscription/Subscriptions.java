@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -14,18 +15,33 @@ import java.util.concurrent.ConcurrentMap;
 import static com.google.common.collect.Maps.newConcurrentMap;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * The subscriptions of all channels.
+ * <p>
+ *     In addition to the subscriptions per channel, an inverted index from the subscribed entities to the
+ *     subscriptions is maintained, so the subscriptions of a message can be determined without checking every
+ *     subscription of the channel.
+ * </p>
+ */
 @ThreadSafe
 public class Subscriptions {
 
     private static final Logger LOG = getLogger(Subscriptions.class);
 
     final ConcurrentMap<String, Map<String, Subscription>> subscriptions = newConcurrentMap();
+    /**
+     * channelName -&gt; entityId -&gt; subscriptionId -&gt; Subscription
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Map<String, Subscription>>> subscriptionsByEntity = newConcurrentMap();
 
     public void addIfMissing(final Subscription subscription) {
         final String channelName = subscription.getChannelName();
         LOG.info("Received subscription for channel " + channelName);
         subscriptions.putIfAbsent(channelName, Maps.newConcurrentMap());
-        subscriptions.get(channelName).putIfAbsent(subscription.getId(), subscription);
+        if (subscriptions.get(channelName).putIfAbsent(subscription.getId(), subscription) == null) {
+            subscription.attachTo(this);
+            index(subscription, subscription.getSubscribedEntities());
+        }
     }
 
     public void subscribe(final String subscriptionId, final Set<String> subscribedEntities) {
@@ -40,14 +56,27 @@ public class Subscriptions {
         return subscriptions.getOrDefault(channelName, ImmutableMap.of()).values();
     }
 
+    /**
+     * Returns the subscriptions of a channel that are subscribed to the given entity.
+     *
+     * @param channelName the name of the subscribed channel
+     * @param entityId the id of the entity, as specified by the partition key of the messages
+     * @return subscriptions of the entity, or an empty collection
+     */
+    public Collection<Subscription> subscriptionsFor(final String channelName, final String entityId) {
+        final Map<String, Map<String, Subscription>> subscriptionsOfChannel = subscriptionsByEntity.get(channelName);
+        if (subscriptionsOfChannel == null) {
+            return Collections.emptyList();
+        }
+        final Map<String, Subscription> subscriptionsOfEntity = subscriptionsOfChannel.get(entityId);
+        return subscriptionsOfEntity != null ? subscriptionsOfEntity.values() : Collections.emptyList();
+    }
+
     public Optional<Subscription> get(final String subscriptionId) {
         for (Map<String, Subscription> s : subscriptions.values()) {
-            final Optional<Subscription> optionalSubscription = s.values()
-                    .stream()
-                    .filter(subscription -> subscription.getId().equals(subscriptionId))
-                    .findAny();
-            if (optionalSubscription.isPresent()) {
-                return optionalSubscription;
+            final Subscription subscription = s.get(subscriptionId);
+            if (subscription != null) {
+                return Optional.of(subscription);
             }
         }
         return Optional.empty();
@@ -55,6 +84,33 @@ public class Subscriptions {
 
     public void remove(final String subscriptionId) {
         LOG.info("Removed subscription " + subscriptionId);
-        subscriptions.values().forEach(map -> map.remove(subscriptionId));
+        subscriptions.values().forEach(map -> {
+            final Subscription removed = map.remove(subscriptionId);
+            if (removed != null) {
+                removed.attachTo(null);
+                unindex(removed, removed.getSubscribedEntities());
+            }
+        });
+    }
+
+    void index(final Subscription subscription, final Set<String> entityIds) {
+        final ConcurrentMap<String, Map<String, Subscription>> subscriptionsOfChannel = subscriptionsByEntity
+                .computeIfAbsent(subscription.getChannelName(), channelName -> newConcurrentMap());
+        entityIds.forEach(entityId -> subscriptionsOfChannel.compute(entityId, (id, subscriptionsOfEntity) -> {
+            final Map<String, Subscription> result = subscriptionsOfEntity != null ? subscriptionsOfEntity : newConcurrentMap();
+            result.put(subscription.getId(), subscription);
+            return result;
+        }));
+    }
+
+    void unindex(final Subscription subscription, final Set<String> entityIds) {
+        final ConcurrentMap<String, Map<String, Subscription>> subscriptionsOfChannel = subscriptionsByEntity
+                .get(subscription.getChannelName());
+        if (subscriptionsOfChannel != null) {
+            entityIds.forEach(entityId -> subscriptionsOfChannel.computeIfPresent(entityId, (id, subscriptionsOfEntity) -> {
+                subscriptionsOfEntity.remove(subscription.getId());
+                return subscriptionsOfEntity.isEmpty() ? null : subscriptionsOfEntity;
+            }));
+        }
     }
 }
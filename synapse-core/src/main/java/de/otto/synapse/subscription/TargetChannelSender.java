@@ -0,0 +1,269 @@
+package de.otto.synapse.subscription;
+
+import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
+import de.otto.synapse.message.TextMessage;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Sends the messages of subscribed entities to the target channel of one or more {@link Subscription subscriptions}.
+ * <p>
+ *     Messages are added to a bounded queue and sent in micro-batches using
+ *     {@link MessageSenderEndpoint#sendBatch(java.util.stream.Stream)}. At most one batch per target channel is
+ *     in flight, so the order of the messages is kept. If the queue is full, because the target channel is not able
+ *     to keep up with the subscribed channel, senders of the subscribed channel are blocked until the queue has free
+ *     capacity. Other target channels are not affected.
+ * </p>
+ * <p>
+ *     Batches that could not be sent are retried a limited number of times, using an exponential backoff. While a
+ *     batch is retried, no other batch is sent to the target channel, so the queue of the target channel is filling
+ *     up and senders of the subscribed channel are eventually blocked. If a batch is still failing after the last
+ *     retry, the batch is dropped and reported to the {@link FailureListener}.
+ * </p>
+ */
+@ThreadSafe
+public class TargetChannelSender {
+
+    private static final Logger LOG = getLogger(TargetChannelSender.class);
+
+    /**
+     * The default maximum number of messages per batch. This is the maximum number of records of a Kinesis
+     * PutRecords request.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofMillis(100);
+
+    /**
+     * Listener that is informed about batches of messages that could not be sent to the target channel.
+     */
+    @FunctionalInterface
+    public interface FailureListener {
+
+        /**
+         * Called after the last retry of a batch has failed. The messages of the batch are dropped afterwards.
+         *
+         * @param targetChannelName the name of the target channel
+         * @param messages the messages of the failed batch
+         * @param cause the exception of the last attempt to send the batch
+         */
+        void onFailure(String targetChannelName, List<TextMessage> messages, Throwable cause);
+    }
+
+    private final MessageSenderEndpoint senderEndpoint;
+    private final BlockingQueue<TextMessage> queue;
+    private final int batchSize;
+    private final Executor executor;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final FailureListener failureListener;
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Creates a TargetChannelSender that is retrying failed batches {@link #DEFAULT_MAX_RETRIES} times and logs
+     * batches that could not be sent.
+     *
+     * @param senderEndpoint the MessageSenderEndpoint of the target channel
+     * @param capacity the maximum number of queued messages
+     * @param batchSize the maximum number of messages per batch
+     * @param executor the executor used to send the batches
+     */
+    public TargetChannelSender(final @Nonnull MessageSenderEndpoint senderEndpoint,
+                               final int capacity,
+                               final int batchSize,
+                               final @Nonnull Executor executor) {
+        this(senderEndpoint, capacity, batchSize, executor, DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF, TargetChannelSender::logFailure);
+    }
+
+    /**
+     * Creates a TargetChannelSender.
+     *
+     * @param senderEndpoint the MessageSenderEndpoint of the target channel
+     * @param capacity the maximum number of queued messages
+     * @param batchSize the maximum number of messages per batch
+     * @param executor the executor used to send the batches
+     * @param maxRetries the maximum number of retries of a failed batch
+     * @param retryBackoff the time to wait before the first retry of a failed batch. The time is doubled for every
+     *                     further retry.
+     * @param failureListener the listener informed about batches that could not be sent
+     */
+    public TargetChannelSender(final @Nonnull MessageSenderEndpoint senderEndpoint,
+                               final int capacity,
+                               final int batchSize,
+                               final @Nonnull Executor executor,
+                               final int maxRetries,
+                               final @Nonnull Duration retryBackoff,
+                               final @Nonnull FailureListener failureListener) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batchSize must be greater than 0");
+        }
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.senderEndpoint = senderEndpoint;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.executor = executor;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.failureListener = failureListener;
+    }
+
+    public MessageSenderEndpoint getSenderEndpoint() {
+        return senderEndpoint;
+    }
+
+    /**
+     * Adds a message to the queue of the target channel, blocking if the queue is full.
+     *
+     * @param message the message
+     */
+    public void send(final @Nonnull TextMessage message) {
+        if (!queue.offer(message)) {
+            LOG.debug("Queue of target channel {} is full, waiting for free capacity", senderEndpoint.getChannelName());
+            try {
+                queue.put(message);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedMessages.increment();
+                LOG.warn("Interrupted while sending message to target channel {}", senderEndpoint.getChannelName());
+                return;
+            }
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Returns the number of queued messages that are not yet sent.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.sum();
+    }
+
+    public long getFailedMessages() {
+        return failedMessages.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Waits until all queued messages are sent to the target channel, or the timeout has elapsed.
+     *
+     * @param timeout the maximum time to wait
+     * @return true, if all queued messages are sent, false otherwise
+     */
+    public boolean drain(final @Nonnull Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        scheduleFlush();
+        try {
+            while (!queue.isEmpty() || flushing.get()) {
+                if (System.nanoTime() - deadline >= 0) {
+                    LOG.warn("Timeout while draining {} messages to target channel {}", queue.size(), senderEndpoint.getChannelName());
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    private void scheduleFlush() {
+        if (flushing.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        final List<TextMessage> batch = new ArrayList<>(batchSize);
+        while (true) {
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                flushing.set(false);
+                // messages added after draining, but before resetting the flag, are not yet scheduled:
+                if (queue.isEmpty() || !flushing.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            sendWithRetries(batch);
+            batches.increment();
+            batch.clear();
+        }
+    }
+
+    private void sendWithRetries(final List<TextMessage> batch) {
+        long backoffMillis = retryBackoff.toMillis();
+        for (int attempt = 0; ; ++attempt) {
+            try {
+                senderEndpoint.sendBatch(batch.stream()).join();
+                sentMessages.add(batch.size());
+                return;
+            } catch (final RuntimeException e) {
+                if (attempt >= maxRetries || !sleep(backoffMillis)) {
+                    failedMessages.add(batch.size());
+                    notifyFailure(batch, e);
+                    return;
+                }
+                LOG.warn("Failed to send {} messages to target channel {}, retrying in {}ms: {}", batch.size(), senderEndpoint.getChannelName(), backoffMillis, e.getMessage());
+                retries.increment();
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private boolean sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void notifyFailure(final List<TextMessage> batch, final Throwable cause) {
+        try {
+            failureListener.onFailure(senderEndpoint.getChannelName(), new ArrayList<>(batch), cause);
+        } catch (final RuntimeException e) {
+            LOG.error("FailureListener of target channel {} failed: {}", senderEndpoint.getChannelName(), e.getMessage(), e);
+        }
+    }
+
+    static void logFailure(final String targetChannelName,
+                           final List<TextMessage> messages,
+                           final Throwable cause) {
+        LOG.error("Failed to send {} messages to target channel {}: {}", messages.size(), targetChannelName, cause.getMessage(), cause);
+    }
+}
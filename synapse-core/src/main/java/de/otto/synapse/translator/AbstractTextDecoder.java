@@ -1,27 +1,40 @@
 package de.otto.synapse.translator;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
 
-import static de.otto.synapse.message.Header.copyOf;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyMap;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Base class of {@link Decoder decoders} that are decoding the string- or byte-representation of messages.
+ * <p>
+ *     The {@link MessageFormat} of every message is detected separately, so channels containing a mix of
+ *     V1, V2 and V3 messages are supported.
+ * </p>
+ * <p>
+ *     Messages in {@link MessageFormat#V2} format are decoded using a streaming JSON parser: key and header
+ *     attributes are read token by token, and the payload is sliced out of the input without building and
+ *     re-serializing a JSON tree.
+ * </p>
+ *
+ * @param <T> the type of the decoded records
+ */
 public abstract class AbstractTextDecoder<T> implements Decoder<T> {
 
     private static final Logger LOG = getLogger(AbstractTextDecoder.class);
 
-    private static final TypeReference<Map<String, String>> MAP_TYPE_REFERENCE = new TypeReference<Map<String, String>>() {};
-
     protected TextMessage decode(final Key prototypeKey,
                                  final Header prototypeHeader,
                                  final String body) {
@@ -29,67 +42,194 @@ public abstract class AbstractTextDecoder<T> implements Decoder<T> {
             case V1:
                 return TextMessage.of(prototypeKey, prototypeHeader, body);
             case V2:
-                try {
-                    final JsonNode json = parseRecordBody(body);
+                try (final JsonParser parser = currentObjectMapper().getFactory().createParser(body)) {
+                    final V2Message v2Message = parseV2Message(parser);
                     return TextMessage.of(
-                            keyFrom(json).orElse(prototypeKey),
-                            copyOf(prototypeHeader)
-                                    .withAttributes(attributesFrom(json))
-                                    .build(),
-                            payloadFrom(json));
-                } catch (final RuntimeException e) {
+                            v2Message.keyOr(prototypeKey),
+                            prototypeHeader.withAttributes(v2Message.attributes),
+                            v2Message.hasPayloadSpan()
+                                    ? body.substring(v2Message.payloadStart, v2Message.payloadEnd)
+                                    : v2Message.payload);
+                } catch (final IOException | RuntimeException e) {
                     LOG.error("Exception caught while parsing record {}: {}", body, e.getMessage());
                     return TextMessage.of(prototypeKey, prototypeHeader, body);
                 }
+            case V3:
+                try {
+                    return BinaryMessageCodec.decode(prototypeKey, prototypeHeader, body);
+                } catch (final RuntimeException e) {
+                    LOG.error("Exception caught while decoding record {}: {}", body, e.getMessage());
+                    return TextMessage.of(prototypeKey, prototypeHeader, body);
+                }
             default:
                 throw new IllegalStateException("Unsupported message format: " + body);
         }
     }
 
-    private static Map<String, String> attributesFrom(final JsonNode json) {
-        final JsonNode headersJson = json.get(MessageFormat.SYNAPSE_MSG_HEADERS);
-        if (headersJson != null) {
-            return currentObjectMapper().convertValue(
-                    headersJson,
-                    MAP_TYPE_REFERENCE
-            );
-        } else {
-            return emptyMap();
+    /**
+     * Decodes a UTF-8 encoded message body.
+     * <p>
+     *     Messages in {@link MessageFormat#V1} format are keeping the payload as bytes, so the payload is only
+     *     decoded into a String, if it is actually accessed. The same applies to JSON object and array payloads
+     *     of messages in {@link MessageFormat#V2} format, and to the payloads of messages in
+     *     {@link MessageFormat#V3} format.
+     * </p>
+     *
+     * @param prototypeKey the key used, if the body does not contain a key
+     * @param prototypeHeader the header that is extended by the header attributes contained in the body
+     * @param body array containing the UTF-8 encoded body of the message
+     * @param offset the offset of the body in {@code body}
+     * @param length the number of bytes of the body
+     * @return TextMessage
+     */
+    protected TextMessage decode(final Key prototypeKey,
+                                 final Header prototypeHeader,
+                                 final byte[] body,
+                                 final int offset,
+                                 final int length) {
+        switch (MessageFormat.versionOf(body, offset, length)) {
+            case V1:
+                return TextMessage.of(prototypeKey, prototypeHeader, body, offset, length);
+            case V2:
+                try (final JsonParser parser = currentObjectMapper().getFactory().createParser(body, offset, length)) {
+                    final V2Message v2Message = parseV2Message(parser);
+                    final Key key = v2Message.keyOr(prototypeKey);
+                    final Header header = prototypeHeader.withAttributes(v2Message.attributes);
+                    return v2Message.hasPayloadSpan()
+                            ? TextMessage.of(key, header, body, offset + v2Message.payloadStart, v2Message.payloadEnd - v2Message.payloadStart)
+                            : TextMessage.of(key, header, v2Message.payload);
+                } catch (final IOException | RuntimeException e) {
+                    LOG.error("Exception caught while parsing record {}: {}", new String(body, offset, length, UTF_8), e.getMessage());
+                    return TextMessage.of(prototypeKey, prototypeHeader, body, offset, length);
+                }
+            case V3:
+                try {
+                    return BinaryMessageCodec.isBinaryMessage(body, offset, length)
+                            ? BinaryMessageCodec.decode(prototypeKey, prototypeHeader, body, offset, length)
+                            : BinaryMessageCodec.decode(prototypeKey, prototypeHeader, new String(body, offset, length, UTF_8));
+                } catch (final RuntimeException e) {
+                    LOG.error("Exception caught while decoding record: {}", e.getMessage());
+                    return TextMessage.of(prototypeKey, prototypeHeader, body, offset, length);
+                }
+            default:
+                throw new IllegalStateException("Unsupported message format: " + new String(body, offset, length, UTF_8));
         }
     }
 
-    private static Optional<Key> keyFrom(final JsonNode json) {
-        final JsonNode keyNode = json.get(MessageFormat.SYNAPSE_MSG_KEY);
-        if (keyNode == null || keyNode.isNull()) {
-            return Optional.empty();
-        } else if (keyNode.isObject()) {
-            final String partitionKey = keyNode.get(MessageFormat.SYNAPSE_MSG_PARTITIONKEY).textValue();
-            final String compactionKey = keyNode.get(MessageFormat.SYNAPSE_MSG_COMPACTIONKEY).textValue();
-            return Optional.of(Key.of(partitionKey, compactionKey));
+    private static V2Message parseV2Message(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalStateException("Expected JSON object but found " + parser.currentToken());
+        }
+        final V2Message v2Message = new V2Message();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case MessageFormat.SYNAPSE_MSG_KEY:
+                    v2Message.key = keyFrom(parser, token);
+                    break;
+                case MessageFormat.SYNAPSE_MSG_HEADERS:
+                    v2Message.attributes = attributesFrom(parser, token);
+                    break;
+                case MessageFormat.SYNAPSE_MSG_PAYLOAD:
+                    payloadFrom(parser, token, v2Message);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return v2Message;
+    }
+
+    private static Key keyFrom(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (token == JsonToken.START_OBJECT) {
+            String partitionKey = null;
+            String compactionKey = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (MessageFormat.SYNAPSE_MSG_PARTITIONKEY.equals(fieldName)) {
+                    partitionKey = parser.getValueAsString();
+                } else if (MessageFormat.SYNAPSE_MSG_COMPACTIONKEY.equals(fieldName)) {
+                    compactionKey = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (partitionKey == null || compactionKey == null) {
+                throw new IllegalStateException("Incomplete message key: partitionKey=" + partitionKey + ", compactionKey=" + compactionKey);
+            }
+            return Key.of(partitionKey, compactionKey);
         } else {
-            final String msg = "Unexpected json node containing " + json + ": ";
+            final String msg = "Unexpected json token " + token + " in " + MessageFormat.SYNAPSE_MSG_KEY;
             LOG.error(msg);
             throw new IllegalStateException(msg);
         }
     }
 
-    private static String payloadFrom(final JsonNode json) {
-        final JsonNode payloadJson = json.get(MessageFormat.SYNAPSE_MSG_PAYLOAD);
-        if (payloadJson == null || payloadJson.isNull()) {
-            return null;
-        } else if (payloadJson.isObject()) {
-            return payloadJson.toString();
+    private static Map<String, String> attributesFrom(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return emptyMap();
+        } else if (token == JsonToken.START_OBJECT) {
+            final Map<String, String> attributes = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                final JsonToken valueToken = parser.nextToken();
+                if (valueToken.isStructStart()) {
+                    throw new IllegalStateException("Unexpected json token " + valueToken + " in header attribute " + name);
+                }
+                if (valueToken != JsonToken.VALUE_NULL) {
+                    attributes.put(name, parser.getText());
+                }
+            }
+            return attributes;
         } else {
-            return payloadJson.asText();
+            throw new IllegalStateException("Unexpected json token " + token + " in " + MessageFormat.SYNAPSE_MSG_HEADERS);
         }
     }
 
-    private static JsonNode parseRecordBody(String body) {
-        try {
-            return currentObjectMapper().readTree(body);
-        } catch (IOException e) {
-            LOG.error("Error parsing body={} from Kinesis record: {}", body, e.getMessage());
-            throw new IllegalStateException(e.getMessage(), e);
+    private static void payloadFrom(final JsonParser parser,
+                                    final JsonToken token,
+                                    final V2Message v2Message) throws IOException {
+        if (token.isStructStart()) {
+            v2Message.payloadStart = offsetOf(parser.getTokenLocation());
+            parser.skipChildren();
+            v2Message.payloadEnd = offsetOf(parser.getCurrentLocation());
+            v2Message.payload = null;
+        } else {
+            v2Message.payloadStart = -1;
+            v2Message.payload = token == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+    }
+
+    /**
+     * Returns the offset of a location relative to the start of the parsed input: byte offset for byte-based
+     * parsers, char offset for char-based parsers.
+     */
+    private static int offsetOf(final JsonLocation location) {
+        final long byteOffset = location.getByteOffset();
+        return (int) (byteOffset >= 0 ? byteOffset : location.getCharOffset());
+    }
+
+    /**
+     * The parts of a message in V2 format. JSON object or array payloads are represented by their span in the input.
+     */
+    private static final class V2Message {
+        private Key key;
+        private Map<String, String> attributes = emptyMap();
+        private String payload;
+        private int payloadStart = -1;
+        private int payloadEnd = -1;
+
+        Key keyOr(final Key prototypeKey) {
+            return key != null ? key : prototypeKey;
+        }
+
+        boolean hasPayloadSpan() {
+            return payloadStart >= 0;
         }
     }
 }
@@ -0,0 +1,308 @@
+package de.otto.synapse.translator;
+
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes and decodes messages in {@link MessageFormat#V3} format.
+ * <p>
+ *     The binary representation of a message is a length-prefixed envelope. All lengths and counts are encoded
+ *     as unsigned varints, all strings are UTF-8 encoded:
+ * </p>
+ * <pre>
+ *     magic            4 bytes: 0x00 'S' 'Y' 'N'
+ *     version          1 byte:  0x03
+ *     flags            1 byte:  bit 0: payload is deflated, bit 1: payload is null
+ *     partitionKey     length + bytes
+ *     compactionKey    length + bytes
+ *     attributes       count + (name length + bytes, value length + bytes) per attribute
+ *     payload          length + bytes, or - if deflated - uncompressed length + compressed length + bytes
+ * </pre>
+ * <p>
+ *     Payloads of at least {@link #COMPRESSION_THRESHOLD} bytes are deflated, if this actually reduces the size
+ *     of the payload. When decoding, the uncompressed length of a deflated payload is checked before any memory
+ *     is allocated: messages claiming more than {@link #MAX_PAYLOAD_SIZE} bytes, or more than the deflate format
+ *     is able to produce from the compressed bytes, are rejected.
+ * </p>
+ * <p>
+ *     Transports that only support text, like SQS or Kafka using String serializers, are using the Base64
+ *     encoded binary representation. Because of the fixed magic bytes, the text representation is always
+ *     starting with {@link #TEXT_PREFIX}.
+ * </p>
+ */
+public final class BinaryMessageCodec {
+
+    /** Minimum number of payload bytes required to try compressing the payload. */
+    public static final int COMPRESSION_THRESHOLD = 1024;
+
+    /** Maximum number of bytes of an uncompressed payload accepted when decoding deflated payloads. */
+    public static final int MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
+    /** Maximum compression ratio of the deflate format. */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    static final String TEXT_PREFIX = "AFNZTgM";
+
+    private static final byte[] MAGIC = {0x00, 'S', 'Y', 'N'};
+    private static final byte VERSION = 0x03;
+    private static final int FLAG_DEFLATED = 0x01;
+    private static final int FLAG_NULL_PAYLOAD = 0x02;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private BinaryMessageCodec() {
+    }
+
+    /**
+     * Returns the binary representation of the message.
+     *
+     * @param message the message
+     * @return binary representation of the message in V3 format
+     */
+    public static byte[] encode(final Message<String> message) {
+        final byte[] payload = message.getPayload() != null
+                ? message.getPayload().getBytes(UTF_8)
+                : null;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(payload != null ? payload.length + 128 : 128);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        final byte[] compressed = payload != null && payload.length >= COMPRESSION_THRESHOLD
+                ? deflate(payload)
+                : null;
+        out.write(payload == null ? FLAG_NULL_PAYLOAD : compressed != null ? FLAG_DEFLATED : 0);
+        writeString(out, message.getKey().partitionKey());
+        writeString(out, message.getKey().compactionKey());
+        final Map<String, String> attributes = message.getHeader().getAll();
+        writeVarInt(out, attributes.size());
+        attributes.forEach((name, value) -> {
+            writeString(out, name);
+            writeString(out, value);
+        });
+        if (compressed != null) {
+            writeVarInt(out, payload.length);
+            writeBytes(out, compressed);
+        } else if (payload != null) {
+            writeBytes(out, payload);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the text representation of the message: the Base64 encoded binary representation.
+     *
+     * @param message the message
+     * @return text representation of the message in V3 format
+     */
+    public static String encodeToString(final Message<String> message) {
+        return Base64.getEncoder().encodeToString(encode(message));
+    }
+
+    /**
+     * Decodes the binary representation of a message.
+     *
+     * @param prototypeKey the key used, if the message has an empty key
+     * @param prototypeHeader the header that is extended by the header attributes of the message
+     * @param bytes array containing the binary representation of the message
+     * @param offset the offset of the message in {@code bytes}
+     * @param length the number of bytes of the message
+     * @return TextMessage
+     * @throws IllegalArgumentException if the bytes are not a valid message in V3 format
+     */
+    public static TextMessage decode(final Key prototypeKey,
+                                     final Header prototypeHeader,
+                                     final byte[] bytes,
+                                     final int offset,
+                                     final int length) {
+        if (!isBinaryMessage(bytes, offset, length)) {
+            throw new IllegalArgumentException("Not a message in V3 format");
+        }
+        final Reader reader = new Reader(bytes, offset + MAGIC.length + 2, offset + length);
+        final int flags = bytes[offset + MAGIC.length + 1];
+        final String partitionKey = reader.readString();
+        final String compactionKey = reader.readString();
+        final Key key = partitionKey.isEmpty() && compactionKey.isEmpty()
+                ? prototypeKey
+                : Key.of(partitionKey, compactionKey);
+        final int attributeCount = reader.readVarInt();
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < attributeCount; ++i) {
+            attributes.put(reader.readString(), reader.readString());
+        }
+        final Header header = prototypeHeader.withAttributes(attributes);
+        if ((flags & FLAG_NULL_PAYLOAD) != 0) {
+            return TextMessage.of(key, header, null);
+        } else if ((flags & FLAG_DEFLATED) != 0) {
+            final int uncompressedLength = reader.readVarInt();
+            final int compressedLength = reader.readVarInt();
+            final byte[] payload = inflate(bytes, reader.skip(compressedLength), compressedLength, uncompressedLength);
+            return TextMessage.of(key, header, payload, 0, payload.length);
+        } else {
+            final int payloadLength = reader.readVarInt();
+            final int payloadOffset = reader.skip(payloadLength);
+            return payloadLength > 0
+                    ? TextMessage.of(key, header, bytes, payloadOffset, payloadLength)
+                    : TextMessage.of(key, header, "");
+        }
+    }
+
+    /**
+     * Decodes the text representation of a message.
+     *
+     * @param prototypeKey the key used, if the message has an empty key
+     * @param prototypeHeader the header that is extended by the header attributes of the message
+     * @param text the text representation of the message
+     * @return TextMessage
+     * @throws IllegalArgumentException if the text is not a valid message in V3 format
+     */
+    public static TextMessage decode(final Key prototypeKey,
+                                     final Header prototypeHeader,
+                                     final String text) {
+        final byte[] bytes = Base64.getDecoder().decode(text.trim());
+        return decode(prototypeKey, prototypeHeader, bytes, 0, bytes.length);
+    }
+
+    static boolean isBinaryMessage(final byte[] bytes, final int offset, final int length) {
+        if (length < MAGIC.length + 2) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; ++i) {
+            if (bytes[offset + i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return bytes[offset + MAGIC.length] == VERSION;
+    }
+
+    static boolean isTextMessage(final CharSequence message) {
+        if (message.length() < TEXT_PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < TEXT_PREFIX.length(); ++i) {
+            if (message.charAt(i) != TEXT_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] deflate(final byte[] payload) {
+        final Deflater deflater = DEFLATER.get();
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            final byte[] buffer = new byte[payload.length];
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < buffer.length) {
+                compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+            }
+            return deflater.finished() && compressedLength < payload.length
+                    ? Arrays.copyOf(buffer, compressedLength)
+                    : null;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private static byte[] inflate(final byte[] bytes, final int offset, final int length, final int uncompressedLength) {
+        if (uncompressedLength > MAX_PAYLOAD_SIZE || uncompressedLength > (long) length * MAX_DEFLATE_RATIO) {
+            throw new IllegalArgumentException("Illegal uncompressed length " + uncompressedLength + " of compressed payload with " + length + " bytes");
+        }
+        final Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(bytes, offset, length);
+            final byte[] payload = new byte[uncompressedLength];
+            int inflated = 0;
+            while (inflated < uncompressedLength) {
+                final int count = inflater.inflate(payload, inflated, uncompressedLength - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed payload");
+                }
+                inflated += count;
+            }
+            return payload;
+        } catch (final DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed payload: " + e.getMessage(), e);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    private static void writeString(final ByteArrayOutputStream out, final String value) {
+        writeBytes(out, value.getBytes(UTF_8));
+    }
+
+    private static void writeBytes(final ByteArrayOutputStream out, final byte[] value) {
+        writeVarInt(out, value.length);
+        out.write(value, 0, value.length);
+    }
+
+    private static void writeVarInt(final ByteArrayOutputStream out, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+
+        private Reader(final byte[] bytes, final int pos, final int end) {
+            this.bytes = bytes;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= end) {
+                    throw new IllegalArgumentException("Truncated message in V3 format");
+                }
+                final byte b = bytes[pos++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Illegal length in message in V3 format");
+                    }
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in message in V3 format");
+        }
+
+        String readString() {
+            final int length = readVarInt();
+            return new String(bytes, skip(length), length, UTF_8);
+        }
+
+        /**
+         * Skips {@code length} bytes and returns the position of the first skipped byte.
+         */
+        int skip(final int length) {
+            if (length > end - pos) {
+                throw new IllegalArgumentException("Truncated message in V3 format");
+            }
+            final int start = pos;
+            pos += length;
+            return start;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package de.otto.synapse.translator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * {@link PayloadCodec} using an {@code ObjectReader} and {@code ObjectWriter} that are created once for the payload
+ * type, so the root-level type resolution and serializer lookups of the {@code ObjectMapper} are not repeated for
+ * every payload.
+ * <p>
+ *     Alternative Jackson-based codecs, like Afterburner or Blackbird, are used by registering the module in an
+ *     {@code ObjectMapper} that is passed to {@link ObjectMappers#overrideObjectMapper(ObjectMapper)}.
+ * </p>
+ *
+ * @param <T> the type of the payload
+ */
+public class JacksonPayloadCodec<T> implements PayloadCodec<T> {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public JacksonPayloadCodec(final ObjectMapper objectMapper,
+                               final Class<T> payloadType) {
+        this.reader = objectMapper.readerFor(payloadType);
+        this.writer = objectMapper.writerFor(payloadType);
+    }
+
+    @Override
+    public T read(final @Nonnull String payload) throws IOException {
+        return reader.readValue(payload);
+    }
+
+    @Override
+    public T read(final @Nonnull byte[] utf8Payload, final int offset, final int length) throws IOException {
+        return reader.readValue(utf8Payload, offset, length);
+    }
+
+    @Nonnull
+    @Override
+    public String write(final @Nonnull T payload) throws IOException {
+        return writer.writeValueAsString(payload);
+    }
+}
@@ -1,7 +1,5 @@
 package de.otto.synapse.translator;
 
-import java.util.regex.Pattern;
-
 /**
  * Identifies the format used to encode or decode messages.
  */
@@ -10,7 +8,14 @@ public enum MessageFormat {
     /** String representation of the message only contains the message payload; no header attributes supported. */
     V1,
     /** String representation of the message contains version, header attributes and payload in JSON format */
-    V2;
+    V2,
+    /**
+     * Binary representation of the message contains version, key, header attributes and optionally compressed
+     * payload in a length-prefixed envelope. String representations are Base64 encoded.
+     *
+     * @see BinaryMessageCodec
+     */
+    V3;
 
     public static final String SYNAPSE_MSG_FORMAT = "_synapse_msg_format";
     public static final String SYNAPSE_MSG_KEY = "_synapse_msg_key";
@@ -19,7 +24,8 @@ public enum MessageFormat {
     public static final String SYNAPSE_MSG_HEADERS = "_synapse_msg_headers";
     public static final String SYNAPSE_MSG_PAYLOAD = "_synapse_msg_payload";
 
-    private static final Pattern V2_PATTERN = Pattern.compile("\\{\\s*\"" + SYNAPSE_MSG_FORMAT + "\"\\s*:\\s*\"v2\".+");
+    private static final String V2_FORMAT_FIELD = "\"" + SYNAPSE_MSG_FORMAT + "\"";
+    private static final String V2_FORMAT_VALUE = "\"v2\"";
 
     /**
      * Returns the default message format used by Synapse to encode messages.
@@ -32,16 +38,118 @@ public enum MessageFormat {
 
     /**
      * Determines the {@code MessageFormat} from the string representation of some message.
+     * <p>
+     *     Only the first characters of the message are inspected: messages starting with
+     *     <code>{"_synapse_msg_format":"v2"</code>, followed by the rest of the message, are in
+     *     {@link #V2} format. Base64 encoded messages in {@link #V3} format are identified by the
+     *     encoded magic bytes at the beginning of the message.
+     * </p>
      *
      * @param message the string representation of some message
      * @return MessageFormat of the message
      */
     public static MessageFormat versionOf(final String message) {
-        if (message != null) {
-            return V2_PATTERN.matcher(message).matches()
-                    ? V2
-                    : V1;
-        } else {
+        if (message == null) {
+            return V1;
+        }
+        return BinaryMessageCodec.isTextMessage(message)
+                ? V3
+                : sniffVersion(message);
+    }
+
+    /**
+     * Determines the {@code MessageFormat} from the UTF-8 encoded or binary representation of some message.
+     * <p>
+     *     Like {@link #versionOf(String)}, only the first bytes of the message are inspected, so the format is
+     *     determined without decoding the message into a String.
+     * </p>
+     *
+     * @param utf8Message array containing the UTF-8 encoded representation of some message
+     * @param offset the offset of the message in {@code utf8Message}
+     * @param length the number of bytes of the message
+     * @return MessageFormat of the message
+     */
+    public static MessageFormat versionOf(final byte[] utf8Message, final int offset, final int length) {
+        if (utf8Message == null) {
+            return V1;
+        }
+        if (BinaryMessageCodec.isBinaryMessage(utf8Message, offset, length)) {
+            return V3;
+        }
+        final CharSequence message = new AsciiCharSequence(utf8Message, offset, length);
+        return BinaryMessageCodec.isTextMessage(message)
+                ? V3
+                : sniffVersion(message);
+    }
+
+    private static MessageFormat sniffVersion(final CharSequence message) {
+        final int end = message.length();
+        int pos = skipWhitespaces(message, 0);
+        if (pos >= end || message.charAt(pos) != '{') {
+            return V1;
+        }
+        pos = skipWhitespaces(message, pos + 1);
+        if (!regionMatches(message, pos, V2_FORMAT_FIELD)) {
+            return V1;
+        }
+        pos = skipWhitespaces(message, pos + V2_FORMAT_FIELD.length());
+        if (pos >= end || message.charAt(pos) != ':') {
             return V1;
         }
-    }}
+        pos = skipWhitespaces(message, pos + 1);
+        return regionMatches(message, pos, V2_FORMAT_VALUE) && pos + V2_FORMAT_VALUE.length() < end
+                ? V2
+                : V1;
+    }
+
+    private static int skipWhitespaces(final CharSequence message, final int from) {
+        int pos = from;
+        while (pos < message.length() && Character.isWhitespace(message.charAt(pos))) {
+            ++pos;
+        }
+        return pos;
+    }
+
+    private static boolean regionMatches(final CharSequence message, final int from, final String expected) {
+        if (message.length() - from < expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); ++i) {
+            if (message.charAt(from + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * View of a byte array as a sequence of chars, used to sniff the ASCII prefix of UTF-8 encoded messages.
+     * Bytes that are not ASCII characters are mapped to chars that do not match any ASCII character.
+     */
+    private static final class AsciiCharSequence implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private AsciiCharSequence(final byte[] bytes, final int offset, final int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) bytes[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new AsciiCharSequence(bytes, offset + start, end - start);
+        }
+    }
+}
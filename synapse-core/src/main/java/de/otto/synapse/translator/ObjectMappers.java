@@ -53,10 +53,14 @@ public final class ObjectMappers {
      * <p>Handle with care as there is a chance to break message
      * passing across Synapse services if configured in an unexpected way.</p>
      *
+     * <p>The {@link PayloadCodec PayloadCodecs} cached by the {@link PayloadCodecRegistry} are reset, so they are
+     * re-created using the new ObjectMapper.</p>
+     *
      * @param objectMapper the ObjectMapper used to serialize and deserialize messages
      */
     public static synchronized void overrideObjectMapper(final ObjectMapper objectMapper) {
         SYNAPSE_OBJECT_MAPPER.set(requireNonNull(objectMapper));
+        PayloadCodecRegistry.reset();
     }
 
     private ObjectMappers() {
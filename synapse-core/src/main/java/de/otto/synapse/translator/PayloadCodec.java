@@ -0,0 +1,53 @@
+package de.otto.synapse.translator;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads and writes message payloads of a single payload type.
+ * <p>
+ *     PayloadCodecs are created and cached by the {@link PayloadCodecRegistry}. Implementations must be thread-safe.
+ * </p>
+ *
+ * @param <T> the type of the payload
+ */
+public interface PayloadCodec<T> {
+
+    /**
+     * Reads a payload from its JSON representation.
+     *
+     * @param payload the JSON representation of the payload
+     * @return payload
+     * @throws IOException if the payload can not be read
+     */
+    T read(@Nonnull String payload) throws IOException;
+
+    /**
+     * Reads a payload from its UTF-8 encoded JSON representation.
+     * <p>
+     *     The default implementation is decoding the bytes into a String. Implementations should override this
+     *     method, if they are able to read the payload directly from the bytes.
+     * </p>
+     *
+     * @param utf8Payload array containing the UTF-8 encoded JSON representation of the payload
+     * @param offset the offset of the payload in {@code utf8Payload}
+     * @param length the number of bytes of the payload
+     * @return payload
+     * @throws IOException if the payload can not be read
+     */
+    default T read(@Nonnull byte[] utf8Payload, int offset, int length) throws IOException {
+        return read(new String(utf8Payload, offset, length, UTF_8));
+    }
+
+    /**
+     * Writes the JSON representation of a payload.
+     *
+     * @param payload the payload
+     * @return JSON representation of the payload
+     * @throws IOException if the payload can not be written
+     */
+    @Nonnull
+    String write(@Nonnull T payload) throws IOException;
+}
@@ -0,0 +1,27 @@
+package de.otto.synapse.translator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Factory used by the {@link PayloadCodecRegistry} to create the {@link PayloadCodec} of a payload type.
+ * <p>
+ *     The default factory is creating {@link JacksonPayloadCodec JacksonPayloadCodecs}. Custom factories can be
+ *     configured using {@link PayloadCodecRegistry#overrideCodecFactory(PayloadCodecFactory)}, for example to use
+ *     generated serializers for some payload types.
+ * </p>
+ */
+public interface PayloadCodecFactory {
+
+    /**
+     * Creates the PayloadCodec of a payload type.
+     *
+     * @param objectMapper the ObjectMapper currently used by Synapse
+     * @param payloadType the type of the payload
+     * @param <T> the type of the payload
+     * @return PayloadCodec
+     */
+    @Nonnull
+    <T> PayloadCodec<T> create(@Nonnull ObjectMapper objectMapper, @Nonnull Class<T> payloadType);
+}
@@ -0,0 +1,133 @@
+package de.otto.synapse.translator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Manages the {@link PayloadCodec PayloadCodecs} used by Synapse to read and write message payloads.
+ * <p>
+ *     Codecs are created once per payload type using the {@link PayloadCodecFactory} and the
+ *     {@link ObjectMappers#currentObjectMapper() current ObjectMapper}, and cached afterwards. The cache is reset,
+ *     if the ObjectMapper is {@link ObjectMappers#overrideObjectMapper(ObjectMapper) overridden}, or if the
+ *     codec factory is {@link #overrideCodecFactory(PayloadCodecFactory) overridden}.
+ * </p>
+ * <p>
+ *     Codecs for single payload types can be {@link #register(Class, PayloadCodec) registered} explicitly.
+ *     Registered codecs are kept when the cache is reset.
+ * </p>
+ */
+@ThreadSafe
+public final class PayloadCodecRegistry {
+
+    private static final PayloadCodecFactory DEFAULT_CODEC_FACTORY = new PayloadCodecFactory() {
+        @Nonnull
+        @Override
+        public <T> PayloadCodec<T> create(final @Nonnull ObjectMapper objectMapper, final @Nonnull Class<T> payloadType) {
+            return new JacksonPayloadCodec<>(objectMapper, payloadType);
+        }
+    };
+
+    private static final ConcurrentMap<Class<?>, PayloadCodec<?>> REGISTERED_CODECS = new ConcurrentHashMap<>();
+    private static final AtomicReference<PayloadCodecFactory> CODEC_FACTORY = new AtomicReference<>(DEFAULT_CODEC_FACTORY);
+    private static final AtomicReference<Codecs> CODECS = new AtomicReference<>(new Codecs(currentObjectMapper(), DEFAULT_CODEC_FACTORY));
+
+    /**
+     * @return the factory used to create {@link JacksonPayloadCodec JacksonPayloadCodecs}.
+     */
+    public static PayloadCodecFactory defaultCodecFactory() {
+        return DEFAULT_CODEC_FACTORY;
+    }
+
+    /**
+     * Returns the PayloadCodec of the payload type.
+     *
+     * @param payloadType the type of the payload
+     * @param <T> the type of the payload
+     * @return PayloadCodec
+     */
+    @Nonnull
+    public static <T> PayloadCodec<T> codecFor(final @Nonnull Class<T> payloadType) {
+        return CODECS.get().codecFor(payloadType);
+    }
+
+    /**
+     * Registers the PayloadCodec used for a payload type, replacing the codec created by the
+     * {@link PayloadCodecFactory}.
+     *
+     * @param payloadType the type of the payload
+     * @param codec the PayloadCodec used to read and write payloads of the given type
+     * @param <T> the type of the payload
+     */
+    public static synchronized <T> void register(final @Nonnull Class<T> payloadType,
+                                                 final @Nonnull PayloadCodec<T> codec) {
+        REGISTERED_CODECS.put(requireNonNull(payloadType), requireNonNull(codec));
+        reset();
+    }
+
+    /**
+     * Removes the registered PayloadCodec of a payload type, so the codec created by the {@link PayloadCodecFactory}
+     * is used again.
+     *
+     * @param payloadType the type of the payload
+     */
+    public static synchronized void unregister(final @Nonnull Class<?> payloadType) {
+        REGISTERED_CODECS.remove(payloadType);
+        reset();
+    }
+
+    /**
+     * Overrides the factory used to create PayloadCodecs for payload types without a registered codec.
+     *
+     * @param codecFactory the PayloadCodecFactory
+     */
+    public static synchronized void overrideCodecFactory(final @Nonnull PayloadCodecFactory codecFactory) {
+        CODEC_FACTORY.set(requireNonNull(codecFactory));
+        reset();
+    }
+
+    /**
+     * Drops all cached PayloadCodecs, so they are re-created using the current ObjectMapper and codec factory.
+     * Registered codecs are kept.
+     */
+    public static synchronized void reset() {
+        final Codecs codecs = new Codecs(currentObjectMapper(), CODEC_FACTORY.get());
+        codecs.codecs.putAll(REGISTERED_CODECS);
+        CODECS.set(codecs);
+    }
+
+    private PayloadCodecRegistry() {
+    }
+
+    /**
+     * The cached codecs created using a single ObjectMapper and PayloadCodecFactory. Resetting the registry is
+     * replacing the whole instance, so codecs that are concurrently created using an outdated ObjectMapper are
+     * never visible after the reset.
+     */
+    private static final class Codecs {
+        private final ObjectMapper objectMapper;
+        private final PayloadCodecFactory codecFactory;
+        private final ConcurrentMap<Class<?>, PayloadCodec<?>> codecs = new ConcurrentHashMap<>();
+
+        private Codecs(final ObjectMapper objectMapper,
+                       final PayloadCodecFactory codecFactory) {
+            this.objectMapper = objectMapper;
+            this.codecFactory = codecFactory;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> PayloadCodec<T> codecFor(final Class<T> payloadType) {
+            final PayloadCodec<?> codec = codecs.get(payloadType);
+            return (PayloadCodec<T>) (codec != null
+                    ? codec
+                    : codecs.computeIfAbsent(payloadType, type -> codecFactory.create(objectMapper, type)));
+        }
+    }
+}
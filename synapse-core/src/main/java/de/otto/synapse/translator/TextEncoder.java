@@ -1,20 +1,20 @@
 package de.otto.synapse.translator;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.NullNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import de.otto.synapse.message.Message;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
 
 import static de.otto.synapse.translator.MessageFormat.*;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
 
 public class TextEncoder implements Encoder<String> {
 
+    private static final String JSON_VALUE_START = "{[\"-0123456789tfn";
+
     private final MessageFormat messageFormat;
 
     public TextEncoder() {
@@ -38,6 +38,8 @@ public class TextEncoder implements Encoder<String> {
                 return message.getPayload();
             case V2:
                 return encodeV2(message);
+            case V3:
+                return BinaryMessageCodec.encodeToString(message);
             default:
                 throw new IllegalStateException("Unsupported MessageFormat " + messageFormat);
         }
@@ -47,42 +49,74 @@ public class TextEncoder implements Encoder<String> {
         return encode(message, defaultMessageFormat());
     }
 
-    private static String encodeV2(Message<String> message) {
-        ObjectMapper mapper = currentObjectMapper();
-        try {
-            ObjectNode root = mapper.createObjectNode();
-            root.put(SYNAPSE_MSG_FORMAT, "v2");
-            root.set(SYNAPSE_MSG_KEY, encodeKeysV2(message, mapper));
-            root.set(SYNAPSE_MSG_HEADERS, encodeHeadersV2(message, mapper));
-            root.set(SYNAPSE_MSG_PAYLOAD, encodePayloadV2(message, mapper));
-            return root.toString();
+    /**
+     * Encodes the message in {@link MessageFormat#V2} format.
+     * <p>
+     *     The envelope is written using a {@link JsonGenerator}, while JSON payloads are spliced into the envelope
+     *     as-is, without parsing them into a tree and serializing them again. Only JSON payloads containing line
+     *     breaks are re-serialized, so receivers using older versions of Synapse are able to detect the format of
+     *     the message. Payloads that are not valid JSON are encoded as JSON strings.
+     * </p>
+     *
+     * @param message the message
+     * @return string representation of the message in V2 format
+     */
+    private static String encodeV2(final Message<String> message) {
+        final String payload = message.getPayload();
+        final StringWriter writer = new StringWriter(payload != null ? payload.length() + 256 : 256);
+        try (final JsonGenerator generator = currentObjectMapper().getFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField(SYNAPSE_MSG_FORMAT, "v2");
+            generator.writeObjectFieldStart(SYNAPSE_MSG_KEY);
+            generator.writeStringField(SYNAPSE_MSG_PARTITIONKEY, message.getKey().partitionKey());
+            generator.writeStringField(SYNAPSE_MSG_COMPACTIONKEY, message.getKey().compactionKey());
+            generator.writeEndObject();
+            generator.writeObjectFieldStart(SYNAPSE_MSG_HEADERS);
+            for (final Map.Entry<String, String> attribute : message.getHeader().getAll().entrySet()) {
+                generator.writeStringField(attribute.getKey(), attribute.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeFieldName(SYNAPSE_MSG_PAYLOAD);
+            writePayloadV2(generator, payload);
+            generator.writeEndObject();
         } catch (IOException e) {
             throw new IllegalStateException(String.format("Cannot encode message %s", message), e);
         }
+        return writer.toString();
     }
 
-    private static ObjectNode encodeKeysV2(Message<String> message, ObjectMapper mapper) {
-        ObjectNode keyNode = mapper.createObjectNode();
-        keyNode.put(SYNAPSE_MSG_PARTITIONKEY, message.getKey().partitionKey());
-        keyNode.put(SYNAPSE_MSG_COMPACTIONKEY, message.getKey().compactionKey());
-        return keyNode;
-    }
-
-    private static JsonNode encodeHeadersV2(Message<String> message, ObjectMapper mapper) {
-        return mapper.convertValue(message.getHeader().getAll(), JsonNode.class);
+    private static void writePayloadV2(final JsonGenerator generator, final String payload) throws IOException {
+        if (payload == null) {
+            generator.writeNull();
+        } else if (!isJson(payload)) {
+            generator.writeString(payload);
+        } else if (payload.indexOf('\n') < 0 && payload.indexOf('\r') < 0) {
+            generator.writeRawValue(payload);
+        } else {
+            generator.writeTree(currentObjectMapper().readTree(payload));
+        }
     }
 
-    private static JsonNode encodePayloadV2(Message<String> message, ObjectMapper mapper) throws IOException {
-        JsonNode jsonPayload;
-        try {
-            if (message.getPayload() == null) {
-                jsonPayload = NullNode.getInstance();
-            } else {
-                jsonPayload = mapper.readTree(message.getPayload());
+    /**
+     * Checks whether the payload is a single, valid JSON value, by streaming over the tokens of the payload.
+     * Payloads that can not start with a JSON value are rejected without parsing them.
+     */
+    private static boolean isJson(final String payload) {
+        int pos = 0;
+        while (pos < payload.length() && Character.isWhitespace(payload.charAt(pos))) {
+            ++pos;
+        }
+        if (pos == payload.length() || JSON_VALUE_START.indexOf(payload.charAt(pos)) < 0) {
+            return false;
+        }
+        try (final JsonParser parser = currentObjectMapper().getFactory().createParser(payload)) {
+            if (parser.nextToken() == null) {
+                return false;
             }
-        } catch (JsonParseException e) {
-            jsonPayload = new TextNode(message.getPayload());
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (final IOException e) {
+            return false;
         }
-        return jsonPayload;
     }
 }
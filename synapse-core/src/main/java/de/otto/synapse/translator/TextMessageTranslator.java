@@ -1,12 +1,12 @@
 package de.otto.synapse.translator;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 
-import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+import static de.otto.synapse.translator.PayloadCodecRegistry.codecFor;
 
 /**
  * A MessageTranslator that converts messages into {@link TextMessage}.
@@ -17,8 +17,8 @@ import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
  *
  * <p><img src="http://www.enterpriseintegrationpatterns.com/img/MessageTranslator.gif" alt="MessageTranslator"></p>
  *
- * <p>This implementation is relying on {@link ObjectMappers#currentObjectMapper()} to transform message payloads
- * with non-String payload into a JSON payload.</p>
+ * <p>This implementation is relying on the {@link PayloadCodec} of the payload type, provided by the
+ * {@link PayloadCodecRegistry}, to transform message payloads with non-String payload into a JSON payload.</p>
  */
 public class TextMessageTranslator implements MessageTranslator<TextMessage> {
 
@@ -34,15 +34,16 @@ public class TextMessageTranslator implements MessageTranslator<TextMessage> {
     @SuppressWarnings("unchecked")
     public TextMessage apply(final @Nonnull Message<?> message) {
         try {
-            if (message.getPayload() instanceof String) {
+            final Object payload = message.getPayload();
+            if (payload instanceof String) {
                 return TextMessage.of((Message<String>)message);
             } else {
-                final String payload = message.getPayload() != null
-                        ? currentObjectMapper().writeValueAsString(message.getPayload())
+                final String jsonPayload = payload != null
+                        ? ((PayloadCodec<Object>) codecFor(payload.getClass())).write(payload)
                         : null;
-                return TextMessage.of(message.getKey(), message.getHeader(), payload);
+                return TextMessage.of(message.getKey(), message.getHeader(), jsonPayload);
             }
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             throw new IllegalStateException(e.getMessage(), e);
         }
     }
@@ -0,0 +1,108 @@
+package de.otto.synapse.configuration;
+
+import de.otto.synapse.journal.Journal;
+import de.otto.synapse.messagestore.OnHeapIndexingMessageStore;
+import de.otto.synapse.metrics.MicrometerPipelineMetrics;
+import de.otto.synapse.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static de.otto.synapse.journal.Journals.singleChannelJournal;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SynapseMetricsAutoConfigurationTest {
+
+    private AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+    @After
+    public void close() {
+        if (this.context != null) {
+            this.context.close();
+        }
+    }
+
+    @Test
+    public void shouldNotInstrumentPipelineByDefault() {
+        // given
+        context.register(MeterRegistryConfiguration.class, SynapseAutoConfiguration.class);
+
+        // when
+        context.refresh();
+
+        // then
+        assertThat(context.getBeansOfType(PipelineMetrics.class)).isEmpty();
+        assertThat(currentMetrics()).isSameAs(PipelineMetrics.noOp());
+    }
+
+    @Test
+    public void shouldInstrumentPipelineIfEnabled() {
+        // given
+        context.register(MeterRegistryConfiguration.class, SynapseAutoConfiguration.class);
+        TestPropertyValues.of(
+                "synapse.metrics.enabled=true"
+        ).applyTo(context);
+
+        // when
+        context.refresh();
+
+        // then
+        assertThat(currentMetrics()).isInstanceOf(MicrometerPipelineMetrics.class);
+        assertThat(currentMetrics()).isSameAs(context.getBean(PipelineMetrics.class));
+    }
+
+    @Test
+    public void shouldResetMetricsWhenContextIsClosed() {
+        // given
+        context.register(MeterRegistryConfiguration.class, SynapseAutoConfiguration.class);
+        TestPropertyValues.of(
+                "synapse.metrics.enabled=true"
+        ).applyTo(context);
+        context.refresh();
+
+        // when
+        context.close();
+
+        // then
+        assertThat(currentMetrics()).isSameAs(PipelineMetrics.noOp());
+    }
+
+    @Test
+    public void shouldBindJournalWriters() {
+        // given
+        context.register(MeterRegistryConfiguration.class, JournalConfiguration.class, SynapseAutoConfiguration.class);
+        TestPropertyValues.of(
+                "synapse.metrics.enabled=true",
+                "synapse.journal.async.enabled=true"
+        ).applyTo(context);
+
+        // when
+        context.refresh();
+
+        // then
+        final MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        assertThat(meterRegistry.get("synapse.journal.queue.depth").tags("journal", "some-journal").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Configuration
+    static class JournalConfiguration {
+        @Bean
+        public Journal someJournal() {
+            return singleChannelJournal("some-journal", "some-channel", new OnHeapIndexingMessageStore());
+        }
+    }
+
+    @Configuration
+    static class MeterRegistryConfiguration {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -29,4 +29,25 @@ public class SynapsePropertiesTest {
 
         assertThat(context.getBean(SynapseProperties.class).getSender().getName()).isEqualTo("my service");
     }
+
+    @Test
+    public void shouldDisableVirtualThreadsByDefault() {
+
+        context.register(SynapseAutoConfiguration.class);
+        context.refresh();
+
+        assertThat(context.getBean(SynapseProperties.class).getReceiver().getVirtualThreads().isEnabled()).isFalse();
+    }
+
+    @Test
+    public void shouldEnableVirtualThreads() {
+
+        context.register(SynapseAutoConfiguration.class);
+        TestPropertyValues.of(
+                "synapse.receiver.virtual-threads.enabled=true"
+        ).applyTo(context);
+        context.refresh();
+
+        assertThat(context.getBean(SynapseProperties.class).getReceiver().getVirtualThreads().isEnabled()).isTrue();
+    }
 }
\ No newline at end of file
@@ -1,20 +1,40 @@
 package de.otto.synapse.consumer;
 
+import de.otto.synapse.message.Key;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
+import org.junit.After;
 import org.junit.Test;
 
+import java.util.Map;
+
 import static de.otto.synapse.channel.ShardPosition.fromHorizon;
 import static de.otto.synapse.consumer.TestMessageConsumer.testEventConsumer;
 import static de.otto.synapse.message.Header.of;
 import static de.otto.synapse.message.Message.message;
+import static de.otto.synapse.metrics.SynapseMetrics.overrideMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.resetMetrics;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class MessageDispatcherTest {
 
+    private final PipelineMetrics pipelineMetrics = mock(PipelineMetrics.class);
+
+    @After
+    public void resetPipelineMetrics() {
+        resetMetrics(pipelineMetrics);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldDelegateEventsToAllConsumers() {
@@ -104,6 +124,45 @@ public class MessageDispatcherTest {
         verify(eventConsumerCherry, never()).accept(any(Message.class));
     }
 
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void shouldDelegateMessagesWithUtf8PayloadToConsumers() {
+        // given
+        TestMessageConsumer<Map> mapConsumer = testEventConsumer(".*", Map.class);
+        TestMessageConsumer<String> stringConsumer = testEventConsumer(".*", String.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(mapConsumer, stringConsumer));
+
+        // when
+        final byte[] bytes = "{\"name\":\"Äpfel\"}".getBytes(UTF_8);
+        messageDispatcher.accept(TextMessage.of(Key.of("apple.123"), of(fromHorizon("test")), bytes, 0, bytes.length));
+
+        // then
+        assertThat(mapConsumer.getConsumedMessages().get(0).getPayload(), is(singletonMap("name", "Äpfel")));
+        assertThat(stringConsumer.getConsumedMessages().get(0).getPayload(), is("{\"name\":\"Äpfel\"}"));
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void shouldRecordConsumerMetricsIfEnabled() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(true);
+        overrideMetrics(pipelineMetrics);
+        TestMessageConsumer<Map> mapConsumer = testEventConsumer(".*", Map.class);
+        TestMessageConsumer<String> stringConsumer = testEventConsumer(".*", String.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher("some-channel");
+        messageDispatcher.add(mapConsumer);
+        messageDispatcher.add(stringConsumer);
+
+        // when
+        messageDispatcher.accept(TextMessage.of("someKey", of(fromHorizon("test")), "{}"));
+
+        // then
+        assertThat(mapConsumer.getConsumedMessages().size(), is(1));
+        assertThat(stringConsumer.getConsumedMessages().size(), is(1));
+        verify(pipelineMetrics).recordDecode(eq("some-channel"), anyLong());
+        verify(pipelineMetrics, times(2)).recordConsumer(eq("some-channel"), eq("TestMessageConsumer"), anyLong());
+    }
+
     static class Apple {
         public boolean equals(Object o) {
             return o instanceof Apple;
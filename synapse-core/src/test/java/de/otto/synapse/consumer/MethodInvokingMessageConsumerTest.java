@@ -31,6 +31,22 @@ public class MethodInvokingMessageConsumerTest {
         eventReceived = true;
     }
 
+    public void failingMethod(final Message<String> message) {
+        throw new UnsupportedOperationException("some failure");
+    }
+
+    public void methodWithCheckedException(final Message<String> message) throws Exception {
+        throw new Exception("some failure");
+    }
+
+    static class PackagePrivateConsumer {
+        private boolean eventReceived;
+
+        void packagePrivateMethod(final Message<String> message) {
+            eventReceived = true;
+        }
+    }
+
     @Before
     public void setup() {
         eventReceived = false;
@@ -55,6 +71,32 @@ public class MethodInvokingMessageConsumerTest {
         assertThat(eventReceived).isTrue();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBuildEventConsumerForPackagePrivateMethod() throws NoSuchMethodException {
+        final PackagePrivateConsumer consumer = new PackagePrivateConsumer();
+        final Method method = PackagePrivateConsumer.class.getDeclaredMethod("packagePrivateMethod", Message.class);
+        final MethodInvokingMessageConsumer eventConsumer = new MethodInvokingMessageConsumer(".*", String.class, consumer, method);
+        eventConsumer.accept(mock(Message.class));
+        assertThat(consumer.eventReceived).isTrue();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    @SuppressWarnings("unchecked")
+    public void shouldPropagateRuntimeExceptions() throws NoSuchMethodException {
+        final Method method = MethodInvokingMessageConsumerTest.class.getMethod("failingMethod", Message.class);
+        final MethodInvokingMessageConsumer eventConsumer = new MethodInvokingMessageConsumer(".*", String.class, this, method);
+        eventConsumer.accept(mock(Message.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @SuppressWarnings("unchecked")
+    public void shouldWrapCheckedExceptions() throws NoSuchMethodException {
+        final Method method = MethodInvokingMessageConsumerTest.class.getMethod("methodWithCheckedException", Message.class);
+        final MethodInvokingMessageConsumer eventConsumer = new MethodInvokingMessageConsumer(".*", String.class, this, method);
+        eventConsumer.accept(mock(Message.class));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     @SuppressWarnings("unchecked")
     public void shouldFailBuildingEventConsumerWithTooManyArgs() throws NoSuchMethodException {
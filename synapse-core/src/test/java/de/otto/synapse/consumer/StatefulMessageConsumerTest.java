@@ -87,6 +87,41 @@ public class StatefulMessageConsumerTest {
 
     }
 
+    @Test
+    public void shouldRemoveStateIfMapperReturnsNull() {
+        //given
+        stateRepository.put("someKey", "12345");
+        final MessageConsumer<String> consumer = new StatefulMessageConsumer<String, String>(".*", String.class, stateRepository, (m) -> null);
+
+        //when
+        consumer.accept(Message.message(
+                "someKey",
+                of(fromPosition("some-shard", "someSeqNumber")),
+                "67890"
+        ));
+
+        //then
+        assertThat(stateRepository.get("someKey")).isEmpty();
+    }
+
+    @Test
+    public void shouldComputeStateFromPreviousState() {
+        //given
+        stateRepository.put("someKey", "123");
+        final MessageConsumer<String> consumer = new StatefulMessageConsumer<String, String>(".*", String.class, stateRepository,
+                (previous, m) -> previous.orElse("") + m.getPayload());
+
+        //when
+        consumer.accept(Message.message(
+                "someKey",
+                of(fromPosition("some-shard", "someSeqNumber")),
+                "45"
+        ));
+
+        //then
+        assertThat(stateRepository.get("someKey").get()).isEqualTo("12345");
+    }
+
     private StatefulMessageConsumer<String, String> statefulMessageConsumer() {
         return new StatefulMessageConsumer<>(".*", String.class, stateRepository, Message::getPayload);
     }
@@ -0,0 +1,51 @@
+package de.otto.synapse.endpoint;
+
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.endpoint.EndpointType.SENDER;
+import static de.otto.synapse.endpoint.MessageInterceptorRegistration.allChannelsWith;
+import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingChannelsWith;
+import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingSenderChannelsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CachedInterceptorChainTest {
+
+    @Test
+    public void shouldResolveInterceptorChainOnce() {
+        final MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+        registry.register(allChannelsWith(m -> m));
+        final CachedInterceptorChain cachedChain = registry.getCachedInterceptorChain("foo", RECEIVER);
+
+        final InterceptorChain chain = cachedChain.get();
+
+        assertThat(chain.getInterceptors(), hasSize(1));
+        assertThat(cachedChain.get(), is(sameInstance(chain)));
+    }
+
+    @Test
+    public void shouldResolveInterceptorChainAgainAfterRegistration() {
+        final MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+        final CachedInterceptorChain cachedChain = registry.getCachedInterceptorChain("foo", RECEIVER);
+        assertThat(cachedChain.get().getInterceptors(), is(empty()));
+
+        final long version = registry.getVersion();
+        registry.register(matchingChannelsWith("foo", m -> null));
+
+        assertThat(registry.getVersion(), is(greaterThan(version)));
+        assertThat(cachedChain.get().getInterceptors(), hasSize(1));
+        assertThat(cachedChain.intercept(TextMessage.of("some-key", "some payload")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldOnlyResolveInterceptorsOfChannelAndEndpointType() {
+        final MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+        registry.register(matchingChannelsWith("bar", m -> m));
+        registry.register(matchingSenderChannelsWith("foo", m -> m));
+
+        assertThat(registry.getCachedInterceptorChain("foo", RECEIVER).get().getInterceptors(), is(empty()));
+        assertThat(registry.getCachedInterceptorChain("foo", SENDER).get().getInterceptors(), hasSize(1));
+    }
+}
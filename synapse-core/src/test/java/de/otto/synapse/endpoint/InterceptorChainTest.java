@@ -3,16 +3,31 @@ package de.otto.synapse.endpoint;
 import com.google.common.collect.ImmutableList;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
+import org.junit.After;
 import org.junit.Test;
 
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.metrics.SynapseMetrics.overrideMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.resetMetrics;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class InterceptorChainTest {
 
+    private final PipelineMetrics pipelineMetrics = mock(PipelineMetrics.class);
+
+    @After
+    public void resetPipelineMetrics() {
+        resetMetrics(pipelineMetrics);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldBuildEmptyChain() {
@@ -55,6 +70,43 @@ public class InterceptorChainTest {
         assertThat(chain.intercept(someMessage("foo")).getKey(), is(Key.of("bar")));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRecordInterceptorMetricsIfEnabled() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(true);
+        overrideMetrics(pipelineMetrics);
+        final MessageInterceptor first = mock(MessageInterceptor.class);
+        when(first.intercept(any(TextMessage.class))).thenReturn(someMessage("foo"));
+        final MessageInterceptor second = mock(MessageInterceptor.class);
+        when(second.intercept(any(TextMessage.class))).thenReturn(null);
+        final InterceptorChain chain = new InterceptorChain("some-channel", RECEIVER, ImmutableList.of(first, second));
+
+        // when
+        chain.intercept(someMessage("foo"));
+
+        // then
+        verify(pipelineMetrics, times(2)).recordInterceptor(eq("some-channel"), eq(RECEIVER), anyString(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotRecordInterceptorMetricsIfDisabled() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(false);
+        overrideMetrics(pipelineMetrics);
+        final MessageInterceptor interceptor = mock(MessageInterceptor.class);
+        when(interceptor.intercept(any(TextMessage.class))).thenReturn(someMessage("foo"));
+        final InterceptorChain chain = new InterceptorChain("some-channel", RECEIVER, ImmutableList.of(interceptor));
+
+        // when
+        chain.intercept(someMessage("foo"));
+
+        // then
+        verify(pipelineMetrics).isEnabled();
+        verifyNoMoreInteractions(pipelineMetrics);
+    }
+
     @SuppressWarnings("unchecked")
     private TextMessage someMessage(final String keyValue) {
         return TextMessage.of(Key.of(keyValue), null);
@@ -0,0 +1,62 @@
+package de.otto.synapse.endpoint.receiver;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.isVirtualThreadSupported;
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.platformThreads;
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.virtualThreads;
+import static de.otto.synapse.endpoint.receiver.ExecutorServiceFactory.virtualThreadsIfAvailable;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class ExecutorServiceFactoryTest {
+
+    @Test
+    public void shouldCreatePlatformThreads() throws ExecutionException, InterruptedException {
+        final ExecutorService executorService = platformThreads().newExecutorService("some-receiver-");
+        try {
+            final String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+            assertThat(threadName, is("some-receiver-0"));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldCreateVirtualThreadsIfSupported() throws ExecutionException, InterruptedException {
+        assumeTrue(isVirtualThreadSupported());
+
+        final ExecutorService executorService = virtualThreads().newExecutorService("some-receiver-");
+        try {
+            final String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+            assertThat(threadName, startsWith("some-receiver-"));
+            assertThat(executorService.submit(() -> Thread.currentThread().isDaemon()).get(), is(true));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldFailToCreateVirtualThreadsIfNotSupported() {
+        assumeFalse(isVirtualThreadSupported());
+
+        virtualThreads();
+    }
+
+    @Test
+    public void shouldFallbackToPlatformThreads() throws ExecutionException, InterruptedException {
+        final ExecutorService executorService = virtualThreadsIfAvailable().newExecutorService("some-receiver-");
+        try {
+            final String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+            assertThat(threadName, startsWith("some-receiver-"));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
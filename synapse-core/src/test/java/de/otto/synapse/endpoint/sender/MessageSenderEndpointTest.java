@@ -5,9 +5,11 @@ import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
 import de.otto.synapse.translator.MessageTranslator;
 import de.otto.synapse.translator.TextMessageTranslator;
 import org.hamcrest.Matchers;
+import org.junit.After;
 import org.junit.Test;
 
 import javax.annotation.Nonnull;
@@ -21,16 +23,27 @@ import java.util.stream.Stream;
 import static de.otto.synapse.endpoint.MessageInterceptorRegistration.allChannelsWith;
 import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingChannelsWith;
 import static de.otto.synapse.message.Message.message;
+import static de.otto.synapse.metrics.SynapseMetrics.overrideMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.resetMetrics;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Stream.of;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class MessageSenderEndpointTest {
 
+    private final PipelineMetrics pipelineMetrics = mock(PipelineMetrics.class);
+
+    @After
+    public void resetPipelineMetrics() {
+        resetMetrics(pipelineMetrics);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldCallSendMessageForBatch() {
@@ -205,4 +218,67 @@ public class MessageSenderEndpointTest {
         assertThat(sentMessages.get(1).getPayload(), is("translated and intercepted"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldRecordSentMessagesWhenSendIsCompleted() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(true);
+        overrideMetrics(pipelineMetrics);
+        final CompletableFuture<Void> sendResult = new CompletableFuture<>();
+        final MessageSenderEndpoint senderEndpoint = new AbstractMessageSenderEndpoint("foo-channel", new MessageInterceptorRegistry(), (m) -> TextMessage.of(m.getKey(), "translated")) {
+            @Override
+            protected CompletableFuture<Void> doSend(@Nonnull TextMessage message) {
+                return sendResult;
+            }
+        };
+        senderEndpoint.send(message("foo", ""));
+        verify(pipelineMetrics, never()).recordSent(anyString(), anyInt());
+
+        // when
+        sendResult.complete(null);
+
+        // then
+        verify(pipelineMetrics).recordSent("foo-channel", 1);
+    }
+
+    @Test
+    public void shouldRecordSentMessagesOfCompletedBatch() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(true);
+        overrideMetrics(pipelineMetrics);
+        final MessageSenderEndpoint senderEndpoint = new AbstractMessageSenderEndpoint("foo-channel", new MessageInterceptorRegistry(), (m) -> TextMessage.of(m.getKey(), "translated")) {
+            @Override
+            protected CompletableFuture<Void> doSend(@Nonnull TextMessage message) {
+                return completedFuture(null);
+            }
+        };
+
+        // when
+        senderEndpoint.sendBatch(Stream.of(message("foo", ""), message("bar", "")));
+
+        // then
+        verify(pipelineMetrics).recordSent("foo-channel", 2);
+    }
+
+    @Test
+    public void shouldNotRecordFailedSends() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(true);
+        overrideMetrics(pipelineMetrics);
+        final MessageSenderEndpoint senderEndpoint = new AbstractMessageSenderEndpoint("foo-channel", new MessageInterceptorRegistry(), (m) -> TextMessage.of(m.getKey(), "translated")) {
+            @Override
+            protected CompletableFuture<Void> doSend(@Nonnull TextMessage message) {
+                final CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("send failed"));
+                return failed;
+            }
+        };
+
+        // when
+        senderEndpoint.send(message("foo", ""));
+        senderEndpoint.sendBatch(Stream.of(message("foo", ""), message("bar", "")));
+
+        // then
+        verify(pipelineMetrics, never()).recordSent(anyString(), anyInt());
+    }
+
+}
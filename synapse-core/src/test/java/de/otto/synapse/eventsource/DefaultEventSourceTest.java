@@ -9,20 +9,31 @@ import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreEntry;
 import org.junit.Test;
+import org.mockito.InOrder;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.channel.ShardResponse.shardResponse;
 import static de.otto.synapse.channel.StopCondition.shutdown;
+import static de.otto.synapse.eventsource.EventSourceStartupCoordinator.Ordering.PRIORITY;
+import static de.otto.synapse.eventsource.ResourceEstimate.resourceEstimate;
 import static de.otto.synapse.messagestore.MessageStores.emptyMessageStore;
+import static java.util.Collections.emptySet;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class DefaultEventSourceTest {
@@ -134,6 +145,63 @@ public class DefaultEventSourceTest {
         verify(messageDispatcher).accept(TextMessage.of(Key.of("1"), null));
     }
 
+    @Test
+    public void shouldDispatchMessagesFromMessageStoreUsingScheduler() throws ExecutionException, InterruptedException {
+        // given
+        final MessageStore messageStore = mock(MessageStore.class);
+        when(messageStore.stream()).thenReturn(Stream.of(
+                MessageStoreEntry.of("some-channel", TextMessage.of(Key.of("1"), null)),
+                MessageStoreEntry.of("some-channel", TextMessage.of(Key.of("2"), null))));
+        when(messageStore.getLatestChannelPosition(anyString())).thenReturn(fromHorizon());
+        final MessageLogReceiverEndpoint messageLog = mock(MessageLogReceiverEndpoint.class);
+        when(messageLog.getChannelName()).thenReturn("some-channel");
+        when(messageLog.intercept(any(TextMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(messageLog.consumeUntil(any(ChannelPosition.class), any(Predicate.class))).thenReturn(completedFuture(fromHorizon()));
+        final MessageDispatcher messageDispatcher = mock(MessageDispatcher.class);
+        when(messageLog.getMessageDispatcher()).thenReturn(messageDispatcher);
+
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(1)) {
+            final DefaultEventSource eventSource = new DefaultEventSource(() -> messageStore, messageLog, null, scheduler);
+
+            // when
+            eventSource.consume().get();
+
+            // then
+            verify(messageDispatcher).accept(TextMessage.of(Key.of("1"), null));
+            verify(messageDispatcher).accept(TextMessage.of(Key.of("2"), null));
+            assertThat(scheduler.getStatistics().get("some-channel").getSubmittedTasks(), is(2L));
+        }
+    }
+
+    @Test
+    public void shouldCreateMessageStoreAfterAdmissionOfStartupCoordinator() throws Exception {
+        // given
+        final MessageStore messageStore = mockMessageStore(fromHorizon());
+        final MessageLogReceiverEndpoint messageLog = mockMessageLogReceiverEndpoint();
+        final Supplier<MessageStore> messageStoreSupplier = mock(Supplier.class);
+        when(messageStoreSupplier.get()).thenReturn(messageStore);
+        final EventSourceStartupCoordinator coordinator = new EventSourceStartupCoordinator(
+                100, 100, channelName -> resourceEstimate(10, 10), PRIORITY, emptySet());
+        final DefaultEventSource eventSource = new DefaultEventSource(messageStoreSupplier, messageLog, null, null, coordinator);
+
+        // when
+        coordinator.suspendAdmissions();
+        final CompletableFuture<ChannelPosition> channelPosition = eventSource.consume();
+
+        // then
+        verify(messageStoreSupplier, never()).get();
+        assertThat(coordinator.getPendingRequests(), is(1));
+
+        // when
+        coordinator.resumeAdmissions();
+        channelPosition.get();
+
+        // then
+        verify(messageStoreSupplier).get();
+        verify(messageStore).stream();
+        assertThat(coordinator.getReservedHeapBytes(), is(0L));
+    }
+
     @Test
     public void shouldContinueWithChannelPositionFromMessageStore() throws ExecutionException, InterruptedException {
         // given
@@ -201,6 +269,78 @@ public class DefaultEventSourceTest {
         assertThat(eventSource.isStopping(), is(true));
     }
 
+    @Test
+    public void shouldSkipMessageStoreIfCheckpointIsValid() throws ExecutionException, InterruptedException {
+        // given
+        final ChannelPosition checkpointedPosition = channelPosition(fromPosition("bar", "42"));
+        final ChannelPositionCheckpoint checkpoint = mockCheckpoint(Optional.of(checkpointedPosition));
+        final Supplier<MessageStore> messageStoreSupplier = mock(Supplier.class);
+        final MessageLogReceiverEndpoint messageLog = mockMessageLogReceiverEndpoint(channelPosition(fromPosition("bar", "4711")));
+        final DefaultEventSource eventSource = new DefaultEventSource(messageStoreSupplier, messageLog, checkpoint);
+
+        // when
+        eventSource.consume().get();
+
+        // then
+        verify(messageStoreSupplier, never()).get();
+        verify(checkpoint, never()).invalidate();
+        verify(messageLog).consumeUntil(eq(checkpointedPosition), any(Predicate.class));
+        verify(checkpoint).save(channelPosition(fromPosition("bar", "4711")));
+    }
+
+    @Test
+    public void shouldInvalidateCheckpointAndConsumeMessageStoreIfCheckpointIsInvalid() throws Exception {
+        // given
+        final ChannelPosition messageStorePosition = channelPosition(fromPosition("bar", "42"));
+        final ChannelPositionCheckpoint checkpoint = mockCheckpoint(Optional.empty());
+        final MessageStore messageStore = mockMessageStore(messageStorePosition);
+        final MessageLogReceiverEndpoint messageLog = mockMessageLogReceiverEndpoint(channelPosition(fromPosition("bar", "4711")));
+        final DefaultEventSource eventSource = new DefaultEventSource(() -> messageStore, messageLog, checkpoint);
+
+        // when
+        eventSource.consume().get();
+
+        // then
+        final InOrder inOrder = inOrder(checkpoint, messageStore, messageLog);
+        inOrder.verify(checkpoint).invalidate();
+        inOrder.verify(messageStore).stream();
+        inOrder.verify(checkpoint).save(messageStorePosition);
+        inOrder.verify(messageLog).consumeUntil(eq(messageStorePosition), any(Predicate.class));
+        inOrder.verify(checkpoint).save(channelPosition(fromPosition("bar", "4711")));
+        inOrder.verify(messageStore).close();
+    }
+
+    @Test
+    public void shouldCheckpointPositionsOfShardResponses() {
+        // given
+        final ChannelPositionCheckpoint checkpoint = mockCheckpoint(Optional.empty());
+        final AtomicLong nanoTime = new AtomicLong();
+        final CheckpointingStopCondition stopCondition = new CheckpointingStopCondition(
+                checkpoint,
+                channelPosition(fromPosition("foo", "1"), fromPosition("bar", "1")),
+                shutdown(),
+                nanoTime::get);
+
+        // when
+        stopCondition.test(shardResponse(fromPosition("foo", "2"), Duration.ZERO));
+        nanoTime.set(Duration.ofSeconds(30).toNanos());
+        stopCondition.test(shardResponse(fromPosition("bar", "2"), Duration.ZERO));
+        stopCondition.test(shardResponse(fromPosition("bar", "3"), Duration.ZERO));
+
+        // then
+        verify(checkpoint, times(1)).save(any(ChannelPosition.class));
+        verify(checkpoint).save(channelPosition(fromPosition("foo", "2"), fromPosition("bar", "2")));
+        assertThat(stopCondition.getChannelPosition(), is(channelPosition(fromPosition("foo", "2"), fromPosition("bar", "3"))));
+    }
+
+    private ChannelPositionCheckpoint mockCheckpoint(final Optional<ChannelPosition> checkpointedPosition) {
+        final ChannelPositionCheckpoint checkpoint = mock(ChannelPositionCheckpoint.class);
+        when(checkpoint.getChannelName()).thenReturn("some-channel");
+        when(checkpoint.getCheckpointInterval()).thenReturn(Duration.ofSeconds(30));
+        when(checkpoint.load()).thenReturn(checkpointedPosition);
+        return checkpoint;
+    }
+
     private MessageLogReceiverEndpoint mockMessageLogReceiverEndpoint() {
         final MessageLogReceiverEndpoint messageLog = mock(MessageLogReceiverEndpoint.class);
         when(messageLog.getChannelName()).thenReturn("some-channel");
@@ -0,0 +1,134 @@
+package de.otto.synapse.eventsource;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class EventSourceSchedulerTest {
+
+    @Test
+    public void shouldServePriorityChannelsFirstAndOtherChannelsByWeight() throws InterruptedException {
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(1, ImmutableMap.of("b", 2), ImmutableSet.of("p"))) {
+            // given
+            final List<String> executedTasks = new CopyOnWriteArrayList<>();
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(8);
+            scheduler.executorFor("a").execute(() -> {
+                blocked.countDown();
+                awaitQuietly(release);
+            });
+            blocked.await(1, SECONDS);
+
+            // when
+            final Executor a = scheduler.executorFor("a");
+            final Executor b = scheduler.executorFor("b");
+            final Executor p = scheduler.executorFor("p");
+            for (int i = 0; i < 3; ++i) {
+                a.execute(() -> { executedTasks.add("a"); done.countDown(); });
+                b.execute(() -> { executedTasks.add("b"); done.countDown(); });
+            }
+            p.execute(() -> { executedTasks.add("p"); done.countDown(); });
+            p.execute(() -> { executedTasks.add("p"); done.countDown(); });
+            release.countDown();
+            done.await(1, SECONDS);
+
+            // then
+            assertThat(executedTasks, contains("p", "p", "b", "b", "a", "b", "a", "a"));
+        }
+    }
+
+    @Test
+    public void shouldReportStatisticsPerChannel() throws InterruptedException {
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(2)) {
+            // given
+            final CountDownLatch done = new CountDownLatch(3);
+
+            // when
+            scheduler.executorFor("foo").execute(done::countDown);
+            scheduler.executorFor("foo").execute(done::countDown);
+            scheduler.executorFor("bar").execute(() -> {
+                done.countDown();
+                throw new IllegalStateException("expected");
+            });
+            done.await(1, SECONDS);
+            Thread.sleep(50);
+
+            // then
+            assertThat(scheduler.getStatistics().get("foo").getSubmittedTasks(), is(2L));
+            assertThat(scheduler.getStatistics().get("foo").getCompletedTasks(), is(2L));
+            assertThat(scheduler.getStatistics().get("foo").getPendingTasks(), is(0L));
+            assertThat(scheduler.getStatistics().get("bar").getCompletedTasks(), is(1L));
+        }
+    }
+
+    @Test
+    public void shouldKeepServingTasksAfterErrors() throws InterruptedException {
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(1)) {
+            // given
+            final CountDownLatch done = new CountDownLatch(1);
+
+            // when
+            scheduler.executorFor("foo").execute(() -> {
+                throw new AssertionError("expected");
+            });
+            scheduler.executorFor("foo").execute(done::countDown);
+
+            // then
+            assertThat(done.await(1, SECONDS), is(true));
+        }
+    }
+
+    @Test
+    public void shouldStartThreadsWhenFirstTaskIsSubmitted() throws InterruptedException {
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(1)) {
+            // given
+            final CountDownLatch done = new CountDownLatch(1);
+            scheduler.executorFor("foo");
+            assertThat(scheduler.isStarted(), is(false));
+
+            // when
+            scheduler.executorFor("foo").execute(done::countDown);
+
+            // then
+            assertThat(done.await(1, SECONDS), is(true));
+            assertThat(scheduler.isStarted(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldInformChannelListenersAboutExistingAndNewChannels() {
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(1)) {
+            // given
+            final List<String> channels = new CopyOnWriteArrayList<>();
+            scheduler.executorFor("foo");
+
+            // when
+            scheduler.addChannelListener(channels::add);
+            scheduler.executorFor("bar");
+            scheduler.executorFor("foo");
+
+            // then
+            assertThat(channels, contains("foo", "bar"));
+            assertThat(scheduler.getStatistics("bar").getSubmittedTasks(), is(0L));
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(1, SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
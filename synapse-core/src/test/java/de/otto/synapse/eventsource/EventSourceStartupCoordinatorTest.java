@@ -0,0 +1,202 @@
+package de.otto.synapse.eventsource;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import de.otto.synapse.eventsource.EventSourceStartupCoordinator.Admission;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static de.otto.synapse.eventsource.EventSourceStartupCoordinator.Ordering.BIGGEST_FIRST;
+import static de.otto.synapse.eventsource.EventSourceStartupCoordinator.Ordering.PRIORITY;
+import static de.otto.synapse.eventsource.ResourceEstimate.resourceEstimate;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class EventSourceStartupCoordinatorTest {
+
+    private static final Map<String, ResourceEstimate> ESTIMATES = ImmutableMap.of(
+            "small", resourceEstimate(10, 1),
+            "medium", resourceEstimate(50, 1),
+            "big", resourceEstimate(80, 1));
+
+    @Test
+    public void shouldAdmitRequestsWithinBudget() throws Exception {
+        // given
+        final EventSourceStartupCoordinator coordinator = coordinator(100, PRIORITY, ImmutableSet.of());
+
+        // when
+        final CompletableFuture<Admission> small = coordinator.admit("small");
+        final CompletableFuture<Admission> medium = coordinator.admit("medium");
+        final CompletableFuture<Admission> big = coordinator.admit("big");
+
+        // then
+        small.get(1, SECONDS);
+        medium.get(1, SECONDS);
+        assertThat(big.isDone(), is(false));
+        assertThat(coordinator.getReservedHeapBytes(), is(60L));
+        assertThat(coordinator.getPendingRequests(), is(1));
+
+        // when
+        small.get().close();
+        assertThat(big.isDone(), is(false));
+        medium.get().close();
+
+        // then
+        assertThat(big.get(1, SECONDS).getChannelName(), is("big"));
+        assertThat(coordinator.getReservedHeapBytes(), is(80L));
+    }
+
+    @Test
+    public void shouldAdmitBiggestRequestsFirst() throws Exception {
+        // given
+        final EventSourceStartupCoordinator coordinator = coordinator(100, BIGGEST_FIRST, ImmutableSet.of());
+
+        // when
+        coordinator.suspendAdmissions();
+        final CompletableFuture<Admission> small = coordinator.admit("small");
+        final CompletableFuture<Admission> medium = coordinator.admit("medium");
+        final CompletableFuture<Admission> big = coordinator.admit("big");
+        coordinator.resumeAdmissions();
+
+        // then
+        big.get(1, SECONDS);
+        small.get(1, SECONDS);
+        assertThat(medium.isDone(), is(false));
+        assertThat(coordinator.getReservedHeapBytes(), is(90L));
+    }
+
+    @Test
+    public void shouldAdmitPriorityChannelsFirst() throws Exception {
+        // given
+        final EventSourceStartupCoordinator coordinator = coordinator(100, BIGGEST_FIRST, ImmutableSet.of("medium"));
+
+        // when
+        coordinator.suspendAdmissions();
+        final CompletableFuture<Admission> small = coordinator.admit("small");
+        final CompletableFuture<Admission> medium = coordinator.admit("medium");
+        final CompletableFuture<Admission> big = coordinator.admit("big");
+        coordinator.resumeAdmissions();
+
+        // then
+        medium.get(1, SECONDS);
+        small.get(1, SECONDS);
+        assertThat(big.isDone(), is(false));
+    }
+
+    @Test
+    public void shouldAdmitUnknownRequestIfNothingElseIsAdmitted() throws Exception {
+        // given
+        final EventSourceStartupCoordinator coordinator = coordinator(100, PRIORITY, ImmutableSet.of());
+
+        // when
+        final CompletableFuture<Admission> unknown = coordinator.admit("unknown");
+        final CompletableFuture<Admission> small = coordinator.admit("small");
+
+        // then
+        unknown.get(1, SECONDS);
+        assertThat(small.isDone(), is(false));
+
+        // when
+        unknown.get().close();
+        unknown.get().close();
+
+        // then
+        small.get(1, SECONDS);
+        assertThat(coordinator.getReservedHeapBytes(), is(10L));
+    }
+
+    @Test
+    public void shouldFallBackToUnknownEstimateIfEstimateTimesOut() throws Exception {
+        // given
+        final CountDownLatch estimating = new CountDownLatch(1);
+        final EventSourceStartupCoordinator coordinator = new EventSourceStartupCoordinator(
+                100,
+                Long.MAX_VALUE,
+                channelName -> {
+                    try {
+                        estimating.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return resourceEstimate(10, 1);
+                },
+                Duration.ofMillis(100),
+                PRIORITY,
+                ImmutableSet.of());
+
+        // when
+        final CompletableFuture<Admission> slow = coordinator.admit("slow");
+
+        // then
+        assertThat(slow.isDone(), is(false));
+        assertThat(coordinator.getPendingRequests(), is(1));
+        assertThat(slow.get(1, SECONDS).getEstimate(), is(ResourceEstimate.unknown()));
+        coordinator.close();
+    }
+
+    @Test
+    public void shouldFallBackToUnknownEstimateIfEstimateFails() throws Exception {
+        // given
+        final EventSourceStartupCoordinator coordinator = new EventSourceStartupCoordinator(
+                100,
+                Long.MAX_VALUE,
+                channelName -> {
+                    throw new IllegalStateException("some error");
+                },
+                PRIORITY,
+                ImmutableSet.of());
+
+        // when
+        final CompletableFuture<Admission> failing = coordinator.admit("failing");
+
+        // then
+        assertThat(failing.get(1, SECONDS).getEstimate(), is(ResourceEstimate.unknown()));
+        coordinator.close();
+    }
+
+    @Test
+    public void shouldRejectRequestsWhenClosed() throws Exception {
+        // given
+        final EventSourceStartupCoordinator coordinator = coordinator(100, PRIORITY, ImmutableSet.of());
+        final CompletableFuture<Admission> big = coordinator.admit("big");
+        big.get(1, SECONDS);
+        final CompletableFuture<Admission> medium = coordinator.admit("medium");
+
+        // when
+        coordinator.close();
+        final CompletableFuture<Admission> small = coordinator.admit("small");
+
+        // then
+        assertRejected(medium);
+        assertRejected(small);
+        assertThat(coordinator.getPendingRequests(), is(0));
+    }
+
+    private void assertRejected(final CompletableFuture<Admission> admission) throws Exception {
+        try {
+            admission.get(1, SECONDS);
+            fail("Expected admission to be rejected");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
+    private EventSourceStartupCoordinator coordinator(final long heapBudget,
+                                                      final EventSourceStartupCoordinator.Ordering ordering,
+                                                      final ImmutableSet<String> priorityChannels) {
+        return new EventSourceStartupCoordinator(
+                heapBudget,
+                Long.MAX_VALUE,
+                channelName -> ESTIMATES.getOrDefault(channelName, ResourceEstimate.unknown()),
+                ordering,
+                priorityChannels);
+    }
+}
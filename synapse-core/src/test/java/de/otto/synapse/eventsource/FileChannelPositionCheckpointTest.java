@@ -0,0 +1,241 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.state.ChronicleMapStateRepository;
+import de.otto.synapse.state.ConcurrentMapStateRepository;
+import de.otto.synapse.state.StateRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ShardPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.channel.ShardPosition.fromPositionAndTimestamp;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileChannelPositionCheckpointTest {
+
+    private static final Instant NOW = Instant.parse("2019-05-01T12:00:00Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldLoadSavedCheckpoint() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = new File(temporaryFolder.getRoot(), "some-channel.checkpoint");
+        final ChannelPosition channelPosition = channelPosition(
+                fromPosition("foo", "42"),
+                fromHorizon("bar"),
+                fromPositionAndTimestamp("foobar", "4711", NOW.minusSeconds(10)));
+
+        // when
+        checkpoint(file, stateRepository, NOW).save(channelPosition);
+
+        // then
+        assertThat(checkpoint(file, stateRepository, NOW.plusSeconds(60)).load(), is(Optional.of(channelPosition)));
+        assertThat(temporaryFolder.getRoot().list((directory, name) -> name.endsWith(".tmp")).length, is(0));
+    }
+
+    @Test
+    public void shouldIgnoreMissingCheckpoint() {
+        final File file = new File(temporaryFolder.getRoot(), "some-channel.checkpoint");
+
+        assertThat(checkpoint(file, someStateRepository(), NOW).load(), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreExpiredCheckpoint() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, stateRepository, NOW.plus(Duration.ofHours(21))).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointOfOtherChannel() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        final Optional<ChannelPosition> checkpointedPosition = FileChannelPositionCheckpoint.builder("other-channel", file)
+                .withStateRepository(stateRepository)
+                .withClock(Clock.fixed(NOW, UTC))
+                .build()
+                .load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointIfStateRepositoryIsNotPersisted() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = new ConcurrentMapStateRepository<>("some-repository");
+        stateRepository.put("some-key", "some-value");
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, stateRepository, NOW).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointIfGenerationOfStateRepositoryIsNotMatching() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        stateRepository.persistGeneration(42);
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, stateRepository, NOW).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointIfStateRepositoryWasCleared() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        stateRepository.clear();
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, stateRepository, NOW).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldPersistIncreasingGenerations() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        final ChannelPositionCheckpoint checkpoint = checkpoint(file, stateRepository, NOW);
+        checkpoint.load();
+        checkpoint.save(channelPosition(fromPosition("foo", "43")));
+
+        // then
+        assertThat(stateRepository.getPersistedGeneration(), is(OptionalLong.of(2)));
+        assertThat(checkpoint(file, stateRepository, NOW).load(), is(Optional.of(channelPosition(fromPosition("foo", "43")))));
+    }
+
+    @Test
+    public void shouldAcceptCheckpointIfGenerationOfMockedStateRepositoryIsMatching() throws IOException {
+        // given
+        @SuppressWarnings("unchecked")
+        final StateRepository<String> stateRepository = mock(StateRepository.class);
+        when(stateRepository.getName()).thenReturn("some-repository");
+        when(stateRepository.getPersistedGeneration()).thenReturn(OptionalLong.of(1));
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, stateRepository, NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, stateRepository, NOW).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.of(channelPosition(fromPosition("foo", "42")))));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointOfOtherStateRepositories() throws IOException {
+        // given
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        checkpoint(file, someStateRepository(), NOW).save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        final StateRepository<String> otherRepository = persistedStateRepository("other-repository");
+        otherRepository.put("some-key", "some-value");
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, otherRepository, NOW).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreUnreadableCheckpoint() throws IOException {
+        // given
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        Files.write(file.toPath(), "{\"channelName\":\"some-ch".getBytes(UTF_8));
+
+        // when
+        final Optional<ChannelPosition> checkpointedPosition = checkpoint(file, someStateRepository(), NOW).load();
+
+        // then
+        assertThat(checkpointedPosition, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldRemoveCheckpointAndClearStateRepositoriesOnInvalidate() throws IOException {
+        // given
+        final StateRepository<String> stateRepository = someStateRepository();
+        final File file = temporaryFolder.newFile("some-channel.checkpoint");
+        final ChannelPositionCheckpoint checkpoint = checkpoint(file, stateRepository, NOW);
+        checkpoint.save(channelPosition(fromPosition("foo", "42")));
+
+        // when
+        checkpoint.invalidate();
+
+        // then
+        assertThat(file.exists(), is(false));
+        assertThat(stateRepository.size(), is(0L));
+        assertThat(checkpoint.load(), is(Optional.empty()));
+    }
+
+    private ChannelPositionCheckpoint checkpoint(final File file,
+                                                 final StateRepository<?> stateRepository,
+                                                 final Instant now) {
+        return FileChannelPositionCheckpoint.builder("some-channel", file)
+                .withStateRepository(stateRepository)
+                .withMaxAge(Duration.ofHours(20))
+                .withClock(Clock.fixed(now, UTC))
+                .build();
+    }
+
+    private StateRepository<String> someStateRepository() {
+        final StateRepository<String> stateRepository = persistedStateRepository("some-repository");
+        stateRepository.put("some-key", "some-value");
+        return stateRepository;
+    }
+
+    private StateRepository<String> persistedStateRepository(final String name) {
+        return ChronicleMapStateRepository.builder(String.class)
+                .withName(name)
+                .withPersistedFile(new File(temporaryFolder.getRoot(), name + ".dat"))
+                .build();
+    }
+}
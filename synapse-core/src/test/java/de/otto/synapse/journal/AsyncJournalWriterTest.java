@@ -0,0 +1,193 @@
+package de.otto.synapse.journal;
+
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.messagestore.MessageStore;
+import de.otto.synapse.messagestore.MessageStoreEntry;
+import de.otto.synapse.messagestore.OnHeapIndexingMessageStore;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static de.otto.synapse.journal.AsyncJournalWriter.OverflowPolicy.BLOCK;
+import static de.otto.synapse.journal.AsyncJournalWriter.OverflowPolicy.DROP_OLDEST;
+import static de.otto.synapse.journal.AsyncJournalWriter.OverflowPolicy.SAMPLE;
+import static java.lang.String.valueOf;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AsyncJournalWriterTest {
+
+    @Test
+    public void shouldWriteEntriesInBatches() {
+        // given
+        final MessageStore messageStore = new OnHeapIndexingMessageStore();
+        final AsyncJournalWriter writer = new AsyncJournalWriter("test", messageStore, 1000, 10);
+
+        // when
+        for (int i = 0; i < 100; ++i) {
+            writer.write(entry(i));
+        }
+        writer.close();
+
+        // then
+        assertThat(messageStore.size(), is(100L));
+        assertThat(payloadsOf(messageStore.stream().collect(toList())).get(99), is("99"));
+        final AsyncJournalWriter.Statistics statistics = writer.getStatistics();
+        assertThat(statistics.getWrittenEntries(), is(100L));
+        assertThat(statistics.getFlushes(), is(greaterThanOrEqualTo(10L)));
+        assertThat(statistics.getQueueDepth(), is(0));
+        assertThat(statistics.getDroppedEntries(), is(0L));
+    }
+
+    @Test
+    public void shouldDropOldestEntriesIfQueueIsFull() throws Exception {
+        // given
+        final BlockingMessageStore store = new BlockingMessageStore();
+        final AsyncJournalWriter writer = new AsyncJournalWriter("test", store.messageStore, 10, 1, DROP_OLDEST, 1);
+        writer.write(entry(0));
+        store.awaitFlush();
+
+        // when
+        for (int i = 1; i <= 20; ++i) {
+            writer.write(entry(i));
+        }
+
+        // then
+        assertThat(writer.getStatistics().getQueueDepth(), is(10));
+        assertThat(writer.getStatistics().getDroppedEntries(), is(10L));
+        store.release();
+        writer.close();
+        assertThat(payloadsOf(store.entries), contains("0", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20"));
+    }
+
+    @Test
+    public void shouldSampleEntriesIfQueueIsFull() throws Exception {
+        // given
+        final BlockingMessageStore store = new BlockingMessageStore();
+        final AsyncJournalWriter writer = new AsyncJournalWriter("test", store.messageStore, 10, 1, SAMPLE, 5);
+        writer.write(entry(0));
+        store.awaitFlush();
+        for (int i = 1; i <= 10; ++i) {
+            writer.write(entry(i));
+        }
+
+        // when
+        for (int i = 11; i <= 14; ++i) {
+            writer.write(entry(i));
+        }
+        final CompletableFuture<Void> sampled = CompletableFuture.runAsync(() -> writer.write(entry(15)));
+
+        // then
+        assertThat(writer.getStatistics().getDroppedEntries(), is(4L));
+        store.release();
+        sampled.get(5, SECONDS);
+        writer.close();
+        assertThat(payloadsOf(store.entries), contains("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "15"));
+    }
+
+    @Test
+    public void shouldBlockIfQueueIsFull() throws Exception {
+        // given
+        final BlockingMessageStore store = new BlockingMessageStore();
+        final AsyncJournalWriter writer = new AsyncJournalWriter("test", store.messageStore, 10, 1, BLOCK, 1);
+        writer.write(entry(0));
+        store.awaitFlush();
+        for (int i = 1; i <= 10; ++i) {
+            writer.write(entry(i));
+        }
+
+        // when
+        final CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> writer.write(entry(11)));
+        Thread.sleep(100);
+
+        // then
+        assertThat(blocked.isDone(), is(false));
+        store.release();
+        blocked.get(5, SECONDS);
+        writer.close();
+        assertThat(store.entries, hasSize(12));
+        assertThat(writer.getStatistics().getDroppedEntries(), is(0L));
+    }
+
+    @Test
+    public void shouldCountFailedEntries() {
+        // given
+        final MessageStore messageStore = mock(MessageStore.class);
+        doThrow(new IllegalStateException("some error")).when(messageStore).addAll(anyList());
+        final AsyncJournalWriter writer = new AsyncJournalWriter("test", messageStore, 10, 10);
+
+        // when
+        writer.write(entry(0));
+        writer.write(entry(1));
+        writer.close();
+
+        // then
+        assertThat(writer.getStatistics().getFailedEntries(), is(2L));
+        assertThat(writer.getStatistics().getWrittenEntries(), is(0L));
+    }
+
+    @Test
+    public void shouldWriteEntriesSynchronouslyAfterClose() {
+        // given
+        final MessageStore messageStore = mock(MessageStore.class);
+        final AsyncJournalWriter writer = new AsyncJournalWriter("test", messageStore, 10, 10);
+        writer.close();
+
+        // when
+        final MessageStoreEntry entry = entry(0);
+        writer.write(entry);
+
+        // then
+        verify(messageStore).add(entry);
+        assertThat(writer.getStatistics().getWrittenEntries(), is(1L));
+    }
+
+    private static MessageStoreEntry entry(final int i) {
+        return MessageStoreEntry.of("some-channel", TextMessage.of(valueOf(i), valueOf(i)));
+    }
+
+    private static List<String> payloadsOf(final List<MessageStoreEntry> entries) {
+        return entries.stream().map(entry -> entry.getTextMessage().getPayload()).collect(toList());
+    }
+
+    /**
+     * MessageStore that is blocking the first flush of the writer until it is released.
+     */
+    private static class BlockingMessageStore {
+        private final List<MessageStoreEntry> entries = new CopyOnWriteArrayList<>();
+        private final CountDownLatch flushing = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final MessageStore messageStore = mock(MessageStore.class);
+
+        private BlockingMessageStore() {
+            doAnswer(invocation -> {
+                flushing.countDown();
+                released.await();
+                final List<MessageStoreEntry> batch = invocation.getArgument(0);
+                entries.addAll(batch);
+                return null;
+            }).when(messageStore).addAll(anyList());
+        }
+
+        void awaitFlush() throws InterruptedException {
+            flushing.await(5, SECONDS);
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -37,4 +37,22 @@ public class JournalingInterceptorTest {
 
         verify(messageStore).add(MessageStoreEntry.of("foo-channel", message));
     }
+
+    @Test
+    public void shouldAddMessageToAsyncJournalWriter() {
+        final MessageStore messageStore = mock(MessageStore.class);
+        when(messageStore.getIndexes()).thenReturn(ImmutableSet.of(Index.JOURNAL_KEY));
+
+        final Journal journal = mock(Journal.class);
+        when(journal.getMessageStore()).thenReturn(messageStore);
+        final AsyncJournalWriter journalWriter = mock(AsyncJournalWriter.class);
+
+        final JournalingInterceptor interceptor = new JournalingInterceptor("foo-channel", journal, journalWriter);
+        final TextMessage message = TextMessage.of("42", "p");
+
+        interceptor.intercept(message);
+
+        verify(journalWriter).write(MessageStoreEntry.of("foo-channel", message));
+        verify(messageStore, never()).add(any(MessageStoreEntry.class));
+    }
 }
\ No newline at end of file
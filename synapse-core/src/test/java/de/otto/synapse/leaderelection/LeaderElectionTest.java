@@ -0,0 +1,133 @@
+package de.otto.synapse.leaderelection;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LeaderElectionTest {
+
+    @Test
+    public void shouldAcquireLeadershipUsingDefaultImplementation() throws InterruptedException {
+        // given
+        final LeaderElection leaderElection = new InMemoryLeaderElection();
+        final CountDownLatch acquired = new CountDownLatch(1);
+
+        // when
+        final LeadershipLease lease = leaderElection.acquireLeadership("some-lock", listener(acquired, new CountDownLatch(1)));
+
+        // then
+        assertThat(acquired.await(5, SECONDS), is(true));
+        assertThat(lease.isLeader(), is(true));
+        assertThat(lease.getLockName(), is("some-lock"));
+        lease.close();
+    }
+
+    @Test
+    public void shouldAcquireLeadershipForOnlyOneLease() {
+        // given
+        final LeaderElection leaderElection = new InMemoryLeaderElection();
+        final LeadershipLease firstLease = leaderElection.acquireLeadership("some-lock", listener(new CountDownLatch(1), new CountDownLatch(1)));
+        await().atMost(5, SECONDS).until(firstLease::isLeader);
+
+        // when
+        final LeadershipLease secondLease = leaderElection.acquireLeadership("some-lock", listener(new CountDownLatch(1), new CountDownLatch(1)));
+
+        // then
+        await().pollDelay(500, MILLISECONDS).atMost(5, SECONDS).until(() -> !secondLease.isLeader());
+        firstLease.close();
+        secondLease.close();
+    }
+
+    @Test
+    public void shouldHandOverLeadershipWhenLeaseIsClosed() throws InterruptedException {
+        // given
+        final LeaderElection leaderElection = new InMemoryLeaderElection();
+        final CountDownLatch firstRevoked = new CountDownLatch(1);
+        final LeadershipLease firstLease = leaderElection.acquireLeadership("some-lock", listener(new CountDownLatch(1), firstRevoked));
+        await().atMost(5, SECONDS).until(firstLease::isLeader);
+        final LeadershipLease secondLease = leaderElection.acquireLeadership("some-lock", listener(new CountDownLatch(1), new CountDownLatch(1)));
+
+        // when
+        firstLease.close();
+
+        // then
+        assertThat(firstRevoked.await(5, SECONDS), is(true));
+        assertThat(firstLease.isLeader(), is(false));
+        await().atMost(5, SECONDS).until(secondLease::isLeader);
+        secondLease.close();
+    }
+
+    private LeadershipListener listener(final CountDownLatch acquired, final CountDownLatch revoked) {
+        return new LeadershipListener() {
+            @Override
+            public void onLeadershipAcquired(final String lockName) {
+                acquired.countDown();
+            }
+
+            @Override
+            public void onLeadershipRevoked(final String lockName) {
+                revoked.countDown();
+            }
+        };
+    }
+
+    /**
+     * LeaderElection that is not overriding {@link LeaderElection#acquireLeadership(String, LeadershipListener)}.
+     */
+    private static class InMemoryLeaderElection implements LeaderElection {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @Override
+        public void runIfLeader(final String lockName, final Runnable runnable) {
+            supplyIfLeader(lockName, () -> {
+                runnable.run();
+                return null;
+            });
+        }
+
+        @Override
+        public <T> T supplyIfLeader(final String lockName, final Supplier<T> supplier) {
+            if (lock.tryLock()) {
+                try {
+                    return supplier.get();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<Void> runAsyncIfLeader(final String lockName, final Runnable runnable) {
+            return runAsync(() -> runIfLeader(lockName, runnable));
+        }
+
+        @Override
+        public CompletableFuture<Void> runAsyncIfLeader(final String lockName, final Runnable runnable, final Executor executor) {
+            return runAsync(() -> runIfLeader(lockName, runnable), executor);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> supplyAsyncIfLeader(final String lockName, final Supplier<T> supplier) {
+            return supplyAsync(() -> supplyIfLeader(lockName, supplier));
+        }
+
+        @Override
+        public <T> CompletableFuture<T> supplyAsyncIfLeader(final String lockName, final Supplier<T> supplier, final Executor executor) {
+            return supplyAsync(() -> supplyIfLeader(lockName, supplier), executor);
+        }
+    }
+}
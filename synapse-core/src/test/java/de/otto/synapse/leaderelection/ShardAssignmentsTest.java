@@ -0,0 +1,64 @@
+package de.otto.synapse.leaderelection;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static de.otto.synapse.leaderelection.ShardAssignments.assign;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.frequency;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ShardAssignmentsTest {
+
+    @Test
+    public void shouldAssignNothingWithoutInstances() {
+        final Map<String, String> assignments = assign(emptyList(), asList("s1", "s2"), emptyMap());
+        assertThat(assignments.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldAssignAllShardsToSingleInstance() {
+        final Map<String, String> assignments = assign(asList("a"), asList("s1", "s2", "s3"), emptyMap());
+        assertThat(assignments, is(ImmutableMap.of("s1", "a", "s2", "a", "s3", "a")));
+    }
+
+    @Test
+    public void shouldBalanceShards() {
+        final Map<String, String> assignments = assign(asList("a", "b"), asList("s1", "s2", "s3", "s4", "s5"), emptyMap());
+        assertThat(assignments.keySet(), contains("s1", "s2", "s3", "s4", "s5"));
+        assertThat(frequency(assignments.values(), "a"), is(3));
+        assertThat(frequency(assignments.values(), "b"), is(2));
+    }
+
+    @Test
+    public void shouldLeaveInstancesIdleIfThereAreMoreInstancesThanShards() {
+        final Map<String, String> assignments = assign(asList("a", "b", "c"), asList("s1", "s2"), emptyMap());
+        assertThat(assignments.values(), containsInAnyOrder("a", "b"));
+    }
+
+    @Test
+    public void shouldOnlyMoveShardsToJoiningInstance() {
+        final Map<String, String> current = ImmutableMap.of("s1", "a", "s2", "a", "s3", "b", "s4", "b");
+        final Map<String, String> assignments = assign(asList("a", "b", "c"), asList("s1", "s2", "s3", "s4"), current);
+        assertThat(frequency(assignments.values(), "c"), is(1));
+        assertThat(assignments.entrySet().stream()
+                .filter(e -> !e.getValue().equals(current.get(e.getKey())))
+                .count(), is(1L));
+    }
+
+    @Test
+    public void shouldHandOverShardsOfLeavingInstance() {
+        final Map<String, String> current = ImmutableMap.of("s1", "a", "s2", "b", "s3", "c", "s4", "c");
+        final Map<String, String> assignments = assign(asList("a", "b"), asList("s1", "s2", "s3", "s4"), current);
+        assertThat(assignments.get("s1"), is("a"));
+        assertThat(assignments.get("s2"), is("b"));
+        assertThat(assignments.values(), not(hasItem("c")));
+        assertThat(frequency(assignments.values(), "a"), is(2));
+        assertThat(frequency(assignments.values(), "b"), is(2));
+    }
+}
@@ -6,11 +6,14 @@ import org.junit.Test;
 import java.time.Instant;
 import java.util.Optional;
 
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_RECEIVER_TS;
 import static de.otto.synapse.message.Header.of;
 import static java.time.Instant.now;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class HeaderTest {
 
@@ -44,4 +47,94 @@ public class HeaderTest {
         final Header header = of(ImmutableMap.of());
         assertThat(header.getShardPosition(), is(Optional.empty()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAddAttributeToOverlay() {
+        final Header header = of(ImmutableMap.of("x", "foo", "y", "bar"));
+        final Header overlay = header.withAttribute("z", "foobar");
+        assertThat(overlay.getAsString("x"), is("foo"));
+        assertThat(overlay.getAsString("z"), is("foobar"));
+        assertThat(overlay.containsKey("y"), is(true));
+        assertThat(overlay.getAll(), is(ImmutableMap.of("x", "foo", "y", "bar", "z", "foobar")));
+        assertThat(header.containsKey("z"), is(false));
+    }
+
+    @Test
+    public void shouldReplaceAttributeInOverlay() {
+        final Header header = of(ImmutableMap.of("x", "foo", "y", "bar"));
+        final Header overlay = header.withAttribute("x", "foobar");
+        assertThat(overlay.getAsString("x"), is("foobar"));
+        assertThat(overlay.getAll(), is(ImmutableMap.of("x", "foobar", "y", "bar")));
+        assertThat(header.getAsString("x"), is("foo"));
+    }
+
+    @Test
+    public void shouldKeepShardPositionInOverlay() {
+        final Header header = of(fromPosition("shard", "42"), ImmutableMap.of("x", "foo"));
+        final Header overlay = header.withAttribute(MSG_RECEIVER_TS, now());
+        assertThat(overlay.getShardPosition(), is(Optional.of(fromPosition("shard", "42"))));
+    }
+
+    @Test
+    public void shouldMergeDeeplyNestedOverlays() {
+        Header header = of(ImmutableMap.of("x0", "0"));
+        for (int i = 1; i < 10; ++i) {
+            header = header.withAttribute("x" + i, String.valueOf(i));
+        }
+        assertThat(header.getAll().size(), is(10));
+        assertThat(header.getAsString("x0"), is("0"));
+        assertThat(header.getAsString("x9"), is("9"));
+    }
+
+    @Test
+    public void shouldBeEqualToCopiedHeader() {
+        final Header header = of(ImmutableMap.of("x", "foo"));
+        final Header overlay = header.withAttribute("y", "bar");
+        final Header copy = Header.copyOf(header).withAttribute("y", "bar").build();
+        assertThat(overlay, is(copy));
+        assertThat(overlay.hashCode(), is(copy.hashCode()));
+    }
+
+    @Test
+    public void shouldReturnTypedInstantAttr() {
+        final Instant time = Instant.ofEpochMilli(1234567890123L);
+        final Header header = of().withAttribute(MSG_RECEIVER_TS, time);
+        assertThat(header.getAsInstant(MSG_RECEIVER_TS), is(sameInstance(time)));
+        assertThat(header.getAsEpochMilli(MSG_RECEIVER_TS, 0L), is(1234567890123L));
+        assertThat(header.getAsString(MSG_RECEIVER_TS), is(time.toString()));
+    }
+
+    @Test
+    public void shouldReturnEpochMilliOfStringAttr() {
+        final Header header = of(ImmutableMap.of("ts", "1970-01-01T00:00:01.500Z"));
+        assertThat(header.getAsEpochMilli("ts", 0L), is(1500L));
+        assertThat(header.getAsEpochMilli("missing", 42L), is(42L));
+    }
+
+    @Test
+    public void shouldReplaceTypedAttrByStringAttrInOverlay() {
+        final Header header = of().withAttribute("ts", Instant.ofEpochMilli(0L));
+        final Header overlay = header.withAttribute("x", "foo").withAttribute("ts", "1970-01-01T00:00:01Z");
+        assertThat(overlay.getAsInstant("ts"), is(Instant.ofEpochMilli(1000L)));
+    }
+
+    @Test
+    public void shouldKeepTypedAttrsInMergedOverlays() {
+        final Instant time = now();
+        Header header = of(ImmutableMap.of("x0", "0")).withAttribute("ts", time);
+        for (int i = 1; i < 10; ++i) {
+            header = header.withAttribute("x" + i, String.valueOf(i));
+        }
+        assertThat(header.getAsInstant("ts"), is(sameInstance(time)));
+        assertThat(Header.copyOf(header).build().getAsInstant("ts"), is(sameInstance(time)));
+    }
+
+    @Test
+    public void shouldBeEqualToHeaderWithStringAttr() {
+        final Instant time = now();
+        final Header typed = Header.builder().withAttribute(MSG_RECEIVER_TS, time).build();
+        final Header untyped = of(ImmutableMap.of(MSG_RECEIVER_TS.key(), time.toString()));
+        assertThat(typed, is(untyped));
+        assertThat(typed.hashCode(), is(untyped.hashCode()));
+    }
+}
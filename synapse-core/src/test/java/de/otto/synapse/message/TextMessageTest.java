@@ -1,13 +1,19 @@
 package de.otto.synapse.message;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.translator.JacksonPayloadCodec;
 import org.junit.Test;
 
 import java.time.Instant;
+import java.util.Map;
 
 import static de.otto.synapse.message.Message.message;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.*;
 
 public class TextMessageTest {
@@ -44,4 +50,36 @@ public class TextMessageTest {
         assertThat(first.hashCode(), is(second.hashCode()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldDecodeUtf8PayloadOnDemand() {
+        final byte[] bytes = "__ßome dätä__".getBytes(UTF_8);
+        final TextMessage message = TextMessage.of(Key.of("foo"), Header.of(), bytes, 2, bytes.length - 4);
+        assertThat(message.getPayload(), is("ßome dätä"));
+        assertThat(message, is(TextMessage.of("foo", "ßome dätä")));
+        assertThat(message.hashCode(), is(TextMessage.of("foo", "ßome dätä").hashCode()));
+    }
+
+    @Test
+    public void shouldCreateMessageWithNullPayloadFromEmptyBytes() {
+        final TextMessage message = TextMessage.of(Key.of("foo"), Header.of(), new byte[0], 0, 0);
+        assertThat(message.getPayload(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldReadPayloadFromUtf8Bytes() throws Exception {
+        final byte[] bytes = "{\"some\":\"dätä\"}".getBytes(UTF_8);
+        final TextMessage message = TextMessage.of(Key.of("foo"), Header.of(), bytes, 0, bytes.length);
+        final Map<?, ?> payload = message.readPayload(new JacksonPayloadCodec<>(new ObjectMapper(), Map.class));
+        assertThat(payload, is(singletonMap("some", "dätä")));
+    }
+
+    @Test
+    public void shouldKeepUtf8PayloadWithNewHeader() {
+        final byte[] bytes = "some payload".getBytes(UTF_8);
+        final TextMessage message = TextMessage.of(Key.of("foo"), Header.of(), bytes, 0, bytes.length)
+                .withHeader(Header.of(ImmutableMap.of("attr", "value")));
+        assertThat(message.getHeader().get("attr"), is("value"));
+        assertThat(message.getPayload(), is("some payload"));
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.otto.synapse.messagestore;
+
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.Header.of;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class ChannelPositionsTest {
+
+    @Test
+    public void shouldReturnHorizonForUnknownChannel() {
+        final ChannelPositions channelPositions = new ChannelPositions();
+
+        assertThat(channelPositions.getLatestChannelPosition("unknown"), is(fromHorizon()));
+    }
+
+    @Test
+    public void shouldRegisterChannelOfEntriesWithoutShardPosition() {
+        final ChannelPositions channelPositions = new ChannelPositions();
+
+        channelPositions.updateFrom(MessageStoreEntry.of("foo", TextMessage.of("1", "some payload")));
+
+        assertThat(channelPositions.getChannelNames(), contains("foo"));
+        assertThat(channelPositions.getLatestChannelPosition("foo"), is(fromHorizon()));
+    }
+
+    @Test
+    public void shouldTrackLatestPositionPerShard() {
+        final ChannelPositions channelPositions = new ChannelPositions();
+
+        channelPositions.updateFrom(entry("foo", "shard-1", "1"));
+        channelPositions.updateFrom(entry("foo", "shard-2", "1"));
+        channelPositions.updateFrom(entry("foo", "shard-1", "2"));
+        channelPositions.updateFrom(entry("bar", "shard-1", "3"));
+
+        assertThat(channelPositions.getChannelNames(), containsInAnyOrder("foo", "bar"));
+        assertThat(channelPositions.getLatestChannelPosition("foo"), is(channelPosition(
+                fromPosition("shard-1", "2"),
+                fromPosition("shard-2", "1"))));
+        assertThat(channelPositions.getLatestChannelPosition("bar"), is(channelPosition(
+                fromPosition("shard-1", "3"))));
+    }
+
+    @Test
+    public void shouldKeepOrderOfShards() {
+        final ChannelPositions channelPositions = new ChannelPositions();
+
+        channelPositions.updateFrom(entry("foo", "shard-2", "1"));
+        channelPositions.updateFrom(entry("foo", "shard-1", "1"));
+        channelPositions.updateFrom(entry("foo", "shard-2", "2"));
+
+        assertThat(channelPositions.getLatestChannelPosition("foo").shards(), contains("shard-2", "shard-1"));
+    }
+
+    private MessageStoreEntry entry(final String channelName, final String shardName, final String position) {
+        return MessageStoreEntry.of(channelName, TextMessage.of(Key.of(position), of(fromPosition(shardName, position)), "some payload"));
+    }
+}
@@ -6,19 +6,25 @@ import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.function.Supplier;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static com.google.common.collect.Sets.newHashSet;
@@ -41,34 +47,48 @@ import static org.hamcrest.Matchers.lessThanOrEqualTo;
 public class IndexingMessageStoreTest {
 
     @Parameters
-    public static Iterable<? extends Supplier<MessageStore>> channelIndexedMessageStore() {
+    public static Iterable<? extends Function<Path, MessageStore>> channelIndexedMessageStore() {
         return asList(
-                () -> new OnHeapIndexingMessageStore(channelNameIndexer()),
-                () -> new OffHeapIndexingMessageStore("test", channelNameIndexer())
+                directory -> new OnHeapIndexingMessageStore(channelNameIndexer()),
+                directory -> new OffHeapIndexingMessageStore("test", channelNameIndexer()),
+                directory -> SegmentedLogMessageStore.builder(directory).withSegmentSize(1024 * 1024).withIndexer(channelNameIndexer()).build()
         );
     }
 
     @Parameter
-    public Supplier<MessageStore> channelIndexedMessageStore;
+    public Function<Path, MessageStore> messageStoreFactory;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MessageStore messageStore;
+
+    @Before
+    public void createMessageStore() throws IOException {
+        messageStore = messageStoreFactory.apply(temporaryFolder.newFolder().toPath());
+    }
+
+    @After
+    public void closeMessageStore() {
+        messageStore.close();
+    }
 
     @Test
     public void shouldReturnIndexes() {
         ImmutableSet<Index> expectedIndexes = ImmutableSet.of(CHANNEL_NAME);
-        ImmutableSet<Index> indexes = channelIndexedMessageStore.get().getIndexes();
+        ImmutableSet<Index> indexes = messageStore.getIndexes();
         assertThat(indexes, is(expectedIndexes));
     }
 
     @Test
     public void shouldReturnEmptyStreamForNonExistingIndex() {
-        Stream<MessageStoreEntry> stream = channelIndexedMessageStore.get().stream(Index.valueOf("unknown"), "42");
+        Stream<MessageStoreEntry> stream = messageStore.stream(Index.valueOf("unknown"), "42");
         assertThat(stream.count(), is(0L));
     }
 
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldReturnFilterValuesFromStream() {
-        final MessageStore messageStore = channelIndexedMessageStore.get();
-
         final String partitionKey = UUID.randomUUID().toString();
 
         messageStore.add(MessageStoreEntry.of(
@@ -89,7 +109,6 @@ public class IndexingMessageStoreTest {
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldStreamMessagesMatchingSingleIndex() {
-        final MessageStore messageStore = channelIndexedMessageStore.get();
         for (int i=0; i<10; ++i) {
             messageStore.add(MessageStoreEntry.of(i%2==0 ? "even-channel" : "odd-channel", TextMessage.of(Key.of(valueOf(i)), "some payload")));
         }
@@ -104,7 +123,6 @@ public class IndexingMessageStoreTest {
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldKeepInsertionOrderOfIndexedMessages() {
-        final MessageStore messageStore = channelIndexedMessageStore.get();
         final ExecutorService executorService = newFixedThreadPool(10);
         final CompletableFuture[] completion = new CompletableFuture[5];
         for (int shard=0; shard<5; ++shard) {
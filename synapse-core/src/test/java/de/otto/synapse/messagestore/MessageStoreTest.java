@@ -4,18 +4,24 @@ import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
@@ -35,22 +41,37 @@ import static org.hamcrest.Matchers.*;
 public class MessageStoreTest {
 
     @Parameters
-    public static Iterable<? extends Supplier<MessageStore>> messageStores() {
+    public static Iterable<? extends Function<Path, MessageStore>> messageStores() {
         return asList(
-                () -> new OnHeapIndexingMessageStore(),
-                () -> new OffHeapIndexingMessageStore("test"),
-                () -> new OnHeapRingBufferMessageStore(1000),
-                () -> new OnHeapCompactingMessageStore(true)
+                directory -> new OnHeapIndexingMessageStore(),
+                directory -> new OffHeapIndexingMessageStore("test"),
+                directory -> new OnHeapRingBufferMessageStore(1000),
+                directory -> new OnHeapCompactingMessageStore(true),
+                directory -> SegmentedLogMessageStore.builder(directory).withSegmentSize(1024 * 1024).build()
         );
     }
 
     @Parameter
-    public Supplier<MessageStore> messageStoreBuilder;
+    public Function<Path, MessageStore> messageStoreFactory;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MessageStore messageStore;
+
+    @Before
+    public void createMessageStore() throws IOException {
+        messageStore = messageStoreFactory.apply(temporaryFolder.newFolder().toPath());
+    }
+
+    @After
+    public void closeMessageStore() {
+        messageStore.close();
+    }
 
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldAddMessagesWithoutHeaders() {
-        final MessageStore messageStore = messageStoreBuilder.get();
         for (int i=0; i<10; ++i) {
             messageStore.add(MessageStoreEntry.of("", TextMessage.of(Key.of(valueOf(i)), "some payload")));
         }
@@ -66,7 +87,6 @@ public class MessageStoreTest {
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldKeepInsertionOrderOfMessages() {
-        final MessageStore messageStore = messageStoreBuilder.get();
         final ExecutorService executorService = newFixedThreadPool(10);
         final CompletableFuture[] completion = new CompletableFuture[5];
         for (int shard=0; shard<5; ++shard) {
@@ -95,7 +115,6 @@ public class MessageStoreTest {
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldTrackLatestChannelPosition() {
-        final MessageStore messageStore = messageStoreBuilder.get();
         final ExecutorService executorService = newFixedThreadPool(10);
         final CompletableFuture[] completion = new CompletableFuture[5];
         for (int shard=0; shard<5; ++shard) {
@@ -122,7 +141,6 @@ public class MessageStoreTest {
 
     @Test
     public void shouldReturnFromHorizonForMessagesWithoutPosition() {
-        final MessageStore messageStore = messageStoreBuilder.get();
         messageStore.add(MessageStoreEntry.of("", TextMessage.of("foo", "some payload")));
         assertThat(messageStore.getLatestChannelPosition(""), is(fromHorizon()));
     }
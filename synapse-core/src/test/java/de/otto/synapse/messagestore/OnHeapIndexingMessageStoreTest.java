@@ -0,0 +1,97 @@
+package de.otto.synapse.messagestore;
+
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.testsupport.TestClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static de.otto.synapse.messagestore.Index.JOURNAL_KEY;
+import static de.otto.synapse.messagestore.Indexers.journalKeyIndexer;
+import static java.lang.String.valueOf;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class OnHeapIndexingMessageStoreTest {
+
+    @Test
+    public void shouldRemoveEvictedEntriesFromIndex() {
+        // given
+        final MessageStore messageStore = new OnHeapIndexingMessageStore(journalKeyIndexer(), 10);
+
+        // when
+        for (int i = 0; i < 100; ++i) {
+            messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of(valueOf(i % 20), valueOf(i))));
+        }
+
+        // then
+        assertThat(messageStore.size(), is(10L));
+        assertThat(payloadsOf(messageStore, "5").size(), is(0));
+        assertThat(payloadsOf(messageStore, "15"), contains("95"));
+        assertThat(payloadsOf(messageStore.stream().collect(toList())), contains("90", "91", "92", "93", "94", "95", "96", "97", "98", "99"));
+    }
+
+    @Test
+    public void shouldRemoveExpiredEntries() {
+        // given
+        final TestClock clock = TestClock.now();
+        final MessageStore messageStore = new OnHeapIndexingMessageStore(journalKeyIndexer(), 1000, Duration.ofMinutes(10), clock);
+        messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of("1", "first")));
+        clock.proceed(5, MINUTES);
+        messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of("1", "second")));
+
+        // when
+        clock.proceed(6, MINUTES);
+
+        // then
+        assertThat(payloadsOf(messageStore, "1"), contains("second"));
+        assertThat(messageStore.size(), is(1L));
+        clock.proceed(5, MINUTES);
+        assertThat(payloadsOf(messageStore, "1").size(), is(0));
+        assertThat(messageStore.size(), is(0L));
+    }
+
+    @Test
+    public void shouldEvictConcurrentlyAddedEntries() {
+        // given
+        final MessageStore messageStore = new OnHeapIndexingMessageStore(journalKeyIndexer(), 100);
+        final ExecutorService executorService = newFixedThreadPool(8);
+        final CompletableFuture[] completion = new CompletableFuture[8];
+
+        // when
+        for (int thread = 0; thread < 8; ++thread) {
+            completion[thread] = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10000; ++i) {
+                    messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of(valueOf(i % 50), valueOf(i))));
+                }
+            }, executorService);
+        }
+        allOf(completion).join();
+        executorService.shutdown();
+
+        // then
+        assertThat(messageStore.size(), is(100L));
+        assertThat(messageStore.stream().count(), is(100L));
+        long indexed = 0;
+        for (int key = 0; key < 50; ++key) {
+            indexed += messageStore.stream(JOURNAL_KEY, valueOf(key)).count();
+        }
+        assertThat(indexed, is(100L));
+    }
+
+    private static List<String> payloadsOf(final MessageStore messageStore, final String key) {
+        return payloadsOf(messageStore.stream(JOURNAL_KEY, key).collect(toList()));
+    }
+
+    private static List<String> payloadsOf(final List<MessageStoreEntry> entries) {
+        return entries.stream().map(entry -> entry.getTextMessage().getPayload()).collect(toList());
+    }
+}
@@ -17,6 +17,7 @@ import java.util.function.Supplier;
 
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.message.Header.of;
+import static de.otto.synapse.messagestore.Indexers.journalKeyIndexer;
 import static java.lang.String.valueOf;
 import static java.util.Arrays.asList;
 import static java.util.concurrent.CompletableFuture.allOf;
@@ -33,7 +34,8 @@ public class RingBufferMessageStoreTest {
     @Parameters
     public static Iterable<? extends Supplier<MessageStore>> messageStores() {
         return asList(
-                () -> new OnHeapRingBufferMessageStore()
+                () -> new OnHeapRingBufferMessageStore(),
+                () -> new OnHeapIndexingMessageStore(journalKeyIndexer(), 100)
         );
     }
 
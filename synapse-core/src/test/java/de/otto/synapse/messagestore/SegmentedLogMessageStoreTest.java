@@ -0,0 +1,223 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.testsupport.TestClock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.channel.ShardPosition.fromPositionAndTimestamp;
+import static de.otto.synapse.messagestore.Index.JOURNAL_KEY;
+import static de.otto.synapse.messagestore.Indexers.journalKeyIndexer;
+import static java.lang.String.valueOf;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class SegmentedLogMessageStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldStoreAndReadMessages() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final TextMessage message = TextMessage.of(
+                Key.of("first", "compaction"),
+                Header.of(fromPositionAndTimestamp("shard", "42", Instant.ofEpochSecond(42, 1)), ImmutableMap.of("attr", "value")),
+                "{\"foo\":\"bär\"}");
+
+        // when
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory).build()) {
+            messageStore.add(MessageStoreEntry.of("test", message));
+            messageStore.add(MessageStoreEntry.of("test", TextMessage.of(Key.of("second"), Header.of(), null)));
+            messageStore.add(MessageStoreEntry.of("test", TextMessage.of(Key.of("third"), Header.of(), "")));
+
+            // then
+            final List<TextMessage> messages = messageStore.stream().map(MessageStoreEntry::getTextMessage).collect(toList());
+            assertThat(messages, contains(
+                    message,
+                    TextMessage.of(Key.of("second"), Header.of(), null),
+                    TextMessage.of(Key.of("third"), Header.of(), "")));
+            assertThat(messageStore.size(), is(3L));
+        }
+    }
+
+    @Test
+    public void shouldReturnJournalOfEntity() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory).withIndexer(journalKeyIndexer()).build()) {
+            // when
+            for (int i = 0; i < 100; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of(valueOf(i % 10), "payload-" + i)));
+            }
+
+            // then
+            final List<String> payloads = messageStore.stream(JOURNAL_KEY, "3")
+                    .map(entry -> entry.getTextMessage().getPayload())
+                    .collect(toList());
+            assertThat(payloads, contains("payload-3", "payload-13", "payload-23", "payload-33", "payload-43", "payload-53", "payload-63", "payload-73", "payload-83", "payload-93"));
+        }
+    }
+
+    @Test
+    public void shouldRecoverExistingSegments() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory).withSegmentSize(1024).withIndexer(journalKeyIndexer()).build()) {
+            for (int i = 0; i < 100; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of(Key.of(valueOf(i % 10)), Header.of(fromPosition("shard", valueOf(i))), "payload-" + i)));
+            }
+        }
+
+        // when
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory).withSegmentSize(1024).withIndexer(journalKeyIndexer()).build()) {
+            messageStore.add(MessageStoreEntry.of("test", TextMessage.of(Key.of("3"), Header.of(fromPosition("shard", "100")), "payload-100")));
+
+            // then
+            assertThat(messageStore.getSegmentCount(), is(greaterThan(1)));
+            assertThat(messageStore.size(), is(101L));
+            assertThat(messageStore.getLatestChannelPosition("test"), is(channelPosition(fromPosition("shard", "100"))));
+            assertThat(messageStore.stream(JOURNAL_KEY, "3").count(), is(11L));
+        }
+    }
+
+    @Test
+    public void shouldRemoveOldestSegmentsExceedingRetentionSize() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory)
+                .withSegmentSize(1024)
+                .withRetentionSize(4096)
+                .withIndexer(journalKeyIndexer())
+                .build()) {
+            // when
+            for (int i = 0; i < 1000; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of(valueOf(i % 10), "payload-" + i)));
+            }
+
+            // then
+            assertThat(messageStore.getSegmentCount(), is(4));
+            assertThat(directory.toFile().list().length, is(4));
+            final List<MessageStoreEntry> entries = messageStore.stream().collect(toList());
+            assertThat(entries.get(entries.size() - 1).getTextMessage().getPayload(), is("payload-999"));
+            assertThat(messageStore.size(), is((long) entries.size()));
+            assertThat(messageStore.stream(JOURNAL_KEY, "9").count(), is(entries.stream().filter(entry -> entry.getTextMessage().getKey().partitionKey().equals("9")).count()));
+        }
+    }
+
+    @Test
+    public void shouldRemoveExpiredSegments() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final TestClock clock = TestClock.now();
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory)
+                .withSegmentSize(1024)
+                .withRetentionTime(Duration.ofHours(1))
+                .withIndexer(journalKeyIndexer())
+                .withClock(clock)
+                .build()) {
+            for (int i = 0; i < 100; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of("old", "payload-" + i)));
+            }
+
+            // when
+            clock.proceed(2, HOURS);
+            for (int i = 0; i < 20; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of("new", "payload-" + i)));
+            }
+
+            // then
+            final long remainingOldMessages = messageStore.stream(JOURNAL_KEY, "old").count();
+            assertThat(remainingOldMessages, is(lessThan(100L)));
+            assertThat(messageStore.stream(JOURNAL_KEY, "new").count(), is(20L));
+            assertThat(messageStore.size(), is(remainingOldMessages + 20L));
+        }
+    }
+
+    @Test
+    public void shouldNotReturnExpiredMessagesIfNoMessagesAreAdded() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final TestClock clock = TestClock.now();
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory)
+                .withSegmentSize(1024)
+                .withRetentionTime(Duration.ofHours(1))
+                .withIndexer(journalKeyIndexer())
+                .withClock(clock)
+                .build()) {
+            for (int i = 0; i < 100; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of("old", "payload-" + i)));
+            }
+
+            // when
+            clock.proceed(2, HOURS);
+
+            // then
+            assertThat(messageStore.stream().count(), is(0L));
+            assertThat(messageStore.stream(JOURNAL_KEY, "old").count(), is(0L));
+            assertThat(messageStore.size(), is(0L));
+            assertThat(messageStore.getSegmentCount(), is(1));
+        }
+    }
+
+    @Test
+    public void shouldApplyRetentionToRecoveredSegments() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory)
+                .withSegmentSize(1024)
+                .withIndexer(journalKeyIndexer())
+                .build()) {
+            for (int i = 0; i < 1000; ++i) {
+                messageStore.add(MessageStoreEntry.of("test", TextMessage.of(valueOf(i % 10), "payload-" + i)));
+            }
+            assertThat(messageStore.getSegmentCount(), is(greaterThan(4)));
+        }
+
+        // when
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory)
+                .withSegmentSize(1024)
+                .withRetentionSize(4096)
+                .withIndexer(journalKeyIndexer())
+                .build()) {
+
+            // then
+            assertThat(messageStore.getSegmentCount(), is(4));
+            assertThat(directory.toFile().list().length, is(4));
+            assertThat(messageStore.stream(JOURNAL_KEY, "9").count(), is(messageStore.stream().filter(entry -> entry.getTextMessage().getKey().partitionKey().equals("9")).count()));
+        }
+    }
+
+    @Test
+    public void shouldNotMixUpIndexNamesAndValues() throws Exception {
+        // given
+        final Path directory = temporaryFolder.newFolder().toPath();
+        final Index otherIndex = Index.valueOf("journalKey#a");
+        try (final SegmentedLogMessageStore messageStore = SegmentedLogMessageStore.builder(directory).build()) {
+
+            // when
+            messageStore.add(MessageStoreEntry.of("test", ImmutableMap.of(otherIndex, "b"), TextMessage.of("1", "payload")));
+
+            // then
+            assertThat(messageStore.stream(JOURNAL_KEY, "a#b").count(), is(0L));
+            assertThat(messageStore.stream(otherIndex, "b").count(), is(1L));
+        }
+    }
+}
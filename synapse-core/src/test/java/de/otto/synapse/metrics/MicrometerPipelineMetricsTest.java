@@ -0,0 +1,226 @@
+package de.otto.synapse.metrics;
+
+import com.google.common.collect.ImmutableSet;
+import de.otto.synapse.configuration.SynapseProperties;
+import de.otto.synapse.eventsource.EventSourceScheduler;
+import de.otto.synapse.journal.AsyncJournalWriter;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.messagestore.MessageStore;
+import de.otto.synapse.messagestore.MessageStoreEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.ALL_SHARDS;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.CONSUMER_LATENCY;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.INTERCEPTOR_LATENCY;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.JOURNAL_FLUSH_LATENCY;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.JOURNAL_QUEUE_DEPTH;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.MESSAGES_RECEIVED;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.MESSAGES_SENT;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.NO_SHARD;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.POLL_BATCH_SIZE;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.POLL_LATENCY;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.SCHEDULER_PENDING_TASKS;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.SCHEDULER_RUNNING_TIME;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.SCHEDULER_WAITING_TIME;
+import static de.otto.synapse.metrics.MicrometerPipelineMetrics.STATE_REPOSITORY_LATENCY;
+import static de.otto.synapse.metrics.TagValueLimiter.OTHER;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class MicrometerPipelineMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SynapseProperties.Metrics properties = new SynapseProperties.Metrics();
+
+    @Test
+    public void shouldRecordPolledBatches() {
+        // given
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordPoll("some-channel", "shard-1", 10, MILLISECONDS.toNanos(5));
+        metrics.recordPoll("some-channel", "shard-1", 20, MILLISECONDS.toNanos(15));
+        metrics.recordReceived("some-channel", "shard-1", 30);
+        metrics.recordReceived("some-channel", null, 5);
+
+        // then
+        assertThat(meterRegistry.get(POLL_BATCH_SIZE).tags("channel", "some-channel", "shard", "shard-1").summary().totalAmount(), is(30.0));
+        final Timer pollLatency = meterRegistry.get(POLL_LATENCY).tags("channel", "some-channel", "shard", "shard-1").timer();
+        assertThat(pollLatency.count(), is(2L));
+        assertThat(pollLatency.totalTime(MILLISECONDS), is(20.0));
+        assertThat(meterRegistry.get(MESSAGES_RECEIVED).tags("channel", "some-channel", "shard", "shard-1").counter().count(), is(30.0));
+        assertThat(meterRegistry.get(MESSAGES_RECEIVED).tags("channel", "some-channel", "shard", NO_SHARD).counter().count(), is(5.0));
+    }
+
+    @Test
+    public void shouldRecordLatencies() {
+        // given
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordInterceptor("some-channel", RECEIVER, "SomeInterceptor", 1000L);
+        metrics.recordConsumer("some-channel", "SomeConsumer.consume", 2000L);
+        metrics.recordConsumer("some-channel", "SomeConsumer.consume", 3000L);
+        metrics.recordStateRepository("some-repository", "get", 4000L);
+
+        // then
+        assertThat(meterRegistry.get(INTERCEPTOR_LATENCY).tags("channel", "some-channel", "endpoint", "receiver", "interceptor", "SomeInterceptor").timer().totalTime(NANOSECONDS), is(1000.0));
+        assertThat(meterRegistry.get(CONSUMER_LATENCY).tags("channel", "some-channel", "consumer", "SomeConsumer.consume").timer().count(), is(2L));
+        assertThat(meterRegistry.get(STATE_REPOSITORY_LATENCY).tags("state_repository", "some-repository", "operation", "get").timer().count(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordJournalFlushes() {
+        // given
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordJournalFlush("some-journal", 1000L);
+        metrics.recordJournalFlush("some-journal", 2000L);
+
+        // then
+        final Timer flushLatency = meterRegistry.get(JOURNAL_FLUSH_LATENCY).tags("journal", "some-journal").timer();
+        assertThat(flushLatency.count(), is(2L));
+        assertThat(flushLatency.totalTime(NANOSECONDS), is(3000.0));
+    }
+
+    @Test
+    public void shouldPublishQueueDepthOfJournalWriter() throws Exception {
+        // given
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+        final CountDownLatch released = new CountDownLatch(1);
+        final MessageStore messageStore = mock(MessageStore.class);
+        doAnswer(invocation -> released.await(5, SECONDS)).when(messageStore).addAll(anyList());
+        final AsyncJournalWriter writer = new AsyncJournalWriter("some-journal", messageStore, 10, 1);
+        writer.write(MessageStoreEntry.of("some-channel", TextMessage.of("1", "1")));
+        writer.write(MessageStoreEntry.of("some-channel", TextMessage.of("2", "2")));
+        writer.write(MessageStoreEntry.of("some-channel", TextMessage.of("3", "3")));
+
+        // when
+        metrics.bindJournalWriter(writer);
+
+        // then
+        assertThat(meterRegistry.get(JOURNAL_QUEUE_DEPTH).tags("journal", "some-journal").gauge().value(), is(greaterThanOrEqualTo(2.0)));
+        released.countDown();
+        writer.close();
+        assertThat(meterRegistry.get(JOURNAL_QUEUE_DEPTH).tags("journal", "some-journal").gauge().value(), is(0.0));
+    }
+
+    @Test
+    public void shouldPublishStatisticsOfEventSourceScheduler() throws Exception {
+        // given
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+        try (final EventSourceScheduler scheduler = new EventSourceScheduler(1)) {
+            final CountDownLatch done = new CountDownLatch(2);
+            scheduler.executorFor("some-channel").execute(done::countDown);
+
+            // when
+            metrics.bindEventSourceScheduler(scheduler);
+            scheduler.executorFor("other-channel").execute(done::countDown);
+
+            // then
+            assertThat(done.await(5, SECONDS), is(true));
+            await().atMost(5, SECONDS).until(() -> scheduler.getStatistics("other-channel").getCompletedTasks() == 1L);
+            assertThat(meterRegistry.get(SCHEDULER_PENDING_TASKS).tags("channel", "some-channel").gauge().value(), is(0.0));
+            assertThat(meterRegistry.get(SCHEDULER_WAITING_TIME).tags("channel", "some-channel").functionTimer().count(), is(1.0));
+            assertThat(meterRegistry.get(SCHEDULER_RUNNING_TIME).tags("channel", "other-channel").functionTimer().count(), is(1.0));
+        }
+    }
+
+    @Test
+    public void shouldLimitNumberOfTagValues() {
+        // given
+        properties.setMaxTagValues(2);
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordSent("first", 1);
+        metrics.recordSent("second", 1);
+        metrics.recordSent("third", 1);
+        metrics.recordSent("fourth", 1);
+        metrics.recordSent("first", 1);
+
+        // then
+        assertThat(meterRegistry.get(MESSAGES_SENT).counters().size(), is(3));
+        assertThat(meterRegistry.get(MESSAGES_SENT).tags("channel", "first").counter().count(), is(2.0));
+        assertThat(meterRegistry.get(MESSAGES_SENT).tags("channel", OTHER).counter().count(), is(2.0));
+    }
+
+    @Test
+    public void shouldOnlyTagAllowedChannels() {
+        // given
+        properties.setChannels(ImmutableSet.of("allowed"));
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordSent("allowed", 1);
+        metrics.recordSent("some-other-channel", 1);
+
+        // then
+        assertThat(meterRegistry.get(MESSAGES_SENT).tags("channel", "allowed").counter().count(), is(1.0));
+        assertThat(meterRegistry.get(MESSAGES_SENT).tags("channel", OTHER).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void shouldNotTagShardsIfDisabled() {
+        // given
+        properties.setShardTagsEnabled(false);
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordReceived("some-channel", "shard-1", 1);
+        metrics.recordReceived("some-channel", "shard-2", 2);
+
+        // then
+        final Counter received = meterRegistry.get(MESSAGES_RECEIVED).tags("channel", "some-channel", "shard", ALL_SHARDS).counter();
+        assertThat(received.count(), is(3.0));
+        assertThat(meterRegistry.get(MESSAGES_RECEIVED).counters().size(), is(1));
+    }
+
+    @Test
+    public void shouldLimitNumberOfMeters() {
+        // given
+        properties.setMaxMeters(2);
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordSent("first", 1);
+        metrics.recordSent("second", 1);
+        metrics.recordSent("third", 1);
+        metrics.recordSent("first", 1);
+
+        // then
+        assertThat(meterRegistry.getMeters().size(), is(2));
+        assertThat(meterRegistry.get(MESSAGES_SENT).tags("channel", "first").counter().count(), is(2.0));
+        assertThat(meterRegistry.find(MESSAGES_SENT).tags("channel", "third").counter(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotPublishPercentileHistogramsByDefault() {
+        // given
+        final MicrometerPipelineMetrics metrics = new MicrometerPipelineMetrics(meterRegistry, properties);
+
+        // when
+        metrics.recordConsumer("some-channel", "SomeConsumer.consume", 1000L);
+
+        // then
+        final Timer timer = meterRegistry.get(CONSUMER_LATENCY).timer();
+        assertThat(timer.takeSnapshot().histogramCounts().length, is(0));
+    }
+}
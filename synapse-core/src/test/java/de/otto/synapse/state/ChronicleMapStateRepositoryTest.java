@@ -1,21 +1,29 @@
 package de.otto.synapse.state;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
 import static de.otto.synapse.state.ChronicleMapStateRepository.builder;
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
 public class ChronicleMapStateRepositoryTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void shouldRetrieveValueAfterPut() {
         // given
@@ -28,6 +36,23 @@ public class ChronicleMapStateRepositoryTest {
         assertThat(result.get(), is(new SomePojo("A", 1)));
     }
 
+    @Test
+    public void shouldScanEntriesInOrderOfKeys() {
+        // given
+        ChronicleMapStateRepository<SomePojo> repository = builder(SomePojo.class).build();
+        repository.put("c", new SomePojo("C", 3));
+        repository.put("a", new SomePojo("A", 1));
+        repository.put("b", new SomePojo("B", 2));
+        // when
+        ScanResult<SomePojo> firstPage = repository.scan(null, 2);
+        ScanResult<SomePojo> secondPage = repository.scan(firstPage.getNextCursor().get(), 2);
+        // then
+        assertThat(new ArrayList<>(firstPage.getEntries().keySet()), is(asList("a", "b")));
+        assertThat(firstPage.getEntries().get("b"), is(new SomePojo("B", 2)));
+        assertThat(new ArrayList<>(secondPage.getEntries().keySet()), is(asList("c")));
+        assertThat(secondPage.getNextCursor(), is(Optional.empty()));
+    }
+
     @Test
     public void shouldReturnOptionalEmptyForUnknownKey() {
         // given
@@ -76,6 +101,62 @@ public class ChronicleMapStateRepositoryTest {
         assertThat(resultKeys, containsInAnyOrder("someKeyA", "someKeyB", "someKeyC"));
     }
 
+    @Test
+    public void shouldKeepEntriesOfPersistedRepository() throws Exception {
+        // given
+        final File file = new File(temporaryFolder.getRoot(), "some-repository.dat");
+        ChronicleMapStateRepository<SomePojo> repository = builder(SomePojo.class).withPersistedFile(file).build();
+        repository.put("someKeyA", new SomePojo("A", 1));
+        repository.put("someKeyB", new SomePojo("B", 2));
+        repository.close();
+        // when
+        repository = builder(SomePojo.class).withPersistedFile(file).build();
+        // then
+        assertThat(repository.size(), is(2L));
+        assertThat(repository.get("someKeyB"), is(Optional.of(new SomePojo("B", 2))));
+        repository.close();
+    }
+
+    @Test
+    public void shouldPersistGenerationOfPersistedRepository() throws Exception {
+        // given
+        final File file = new File(temporaryFolder.getRoot(), "some-repository.dat");
+        ChronicleMapStateRepository<SomePojo> repository = builder(SomePojo.class).withPersistedFile(file).build();
+        repository.put("someKeyA", new SomePojo("A", 1));
+        // when
+        repository.persistGeneration(42);
+        repository.close();
+        // then
+        repository = builder(SomePojo.class).withPersistedFile(file).build();
+        assertThat(repository.getPersistedGeneration(), is(OptionalLong.of(42)));
+        repository.close();
+    }
+
+    @Test
+    public void shouldRemoveGenerationOnClear() throws Exception {
+        // given
+        final File file = new File(temporaryFolder.getRoot(), "some-repository.dat");
+        final ChronicleMapStateRepository<SomePojo> repository = builder(SomePojo.class).withPersistedFile(file).build();
+        repository.put("someKeyA", new SomePojo("A", 1));
+        repository.persistGeneration(42);
+        // when
+        repository.clear();
+        // then
+        assertThat(repository.getPersistedGeneration(), is(OptionalLong.empty()));
+        repository.close();
+    }
+
+    @Test
+    public void shouldNotPersistGenerationOfInMemoryRepository() throws Exception {
+        // given
+        final ChronicleMapStateRepository<SomePojo> repository = builder(SomePojo.class).build();
+        // when
+        repository.persistGeneration(42);
+        // then
+        assertThat(repository.getPersistedGeneration(), is(OptionalLong.empty()));
+        repository.close();
+    }
+
     public static class SomePojo {
 
         public String someString;
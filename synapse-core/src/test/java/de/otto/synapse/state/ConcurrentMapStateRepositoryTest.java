@@ -0,0 +1,66 @@
+package de.otto.synapse.state;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ConcurrentMapStateRepositoryTest {
+
+    @Test
+    public void shouldScanEntriesInOrderOfKeys() {
+        // given
+        final StateRepository<String> repository = new ConcurrentMapStateRepository<>("test");
+        repository.put("c", "C");
+        repository.put("a", "A");
+        repository.put("d", "D");
+        repository.put("b", "B");
+        // when
+        final ScanResult<String> firstPage = repository.scan(null, 3);
+        final ScanResult<String> secondPage = repository.scan(firstPage.getNextCursor().get(), 3);
+        // then
+        assertThat(keysOf(firstPage), is(asList("a", "b", "c")));
+        assertThat(firstPage.getEntries().get("a"), is("A"));
+        assertThat(keysOf(secondPage), is(asList("d")));
+        assertThat(secondPage.getNextCursor(), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldScanNavigableMapStartingAtCursor() {
+        // given
+        final StateRepository<String> repository = new ConcurrentMapStateRepository<>("test", new ConcurrentSkipListMap<>());
+        repository.put("c", "C");
+        repository.put("a", "A");
+        repository.put("b", "B");
+        // when
+        final ScanResult<String> firstPage = repository.scan(null, 2);
+        final ScanResult<String> secondPage = repository.scan(firstPage.getNextCursor().get(), 2);
+        // then
+        assertThat(keysOf(firstPage), is(asList("a", "b")));
+        assertThat(keysOf(secondPage), is(asList("c")));
+        assertThat(secondPage.getNextCursor(), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldScanEmptyRepository() {
+        final StateRepository<String> repository = new ConcurrentMapStateRepository<>("test");
+        final ScanResult<String> page = repository.scan(null, 10);
+        assertThat(page.getEntries().isEmpty(), is(true));
+        assertThat(page.getNextCursor(), is(Optional.empty()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidLimit() {
+        new ConcurrentMapStateRepository<String>("test").scan(null, 0);
+    }
+
+    private static List<String> keysOf(final ScanResult<String> scanResult) {
+        return new ArrayList<>(scanResult.getEntries().keySet());
+    }
+}
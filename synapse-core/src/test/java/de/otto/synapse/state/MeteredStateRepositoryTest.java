@@ -0,0 +1,60 @@
+package de.otto.synapse.state;
+
+import de.otto.synapse.metrics.PipelineMetrics;
+import org.junit.After;
+import org.junit.Test;
+
+import static de.otto.synapse.metrics.SynapseMetrics.overrideMetrics;
+import static de.otto.synapse.metrics.SynapseMetrics.resetMetrics;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class MeteredStateRepositoryTest {
+
+    private final PipelineMetrics pipelineMetrics = mock(PipelineMetrics.class);
+
+    @After
+    public void resetPipelineMetrics() {
+        resetMetrics(pipelineMetrics);
+    }
+
+    @Test
+    public void shouldRecordOperationLatenciesIfEnabled() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(true);
+        overrideMetrics(pipelineMetrics);
+        final StateRepository<String> repository = new MeteredStateRepository<>(new ConcurrentMapStateRepository<>("test"));
+
+        // when
+        repository.put("foo", "bar");
+        final String value = repository.get("foo").orElse(null);
+
+        // then
+        assertThat(value, is("bar"));
+        verify(pipelineMetrics).recordStateRepository(eq("test"), eq("put"), anyLong());
+        verify(pipelineMetrics).recordStateRepository(eq("test"), eq("get"), anyLong());
+    }
+
+    @Test
+    public void shouldNotRecordOperationLatenciesIfDisabled() {
+        // given
+        when(pipelineMetrics.isEnabled()).thenReturn(false);
+        overrideMetrics(pipelineMetrics);
+        final StateRepository<String> repository = new MeteredStateRepository<>(new ConcurrentMapStateRepository<>("test"));
+
+        // when
+        repository.put("foo", "bar");
+
+        // then
+        assertThat(repository.get("foo").orElse(null), is("bar"));
+        verify(pipelineMetrics, times(2)).isEnabled();
+        verifyNoMoreInteractions(pipelineMetrics);
+    }
+}
@@ -81,6 +81,36 @@ public class NitriteStateRepositoryTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    public void shouldGetAllEntriesInOrderOfKeys() {
+        // given
+        repository.put("first", new SomePojo("A", 1));
+        repository.put("second", new SomePojo("B", 2));
+        repository.put("third", new SomePojo("C", 3));
+        // when
+        Map<String, SomePojo> result = repository.getAll(Arrays.asList("third", "someUnknownKey", "first"));
+        // then
+        assertThat(new ArrayList<>(result.keySet()), is(Arrays.asList("third", "first")));
+        assertThat(result.get("third"), is(new SomePojo("C", 3)));
+        assertThat(result.get("first"), is(new SomePojo("A", 1)));
+    }
+
+    @Test
+    public void shouldScanEntriesInOrderOfKeys() {
+        // given
+        repository.put("c", new SomePojo("C", 3));
+        repository.put("a", new SomePojo("A", 1));
+        repository.put("b", new SomePojo("B", 2));
+        // when
+        ScanResult<SomePojo> firstPage = repository.scan(null, 2);
+        ScanResult<SomePojo> secondPage = repository.scan(firstPage.getNextCursor().get(), 2);
+        // then
+        assertThat(new ArrayList<>(firstPage.getEntries().keySet()), is(Arrays.asList("a", "b")));
+        assertThat(firstPage.getEntries().get("b"), is(new SomePojo("B", 2)));
+        assertThat(new ArrayList<>(secondPage.getEntries().keySet()), is(Arrays.asList("c")));
+        assertThat(secondPage.getNextCursor(), is(Optional.empty()));
+    }
+
     @Test
     public void shouldRemoveEntry() {
         // given
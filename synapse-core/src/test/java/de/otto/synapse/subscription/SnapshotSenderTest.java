@@ -0,0 +1,103 @@
+package de.otto.synapse.subscription;
+
+import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
+import de.otto.synapse.state.ConcurrentMapStateRepository;
+import de.otto.synapse.state.StateRepository;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static java.lang.String.valueOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SnapshotSenderTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldPackMessagesOfEntitiesIntoFullBatches() {
+        // given
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> {
+            batchSizes.add((int) ((Stream<?>) invocation.getArgument(0)).count());
+            return completedFuture(null);
+        });
+        final SnapshotSender sender = new SnapshotSender(senderEndpoint, 100, 500, 4, 0);
+
+        // when
+        final SnapshotSender.Progress progress = sender.send(entityIds(1050), snapshotProviderFor(1050));
+
+        // then
+        assertThat(batchSizes, contains(500, 500, 50));
+        assertThat(progress.getProcessedEntities(), is(1050L));
+        assertThat(progress.getSentMessages(), is(1050L));
+        assertThat(progress.getBatches(), is(3L));
+        assertThat(progress.getFailedMessages(), is(0L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldLimitBatchesInFlight() throws Exception {
+        // given
+        final List<CompletableFuture<Void>> inFlight = new CopyOnWriteArrayList<>();
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            inFlight.add(future);
+            return future;
+        });
+        final SnapshotSender sender = new SnapshotSender(senderEndpoint, 100, 10, 2, 0);
+
+        // when
+        final CompletableFuture<SnapshotSender.Progress> snapshot = CompletableFuture.supplyAsync(
+                () -> sender.send(entityIds(30), snapshotProviderFor(30)));
+        Thread.sleep(100);
+
+        // then
+        assertThat(inFlight.size(), is(2));
+        assertThat(snapshot.isDone(), is(false));
+        inFlight.get(0).complete(null);
+        inFlight.get(1).complete(null);
+        Thread.sleep(100);
+        assertThat(inFlight.size(), is(3));
+        inFlight.get(2).complete(null);
+        assertThat(snapshot.get(5, SECONDS).getSentMessages(), is(30L));
+    }
+
+    @Test(expected = CompletionException.class)
+    @SuppressWarnings("unchecked")
+    public void shouldFailIfBatchCouldNotBeSent() {
+        // given
+        final CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("some error"));
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenReturn(failed);
+        final SnapshotSender sender = new SnapshotSender(senderEndpoint, 100, 10, 2, 0);
+
+        // when
+        sender.send(entityIds(30), snapshotProviderFor(30));
+    }
+
+    private static List<String> entityIds(final int count) {
+        return range(0, count).mapToObj(String::valueOf).collect(toList());
+    }
+
+    private static SnapshotProvider snapshotProviderFor(final int count) {
+        final StateRepository<String> stateRepository = new ConcurrentMapStateRepository<>("foo");
+        range(0, count).forEach(i -> stateRepository.put(valueOf(i), "entity-" + i));
+        return new StateRepositorySnapshotProvider<>("foo", stateRepository);
+    }
+}
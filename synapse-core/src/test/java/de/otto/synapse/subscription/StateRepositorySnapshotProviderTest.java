@@ -9,6 +9,8 @@ import org.junit.Test;
 
 import java.util.stream.Stream;
 
+import static java.util.Arrays.asList;
+
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
@@ -55,4 +57,17 @@ public class StateRepositorySnapshotProviderTest {
         assertThat(snapshot.count(), is(0L));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldStreamSnapshotMessagesOfMultipleEntities() {
+        final StateRepository<String> stateRepository = new ConcurrentMapStateRepository<>("foo");
+        final StateRepositorySnapshotProvider<String> snapshotProvider = new StateRepositorySnapshotProvider<>("foo", stateRepository);
+        stateRepository.put("1", "eins");
+        stateRepository.put("2", "zwei");
+        stateRepository.put("3", "drei");
+        final Stream<? extends Message<?>> snapshot = snapshotProvider.snapshot(asList("3", "unknown", "1"));
+        assertThat(snapshot.collect(toList()), contains(
+                TextMessage.of("3", "drei"),
+                TextMessage.of("1", "eins")));
+    }
+
+}
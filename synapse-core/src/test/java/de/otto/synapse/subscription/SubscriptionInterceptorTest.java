@@ -0,0 +1,70 @@
+package de.otto.synapse.subscription;
+
+import com.google.common.collect.ImmutableSet;
+import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("deprecation")
+public class SubscriptionInterceptorTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSendMessagesOfSubscribedEntities() {
+        // given
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final MessageSenderEndpoint targetSenderEndpoint = mock(MessageSenderEndpoint.class);
+        when(targetSenderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> {
+            final Stream<? extends Message<?>> batch = invocation.getArgument(0);
+            sent.addAll(batch.map(message -> (String) message.getPayload()).collect(toList()));
+            return completedFuture(null);
+        });
+        final Subscription subscription = new Subscription("42", "subscribed-channel", "target-channel");
+        final SubscriptionInterceptor interceptor = new SubscriptionInterceptor(subscription, targetSenderEndpoint);
+
+        // when
+        subscription.subscribe(ImmutableSet.of("1"));
+        interceptor.intercept(TextMessage.of("1", "eins"));
+        interceptor.intercept(TextMessage.of("2", "zwei"));
+
+        // then
+        await().atMost(5, SECONDS).until(() -> !sent.isEmpty());
+        assertThat(sent, contains("eins"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotBlockWhileMessagesAreSent() {
+        // given
+        final MessageSenderEndpoint targetSenderEndpoint = mock(MessageSenderEndpoint.class);
+        when(targetSenderEndpoint.sendBatch(any(Stream.class))).thenReturn(new CompletableFuture<>());
+        final Subscription subscription = new Subscription("42", "subscribed-channel", "target-channel");
+        final SubscriptionInterceptor interceptor = new SubscriptionInterceptor(subscription, targetSenderEndpoint);
+        subscription.subscribe(ImmutableSet.of("1"));
+
+        // when
+        final CompletableFuture<Void> intercepted = CompletableFuture.runAsync(() -> {
+            interceptor.intercept(TextMessage.of("1", "eins"));
+            interceptor.intercept(TextMessage.of("1", "one"));
+        });
+
+        // then
+        await().atMost(5, SECONDS).until(intercepted::isDone);
+    }
+}
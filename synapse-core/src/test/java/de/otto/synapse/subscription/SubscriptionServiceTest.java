@@ -7,7 +7,9 @@ import de.otto.synapse.channel.selector.MessageLog;
 import de.otto.synapse.endpoint.EndpointType;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.sender.InMemoryMessageSenderFactory;
+import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpointFactory;
+import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.state.ConcurrentMapStateRepository;
 import de.otto.synapse.state.StateRepository;
 import de.otto.synapse.subscription.events.SubscriptionCreated;
@@ -88,7 +90,7 @@ public class SubscriptionServiceTest {
     }
 
     @Test
-    public void shouldRegisterSeparateInterceptorsForTwoSubscriptions() {
+    public void shouldRegisterSingleFanOutInterceptorForTwoSubscriptions() {
         final SubscriptionCreated firstSubscription = new SubscriptionCreated(
                 "42",
                 SUBSCRIBED_CHANNEL,
@@ -96,7 +98,7 @@ public class SubscriptionServiceTest {
         final SubscriptionCreated secondSubscription = new SubscriptionCreated(
                 "4711",
                 SUBSCRIBED_CHANNEL,
-                RESPONSE_CHANNEL);
+                OTHER_RESPONSE_CHANNEL);
         final MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
         final SubscriptionService service = new SubscriptionService(
                 registry,
@@ -104,16 +106,56 @@ public class SubscriptionServiceTest {
                 ImmutableList.of(someSnapshotProvider()));
         service.onSubscriptionCreated(firstSubscription, MessageLog.class);
         service.onSubscriptionCreated(secondSubscription, MessageLog.class);
-        assertThat(registry.getRegistrations(SUBSCRIBED_CHANNEL, EndpointType.SENDER), hasSize(2));
+        assertThat(registry.getRegistrations(SUBSCRIBED_CHANNEL, EndpointType.SENDER), hasSize(1));
 
-        final List<String> targetChannels = registry
+        final List<String> channels = registry
                 .getRegistrations(SUBSCRIBED_CHANNEL, EndpointType.SENDER)
                 .stream()
-                .map(registration -> (SubscriptionInterceptor) registration.getInterceptor())
-                .map(SubscriptionInterceptor::getSubscription)
-                .map(Subscription::getTargetChannelName)
+                .map(registration -> (SubscriptionFanOutInterceptor) registration.getInterceptor())
+                .map(SubscriptionFanOutInterceptor::getChannelName)
                 .collect(Collectors.toList());
-        assertThat(targetChannels, contains(RESPONSE_CHANNEL, RESPONSE_CHANNEL));
+        assertThat(channels, contains(SUBSCRIBED_CHANNEL));
+        assertThat(service.getSubscriptions().subscriptionsFor(SUBSCRIBED_CHANNEL), hasSize(2));
+    }
+
+    @Test
+    public void shouldSendMessagesOfSubscribedEntitiesToTargetChannels() {
+        final SubscriptionService service = new SubscriptionService(
+                registry,
+                ImmutableList.of(senderEndpointFactory),
+                ImmutableList.of(someSnapshotProvider()),
+                Runnable::run);
+        service.onSubscriptionCreated(new SubscriptionCreated("42", SUBSCRIBED_CHANNEL, RESPONSE_CHANNEL), MessageLog.class);
+        service.onSubscriptionCreated(new SubscriptionCreated("4711", SUBSCRIBED_CHANNEL, OTHER_RESPONSE_CHANNEL), MessageLog.class);
+        service.onSubscriptionUpdated(new SubscriptionUpdated("42", ImmutableSet.of("1", "2"), ImmutableSet.of()));
+        service.onSubscriptionUpdated(new SubscriptionUpdated("4711", ImmutableSet.of("2"), ImmutableSet.of()));
+        inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue().clear();
+        inMemoryChannels.getChannel(OTHER_RESPONSE_CHANNEL).getEventQueue().clear();
+
+        final MessageSenderEndpoint subscribedChannelSender = senderEndpointFactory.create(SUBSCRIBED_CHANNEL);
+        subscribedChannelSender.send(TextMessage.of("1", "eins"));
+        subscribedChannelSender.send(TextMessage.of("2", "zwei"));
+        subscribedChannelSender.send(TextMessage.of("3", "drei"));
+
+        assertThat(inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue().stream().map(TextMessage::getPayload).collect(Collectors.toList()), contains("eins", "zwei"));
+        assertThat(inMemoryChannels.getChannel(OTHER_RESPONSE_CHANNEL).getEventQueue().stream().map(TextMessage::getPayload).collect(Collectors.toList()), contains("zwei"));
+    }
+
+    @Test
+    public void shouldStopSendingMessagesOfDeletedSubscription() {
+        final SubscriptionService service = new SubscriptionService(
+                registry,
+                ImmutableList.of(senderEndpointFactory),
+                ImmutableList.of(someSnapshotProvider()),
+                Runnable::run);
+        service.onSubscriptionCreated(new SubscriptionCreated("42", SUBSCRIBED_CHANNEL, RESPONSE_CHANNEL), MessageLog.class);
+        service.onSubscriptionUpdated(new SubscriptionUpdated("42", ImmutableSet.of("1"), ImmutableSet.of()));
+        inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue().clear();
+
+        service.onSubscriptionDeleted("42");
+        senderEndpointFactory.create(SUBSCRIBED_CHANNEL).send(TextMessage.of("1", "eins"));
+
+        assertThat(inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue(), is(empty()));
     }
 
     @Test
@@ -198,6 +240,22 @@ public class SubscriptionServiceTest {
         assertThat(inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue(), hasSize(2));
     }
 
+    @Test
+    public void shouldDrainTargetChannelsWhenDestroyed() {
+        final SubscriptionService service = new SubscriptionService(
+                registry,
+                ImmutableList.of(senderEndpointFactory),
+                ImmutableList.of(someSnapshotProvider()));
+        service.onSubscriptionCreated(new SubscriptionCreated("42", SUBSCRIBED_CHANNEL, RESPONSE_CHANNEL), MessageLog.class);
+        service.onSubscriptionUpdated(new SubscriptionUpdated("42", ImmutableSet.of("1"), ImmutableSet.of()));
+        inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue().clear();
+        senderEndpointFactory.create(SUBSCRIBED_CHANNEL).send(TextMessage.of("1", "eins"));
+
+        service.destroy();
+
+        assertThat(inMemoryChannels.getChannel(RESPONSE_CHANNEL).getEventQueue().stream().map(TextMessage::getPayload).collect(Collectors.toList()), contains("eins"));
+    }
+
     private SnapshotProvider someSnapshotProvider() {
         return new StateRepositorySnapshotProvider(SUBSCRIBED_CHANNEL, stateRepository);
     }
@@ -62,4 +62,37 @@ public class SubscriptionsTest {
         assertThat(subscriptions.get("foo").get().getSubscribedEntities(), contains("2"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldFindSubscriptionsOfEntity() {
+        final Subscriptions subscriptions = new Subscriptions();
+        final Subscription first = new Subscription("foo", "foo-channel", "bar-channel");
+        final Subscription second = new Subscription("bar", "foo-channel", "baz-channel");
+        first.subscribe(ImmutableSet.of("1", "2"));
+        subscriptions.addIfMissing(first);
+        subscriptions.addIfMissing(second);
+        subscriptions.subscribe("bar", ImmutableSet.of("2", "3"));
+
+        assertThat(subscriptions.subscriptionsFor("foo-channel", "1"), contains(first));
+        assertThat(subscriptions.subscriptionsFor("foo-channel", "2"), containsInAnyOrder(first, second));
+        assertThat(subscriptions.subscriptionsFor("foo-channel", "3"), contains(second));
+        assertThat(subscriptions.subscriptionsFor("foo-channel", "4"), is(empty()));
+        assertThat(subscriptions.subscriptionsFor("other-channel", "1"), is(empty()));
+    }
+
+    @Test
+    public void shouldRemoveUnsubscribedAndDeletedSubscriptionsFromIndex() {
+        final Subscriptions subscriptions = new Subscriptions();
+        final Subscription first = new Subscription("foo", "foo-channel", "bar-channel");
+        final Subscription second = new Subscription("bar", "foo-channel", "baz-channel");
+        subscriptions.addIfMissing(first);
+        subscriptions.addIfMissing(second);
+        subscriptions.subscribe("foo", ImmutableSet.of("1", "2"));
+        subscriptions.subscribe("bar", ImmutableSet.of("2"));
+
+        subscriptions.unsubscribe("foo", ImmutableSet.of("1"));
+        subscriptions.remove("bar");
+
+        assertThat(subscriptions.subscriptionsFor("foo-channel", "1"), is(empty()));
+        assertThat(subscriptions.subscriptionsFor("foo-channel", "2"), contains(first));
+    }
+}
@@ -0,0 +1,171 @@
+package de.otto.synapse.subscription;
+
+import de.otto.synapse.endpoint.sender.MessageSenderEndpoint;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static java.lang.String.valueOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TargetChannelSenderTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSendQueuedMessagesInBatches() throws Exception {
+        // given
+        final CountDownLatch released = new CountDownLatch(1);
+        final List<List<String>> batches = new ArrayList<>();
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> {
+            released.await();
+            final Stream<? extends Message<?>> batch = invocation.getArgument(0);
+            batches.add(batch.map(message -> (String) message.getPayload()).collect(toList()));
+            return completedFuture(null);
+        });
+        final ExecutorService executor = newSingleThreadExecutor();
+        final TargetChannelSender sender = new TargetChannelSender(senderEndpoint, 100, 3, executor);
+
+        // when
+        for (int i = 0; i < 7; ++i) {
+            sender.send(TextMessage.of(valueOf(i), valueOf(i)));
+        }
+        released.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, SECONDS);
+
+        // then
+        assertThat(batches.stream().flatMap(List::stream).collect(toList()), contains("0", "1", "2", "3", "4", "5", "6"));
+        assertThat(batches.size(), is((int) sender.getBatches()));
+        assertThat(sender.getSentMessages(), is(7L));
+        assertThat(sender.getQueueDepth(), is(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBlockSendersIfQueueIsFull() throws Exception {
+        // given
+        final CountDownLatch flushing = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> {
+            flushing.countDown();
+            released.await();
+            ((Stream<?>) invocation.getArgument(0)).count();
+            return completedFuture(null);
+        });
+        final ExecutorService executor = newSingleThreadExecutor();
+        final TargetChannelSender sender = new TargetChannelSender(senderEndpoint, 2, 1, executor);
+        sender.send(TextMessage.of("0", "0"));
+        flushing.await(5, SECONDS);
+        sender.send(TextMessage.of("1", "1"));
+        sender.send(TextMessage.of("2", "2"));
+
+        // when
+        final CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> sender.send(TextMessage.of("3", "3")));
+        Thread.sleep(100);
+
+        // then
+        assertThat(blocked.isDone(), is(false));
+        released.countDown();
+        blocked.get(5, SECONDS);
+        executor.shutdown();
+        executor.awaitTermination(5, SECONDS);
+        assertThat(sender.getSentMessages(), is(4L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRetryFailedBatches() {
+        // given
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class)))
+                .thenReturn(failedFuture())
+                .thenReturn(completedFuture(null));
+        final TargetChannelSender sender = new TargetChannelSender(senderEndpoint, 10, 10, Runnable::run, 2, Duration.ofMillis(1), (channel, messages, cause) -> {});
+
+        // when
+        sender.send(TextMessage.of("0", "0"));
+
+        // then
+        verify(senderEndpoint, times(2)).sendBatch(any(Stream.class));
+        assertThat(sender.getRetries(), is(1L));
+        assertThat(sender.getSentMessages(), is(1L));
+        assertThat(sender.getFailedMessages(), is(0L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReportBatchesFailingAfterLastRetry() {
+        // given
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.getChannelName()).thenReturn("target-channel");
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> failedFuture());
+        final AtomicReference<List<TextMessage>> failedBatch = new AtomicReference<>();
+        final TargetChannelSender sender = new TargetChannelSender(senderEndpoint, 10, 10, Runnable::run, 2, Duration.ofMillis(1), (channel, messages, cause) -> {
+            assertThat(channel, is("target-channel"));
+            failedBatch.set(messages);
+        });
+
+        // when
+        sender.send(TextMessage.of("0", "0"));
+
+        // then
+        verify(senderEndpoint, times(3)).sendBatch(any(Stream.class));
+        assertThat(sender.getRetries(), is(2L));
+        assertThat(sender.getFailedMessages(), is(1L));
+        assertThat(failedBatch.get().get(0).getPayload(), is("0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldDrainQueuedMessages() {
+        // given
+        final MessageSenderEndpoint senderEndpoint = mock(MessageSenderEndpoint.class);
+        when(senderEndpoint.sendBatch(any(Stream.class))).thenAnswer(invocation -> supplyAsync(() -> {
+            ((Stream<?>) invocation.getArgument(0)).count();
+            return null;
+        }));
+        final ExecutorService executor = newSingleThreadExecutor();
+        final TargetChannelSender sender = new TargetChannelSender(senderEndpoint, 100, 1, executor);
+        for (int i = 0; i < 10; ++i) {
+            sender.send(TextMessage.of(valueOf(i), valueOf(i)));
+        }
+
+        // when
+        final boolean drained = sender.drain(Duration.ofSeconds(5));
+
+        // then
+        assertThat(drained, is(true));
+        assertThat(sender.getQueueDepth(), is(0));
+        assertThat(sender.getSentMessages(), is(10L));
+        executor.shutdown();
+    }
+
+    private static CompletableFuture<Void> failedFuture() {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalStateException("some error"));
+        return future;
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.Test;
 
 import static com.google.common.collect.ImmutableBiMap.of;
 import static de.otto.synapse.message.Key.NO_KEY;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -131,6 +132,55 @@ public class AbstractTextDecoderTest {
         assertThat(message.getHeader().getAll()).isEmpty();
     }
 
+    @Test
+    public void shouldDecodeV2FormatWithoutReformattingPayload() {
+        final String body = "{\n"
+                + "  \"_synapse_msg_format\" : \"v2\",\n"
+                + "  \"_synapse_msg_payload\" : { \"some\" : [ \"pay\", \"load\" ] },\n"
+                + "  \"_synapse_msg_key\" : { \"partitionKey\" : \"p1\", \"compactionKey\" : \"p2\" },\n"
+                + "  \"_synapse_msg_headers\" : { \"attr\" : \"value\", \"number\" : 42 }\n"
+                + "}";
+
+        final Message<String> message = decoder.apply(body);
+
+        assertThat(message.getKey()).isEqualTo(Key.of("p1", "p2"));
+        assertThat(message.getPayload()).isEqualTo("{ \"some\" : [ \"pay\", \"load\" ] }");
+        assertThat(message.getHeader().getAsString("attr")).isEqualTo("value");
+        assertThat(message.getHeader().getAsString("number")).isEqualTo("42");
+    }
+
+    @Test
+    public void shouldDecodeV2FormatWithArrayAndStringPayloads() {
+        assertThat(decoder.apply("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":[1,2,3]}").getPayload())
+                .isEqualTo("[1,2,3]");
+        assertThat(decoder.apply("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":\"some \\\"text\\\"\"}").getPayload())
+                .isEqualTo("some \"text\"");
+    }
+
+    @Test
+    public void shouldDecodeV2FormatFromUtf8Bytes() {
+        final byte[] body = ("__{\"_synapse_msg_format\":\"v2\","
+                + "\"_synapse_msg_key\":{\"partitionKey\":\"p1\",\"compactionKey\":\"p2\"},"
+                + "\"_synapse_msg_headers\":{\"attr\":\"välue\"},"
+                + "\"_synapse_msg_payload\":{\"söme\":\"payload\"}}__").getBytes(UTF_8);
+
+        final TextMessage message = decoder.decode(NO_KEY, Header.of(), body, 2, body.length - 4);
+
+        assertThat(message.getKey()).isEqualTo(Key.of("p1", "p2"));
+        assertThat(message.getPayload()).isEqualTo("{\"söme\":\"payload\"}");
+        assertThat(message.getHeader().getAsString("attr")).isEqualTo("välue");
+    }
+
+    @Test
+    public void shouldFallBackToV1FormatForBrokenV2Message() {
+        final String body = "{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":42,\"_synapse_msg_payload\":{}}";
+
+        final Message<String> message = decoder.apply(body);
+
+        assertThat(message.getKey()).isEqualTo(NO_KEY);
+        assertThat(message.getPayload()).isEqualTo(body);
+    }
+
     @Test
     public void shouldConvertMessageToStringValueAndViceVersa() {
         final TextMessage message = TextMessage.of("some key","{}");
@@ -0,0 +1,153 @@
+package de.otto.synapse.translator;
+
+import com.google.common.base.Strings;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryMessageCodecTest {
+
+    @Test
+    public void shouldEncodeAndDecodeMessage() {
+        final TextMessage message = TextMessage.of(Key.of("foo", "bar"), Header.builder().withAttributes(of("attr", "value", "other", "äöü")).build(), "{\"some\":\"payload\"}");
+        final byte[] encoded = BinaryMessageCodec.encode(message);
+
+        final TextMessage decoded = BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), encoded, 0, encoded.length);
+
+        assertThat(decoded.getKey()).isEqualTo(Key.of("foo", "bar"));
+        assertThat(decoded.getHeader().getAll()).isEqualTo(of("attr", "value", "other", "äöü"));
+        assertThat(decoded.getPayload()).isEqualTo("{\"some\":\"payload\"}");
+    }
+
+    @Test
+    public void shouldDecodeMessageAtOffset() {
+        final byte[] encoded = BinaryMessageCodec.encode(TextMessage.of(Key.of("foo"), Header.of(), "some payload"));
+        final byte[] bytes = new byte[encoded.length + 10];
+        System.arraycopy(encoded, 0, bytes, 5, encoded.length);
+
+        final TextMessage decoded = BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), bytes, 5, encoded.length);
+
+        assertThat(decoded.getKey()).isEqualTo(Key.of("foo"));
+        assertThat(decoded.getPayload()).isEqualTo("some payload");
+    }
+
+    @Test
+    public void shouldKeepShardPositionOfPrototypeHeader() {
+        final byte[] encoded = BinaryMessageCodec.encode(TextMessage.of(Key.of("foo"), Header.of(of("attr", "value")), "{}"));
+
+        final TextMessage decoded = BinaryMessageCodec.decode(Key.NO_KEY, Header.of(fromPosition("shard", "42")), encoded, 0, encoded.length);
+
+        assertThat(decoded.getHeader().getShardPosition()).contains(fromPosition("shard", "42"));
+        assertThat(decoded.getHeader().getAsString("attr")).isEqualTo("value");
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeNullPayload() {
+        final byte[] encoded = BinaryMessageCodec.encode(TextMessage.of(Key.of("foo"), Header.of(), null));
+
+        final TextMessage decoded = BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), encoded, 0, encoded.length);
+
+        assertThat(decoded.getPayload()).isNull();
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeEmptyPayload() {
+        final byte[] encoded = BinaryMessageCodec.encode(TextMessage.of(Key.of("foo"), Header.of(), ""));
+
+        final TextMessage decoded = BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), encoded, 0, encoded.length);
+
+        assertThat(decoded.getPayload()).isEqualTo("");
+    }
+
+    @Test
+    public void shouldCompressLargePayloads() {
+        final String payload = "{\"text\":\"" + Strings.repeat("some repeated text ", 200) + "\"}";
+        final byte[] encoded = BinaryMessageCodec.encode(TextMessage.of(Key.of("foo"), Header.of(), payload));
+
+        assertThat(encoded.length).isLessThan(payload.getBytes(UTF_8).length / 2);
+        assertThat(BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), encoded, 0, encoded.length).getPayload()).isEqualTo(payload);
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeTextRepresentation() {
+        final TextMessage message = TextMessage.of(Key.of("foo", "bar"), Header.of(of("attr", "value")), "{}");
+        final String encoded = BinaryMessageCodec.encodeToString(message);
+
+        assertThat(encoded).startsWith(BinaryMessageCodec.TEXT_PREFIX);
+        assertThat(MessageFormat.versionOf(encoded)).isEqualTo(MessageFormat.V3);
+        final TextMessage decoded = BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), encoded);
+        assertThat(decoded.getKey()).isEqualTo(Key.of("foo", "bar"));
+        assertThat(decoded.getHeader().getAsString("attr")).isEqualTo("value");
+        assertThat(decoded.getPayload()).isEqualTo("{}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToDecodeTruncatedMessage() {
+        final byte[] encoded = BinaryMessageCodec.encode(TextMessage.of(Key.of("foo"), Header.of(), "some payload"));
+        BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), encoded, 0, encoded.length - 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOversizedUncompressedLength() {
+        // uncompressed length of Integer.MAX_VALUE bytes, but only two compressed bytes:
+        final byte[] bytes = deflatedMessageWithLengths(0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+        BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), bytes, 0, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeUncompressedLength() {
+        final byte[] bytes = deflatedMessageWithLengths(0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), bytes, 0, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUncompressedLengthExceedingDeflateRatio() {
+        // 1 MiB, claimed for 2 compressed bytes
+        final byte[] bytes = deflatedMessageWithLengths(0x80, 0x80, 0x40);
+        BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), bytes, 0, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToDecodeNonBinaryMessage() {
+        final byte[] bytes = "{\"some\":\"payload\"}".getBytes(UTF_8);
+        BinaryMessageCodec.decode(Key.NO_KEY, Header.of(), bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void shouldDecodeMixedMessageFormats() {
+        final TextMessage message = TextMessage.of(Key.of("foo", "bar"), Header.of(of("attr", "value")), "{\"some\":\"payload\"}");
+        final AbstractTextDecoder<String> decoder = new AbstractTextDecoder<String>() {
+            @Override
+            public TextMessage apply(final String body) {
+                return decode(Key.NO_KEY, Header.of(), body);
+            }
+        };
+
+        for (final MessageFormat format : MessageFormat.values()) {
+            final TextMessage decoded = decoder.apply(new TextEncoder(format).apply(message));
+            assertThat(decoded.getPayload()).isEqualTo("{\"some\":\"payload\"}");
+            if (format != MessageFormat.V1) {
+                assertThat(decoded.getKey()).isEqualTo(Key.of("foo", "bar"));
+                assertThat(decoded.getHeader().getAsString("attr")).isEqualTo("value");
+            }
+        }
+    }
+
+    private static byte[] deflatedMessageWithLengths(final int... uncompressedLength) {
+        final byte[] header = {0x00, 'S', 'Y', 'N', 0x03, 0x01, 0x01, 'a', 0x00, 0x00};
+        final byte[] bytes = new byte[header.length + uncompressedLength.length + 3];
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        for (int i = 0; i < uncompressedLength.length; ++i) {
+            bytes[header.length + i] = (byte) uncompressedLength[i];
+        }
+        // compressed length of 2 bytes, followed by the (missing) compressed payload:
+        bytes[header.length + uncompressedLength.length] = 0x02;
+        return bytes;
+    }
+}
@@ -2,6 +2,7 @@ package de.otto.synapse.translator;
 
 import org.junit.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -11,4 +12,28 @@ public class MessageFormatTest {
     public void shouldReturnDefaultMessageFormat() {
         assertThat(MessageFormat.defaultMessageFormat()).isEqualTo(MessageFormat.V1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldDetermineVersionFromString() {
+        assertThat(MessageFormat.versionOf("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":{}}")).isEqualTo(MessageFormat.V2);
+        assertThat(MessageFormat.versionOf("{\n  \"_synapse_msg_format\" : \"v2\",\n  \"_synapse_msg_payload\" : {}\n}")).isEqualTo(MessageFormat.V2);
+        assertThat(MessageFormat.versionOf("{\"_synapse_msg_format\":\"v2\"")).isEqualTo(MessageFormat.V1);
+        assertThat(MessageFormat.versionOf("{\"some\":\"payload\"}")).isEqualTo(MessageFormat.V1);
+        assertThat(MessageFormat.versionOf("some payload")).isEqualTo(MessageFormat.V1);
+        assertThat(MessageFormat.versionOf((String) null)).isEqualTo(MessageFormat.V1);
+    }
+
+    @Test
+    public void shouldDetermineVersionFromUtf8Bytes() {
+        assertThat(versionOf("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":{}}")).isEqualTo(MessageFormat.V2);
+        assertThat(versionOf("  { \"_synapse_msg_format\" : \"v2\", \"_synapse_msg_payload\":{}}")).isEqualTo(MessageFormat.V2);
+        assertThat(versionOf("{\"_synapse_msg_format\":\"v3\",\"_synapse_msg_payload\":{}}")).isEqualTo(MessageFormat.V1);
+        assertThat(versionOf("{\"some\":\"payload\"}")).isEqualTo(MessageFormat.V1);
+        assertThat(versionOf("")).isEqualTo(MessageFormat.V1);
+    }
+
+    private MessageFormat versionOf(final String message) {
+        final byte[] bytes = message.getBytes(UTF_8);
+        return MessageFormat.versionOf(bytes, 0, bytes.length);
+    }
+}
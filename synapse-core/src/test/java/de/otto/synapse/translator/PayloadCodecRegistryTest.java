@@ -0,0 +1,102 @@
+package de.otto.synapse.translator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PayloadCodecRegistryTest {
+
+    private final ObjectMapper previousObjectMapper = currentObjectMapper();
+
+    @After
+    public void restoreDefaults() {
+        PayloadCodecRegistry.unregister(SomePayload.class);
+        PayloadCodecRegistry.overrideCodecFactory(PayloadCodecRegistry.defaultCodecFactory());
+        ObjectMappers.overrideObjectMapper(previousObjectMapper);
+    }
+
+    @Test
+    public void shouldCacheCodecPerPayloadType() {
+        final PayloadCodec<SomePayload> codec = PayloadCodecRegistry.codecFor(SomePayload.class);
+        assertThat(PayloadCodecRegistry.codecFor(SomePayload.class), is(sameInstance(codec)));
+        assertThat(PayloadCodecRegistry.codecFor(String.class), is(not(sameInstance((Object) codec))));
+    }
+
+    @Test
+    public void shouldReadAndWritePayloads() throws IOException {
+        final PayloadCodec<SomePayload> codec = PayloadCodecRegistry.codecFor(SomePayload.class);
+        final String json = codec.write(new SomePayload("bar"));
+        assertThat(json, is("{\"someValue\":\"bar\"}"));
+        assertThat(codec.read(json).someValue, is("bar"));
+        assertThat(codec.read(json.getBytes(), 0, json.length()).someValue, is("bar"));
+    }
+
+    @Test
+    public void shouldResetCodecsIfObjectMapperIsOverridden() throws IOException {
+        final PayloadCodec<SomePayload> codec = PayloadCodecRegistry.codecFor(SomePayload.class);
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE);
+        ObjectMappers.overrideObjectMapper(objectMapper);
+
+        final PayloadCodec<SomePayload> overriddenCodec = PayloadCodecRegistry.codecFor(SomePayload.class);
+        assertThat(overriddenCodec, is(not(sameInstance(codec))));
+        assertThat(overriddenCodec.write(new SomePayload("bar")), is("{\"some_value\":\"bar\"}"));
+    }
+
+    @Test
+    public void shouldUseRegisteredCodec() throws IOException {
+        final PayloadCodec<SomePayload> someCodec = new FixedPayloadCodec();
+        PayloadCodecRegistry.register(SomePayload.class, someCodec);
+
+        assertThat(PayloadCodecRegistry.codecFor(SomePayload.class), is(sameInstance(someCodec)));
+        ObjectMappers.overrideObjectMapper(new ObjectMapper());
+        assertThat(PayloadCodecRegistry.codecFor(SomePayload.class), is(sameInstance(someCodec)));
+    }
+
+    @Test
+    public void shouldUseOverriddenCodecFactory() {
+        PayloadCodecRegistry.overrideCodecFactory(new PayloadCodecFactory() {
+            @Nonnull
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> PayloadCodec<T> create(final @Nonnull ObjectMapper objectMapper, final @Nonnull Class<T> payloadType) {
+                return (PayloadCodec<T>) new FixedPayloadCodec();
+            }
+        });
+
+        assertThat(PayloadCodecRegistry.codecFor(SomePayload.class), is(instanceOf(FixedPayloadCodec.class)));
+    }
+
+    public static class SomePayload {
+        public String someValue;
+
+        public SomePayload() {
+        }
+
+        SomePayload(final String someValue) {
+            this.someValue = someValue;
+        }
+    }
+
+    private static class FixedPayloadCodec implements PayloadCodec<SomePayload> {
+        @Override
+        public SomePayload read(final @Nonnull String payload) {
+            return new SomePayload("fixed");
+        }
+
+        @Nonnull
+        @Override
+        public String write(final @Nonnull SomePayload payload) {
+            return "{}";
+        }
+    }
+}
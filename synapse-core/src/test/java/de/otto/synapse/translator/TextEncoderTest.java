@@ -37,4 +37,42 @@ public class TextEncoderTest {
         assertThat(encoded).isEqualTo("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":{\"partitionKey\":\"foo\",\"compactionKey\":\"bar\"},\"_synapse_msg_headers\":{\"attr\":\"value\"},\"_synapse_msg_payload\":{}}");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldSpliceJsonPayloadIntoV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final TextMessage someMessage = TextMessage.of(Key.of("foo", "bar"), Header.of(), "{\"some\": [ \"payload\" ]}");
+        final String encoded = encoder.apply(someMessage);
+        assertThat(encoded).isEqualTo("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":{\"partitionKey\":\"foo\",\"compactionKey\":\"bar\"},\"_synapse_msg_headers\":{},\"_synapse_msg_payload\":{\"some\": [ \"payload\" ]}}");
+    }
+
+    @Test
+    public void shouldReformatJsonPayloadWithLineBreaksInV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final TextMessage someMessage = TextMessage.of(Key.of("foo", "bar"), Header.of(), "{\n  \"some\" : \"payload\"\n}");
+        final String encoded = encoder.apply(someMessage);
+        assertThat(encoded).endsWith(",\"_synapse_msg_payload\":{\"some\":\"payload\"}}");
+    }
+
+    @Test
+    public void shouldEncodeNonJsonPayloadAsStringInV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        assertThat(encoder.apply(TextMessage.of("foo", "some \"text\""))).endsWith(",\"_synapse_msg_payload\":\"some \\\"text\\\"\"}");
+        assertThat(encoder.apply(TextMessage.of("foo", "{} trailing"))).endsWith(",\"_synapse_msg_payload\":\"{} trailing\"}");
+        assertThat(encoder.apply(TextMessage.of("foo", "[1,2"))).endsWith(",\"_synapse_msg_payload\":\"[1,2\"}");
+        assertThat(encoder.apply(TextMessage.of("foo", ""))).endsWith(",\"_synapse_msg_payload\":\"\"}");
+    }
+
+    @Test
+    public void shouldEncodeNullPayloadInV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        assertThat(encoder.apply(TextMessage.of("foo", null))).endsWith(",\"_synapse_msg_payload\":null}");
+    }
+
+    @Test
+    public void shouldEscapeKeyAndHeadersInV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final TextMessage someMessage = TextMessage.of(Key.of("f\"oo", "bar"), Header.builder().withAttributes(of("at\"tr", "val\\ue")).build(), "{}");
+        final Message<String> decoded = new TextDecoder().apply(encoder.apply(someMessage));
+        assertThat(decoded).isEqualTo(someMessage);
+    }
+}
@@ -0,0 +1,55 @@
+package de.otto.synapse.edison.state;
+
+import com.damnhandy.uri.template.UriTemplate;
+import de.otto.edison.hal.Links;
+import de.otto.synapse.state.ScanResult;
+
+import javax.annotation.Nullable;
+
+import static com.damnhandy.uri.template.UriTemplate.fromTemplate;
+import static de.otto.edison.hal.Link.link;
+import static de.otto.edison.hal.Links.linkingTo;
+
+/**
+ * Paging links of state repositories that are paged using {@link de.otto.synapse.state.StateRepository#scan(String, int)}.
+ *
+ * <p>Scanning only supports forward paging, so the links contain 'self', 'first' and 'next' links, but no 'prev'
+ * and 'last' links.</p>
+ */
+final class ScanPaging {
+
+    private ScanPaging() {
+    }
+
+    /**
+     * Creates the paging links of a scanned page.
+     *
+     * @param repositoryUriTemplate URI template of the repository, having template variables 'cursor' and 'pageSize'
+     * @param cursor the cursor of the current page, or null for the first page
+     * @param pageSize the page size
+     * @param scanResult the result of the scan
+     * @return paging links
+     */
+    static Links scanPagingLinks(final String repositoryUriTemplate,
+                                 final @Nullable String cursor,
+                                 final int pageSize,
+                                 final ScanResult<?> scanResult) {
+        final Links.Builder links = linkingTo()
+                .self(pageHref(repositoryUriTemplate, cursor, pageSize));
+        if (cursor != null) {
+            links.single(link("first", pageHref(repositoryUriTemplate, null, pageSize)));
+        }
+        scanResult.getNextCursor().ifPresent(nextCursor -> links.single(
+                link("next", pageHref(repositoryUriTemplate, nextCursor, pageSize))));
+        return links.build();
+    }
+
+    private static String pageHref(final String repositoryUriTemplate,
+                                   final @Nullable String cursor,
+                                   final int pageSize) {
+        final UriTemplate uriTemplate = fromTemplate(repositoryUriTemplate).set("pageSize", pageSize);
+        return cursor != null
+                ? uriTemplate.set("cursor", cursor).expand()
+                : uriTemplate.expand();
+    }
+}
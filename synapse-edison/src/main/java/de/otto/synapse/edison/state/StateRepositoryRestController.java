@@ -5,9 +5,9 @@ import com.google.common.collect.ImmutableMap;
 import de.otto.edison.hal.HalRepresentation;
 import de.otto.edison.hal.Link;
 import de.otto.edison.hal.Links;
-import de.otto.edison.hal.paging.PagingRel;
 import de.otto.synapse.journal.Journal;
 import de.otto.synapse.journal.JournalRegistry;
+import de.otto.synapse.state.ScanResult;
 import de.otto.synapse.state.StateRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -21,19 +21,17 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static com.damnhandy.uri.template.UriTemplate.fromTemplate;
 import static com.google.common.collect.Maps.uniqueIndex;
 import static de.otto.edison.hal.Link.*;
-import static de.otto.edison.hal.Links.emptyLinks;
 import static de.otto.edison.hal.Links.linkingTo;
-import static de.otto.edison.hal.paging.NumberedPaging.zeroBasedNumberedPaging;
-import static java.util.EnumSet.allOf;
+import static de.otto.synapse.edison.state.ScanPaging.scanPagingLinks;
 import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Controller
@@ -89,8 +87,11 @@ public class StateRepositoryRestController {
      * Returns an application/hal+json representation of a {@link StateRepository}, containing a pageable collection
      * resource with links to the event-sourced entities stored in the repository.
      *
+     * <p>The entities are paged using {@link StateRepository#scan(String, int)}. The link to the next page contains
+     * the cursor returned by the scan.</p>
+     *
      * @param repositoryName the name of the StateRepository
-     * @param page the zero-based page number
+     * @param cursor the cursor of the requested page, or null for the first page
      * @param pageSize the number of entities to return
      * @param uriComponentsBuilder builder used to create hrefs
      *
@@ -102,37 +103,31 @@ public class StateRepositoryRestController {
     )
     @ResponseBody
     public HalRepresentation getStateRepository(final @PathVariable String repositoryName,
-                                                final @RequestParam(defaultValue = "0") int page,
+                                                final @RequestParam(required = false) String cursor,
                                                 final @RequestParam(defaultValue = "100") int pageSize,
                                                 final UriComponentsBuilder uriComponentsBuilder) {
         if (stateRepositories.containsKey(repositoryName)) {
+            if (pageSize < 1) {
+                throw new ResponseStatusException(BAD_REQUEST, "pageSize must be greater than 0");
+            }
 
             final UriComponentsBuilder baseUriBuilder = uriComponentsBuilder
                     .pathSegment(managementBasePath)
                     .path("/staterepositories");
             final UriTemplate repositoriesUri = fromTemplate(baseUriBuilder.toUriString());
-            final UriTemplate repositoryUri = fromTemplate(baseUriBuilder.toUriString() + "/" + repositoryName + "{?page,pageSize}");
+            final String repositoryUri = baseUriBuilder.toUriString() + "/" + repositoryName + "{?cursor,pageSize}";
             final UriTemplate entityUri = fromTemplate(baseUriBuilder.toUriString() + "/" + repositoryName + "/{entityId}");
 
             final StateRepository<?> stateRepository = stateRepositories
                     .get(repositoryName);
 
-            final Set<String> allEntityIds = stateRepository.keySet();
-            final List<String> entityPageIds = allEntityIds
-                    .stream()
-                    .skip(page * pageSize)
-                    .limit(pageSize)
-                    .collect(toList());
-
-            final Links pagingLinks = pageSize > 0
-                    ? zeroBasedNumberedPaging(page, pageSize, (int)stateRepository.size()).links(repositoryUri, allOf(PagingRel.class))
-                    : emptyLinks();
+            final ScanResult<?> scanResult = stateRepository.scan(cursor, pageSize);
 
-            final List<Link> itemLinks = entityItemLinks(entityUri, entityPageIds);
+            final List<Link> itemLinks = entityItemLinks(entityUri, scanResult.getEntries().keySet());
 
             return new HalRepresentation(
                     linkingTo()
-                            .with(pagingLinks)
+                            .with(scanPagingLinks(repositoryUri, cursor, pageSize, scanResult))
                             .single(collection(repositoriesUri.expand()))
                             .array(itemLinks).build()
             );
@@ -172,7 +167,7 @@ public class StateRepositoryRestController {
                             baseUri + "/" + repositoryName + "/staterepositories/" + entityId)
 
                     .single(
-                            collection(baseUri + "/staterepositories/" + repositoryName + "{?page,pageSize}"));
+                            collection(baseUri + "/staterepositories/" + repositoryName + "{?cursor,pageSize}"));
             if (journals.hasJournal(repositoryName)) {
                 links.single(
                         link("working-copy-of", baseUri + "/journals/" + repositoryName + "/" + entityId));
@@ -186,7 +181,7 @@ public class StateRepositoryRestController {
     }
 
     private List<Link> entityItemLinks(final UriTemplate uriTemplate,
-                                       final List<String> entityIds) {
+                                       final Collection<String> entityIds) {
 
         return entityIds
                 .stream()
@@ -1,12 +1,11 @@
 package de.otto.synapse.edison.state;
 
-import com.damnhandy.uri.template.UriTemplate;
 import com.google.common.collect.ImmutableMap;
 import de.otto.edison.hal.Link;
 import de.otto.edison.hal.Links;
-import de.otto.edison.hal.paging.PagingRel;
 import de.otto.edison.navigation.NavBar;
 import de.otto.synapse.journal.JournalRegistry;
+import de.otto.synapse.state.ScanResult;
 import de.otto.synapse.state.StateRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -22,21 +21,18 @@ import org.springframework.web.servlet.view.RedirectView;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
-import static com.damnhandy.uri.template.UriTemplate.fromTemplate;
 import static com.google.common.collect.Maps.uniqueIndex;
-import static de.otto.edison.hal.Links.emptyLinks;
-import static de.otto.edison.hal.paging.NumberedPaging.zeroBasedNumberedPaging;
 import static de.otto.edison.navigation.NavBarItem.navBarItem;
 import static de.otto.synapse.edison.state.PagerModel.UNAVAILABLE;
+import static de.otto.synapse.edison.state.ScanPaging.scanPagingLinks;
 import static de.otto.synapse.translator.JsonHelper.prettyPrint;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
-import static java.util.EnumSet.allOf;
 import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Controller
@@ -76,34 +72,30 @@ public class StateRepositoryUiController {
             produces = "text/html"
     )
     public ModelAndView getStateRepositoryHtml(final @PathVariable String repositoryName,
-                                               final @RequestParam(defaultValue = "0") int page,
+                                               final @RequestParam(required = false) String cursor,
                                                final @RequestParam(defaultValue = "100") int pageSize,
                                                final UriComponentsBuilder uriComponentsBuilder) {
         if (stateRepositories.containsKey(repositoryName)) {
+            if (pageSize < 1) {
+                throw new ResponseStatusException(BAD_REQUEST, "pageSize must be greater than 0");
+            }
 
             final StateRepository<?> stateRepository = stateRepositories
                     .get(repositoryName);
-            final Set<String> allEntityIds = stateRepository
-                    .keySet();
-            final List<String> entityPageIds = allEntityIds
-                    .stream()
-                    .skip(page * pageSize)
-                    .limit(pageSize)
-                    .collect(Collectors.toList());
+            final ScanResult<?> scanResult = stateRepository.scan(cursor, pageSize);
 
             final UriComponentsBuilder baseUriBuilder = uriComponentsBuilder
                     .pathSegment(managementBasePath)
                     .path("/staterepositories");
 
-            final UriTemplate repositoryUri = fromTemplate(baseUriBuilder.toUriString() + "/" + repositoryName + "{?page,pageSize}");
+            final String repositoryUri = baseUriBuilder.toUriString() + "/" + repositoryName + "{?cursor,pageSize}";
 
-            final PagerModel pagerModel = toPagerModel(pageSize > 0
-                    ? zeroBasedNumberedPaging(page, pageSize, (int)stateRepository.size()).links(repositoryUri, allOf(PagingRel.class))
-                    : emptyLinks());
+            final PagerModel pagerModel = toPagerModel(scanPagingLinks(repositoryUri, cursor, pageSize, scanResult));
 
-            final List<ImmutableMap<String, String>> entitiesModel = entityPageIds
+            final List<ImmutableMap<String, String>> entitiesModel = scanResult.getEntries()
+                    .entrySet()
                     .stream()
-                    .map(entityId -> toEntityModel(entityId, stateRepository.get(entityId)))
+                    .map(entry -> toEntityModel(entry.getKey(), entry.getValue()))
                     .collect(toList());
             return new ModelAndView(
                     "staterepository",
@@ -1,113 +1,107 @@
 package de.otto.synapse.edison.trace;
 
-import com.google.common.collect.EvictingQueue;
 import de.otto.synapse.endpoint.EndpointType;
-import de.otto.synapse.endpoint.MessageEndpoint;
+import de.otto.synapse.message.TextMessage;
 
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.*;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Stream;
 
-import static com.google.common.collect.ImmutableList.copyOf;
-import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Sets.newTreeSet;
-import static java.lang.Boolean.TRUE;
 
 /**
- * Thread-safe in-memory implementation of a circular MessageStore that is storing all traceEntries in insertion order
- * per channel with a configurable capacity per channel.
+ * Thread-safe in-memory trace of the messages sent and received by the message endpoints of the service. The
+ * {@link TraceEntry traceEntries} are stored in insertion order per channel and endpoint type, with a configurable
+ * capacity per channel and endpoint type.
  *
- * <p>Each time an element is added to a full message store, the message store automatically removes its head element.
+ * <p>Each channel and endpoint type has its own lock-free ring buffer. If the buffer is full, the oldest entry is
+ * overwritten. Reading the trace does not block the message endpoints that are adding entries.</p>
+ *
+ * <p>Using a sample rate {@code n > 1}, only one of {@code n} messages is traced on average, so tracing is cheap
+ * enough to be enabled for channels with a high throughput.</p>
  */
 @ThreadSafe
 public class MessageTrace {
 
-    private static final class RegisteredEndpoints {
-        private final String channelName;
-        private final EndpointType endpointType;
-
-        RegisteredEndpoints(final MessageEndpoint messageEndpoint) {
-            this.channelName = messageEndpoint.getChannelName();
-            this.endpointType = messageEndpoint.getEndpointType();
-        }
-
-        String getChannelName() {
-            return channelName;
-        }
-
-        EndpointType getEndpointType() {
-            return endpointType;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            RegisteredEndpoints that = (RegisteredEndpoints) o;
-            return Objects.equals(channelName, that.channelName) &&
-                    endpointType == that.endpointType;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(channelName, endpointType);
-        }
-
-        @Override
-        public String toString() {
-            return "RegisteredEndpoints{" +
-                    "channelName='" + channelName + '\'' +
-                    ", endpointType=" + endpointType +
-                    '}';
-        }
-    }
-
-    private final Map<String, Queue<TraceEntry>> traceEntries;
+    private final Map<EndpointType, ConcurrentMap<String, TraceBuffer>> traceBuffers = new EnumMap<>(EndpointType.class);
     private final int capacityPerChannel;
-    private final ConcurrentMap<String, Boolean> senders = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Boolean> receivers = new ConcurrentHashMap<>();
+    private final int sampleRate;
 
     /**
-     * Creates a new instance with specified capacity per channel.
+     * Creates a new instance with specified capacity per channel, tracing every message.
      *
      * @param capacityPerChannel the size of the underlying ring buffers.
      */
     public MessageTrace(final int capacityPerChannel) {
-        traceEntries = new ConcurrentHashMap<>();
+        this(capacityPerChannel, 1);
+    }
+
+    /**
+     * Creates a new instance with specified capacity per channel and sample rate.
+     *
+     * @param capacityPerChannel the size of the underlying ring buffers.
+     * @param sampleRate one of {@code sampleRate} messages is traced on average; 1 to trace every message
+     */
+    public MessageTrace(final int capacityPerChannel,
+                        final int sampleRate) {
+        if (capacityPerChannel < 1 || sampleRate < 1) {
+            throw new IllegalArgumentException("capacityPerChannel and sampleRate must be greater than 0");
+        }
         this.capacityPerChannel = capacityPerChannel;
+        this.sampleRate = sampleRate;
+        for (final EndpointType endpointType : EndpointType.values()) {
+            traceBuffers.put(endpointType, new ConcurrentHashMap<>());
+        }
     }
 
     public SortedSet<String> getSenderChannels() {
-        return newTreeSet(senders.keySet());
+        return newTreeSet(traceBuffers.get(EndpointType.SENDER).keySet());
     }
 
     public SortedSet<String> getReceiverChannels() {
-        return newTreeSet(receivers.keySet());
+        return newTreeSet(traceBuffers.get(EndpointType.RECEIVER).keySet());
     }
 
     public int getCapacityPerChannel() {
         return capacityPerChannel;
     }
 
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Traces a message that is sent or received by a message endpoint, if the message is sampled.
+     *
+     * @param channelName the name of the channel
+     * @param endpointType the type of the endpoint
+     * @param message the message
+     */
+    public void trace(final String channelName,
+                      final EndpointType endpointType,
+                      final TextMessage message) {
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            add(new TraceEntry(channelName, endpointType, message));
+        }
+    }
+
     /**
      * Adds a Message to the MessageStore.
      *
      * <p>If the capacity of the ring buffer is reached, the oldest message is removed</p>
      * @param traceEntry the message to add
      */
-    public synchronized void add(final TraceEntry traceEntry) {
-        traceEntries.putIfAbsent(traceEntry.getChannelName(), EvictingQueue.create(capacityPerChannel));
-
-        traceEntries.get(traceEntry.getChannelName()).add(traceEntry);
-
-        if (traceEntry.getEndpointType() == EndpointType.RECEIVER) {
-            receivers.putIfAbsent(traceEntry.getChannelName(), TRUE);
-        } else if (traceEntry.getEndpointType() == EndpointType.SENDER) {
-            senders.putIfAbsent(traceEntry.getChannelName(), TRUE);
-        }
+    public void add(final TraceEntry traceEntry) {
+        traceBuffers
+                .get(traceEntry.getEndpointType())
+                .computeIfAbsent(traceEntry.getChannelName(), channelName -> new TraceBuffer(capacityPerChannel))
+                .add(traceEntry);
     }
 
     /**
@@ -118,18 +112,19 @@ public class MessageTrace {
      *
      * @return Stream of traceEntries
      */
-    public synchronized Stream<TraceEntry> stream() {
-        return copyOf(traceEntries.values())
-                .stream().flatMap(Collection::stream);
+    public Stream<TraceEntry> stream() {
+        return traceBuffers.values()
+                .stream()
+                .map(Map::values)
+                .flatMap(Collection::stream)
+                .flatMap(traceBuffer -> traceBuffer.snapshot().stream());
     }
 
-    public synchronized Stream<TraceEntry> stream(final String channelName, final EndpointType endpointType) {
-        if (!traceEntries.containsKey(channelName)) {
-            return Stream.empty();
-        }
-        return copyOf(traceEntries.get(channelName))
-                .stream()
-                .filter(traceEntry -> traceEntry.getEndpointType().equals(endpointType));
+    public Stream<TraceEntry> stream(final String channelName, final EndpointType endpointType) {
+        final TraceBuffer traceBuffer = traceBuffers.get(endpointType).get(channelName);
+        return traceBuffer != null
+                ? traceBuffer.snapshot().stream()
+                : Stream.empty();
     }
 
 }
@@ -31,6 +31,9 @@ public class MessageTraceAutoConfiguration {
     @Value("${synapse.edison.trace.capacity:100}")
     private int capacity = 100;
 
+    @Value("${synapse.edison.trace.sample-rate:1}")
+    private int sampleRate = 1;
+
     @Bean
     @ConditionalOnMissingBean
     public MessageTrace messageTrace(final MessageInterceptorRegistry interceptorRegistry,
@@ -43,14 +46,14 @@ public class MessageTraceAutoConfiguration {
                 navBarItem(10, "Message Trace", href)
         );
 
-        final MessageTrace messageTrace = new MessageTrace(capacity);
+        final MessageTrace messageTrace = new MessageTrace(capacity, sampleRate);
         endpoints.orElse(emptyList()).forEach(endpoint -> {
             final String channelName = endpoint.getChannelName();
             final EndpointType endpointType = endpoint.getEndpointType();
             interceptorRegistry.register(matchingChannelsWith(
                     channelName,
                     message -> {
-                        messageTrace.add(new TraceEntry(channelName, endpointType, message));
+                        messageTrace.trace(channelName, endpointType, message);
                         return message;
                     },
                     HIGHEST_PRECEDENCE
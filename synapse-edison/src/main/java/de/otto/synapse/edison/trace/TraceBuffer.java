@@ -0,0 +1,85 @@
+package de.otto.synapse.edison.trace;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer containing the latest {@link TraceEntry trace entries} of a single channel and endpoint type.
+ *
+ * <p>Writers reserve a sequence number using an atomic counter and store the entry in the slot of the sequence
+ * number, overwriting the oldest entry if the buffer is full. Readers never block writers: a {@link #snapshot()}
+ * contains the entries of the latest {@code capacity} sequence numbers that are completely written and not yet
+ * overwritten, in insertion order.</p>
+ */
+@ThreadSafe
+final class TraceBuffer {
+
+    private final int capacity;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicReferenceArray<Slot> slots;
+
+    TraceBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(final TraceEntry traceEntry) {
+        final long sequence = nextSequence.getAndIncrement();
+        final int index = (int) (sequence % capacity);
+        final Slot slot = new Slot(sequence, traceEntry);
+        Slot current;
+        do {
+            current = slots.get(index);
+            if (current != null && current.sequence > sequence) {
+                // a newer entry was already written by a faster writer:
+                return;
+            }
+        } while (!slots.compareAndSet(index, current, slot));
+    }
+
+    /**
+     * Returns the entries of the buffer in insertion order.
+     *
+     * <p>Entries that are overwritten by concurrent writers while the snapshot is taken are removed from the
+     * snapshot, together with all older entries, so the snapshot does not contain gaps caused by overwritten
+     * entries.</p>
+     *
+     * @return list of trace entries
+     */
+    List<TraceEntry> snapshot() {
+        final long end = nextSequence.get();
+        final long start = Math.max(0, end - capacity);
+        final List<Slot> written = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; ++sequence) {
+            final Slot slot = slots.get((int) (sequence % capacity));
+            // skip slots that are not yet written or already overwritten by concurrent writers:
+            if (slot != null && slot.sequence == sequence) {
+                written.add(slot);
+            }
+        }
+        final long oldestValid = nextSequence.get() - capacity;
+        final List<TraceEntry> entries = new ArrayList<>(written.size());
+        for (final Slot slot : written) {
+            if (slot.sequence >= oldestValid) {
+                entries.add(slot.traceEntry);
+            }
+        }
+        return entries;
+    }
+
+    private static final class Slot {
+        private final long sequence;
+        private final TraceEntry traceEntry;
+
+        private Slot(final long sequence, final TraceEntry traceEntry) {
+            this.sequence = sequence;
+            this.traceEntry = traceEntry;
+        }
+    }
+}
@@ -83,6 +83,42 @@ public class StateRepositoryRestControllerTest {
                                 .value(endsWith("/internal/staterepositories/test/second")));
     }
 
+    @Test
+    public void shouldGetPagedStateRepositoryJson() throws Exception {
+        mockMvc
+                .perform(
+                        get("/internal/staterepositories/test?pageSize=1"))
+                .andExpect(
+                        status().isOk())
+                .andExpect(
+                        jsonPath("$._links.item")
+                                .value(hasSize(1)))
+                .andExpect(
+                        jsonPath("$._links.item[0].href")
+                                .value(endsWith("/internal/staterepositories/test/first")))
+                .andExpect(
+                        jsonPath("$._links.next.href")
+                                .value(is("http://localhost/internal/staterepositories/test?cursor=first&pageSize=1")));
+    }
+
+    @Test
+    public void shouldGetNextPageOfStateRepositoryJson() throws Exception {
+        mockMvc
+                .perform(
+                        get("/internal/staterepositories/test?cursor=first&pageSize=1"))
+                .andExpect(
+                        status().isOk())
+                .andExpect(
+                        jsonPath("$._links.item[0].href")
+                                .value(endsWith("/internal/staterepositories/test/second")))
+                .andExpect(
+                        jsonPath("$._links.first.href")
+                                .value(is("http://localhost/internal/staterepositories/test?pageSize=1")))
+                .andExpect(
+                        jsonPath("$._links.next")
+                                .doesNotExist());
+    }
+
     @Test
     public void shouldGetEntityJson() throws Exception {
         mockMvc
@@ -91,7 +127,7 @@ public class StateRepositoryRestControllerTest {
                 .andExpect(
                         status().isOk())
                 .andExpect(
-                        content().string("{\"entity\":\"one\",\"_links\":{\"self\":{\"href\":\"http://localhost/internal/test/staterepositories/first\"},\"collection\":{\"href\":\"http://localhost/internal/staterepositories/test{?page,pageSize}\",\"templated\":true}}}"));
+                        content().string("{\"entity\":\"one\",\"_links\":{\"self\":{\"href\":\"http://localhost/internal/test/staterepositories/first\"},\"collection\":{\"href\":\"http://localhost/internal/staterepositories/test{?cursor,pageSize}\",\"templated\":true}}}"));
     }
 
     @Test
@@ -154,7 +154,7 @@ public class StateRepositoryUiControllerTest {
     public void shouldGetPagedStateRepositoryHtml() throws Exception {
         mockMvc
                 .perform(
-                        get("/internal/staterepositories/test?page=0&pageSize=1").accept("text/html"))
+                        get("/internal/staterepositories/test?pageSize=1").accept("text/html"))
                 .andExpect(
                         status().isOk())
                 .andExpect(
@@ -167,11 +167,29 @@ public class StateRepositoryUiControllerTest {
                         model().attribute("entities", hasSize(1)))
                 .andExpect(
                         model().attribute("pager", is(new PagerModel(
-                                "http://localhost/internal/staterepositories/test?page=0&pageSize=1",
-                                "http://localhost/internal/staterepositories/test?page=0&pageSize=1",
+                                "http://localhost/internal/staterepositories/test?pageSize=1",
                                 null,
-                                "http://localhost/internal/staterepositories/test?page=1&pageSize=1",
-                                "http://localhost/internal/staterepositories/test?page=1&pageSize=1"))));
+                                null,
+                                "http://localhost/internal/staterepositories/test?cursor=first&pageSize=1",
+                                null))));
+    }
+
+    @Test
+    public void shouldGetNextPageOfStateRepositoryHtml() throws Exception {
+        mockMvc
+                .perform(
+                        get("/internal/staterepositories/test?cursor=first&pageSize=1").accept("text/html"))
+                .andExpect(
+                        status().isOk())
+                .andExpect(
+                        model().attribute("entities", contains(hasEntry("entityId", "second"))))
+                .andExpect(
+                        model().attribute("pager", is(new PagerModel(
+                                "http://localhost/internal/staterepositories/test?cursor=first&pageSize=1",
+                                "http://localhost/internal/staterepositories/test?pageSize=1",
+                                null,
+                                null,
+                                null))));
     }
 
     @Test
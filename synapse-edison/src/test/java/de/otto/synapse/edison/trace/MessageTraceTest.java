@@ -0,0 +1,89 @@
+package de.otto.synapse.edison.trace;
+
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.endpoint.EndpointType.SENDER;
+import static java.lang.String.valueOf;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class MessageTraceTest {
+
+    @Test
+    public void shouldKeepLatestEntriesPerChannelAndEndpointType() {
+        // given
+        final MessageTrace messageTrace = new MessageTrace(3);
+
+        // when
+        for (int i = 0; i < 5; ++i) {
+            messageTrace.add(new TraceEntry("foo", RECEIVER, TextMessage.of(valueOf(i), null)));
+        }
+        messageTrace.add(new TraceEntry("foo", SENDER, TextMessage.of("sent", null)));
+        messageTrace.add(new TraceEntry("bar", RECEIVER, TextMessage.of("other", null)));
+
+        // then
+        assertThat(keysOf(messageTrace.stream("foo", RECEIVER).collect(toList())), contains("2", "3", "4"));
+        assertThat(keysOf(messageTrace.stream("foo", SENDER).collect(toList())), contains("sent"));
+        assertThat(messageTrace.stream("unknown", SENDER).count(), is(0L));
+        assertThat(messageTrace.stream().count(), is(5L));
+        assertThat(messageTrace.getReceiverChannels(), contains("bar", "foo"));
+        assertThat(messageTrace.getSenderChannels(), contains("foo"));
+    }
+
+    @Test
+    public void shouldSampleMessages() {
+        // given
+        final MessageTrace messageTrace = new MessageTrace(10000, 10);
+
+        // when
+        for (int i = 0; i < 10000; ++i) {
+            messageTrace.trace("foo", RECEIVER, TextMessage.of(valueOf(i), null));
+        }
+
+        // then
+        assertThat(messageTrace.stream("foo", RECEIVER).count(), is(allOf(greaterThan(500L), lessThan(1500L))));
+    }
+
+    @Test
+    public void shouldReadConsistentSnapshotsWhileWriting() throws Exception {
+        // given
+        final MessageTrace messageTrace = new MessageTrace(100);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; running.get(); ++i) {
+                messageTrace.add(new TraceEntry("foo", RECEIVER, TextMessage.of(valueOf(i), null)));
+            }
+        });
+
+        // when
+        for (int n = 0; n < 1000; ++n) {
+            final List<TraceEntry> snapshot = messageTrace.stream("foo", RECEIVER).collect(toList());
+
+            // then
+            for (int i = 1; i < snapshot.size(); ++i) {
+                assertThat(Integer.parseInt(snapshot.get(i).getMessage().getKey().partitionKey()),
+                        is(Integer.parseInt(snapshot.get(i - 1).getMessage().getKey().partitionKey()) + 1));
+            }
+        }
+        running.set(false);
+        writer.get(5, SECONDS);
+        assertThat(messageTrace.stream("foo", RECEIVER).collect(toList()), hasSize(100));
+    }
+
+    private static List<String> keysOf(final List<TraceEntry> traceEntries) {
+        return traceEntries.stream().map(entry -> entry.getMessage().getKey().partitionKey()).collect(toList());
+    }
+}
@@ -1,9 +1,9 @@
 package de.otto.synapse.configuration.kafka;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.channel.selector.Kafka;
 import de.otto.synapse.configuration.EventSourcingAutoConfiguration;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.ExecutorServiceFactory;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpointFactory;
 import de.otto.synapse.endpoint.receiver.kafka.KafkaMessageLogReceiverEndpointFactory;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpointFactory;
@@ -32,7 +32,6 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.concurrent.ExecutorService;
 
 import static de.otto.synapse.messagestore.MessageStores.emptyMessageStore;
-import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.slf4j.LoggerFactory.getLogger;
 
 @Configuration
@@ -70,11 +69,10 @@ public class SynapseKafkaAutoConfiguration {
     public MessageLogReceiverEndpointFactory kafkaMessageLogReceiverEndpointFactory(final KafkaProperties kafkaProperties,
                                                                                     final MessageInterceptorRegistry interceptorRegistry,
                                                                                     final ApplicationEventPublisher eventPublisher,
-                                                                                    final ConsumerFactory<String, String> kafkaConsumerFactory) {
+                                                                                    final ConsumerFactory<String, String> kafkaConsumerFactory,
+                                                                                    final ExecutorServiceFactory executorServiceFactory) {
         LOG.info("Auto-configuring Kafka MessageLogReceiverEndpointFactory");
-        final ExecutorService executorService = newCachedThreadPool(
-                new ThreadFactoryBuilder().setNameFormat("kafka-message-log-%d").build()
-        );
+        final ExecutorService executorService = executorServiceFactory.newExecutorService("kafka-message-log-");
 
         final Consumer<String, String> kafkaConsumer = kafkaConsumerFactory.createConsumer();
 
@@ -2,7 +2,8 @@ package de.otto.synapse.endpoint.receiver.kafka;
 
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
-import de.otto.synapse.translator.Decoder;
+import de.otto.synapse.translator.AbstractTextDecoder;
+import de.otto.synapse.translator.MessageFormat;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
@@ -14,19 +15,37 @@ import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.slf4j.LoggerFactory.getLogger;
 
-public class KafkaDecoder implements Decoder<ConsumerRecord<String, String>> {
+/**
+ * Decodes Kafka consumer records into {@link TextMessage text messages}.
+ * <p>
+ *     Key and header attributes are taken from the record headers, the value of the record is used as the payload
+ *     of the message. Only records having a {@link #MESSAGE_FORMAT} header with value {@code v3}, as sent by
+ *     {@link de.otto.synapse.endpoint.sender.kafka.KafkaEncoder} for {@link MessageFormat#V3}, are decoded from
+ *     the message envelope contained in the value of the record. In this case, the key and header attributes of
+ *     the encoded message are taking precedence.
+ * </p>
+ */
+public class KafkaDecoder extends AbstractTextDecoder<ConsumerRecord<String, String>> {
 
     private static final Logger LOG = getLogger(KafkaDecoder.class);
 
     public static String COMPACTION_KEY = "_synapse_msg_compactionKey";
     public static String PARTITION_KEY = "_synapse_msg_partitionKey";
+    public static String MESSAGE_FORMAT = "_synapse_msg_format";
 
     @Override
     public TextMessage apply(final ConsumerRecord<String, String> record) {
-        return TextMessage.of(
-                toKey(record),
-                toHeader(record),
-                record.value());
+        if ("v3".equals(lastHeader(record.headers(), MESSAGE_FORMAT))) {
+            return decode(
+                    toKey(record),
+                    toHeader(record),
+                    record.value());
+        } else {
+            return TextMessage.of(
+                    toKey(record),
+                    toHeader(record),
+                    record.value());
+        }
     }
 
     private Key toKey(final ConsumerRecord<String, String> record) {
@@ -50,7 +69,9 @@ public class KafkaDecoder implements Decoder<ConsumerRecord<String, String>> {
         de.otto.synapse.message.Header.Builder builder = de.otto.synapse.message.Header.builder()
                 .withShardPosition(fromPosition("" + record.partition(), "" + (record.offset())));
         record.headers().forEach(header -> {
-            builder.withAttribute(header.key(), toString(header.value()));
+            if (!MESSAGE_FORMAT.equals(header.key())) {
+                builder.withAttribute(header.key(), toString(header.value()));
+            }
         });
         return builder.build();
     }
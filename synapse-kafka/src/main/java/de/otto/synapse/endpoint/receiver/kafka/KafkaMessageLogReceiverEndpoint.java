@@ -6,6 +6,7 @@ import de.otto.synapse.channel.ShardResponse;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.AbstractMessageLogReceiverEndpoint;
 import de.otto.synapse.logging.LogHelper;
+import de.otto.synapse.metrics.PipelineMetrics;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.common.errors.WakeupException;
@@ -22,6 +23,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import static de.otto.synapse.info.MessageReceiverStatus.*;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
 import static java.time.Duration.ofMillis;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
@@ -116,7 +118,12 @@ public class KafkaMessageLogReceiverEndpoint extends AbstractMessageLogReceiverE
 
         try {
             do {
+                final PipelineMetrics metrics = currentMetrics();
+                final long pollStarted = metrics.isEnabled() ? System.nanoTime() : 0L;
                 final ConsumerRecords<String, String> records = kafkaConsumer.poll(ofMillis(KAFKA_CONSUMER_POLLING_DURATION));
+                if (metrics.isEnabled()) {
+                    metrics.recordPoll(getChannelName(), null, records.count(), System.nanoTime() - pollStarted);
+                }
                 if (rebalanceHandler.shardsAssignedAndPositioned()) {
                     final ChannelResponse channelResponse = recordsConsumer.apply(records);
                     channelPosition = channelResponse.getChannelPosition();
@@ -6,8 +6,10 @@ import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ChannelResponse;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.consumer.MessageDispatcher;
+import de.otto.synapse.endpoint.CachedInterceptorChain;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.PipelineMetrics;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.common.TopicPartition;
@@ -31,6 +33,7 @@ import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.channel.ShardPosition.fromPositionAndTimestamp;
 import static de.otto.synapse.channel.ShardResponse.shardResponse;
 import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.metrics.SynapseMetrics.currentMetrics;
 import static java.lang.Integer.parseInt;
 import static java.time.Duration.ofMillis;
 import static java.time.Instant.ofEpochMilli;
@@ -41,7 +44,7 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
     public static final Duration UNKNOWN_DURATION_BEHIND = ofMillis(Long.MAX_VALUE);
 
     private final String channelName;
-    private final MessageInterceptorRegistry interceptorRegistry;
+    private final CachedInterceptorChain interceptorChain;
     private final MessageDispatcher messageDispatcher;
     private final Supplier<Set<String>> currentShardsSupplier;
     private final ChannelDurationBehindHandler durationBehindHandler;
@@ -57,7 +60,7 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
                          final KafkaDecoder decoder) {
         this.channelName = channelName;
         this.currentChannelPosition = startFrom;
-        this.interceptorRegistry = interceptorRegistry;
+        this.interceptorChain = interceptorRegistry.getCachedInterceptorChain(channelName, RECEIVER);
         this.messageDispatcher = messageDispatcher;
         this.currentShardsSupplier = currentShardsSupplier;
         this.durationBehindHandler = durationBehindHandler;
@@ -68,14 +71,13 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
     public ChannelResponse apply(final ConsumerRecords<String, String> records) {
         final Map<String, ImmutableList.Builder<TextMessage>> receivedMessagesPerShard = newHashMap();
         final Map<String, ShardPosition> shardPositionsFromRecords = newHashMap();
+        recordReceivedMessages(records);
         records.forEach(record -> {
             try {
                 final String shardName = "" + record.partition();
                 final TextMessage message = decoder.apply(record);
-                LOG.debug("Processing message " + message.getKey());
-                final TextMessage interceptedMessage = interceptorRegistry
-                        .getInterceptorChain(channelName, RECEIVER)
-                        .intercept(message);
+                LOG.debug("Processing message {}", message.getKey());
+                final TextMessage interceptedMessage = interceptorChain.intercept(message);
                 shardPositionsFromRecords.put(shardName, toShardPosition(record));
                 if (interceptedMessage != null) {
                     messageDispatcher.accept(interceptedMessage);
@@ -116,6 +118,15 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
                 .collect(toImmutableList()));
     }
 
+    private void recordReceivedMessages(final ConsumerRecords<String, String> records) {
+        final PipelineMetrics metrics = currentMetrics();
+        if (metrics.isEnabled()) {
+            for (final TopicPartition topicPartition : records.partitions()) {
+                metrics.recordReceived(channelName, "" + topicPartition.partition(), records.records(topicPartition).size());
+            }
+        }
+    }
+
     private ShardPosition toShardPosition(final ConsumerRecord<String, String> record) {
         return fromPositionAndTimestamp("" + record.partition(), "" + (record.offset()), ofEpochMilli(record.timestamp()));
     }
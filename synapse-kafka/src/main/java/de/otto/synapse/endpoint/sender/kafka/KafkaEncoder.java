@@ -3,7 +3,9 @@ package de.otto.synapse.endpoint.sender.kafka;
 import com.google.common.collect.ImmutableList;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.Message;
+import de.otto.synapse.translator.BinaryMessageCodec;
 import de.otto.synapse.translator.Encoder;
+import de.otto.synapse.translator.MessageFormat;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
@@ -14,16 +16,32 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.kafka.common.utils.Utils.murmur2;
 import static org.apache.kafka.common.utils.Utils.toPositive;
 
+/**
+ * Encodes messages into Kafka producer records.
+ * <p>
+ *     By default, the payload of the message is used as the value of the record, while key and header attributes
+ *     are stored in record headers. Messages in {@link MessageFormat#V3} format are stored in the value of the
+ *     record using the text representation of the {@link BinaryMessageCodec}; only the message key and the
+ *     {@link #MESSAGE_FORMAT} of the message are added to the record headers in this case.
+ * </p>
+ */
 public class KafkaEncoder implements Encoder<ProducerRecord<String,String>> {
     public static String COMPACTION_KEY = "_synapse_msg_compactionKey";
     public static String PARTITION_KEY = "_synapse_msg_partitionKey";
+    public static String MESSAGE_FORMAT = "_synapse_msg_format";
 
     private final String channelName;
     private final int numPartitions;
+    private final MessageFormat messageFormat;
 
     public KafkaEncoder(final String channelName, final int numPartitions) {
+        this(channelName, numPartitions, MessageFormat.V1);
+    }
+
+    public KafkaEncoder(final String channelName, final int numPartitions, final MessageFormat messageFormat) {
         this.channelName = channelName;
         this.numPartitions = numPartitions;
+        this.messageFormat = messageFormat;
     }
 
     @Override
@@ -37,16 +55,20 @@ public class KafkaEncoder implements Encoder<ProducerRecord<String,String>> {
                 channelName,
                 partition,
                 key.compactionKey(),
-                message.getPayload(),
+                messageFormat == MessageFormat.V3 ? BinaryMessageCodec.encodeToString(message) : message.getPayload(),
                 headersOf(message)
         );
     }
 
     private List<Header> headersOf(final Message<String> message) {
         final ImmutableList.Builder<org.apache.kafka.common.header.Header> messageAttributes = ImmutableList.builder();
-        message.getHeader()
-                .getAll()
-                .forEach((key, value) -> messageAttributes.add(new RecordHeader(key, value.getBytes(UTF_8))));
+        if (messageFormat == MessageFormat.V3) {
+            messageAttributes.add(new RecordHeader(MESSAGE_FORMAT, "v3".getBytes(UTF_8)));
+        } else {
+            message.getHeader()
+                    .getAll()
+                    .forEach((key, value) -> messageAttributes.add(new RecordHeader(key, value.getBytes(UTF_8))));
+        }
         messageAttributes.add(
                 new RecordHeader(PARTITION_KEY, message.getKey().partitionKey().getBytes(UTF_8)),
                 new RecordHeader(COMPACTION_KEY, message.getKey().compactionKey().getBytes(UTF_8))
@@ -24,14 +24,35 @@ public class KafkaMessageSender extends AbstractMessageSenderEndpoint {
     public static final long UPDATE_PARTITION_DELAY = 10_000L;
 
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final MessageFormat messageFormat;
     private final AtomicReference<KafkaEncoder> encoder = new AtomicReference<>();
 
     public KafkaMessageSender(final String channelName,
                               final MessageInterceptorRegistry interceptorRegistry,
                               final MessageTranslator<TextMessage> messageTranslator,
                               final KafkaTemplate<String, String> kafkaTemplate) {
+        this(channelName, interceptorRegistry, messageTranslator, kafkaTemplate, MessageFormat.V1);
+    }
+
+    /**
+     * Creates a KafkaMessageSender.
+     *
+     * @param channelName the name of the Kafka topic
+     * @param interceptorRegistry registry used to determine the message interceptors of the sender
+     * @param messageTranslator translator used to translate messages into text messages
+     * @param kafkaTemplate the KafkaTemplate used to send the records
+     * @param messageFormat the format of the messages. Only {@link MessageFormat#V3} is changing the way the
+     *                      messages are encoded: in all other formats, key and header attributes are sent as
+     *                      record headers.
+     */
+    public KafkaMessageSender(final String channelName,
+                              final MessageInterceptorRegistry interceptorRegistry,
+                              final MessageTranslator<TextMessage> messageTranslator,
+                              final KafkaTemplate<String, String> kafkaTemplate,
+                              final MessageFormat messageFormat) {
         super(channelName, interceptorRegistry, messageTranslator);
         this.kafkaTemplate = kafkaTemplate;
+        this.messageFormat = messageFormat == MessageFormat.V3 ? MessageFormat.V3 : MessageFormat.V1;
     }
 
     @Scheduled(initialDelay = UPDATE_PARTITION_DELAY, fixedDelay = UPDATE_PARTITION_DELAY)
@@ -58,11 +79,11 @@ public class KafkaMessageSender extends AbstractMessageSenderEndpoint {
 
     @Override
     public MessageFormat getMessageFormat() {
-        return MessageFormat.V1;
+        return messageFormat;
     }
 
     private KafkaEncoder createEncoder() {
         final int numPartitions = kafkaTemplate.partitionsFor(getChannelName()).size();
-        return new KafkaEncoder(getChannelName(), numPartitions);
+        return new KafkaEncoder(getChannelName(), numPartitions, messageFormat);
     }
 }
@@ -24,7 +24,7 @@ public class KafkaMessageSenderEndpointFactory implements MessageSenderEndpointF
 
     @Override
     public MessageSenderEndpoint create(final @Nonnull String channelName, final MessageFormat messageFormat) {
-        return new KafkaMessageSender(channelName, registry, new TextMessageTranslator(), kafkaTemplate);
+        return new KafkaMessageSender(channelName, registry, new TextMessageTranslator(), kafkaTemplate, messageFormat);
     }
 
     @Override
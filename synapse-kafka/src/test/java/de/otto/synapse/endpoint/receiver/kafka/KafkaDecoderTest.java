@@ -2,7 +2,13 @@ package de.otto.synapse.endpoint.receiver.kafka;
 
 import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.endpoint.sender.kafka.KafkaEncoder;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.translator.BinaryMessageCodec;
+import de.otto.synapse.translator.MessageFormat;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.header.internals.RecordHeaders;
@@ -161,4 +167,77 @@ public class KafkaDecoderTest {
         assertThat(decodedMessage.getKey().compactionKey(), is("record-key"));
     }
 
+    @Test
+    public void shouldNotDecodePayloadLookingLikeV2Message() {
+        // given
+        final KafkaDecoder decoder = new KafkaDecoder();
+        final String payload = "{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":{\"partitionKey\":\"1\",\"compactionKey\":\"2\"},\"_synapse_msg_headers\":{\"foo\":\"bar\"},\"_synapse_msg_payload\":{\"some\":\"value\"}}";
+        final ConsumerRecord<String,String> record = new ConsumerRecord<>(
+                "ch01",
+                0,
+                42L,
+                "key",
+                payload
+        );
+
+        // when
+        final TextMessage decodedMessage = decoder.apply(record);
+
+        // then
+        assertThat(decodedMessage.getKey().compactionKey(), is("key"));
+        assertThat(decodedMessage.getHeader().getAll(), is(ImmutableMap.of()));
+        assertThat(decodedMessage.getPayload(), is(payload));
+    }
+
+    @Test
+    public void shouldNotDecodePayloadLookingLikeV3MessageWithoutMessageFormatHeader() {
+        // given
+        final KafkaDecoder decoder = new KafkaDecoder();
+        final String payload = BinaryMessageCodec.encodeToString(TextMessage.of("other-key", "other-payload"));
+        final ConsumerRecord<String,String> record = new ConsumerRecord<>(
+                "ch01",
+                0,
+                42L,
+                "key",
+                payload
+        );
+
+        // when
+        final TextMessage decodedMessage = decoder.apply(record);
+
+        // then
+        assertThat(decodedMessage.getKey().compactionKey(), is("key"));
+        assertThat(decodedMessage.getPayload(), is(payload));
+    }
+
+    @Test
+    public void shouldDecodeMessageEncodedInV3Format() {
+        // given
+        final KafkaDecoder decoder = new KafkaDecoder();
+        final TextMessage message = TextMessage.of(
+                Key.of("1234", "key-1234"),
+                Header.builder().withAttribute("foo", "bar").build(),
+                "payload");
+        final ProducerRecord<String, String> producerRecord = new KafkaEncoder("ch01", 1, MessageFormat.V3).apply(message);
+        final ConsumerRecord<String,String> record = new ConsumerRecord<>(
+                "ch01",
+                0,
+                42L,
+                1234L, TimestampType.CREATE_TIME,
+                -1L, -1, -1,
+                producerRecord.key(),
+                producerRecord.value(),
+                new RecordHeaders(producerRecord.headers().toArray())
+        );
+
+        // when
+        final TextMessage decodedMessage = decoder.apply(record);
+
+        // then
+        assertThat(decodedMessage.getKey(), is(Key.of("1234", "key-1234")));
+        assertThat(decodedMessage.getHeader().getAll(), hasEntry("foo", "bar"));
+        assertThat(decodedMessage.getHeader().getAll(), not(hasKey("_synapse_msg_format")));
+        assertThat(decodedMessage.getPayload(), is("payload"));
+    }
+
 }
@@ -3,6 +3,8 @@ package de.otto.synapse.endpoint.sender.kafka;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.translator.BinaryMessageCodec;
+import de.otto.synapse.translator.MessageFormat;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.junit.Test;
@@ -87,4 +89,27 @@ public class KafkaEncoderTest {
         assertThat(secondRecord.partition(), is(1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldEncodeMessageInV3Format() {
+        // given
+        final KafkaEncoder encoder = new KafkaEncoder("test", 1, MessageFormat.V3);
+        final TextMessage message = TextMessage.of(
+                "someKey",
+                Header.builder().withAttribute("foo", "bar").build(),
+                "payload"
+        );
+
+        // when
+        final ProducerRecord<String, String> record = encoder.apply(message);
+
+        // then
+        assertThat(record.key(), is("someKey"));
+        assertThat(record.value(), is(BinaryMessageCodec.encodeToString(message)));
+        assertThat(record.headers(), containsInAnyOrder(
+                new RecordHeader("_synapse_msg_format", "v3".getBytes(UTF_8)),
+                new RecordHeader("_synapse_msg_partitionKey", "someKey".getBytes(UTF_8)),
+                new RecordHeader("_synapse_msg_compactionKey", "someKey".getBytes(UTF_8))
+        ));
+    }
+
+}
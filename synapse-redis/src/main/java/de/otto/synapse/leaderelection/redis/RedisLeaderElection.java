@@ -1,35 +1,117 @@
 package de.otto.synapse.leaderelection.redis;
 
 import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.leaderelection.LeaderElection;
+import de.otto.synapse.leaderelection.LeadershipLease;
+import de.otto.synapse.leaderelection.LeadershipListener;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.slf4j.Logger;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import static java.lang.Thread.currentThread;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Redis-based implementation of the {@link LeaderElection}.
+ * <p>
+ *     Instances must be {@link #close() closed} if they are not needed anymore, so the threads used to renew
+ *     {@link LeadershipLease leadership leases} are stopped and the leases are released. If the instance is
+ *     registered as a Spring bean, this is done when the application context is closed.
+ * </p>
+ */
 @Beta
-public class RedisLeaderElection implements LeaderElection {
+public class RedisLeaderElection implements LeaderElection, AutoCloseable {
 
     private static final Logger LOG = getLogger(RedisLeaderElection.class);
 
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+
+    private static final String ACQUIRE_SCRIPT =
+            "local owner = redis.call('get', KEYS[1]) " +
+            "if owner == false then " +
+                    "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+                    "return 1 " +
+            "elseif owner == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "else " +
+                    "return 0 " +
+            "end";
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "else " +
+                    "return 0 " +
+            "end";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) " +
+            "else " +
+                    "return 0 " +
+            "end";
+
     private final RedissonClient redissonClient;
+    private final ExecutorService executorService;
+    private final boolean ownsExecutorService;
+    private final ScheduledExecutorService scheduler;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<RedisLeadershipLease> leases = ConcurrentHashMap.newKeySet();
 
     public RedisLeaderElection(final RedissonClient redissonClient) {
+        this(redissonClient,
+                newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("synapse-leader-election-%d").setDaemon(true).build()),
+                DEFAULT_LEASE_DURATION,
+                true);
+    }
+
+    /**
+     * @param redissonClient the client used to access Redis
+     * @param executorService the ExecutorService used to run asynchronous tasks and {@link LeadershipListener} callbacks,
+     *                        if no other executor is specified. The ExecutorService is owned by the caller and is
+     *                        not shut down when this instance is {@link #close() closed}.
+     * @param leaseDuration the time-to-live of {@link LeadershipLease leadership leases}. Leases are renewed after
+     *                      a third of the lease duration.
+     */
+    public RedisLeaderElection(final RedissonClient redissonClient,
+                               final ExecutorService executorService,
+                               final Duration leaseDuration) {
+        this(redissonClient, executorService, leaseDuration, false);
+    }
+
+    private RedisLeaderElection(final RedissonClient redissonClient,
+                                final ExecutorService executorService,
+                                final Duration leaseDuration,
+                                final boolean ownsExecutorService) {
         this.redissonClient = redissonClient;
+        this.executorService = executorService;
+        this.ownsExecutorService = ownsExecutorService;
+        this.leaseDuration = leaseDuration;
+        this.scheduler = newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("synapse-leader-lease-%d").setDaemon(true).build()
+        );
     }
 
     @Override
     public final CompletableFuture<Void> runAsyncIfLeader(final String lockName,
                                                           final Runnable runnable) {
-        return runAsync(() -> runIfLeader(lockName, runnable));
+        return runAsync(() -> runIfLeader(lockName, runnable), executorService);
     }
 
     @Override
@@ -42,7 +124,7 @@ public class RedisLeaderElection implements LeaderElection {
     @Override
     public final <T> CompletableFuture<T> supplyAsyncIfLeader(final String lockName,
                                                               final Supplier<T> supplier) {
-        return CompletableFuture.supplyAsync(() -> supplyIfLeader(lockName, supplier));
+        return CompletableFuture.supplyAsync(() -> supplyIfLeader(lockName, supplier), executorService);
     }
 
     @Override
@@ -85,4 +167,129 @@ public class RedisLeaderElection implements LeaderElection {
         return result;
     }
 
+    @Override
+    public LeadershipLease acquireLeadership(final String lockName,
+                                             final LeadershipListener listener) {
+        final RedisLeadershipLease lease = new RedisLeadershipLease(lockName, listener);
+        leases.add(lease);
+        lease.schedule(0);
+        return lease;
+    }
+
+    /**
+     * Releases all {@link LeadershipLease leadership leases} acquired by this instance and stops the threads used
+     * to renew the leases. The ExecutorService is only shut down, if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        final CompletableFuture<?>[] released = leases
+                .stream()
+                .map(RedisLeadershipLease::release)
+                .toArray(CompletableFuture[]::new);
+        try {
+            allOf(released).get(leaseDuration.toMillis(), MILLISECONDS);
+        } catch (final InterruptedException e) {
+            currentThread().interrupt();
+        } catch (final ExecutionException | TimeoutException e) {
+            LOG.warn("Failed to release leadership leases: {}", e.getMessage());
+        }
+        scheduler.shutdownNow();
+        if (ownsExecutorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private class RedisLeadershipLease implements LeadershipLease {
+
+        private final String lockName;
+        private final String leaseKey;
+        private final LeadershipListener listener;
+        private final AtomicBoolean leader = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile long expiresAtNanos;
+
+        private RedisLeadershipLease(final String lockName,
+                                     final LeadershipListener listener) {
+            this.lockName = lockName;
+            this.leaseKey = "synapse-leadership-" + lockName;
+            this.listener = listener;
+        }
+
+        @Override
+        public String getLockName() {
+            return lockName;
+        }
+
+        @Override
+        public boolean isLeader() {
+            return leader.get();
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+
+        private CompletableFuture<?> release() {
+            leases.remove(this);
+            if (closed.compareAndSet(false, true)) {
+                return redissonClient.getScript(StringCodec.INSTANCE)
+                        .evalAsync(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                                Collections.<Object>singletonList(leaseKey), instanceId)
+                        .whenComplete((result, throwable) -> revoke())
+                        .toCompletableFuture();
+            }
+            return completedFuture(null);
+        }
+
+        private void schedule(final long delayMillis) {
+            if (!closed.get()) {
+                scheduler.schedule(this::heartbeat, delayMillis, MILLISECONDS);
+            }
+        }
+
+        /**
+         * Acquires or renews the lease. A lease that is still held by this instance, for example because an earlier
+         * renewal has failed, is re-acquired. If renewing the lease fails, the leadership is kept as long as the
+         * lease will not expire before the next renewal.
+         */
+        private void heartbeat() {
+            if (closed.get()) {
+                return;
+            }
+            final boolean wasLeader = leader.get();
+            final long startedAtNanos = System.nanoTime();
+            final long renewIntervalMillis = leaseDuration.toMillis() / 3;
+            redissonClient.getScript(StringCodec.INSTANCE)
+                    .<Long>evalAsync(RScript.Mode.READ_WRITE, wasLeader ? RENEW_SCRIPT : ACQUIRE_SCRIPT, RScript.ReturnType.INTEGER,
+                            Collections.<Object>singletonList(leaseKey), instanceId, String.valueOf(leaseDuration.toMillis()))
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            if (wasLeader && System.nanoTime() + MILLISECONDS.toNanos(renewIntervalMillis) < expiresAtNanos) {
+                                LOG.warn("Failed to renew leadership lease {}, retrying before the lease expires: {}", lockName, throwable.getMessage());
+                            } else {
+                                LOG.warn("Failed to acquire or renew leadership lease {}: {}", lockName, throwable.getMessage());
+                                revoke();
+                            }
+                        } else if (result != null && result == 1L && !closed.get()) {
+                            expiresAtNanos = startedAtNanos + leaseDuration.toNanos();
+                            if (leader.compareAndSet(false, true)) {
+                                LOG.info("Acquired leadership lease {}", lockName);
+                                executorService.execute(() -> listener.onLeadershipAcquired(lockName));
+                            }
+                        } else {
+                            revoke();
+                        }
+                        schedule(renewIntervalMillis);
+                    });
+        }
+
+        private void revoke() {
+            if (leader.compareAndSet(true, false)) {
+                LOG.info("Lost leadership lease {}", lockName);
+                executorService.execute(() -> listener.onLeadershipRevoked(lockName));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,319 @@
+package de.otto.synapse.leaderelection.redis;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.leaderelection.LeaderElection;
+import de.otto.synapse.leaderelection.ShardAssignments;
+import de.otto.synapse.leaderelection.ShardLeases;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Redis-based implementation of {@link ShardLeases}.
+ * <p>
+ *     Every instance is registered in a Redis map, using a TTL that is renewed in the background after a third
+ *     of the lease duration. The current leader of the channel, determined by the {@link LeaderElection},
+ *     is calculating the {@link ShardAssignments} of the live instances and stores them in Redis, where they are
+ *     picked up by all instances of the group. {@link #leasedShards(String)} only returns the assignments
+ *     picked up by the last background refresh, so it never blocks the threads consuming the shards.
+ * </p>
+ * <p>
+ *     Rebalancing, {@link #checkpoint(String, ShardPosition) checkpoints} and {@link #release(String) releases}
+ *     are also handled by the background refresh: checkpoints are only kept in memory until the next refresh,
+ *     where the latest checkpoint of every shard is written to Redis, if the shard is still assigned to this
+ *     instance. Checkpoints of shards that were already handed over to another instance are dropped, so a
+ *     previous owner can not overwrite the checkpoints of the new owner.
+ * </p>
+ */
+@Beta
+public class RedisShardLeases implements ShardLeases, AutoCloseable {
+
+    private static final Logger LOG = getLogger(RedisShardLeases.class);
+
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+
+    /**
+     * Writes the checkpoints given as pairs of shard name and position, if the shard is assigned to the instance.
+     * KEYS[1]: assignments, KEYS[2]: checkpoints, ARGV[1]: instanceId, ARGV[2..n]: shard names and positions
+     */
+    private static final String CHECKPOINT_SCRIPT =
+            "local written = 0 " +
+            "for i = 2, #ARGV, 2 do " +
+                    "if redis.call('hget', KEYS[1], ARGV[i]) == ARGV[1] then " +
+                            "redis.call('hset', KEYS[2], ARGV[i], ARGV[i + 1]) " +
+                            "written = written + 1 " +
+                    "end " +
+            "end " +
+            "return written";
+
+    private final RedissonClient redissonClient;
+    private final LeaderElection leaderElection;
+    private final String instanceId;
+    private final Duration leaseDuration;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, Set<String>> shardNames = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> leasedShards = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> pendingCheckpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ScheduledFuture<?>> refreshTasks = new ConcurrentHashMap<>();
+
+    public RedisShardLeases(final RedissonClient redissonClient,
+                            final LeaderElection leaderElection) {
+        this(redissonClient, leaderElection, UUID.randomUUID().toString(), DEFAULT_LEASE_DURATION, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param redissonClient the client used to access Redis
+     * @param leaderElection the LeaderElection used to select the instance that is rebalancing the shards
+     * @param instanceId the unique identifier of this instance
+     * @param leaseDuration the duration after that an instance is considered to be dead, if the lease is not renewed
+     * @param clock the clock used to timestamp the registration of the instance
+     */
+    public RedisShardLeases(final RedissonClient redissonClient,
+                            final LeaderElection leaderElection,
+                            final String instanceId,
+                            final Duration leaseDuration,
+                            final Clock clock) {
+        this.redissonClient = redissonClient;
+        this.leaderElection = leaderElection;
+        this.instanceId = instanceId;
+        this.leaseDuration = leaseDuration;
+        this.clock = clock;
+        this.scheduler = newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("synapse-shard-leases-%d").setDaemon(true).build()
+        );
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     The instance is registered as a member of the group, but the shards are rebalanced and the assignments
+     *     are picked up in the background. The returned set is therefore empty until the first refresh of the
+     *     leases has completed.
+     * </p>
+     */
+    @Override
+    public Set<String> acquire(final String channelName, final Collection<String> shardNames) {
+        this.shardNames.put(channelName, ImmutableSet.copyOf(shardNames));
+        members(channelName).fastPut(instanceId, clock.millis(), leaseDuration.toMillis(), MILLISECONDS);
+        refreshTasks.computeIfAbsent(channelName, channel -> {
+            final long refreshMillis = leaseDuration.toMillis() / 3;
+            return scheduler.scheduleWithFixedDelay(() -> refreshInBackground(channel), 0, refreshMillis, MILLISECONDS);
+        });
+        return leasedShards(channelName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     Returns the shards picked up by the last refresh of the leases, without accessing Redis.
+     * </p>
+     */
+    @Override
+    public Set<String> leasedShards(final String channelName) {
+        return leasedShards.getOrDefault(channelName, ImmutableSet.of());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     The checkpoint is only kept in memory and written to Redis by the next background refresh.
+     * </p>
+     */
+    @Override
+    public void checkpoint(final String channelName, final ShardPosition shardPosition) {
+        pendingCheckpoints
+                .computeIfAbsent(channelName, channel -> new ConcurrentHashMap<>())
+                .put(shardPosition.shardName(), shardPosition.position());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     Checkpoints of this instance that are not yet written to Redis take precedence over the checkpoints
+     *     stored in Redis.
+     * </p>
+     */
+    @Override
+    public Optional<ShardPosition> getCheckpoint(final String channelName, final String shardName) {
+        final Map<String, String> pending = pendingCheckpoints.get(channelName);
+        final String pendingPosition = pending != null ? pending.get(shardName) : null;
+        final String position = pendingPosition != null
+                ? pendingPosition
+                : checkpoints(channelName).get(shardName);
+        return position != null
+                ? Optional.of(ShardPosition.fromPosition(shardName, position))
+                : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     The background refresh of the channel is stopped, and the pending checkpoints are written before the
+     *     instance is leaving the group in the background, so the calling thread is not blocked.
+     * </p>
+     */
+    @Override
+    public void release(final String channelName) {
+        LOG.info("Instance {} is releasing the shards of channel {}", instanceId, channelName);
+        final ScheduledFuture<?> refreshTask = refreshTasks.remove(channelName);
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+        leasedShards.remove(channelName);
+        scheduler.execute(() -> leave(channelName));
+    }
+
+    /**
+     * Stops the background refresh of the leases after pending releases have been completed. Leases that are
+     * not {@link #release(String) released} will expire after the lease duration.
+     */
+    @Override
+    public void close() {
+        refreshTasks.values().forEach(refreshTask -> refreshTask.cancel(false));
+        refreshTasks.clear();
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(leaseDuration.toMillis(), MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the pending checkpoints of the channel to Redis, if the shards are still assigned to this instance.
+     *
+     * @param channelName the name of the channel
+     * @return number of checkpoints written to Redis
+     */
+    long flushCheckpoints(final String channelName) {
+        final ConcurrentMap<String, String> pending = pendingCheckpoints.get(channelName);
+        if (pending == null || pending.isEmpty()) {
+            return 0;
+        }
+        final Map<String, String> flushed = new HashMap<>(pending);
+        final List<Object> args = new ArrayList<>(1 + 2 * flushed.size());
+        args.add(instanceId);
+        flushed.forEach((shardName, position) -> {
+            args.add(shardName);
+            args.add(position);
+        });
+        final Long written = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE,
+                CHECKPOINT_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                Arrays.<Object>asList(assignments(channelName).getName(), checkpoints(channelName).getName()),
+                args.toArray());
+        // Checkpoints that are updated in the meantime are kept until the next refresh:
+        flushed.forEach(pending::remove);
+        if (written != null && written < flushed.size()) {
+            LOG.info("Instance {} dropped {} checkpoints of shards of channel {} that are leased by other instances",
+                    instanceId, flushed.size() - written, channelName);
+        }
+        return written != null ? written : 0;
+    }
+
+    private void refreshInBackground(final String channelName) {
+        try {
+            if (refreshTasks.containsKey(channelName)) {
+                refresh(channelName);
+            }
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to refresh shard leases of channel {}: {}", channelName, e.getMessage());
+        }
+    }
+
+    private void leave(final String channelName) {
+        try {
+            flushCheckpoints(channelName);
+            pendingCheckpoints.remove(channelName);
+            members(channelName).fastRemove(instanceId);
+            leaderElection.runIfLeader(lockName(channelName), () -> rebalance(channelName));
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to release shard leases of channel {}: {}", channelName, e.getMessage());
+        }
+    }
+
+    private Set<String> refresh(final String channelName) {
+        flushCheckpoints(channelName);
+        members(channelName).fastPut(instanceId, clock.millis(), leaseDuration.toMillis(), MILLISECONDS);
+        leaderElection.runIfLeader(lockName(channelName), () -> rebalance(channelName));
+        final Set<String> shards = assignments(channelName).readAllEntrySet()
+                .stream()
+                .filter(entry -> instanceId.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(toImmutableSet());
+        final Set<String> previous = leasedShards.put(channelName, shards);
+        if (!shards.equals(previous)) {
+            LOG.info("Instance {} is leasing shards {} of channel {}", instanceId, shards, channelName);
+        }
+        return shards;
+    }
+
+    private void rebalance(final String channelName) {
+        final Set<String> shards = shardNames.get(channelName);
+        if (shards == null) {
+            return;
+        }
+        final RMap<String, String> assignments = assignments(channelName);
+        final Map<String, String> current = assignments.readAllMap();
+        final Map<String, String> updated = ShardAssignments.assign(members(channelName).readAllKeySet(), shards, current);
+        if (!updated.equals(current)) {
+            LOG.info("Rebalancing shards of channel {}: {}", channelName, updated);
+            assignments.putAll(updated);
+            final String[] closedShards = current.keySet()
+                    .stream()
+                    .filter(shard -> !updated.containsKey(shard))
+                    .toArray(String[]::new);
+            if (closedShards.length > 0) {
+                assignments.fastRemove(closedShards);
+            }
+        }
+    }
+
+    private RMapCache<String, Long> members(final String channelName) {
+        return redissonClient.getMapCache(keyPrefix(channelName) + "-members");
+    }
+
+    private RMap<String, String> assignments(final String channelName) {
+        return redissonClient.getMap(keyPrefix(channelName) + "-assignments", StringCodec.INSTANCE);
+    }
+
+    private RMap<String, String> checkpoints(final String channelName) {
+        return redissonClient.getMap(keyPrefix(channelName) + "-checkpoints", StringCodec.INSTANCE);
+    }
+
+    private String lockName(final String channelName) {
+        return keyPrefix(channelName) + "-lock";
+    }
+
+    private String keyPrefix(final String channelName) {
+        return "synapse-shardleases-" + channelName;
+    }
+}
@@ -97,59 +97,75 @@ public class RedisIndexedMessageStore implements MessageStore {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public void add(final MessageStoreEntry entry) {
-        final MessageStoreEntry indexedEntry = indexer.index(entry);
-        final TextMessage textMessage = indexedEntry.getTextMessage();
-        final String messageId = messageIdCalculator(textMessage);
+        addAll(Collections.singletonList(entry));
+    }
 
+    /**
+     * Adds all entries to Redis using a single MULTI/EXEC transaction.
+     *
+     * @param entries elements to be appended to this message store
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addAll(final List<MessageStoreEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
         // This will contain the results of all ops in the transaction
         final List<Object> txResults = redisTemplate.execute(new SessionCallback<List<Object>>() {
             public List<Object> execute(final RedisOperations operations) throws DataAccessException {
                 operations.multi();
-                // Store shard position per channel in Redis Hash:
-                textMessage.getHeader().getShardPosition().ifPresent(shardPosition -> {
-                    final String channelPosKey = name + "-" + indexedEntry.getChannelName() + "-channelPos";
-                    final BoundHashOperations channelPosHash = operations.boundHashOps(channelPosKey);
-                    channelPosHash.put(shardPosition.shardName(), shardPosition.position());
-                });
-                // Store channelName in Redis Set
-                final String channelNamesKey = name + "-channels";
-                final BoundSetOperations channelNamesSet = operations.boundSetOps(channelNamesKey);
-                channelNamesSet.add(indexedEntry.getChannelName());
-
-                // Store every Message as a single Redis Hash '<channelName>-message-<messageId>'
-                final String messageHashKey = name + "-message-" + messageId;
-                final BoundHashOperations messageHash = operations.boundHashOps(messageHashKey);
-                messageHash.putAll(encode(indexedEntry));
-                // ...and set the expiration timeout for the message
-                messageHash.expire(maxAge, TimeUnit.SECONDS);
-
-                // Add id to the List of all messages of the channel in '<channelName>-messages'
-                final String messagesListKey = name + "-messages";
-                final BoundListOperations messageList = operations.boundListOps(messagesListKey);
-                messageList.rightPush(messageHashKey);
-                // ...and set/update the expiration timeout for this list
-                messageList.expire(maxAge, TimeUnit.SECONDS);
-                // ...and limit the number of entries so it will not grow without bounds
-                messageList.trim(-maxSize, -1);
-
-                // Calculate the indexes and add message keys to the different indexes
-                indexedEntry.getFilterValues().entrySet().forEach(filterEntry -> {
-                    // Add id to the List of all messages of the channel in '<channelName>-messages'
-                    final String indexListKey = name + "-" + filterEntry.getKey().getName() + "-" + filterEntry.getValue();
-                    final BoundListOperations partitionIndexList = operations.boundListOps(indexListKey);
-                    partitionIndexList.rightPush(messageHashKey);
-                    // ...and set/update the expiration timeout for this list
-                    partitionIndexList.expire(maxAge, TimeUnit.SECONDS);
-                });
-
+                entries.forEach(entry -> add(operations, indexer.index(entry)));
                 return operations.exec();
             }
         });
         LOG.debug("Redis returned with " + txResults);
     }
 
+    @SuppressWarnings("unchecked")
+    private void add(final RedisOperations operations, final MessageStoreEntry indexedEntry) {
+        final TextMessage textMessage = indexedEntry.getTextMessage();
+        final String messageId = messageIdCalculator(textMessage);
+
+        // Store shard position per channel in Redis Hash:
+        textMessage.getHeader().getShardPosition().ifPresent(shardPosition -> {
+            final String channelPosKey = name + "-" + indexedEntry.getChannelName() + "-channelPos";
+            final BoundHashOperations channelPosHash = operations.boundHashOps(channelPosKey);
+            channelPosHash.put(shardPosition.shardName(), shardPosition.position());
+        });
+        // Store channelName in Redis Set
+        final String channelNamesKey = name + "-channels";
+        final BoundSetOperations channelNamesSet = operations.boundSetOps(channelNamesKey);
+        channelNamesSet.add(indexedEntry.getChannelName());
+
+        // Store every Message as a single Redis Hash '<channelName>-message-<messageId>'
+        final String messageHashKey = name + "-message-" + messageId;
+        final BoundHashOperations messageHash = operations.boundHashOps(messageHashKey);
+        messageHash.putAll(encode(indexedEntry));
+        // ...and set the expiration timeout for the message
+        messageHash.expire(maxAge, TimeUnit.SECONDS);
+
+        // Add id to the List of all messages of the channel in '<channelName>-messages'
+        final String messagesListKey = name + "-messages";
+        final BoundListOperations messageList = operations.boundListOps(messagesListKey);
+        messageList.rightPush(messageHashKey);
+        // ...and set/update the expiration timeout for this list
+        messageList.expire(maxAge, TimeUnit.SECONDS);
+        // ...and limit the number of entries so it will not grow without bounds
+        messageList.trim(-maxSize, -1);
+
+        // Calculate the indexes and add message keys to the different indexes
+        indexedEntry.getFilterValues().entrySet().forEach(filterEntry -> {
+            // Add id to the List of all messages of the channel in '<channelName>-messages'
+            final String indexListKey = name + "-" + filterEntry.getKey().getName() + "-" + filterEntry.getValue();
+            final BoundListOperations partitionIndexList = operations.boundListOps(indexListKey);
+            partitionIndexList.rightPush(messageHashKey);
+            // ...and set/update the expiration timeout for this list
+            partitionIndexList.expire(maxAge, TimeUnit.SECONDS);
+        });
+    }
+
     @Override
     public Set<String> getChannelNames() {
         Set<String> members = redisTemplate
@@ -1,21 +1,39 @@
 package de.otto.synapse.leaderelection.redis;
 
+import de.otto.synapse.leaderelection.LeadershipLease;
+import de.otto.synapse.leaderelection.LeadershipListener;
 import de.otto.synapse.testsupport.redis.EmbededRedis;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisTimeoutException;
+import org.redisson.client.codec.Codec;
+import org.redisson.misc.RedissonPromise;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Duration;
 import java.util.concurrent.*;
 
 import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
 @EnableAutoConfiguration
@@ -97,4 +115,125 @@ public class RedisLeaderElectionTest {
         assertThat(result, is("42"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAcquireLeadershipForOnlyOneLease() {
+        final RedisLeaderElection first = new RedisLeaderElection(redissonClient);
+        final RedisLeaderElection second = new RedisLeaderElection(redissonClient);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final LeadershipLease firstLease = first.acquireLeadership("acquireLeadership", listener(acquired, new CountDownLatch(1)));
+        await().atMost(5, SECONDS).until(firstLease::isLeader);
+
+        final LeadershipLease secondLease = second.acquireLeadership("acquireLeadership", listener(new CountDownLatch(1), new CountDownLatch(1)));
+
+        await().pollDelay(500, MILLISECONDS).atMost(5, SECONDS).until(() -> !secondLease.isLeader());
+        assertThat(acquired.getCount(), is(0L));
+        firstLease.close();
+        secondLease.close();
+    }
+
+    @Test
+    public void shouldHandOverLeadershipWhenLeaseIsClosed() {
+        final RedisLeaderElection first = new RedisLeaderElection(redissonClient, Executors.newCachedThreadPool(), Duration.ofSeconds(3));
+        final RedisLeaderElection second = new RedisLeaderElection(redissonClient, Executors.newCachedThreadPool(), Duration.ofSeconds(3));
+        final CountDownLatch firstRevoked = new CountDownLatch(1);
+        final CountDownLatch secondAcquired = new CountDownLatch(1);
+        final LeadershipLease firstLease = first.acquireLeadership("handOverLeadership", listener(new CountDownLatch(1), firstRevoked));
+        await().atMost(5, SECONDS).until(firstLease::isLeader);
+        final LeadershipLease secondLease = second.acquireLeadership("handOverLeadership", listener(secondAcquired, new CountDownLatch(1)));
+
+        firstLease.close();
+
+        await().atMost(5, SECONDS).until(secondLease::isLeader);
+        assertThat(firstLease.isLeader(), is(false));
+        assertThat(firstRevoked.getCount(), is(0L));
+        assertThat(secondAcquired.getCount(), is(0L));
+        secondLease.close();
+    }
+
+    @Test
+    public void shouldReleaseLeadershipWhenClosed() {
+        final RedisLeaderElection first = new RedisLeaderElection(redissonClient, Executors.newCachedThreadPool(), Duration.ofSeconds(3));
+        final RedisLeaderElection second = new RedisLeaderElection(redissonClient, Executors.newCachedThreadPool(), Duration.ofSeconds(3));
+        final CountDownLatch firstRevoked = new CountDownLatch(1);
+        final LeadershipLease firstLease = first.acquireLeadership("closeLeaderElection", listener(new CountDownLatch(1), firstRevoked));
+        await().atMost(5, SECONDS).until(firstLease::isLeader);
+        final LeadershipLease secondLease = second.acquireLeadership("closeLeaderElection", listener(new CountDownLatch(1), new CountDownLatch(1)));
+
+        first.close();
+
+        await().atMost(5, SECONDS).until(secondLease::isLeader);
+        assertThat(firstLease.isLeader(), is(false));
+        assertThat(firstRevoked.getCount(), is(0L));
+        second.close();
+    }
+
+    @Test
+    public void shouldKeepLeadershipIfRenewingFailsBeforeLeaseExpires() {
+        // given
+        final RScript script = mock(RScript.class);
+        final RFuture<Long> renewed = RedissonPromise.newSucceededFuture(1L);
+        final RFuture<Long> failed = RedissonPromise.newFailedFuture(new RedisTimeoutException("some timeout"));
+        when(script.<Long>evalAsync(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any()))
+                .thenReturn(renewed, failed, renewed);
+        final RedisLeaderElection leaderElection = new RedisLeaderElection(redissonClientWith(script), Executors.newCachedThreadPool(), Duration.ofMillis(900));
+        final CountDownLatch revoked = new CountDownLatch(1);
+
+        // when
+        final LeadershipLease lease = leaderElection.acquireLeadership("failingRenewal", listener(new CountDownLatch(1), revoked));
+
+        // then
+        await().atMost(5, SECONDS).until(lease::isLeader);
+        verifyEvalAsync(script, 4);
+        assertThat(lease.isLeader(), is(true));
+        assertThat(revoked.getCount(), is(1L));
+        leaderElection.close();
+    }
+
+    @Test
+    public void shouldReacquireLeadershipAfterLeaseExpiredBecauseOfFailures() {
+        // given
+        final RScript script = mock(RScript.class);
+        final RFuture<Long> acquired = RedissonPromise.newSucceededFuture(1L);
+        final RFuture<Long> failed = RedissonPromise.newFailedFuture(new RedisTimeoutException("some timeout"));
+        when(script.<Long>evalAsync(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any()))
+                .thenReturn(acquired, failed, failed, acquired);
+        final RedisLeaderElection leaderElection = new RedisLeaderElection(redissonClientWith(script), Executors.newCachedThreadPool(), Duration.ofMillis(900));
+        final CountDownLatch reacquired = new CountDownLatch(2);
+        final CountDownLatch revoked = new CountDownLatch(1);
+
+        // when
+        final LeadershipLease lease = leaderElection.acquireLeadership("expiredLease", listener(reacquired, revoked));
+
+        // then
+        await().atMost(5, SECONDS).until(() -> reacquired.getCount() == 0L);
+        assertThat(revoked.getCount(), is(0L));
+        assertThat(lease.isLeader(), is(true));
+        leaderElection.close();
+    }
+
+    private RedissonClient redissonClientWith(final RScript script) {
+        final RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getScript(any(Codec.class))).thenReturn(script);
+        return redissonClient;
+    }
+
+    private void verifyEvalAsync(final RScript script, final int times) {
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(script, atLeast(times))
+                .evalAsync(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any()));
+    }
+
+    private LeadershipListener listener(final CountDownLatch acquired, final CountDownLatch revoked) {
+        return new LeadershipListener() {
+            @Override
+            public void onLeadershipAcquired(final String lockName) {
+                acquired.countDown();
+            }
+
+            @Override
+            public void onLeadershipRevoked(final String lockName) {
+                revoked.countDown();
+            }
+        };
+    }
+}
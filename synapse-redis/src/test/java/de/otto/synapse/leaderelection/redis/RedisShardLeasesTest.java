@@ -0,0 +1,162 @@
+package de.otto.synapse.leaderelection.redis;
+
+import de.otto.synapse.testsupport.redis.EmbededRedis;
+import org.hamcrest.Matcher;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@EnableAutoConfiguration
+@ComponentScan(
+        basePackages = {"de.otto.synapse.leaderelection"})
+@SpringBootTest(
+        properties = {
+                "spring.redis.server=localhost",
+                "spring.redis.port=6379"
+        },
+        classes = {
+                RedisShardLeasesTest.class,
+                EmbededRedis.class
+        })
+public class RedisShardLeasesTest {
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    private final List<RedisShardLeases> shardLeases = new ArrayList<>();
+    private final List<RedisLeaderElection> leaderElections = new ArrayList<>();
+
+    @After
+    public void closeShardLeases() {
+        shardLeases.forEach(RedisShardLeases::close);
+        leaderElections.forEach(RedisLeaderElection::close);
+    }
+
+    @Test
+    public void shouldLeaseAllShardsToSingleInstance() {
+        final RedisShardLeases leases = shardLeases("first");
+        leases.acquire("single-instance", asList("s1", "s2"));
+        awaitLeasedShards(leases, "single-instance", containsInAnyOrder("s1", "s2"));
+    }
+
+    @Test
+    public void shouldSplitShardsBetweenInstances() {
+        final RedisShardLeases first = shardLeases("first");
+        final RedisShardLeases second = shardLeases("second");
+        first.acquire("split", asList("s1", "s2", "s3", "s4"));
+        second.acquire("split", asList("s1", "s2", "s3", "s4"));
+
+        awaitLeasedShards(first, "split", hasSize(2));
+        awaitLeasedShards(second, "split", hasSize(2));
+        assertThat(first.leasedShards("split"), everyItem(not(isIn(second.leasedShards("split")))));
+    }
+
+    @Test
+    public void shouldTakeOverShardsOfLeavingInstance() {
+        final RedisShardLeases first = shardLeases("first");
+        final RedisShardLeases second = shardLeases("second");
+        first.acquire("handover", asList("s1", "s2"));
+        second.acquire("handover", asList("s1", "s2"));
+        awaitLeasedShards(second, "handover", hasSize(1));
+
+        second.release("handover");
+
+        assertThat(second.leasedShards("handover"), is(empty()));
+        awaitLeasedShards(first, "handover", containsInAnyOrder("s1", "s2"));
+    }
+
+    @Test
+    public void shouldReturnCachedLeasedShards() {
+        final RedisShardLeases first = shardLeases("first", Duration.ofSeconds(30));
+        final RedisShardLeases second = shardLeases("second", Duration.ofSeconds(30));
+        first.acquire("cached", asList("s1", "s2"));
+        awaitLeasedShards(first, "cached", containsInAnyOrder("s1", "s2"));
+
+        second.acquire("cached", asList("s1", "s2"));
+        awaitLeasedShards(second, "cached", hasSize(1));
+
+        assertThat(first.leasedShards("cached"), containsInAnyOrder("s1", "s2"));
+    }
+
+    @Test
+    public void shouldHandOverCheckpoints() {
+        final RedisShardLeases first = shardLeases("first");
+        final RedisShardLeases second = shardLeases("second");
+        first.acquire("checkpoints", singletonList("s1"));
+        awaitLeasedShards(first, "checkpoints", contains("s1"));
+
+        first.checkpoint("checkpoints", fromPosition("s1", "42"));
+        final long written = first.flushCheckpoints("checkpoints");
+
+        assertThat(written, is(1L));
+        assertThat(second.getCheckpoint("checkpoints", "s1").get(), is(fromPosition("s1", "42")));
+        assertThat(second.getCheckpoint("checkpoints", "s2").isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldNotOverwriteCheckpointsOfNewOwner() {
+        final RedisShardLeases first = shardLeases("first");
+        final RedisShardLeases second = shardLeases("second");
+        first.acquire("stale-owner", singletonList("s1"));
+        awaitLeasedShards(first, "stale-owner", contains("s1"));
+        first.checkpoint("stale-owner", fromPosition("s1", "1"));
+        first.release("stale-owner");
+        second.acquire("stale-owner", singletonList("s1"));
+        awaitLeasedShards(second, "stale-owner", contains("s1"));
+        second.checkpoint("stale-owner", fromPosition("s1", "42"));
+        second.flushCheckpoints("stale-owner");
+
+        // the reader of the previous owner has not yet stopped:
+        first.checkpoint("stale-owner", fromPosition("s1", "7"));
+        final long written = first.flushCheckpoints("stale-owner");
+
+        assertThat(written, is(0L));
+        assertThat(second.getCheckpoint("stale-owner", "s1").get(), is(fromPosition("s1", "42")));
+    }
+
+    private void awaitLeasedShards(final RedisShardLeases leases,
+                                   final String channelName,
+                                   final Matcher<? super Set<String>> matcher) {
+        await()
+                .atMost(10, SECONDS)
+                .until(() -> leases.leasedShards(channelName), matcher);
+    }
+
+    private RedisShardLeases shardLeases(final String instanceId) {
+        return shardLeases(instanceId, Duration.ofSeconds(3));
+    }
+
+    private RedisShardLeases shardLeases(final String instanceId, final Duration leaseDuration) {
+        final RedisLeaderElection leaderElection = new RedisLeaderElection(redissonClient);
+        leaderElections.add(leaderElection);
+        final RedisShardLeases leases = new RedisShardLeases(
+                redissonClient,
+                leaderElection,
+                instanceId,
+                leaseDuration,
+                Clock.systemDefaultZone());
+        shardLeases.add(leases);
+        return leases;
+    }
+}
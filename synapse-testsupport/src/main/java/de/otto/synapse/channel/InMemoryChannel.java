@@ -1,7 +1,6 @@
 package de.otto.synapse.channel;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.AbstractMessageLogReceiverEndpoint;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
@@ -61,15 +60,12 @@ public class InMemoryChannel extends AbstractMessageLogReceiverEndpoint implemen
     public synchronized void send(final TextMessage message) {
         final int position = eventQueue.size();
         LOG.info("Sending {} to {} at position{}", message, getChannelName(), position);
-        final ImmutableMap<String, String> attributes = ImmutableMap.<String, String>builder()
-                .putAll(message.getHeader().getAll())
-                .put("synapse_msg_arrival_ts", now().toString())
-                .build();
+        final Header header = Header
+                .of(fromPosition(getChannelName(), String.valueOf(position)), message.getHeader().getAll())
+                .withAttribute("synapse_msg_arrival_ts", now());
         eventQueue.add(TextMessage.of(
                 message.getKey(),
-                Header.of(
-                        fromPosition(getChannelName(), String.valueOf(position)),
-                        attributes),
+                header,
                 message.getPayload()));
     }
 